@@ -0,0 +1,126 @@
+package com.shop.config;
+
+import com.shop.exception.PasswordHashRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// BCrypt 해시 계산을 요청 스레드가 아닌 크기가 제한된 전용 스레드 풀에서 실행하는 PasswordEncoder 입니다.
+//
+// BCrypt 는 일부러 CPU 를 많이 사용하도록 만든 해시 함수라서, 로그인 요청이 몰리면 요청 스레드들이 모든 코어를 차지하고
+// 상품 조회 같은 다른 요청의 응답 시간이 함께 늘어납니다. 해시 계산은 passwordHashThreads 개의 스레드에서만 실행하고,
+// 대기열(passwordHashQueueCapacity)이 가득 차거나 passwordHashTimeoutMillis 안에 끝나지 않으면 PasswordHashRejectedException 을 발생시킵니다.
+//
+// 저장된 해시의 cost 가 설정한 bcryptStrength 와 다르면 upgradeEncoding 이 true 를 반환하여,
+// 로그인에 성공했을 때 새 cost 로 다시 해시한 비밀번호가 저장되도록 합니다. (MemberService.updatePassword)
+//
+// 해시 계산 시간(password.hash), 대기열에서 기다린 시간(password.hash.wait), 거절 횟수(password.hash.rejected)를
+// /actuator/metrics 로 확인할 수 있습니다.
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    private final BCryptPasswordEncoder delegate;
+    private final int strength;
+    private final long timeoutMillis;
+    private final ThreadPoolExecutor executor;
+
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Timer waitTimer;
+    private final Counter rejectedCounter;
+
+    public BoundedPasswordEncoder(int strength, int threads, int queueCapacity, long timeoutMillis, MeterRegistry meterRegistry) {
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.strength = strength;
+        this.timeoutMillis = timeoutMillis;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        this.encodeTimer = Timer.builder("password.hash").tag("operation", "encode").register(meterRegistry);
+        this.matchesTimer = Timer.builder("password.hash").tag("operation", "matches").register(meterRegistry);
+        this.waitTimer = Timer.builder("password.hash.wait").register(meterRegistry);
+        this.rejectedCounter = Counter.builder("password.hash.rejected").register(meterRegistry);
+        meterRegistry.gauge("password.hash.queue", executor.getQueue(), queue -> queue.size());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    // 저장된 해시의 cost 가 현재 설정과 다르면 다시 해시해야 합니다.
+    // BCrypt 해시는 "$2a$10$..." 처럼 네 번째 문자부터 두 자리 cost 를 담고 있습니다.
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$'
+                || encodedPassword.charAt(3) != '$' || encodedPassword.charAt(6) != '$') {
+            return false;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6)) != strength;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private <T> T execute(Timer timer, Callable<T> task) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                waitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return timer.recordCallable(task);
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new PasswordHashRejectedException("요청이 많아 처리하지 못했습니다. 잠시 후 다시 시도해 주세요.");
+        }
+
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // 대기열에서 아직 시작하지 못한 작업은 취소하여 스레드를 사용하지 않도록 합니다.
+            future.cancel(false);
+            rejectedCounter.increment();
+            throw new PasswordHashRejectedException("요청이 많아 처리하지 못했습니다. 잠시 후 다시 시도해 주세요.");
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashRejectedException("비밀번호 확인이 중단되었습니다.");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.shop.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.Collections;
+
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+// 캐시 기능을 활성화합니다.
+// 캐시 처리가 트랜잭션보다 먼저 실행되도록 순서를 지정하여
+// 캐시에 데이터가 있을 때는 트랜잭션(데이터베이스 커넥션)을 시작하지 않도록 합니다.
+public class CacheConfig {
+
+    // 상품 상세 페이지에서 사용하는 ItemFormDto 를 상품 아이디를 키로 저장하는 캐시 이름입니다.
+    public static final String ITEM_DTL = "itemDtl";
+
+    // 메인 페이지의 전체 상품 개수를 검색 조건을 키로 저장하는 캐시 이름입니다.
+    public static final String MAIN_ITEM_COUNT = "mainItemCount";
+
+    // 로그인할 때 조회한 회원 정보를 이메일을 키로 저장하는 캐시 이름입니다. (MemberUserCache)
+    public static final String USER_DETAILS = "userDetails";
+
+    // application.properties 에 설정한 캐시별 설정 값을 읽어옵니다.
+    // 예) maximumSize=10000,expireAfterWrite=10m,recordStats
+    @Value("${itemDtlCacheSpec}")
+    String itemDtlCacheSpec;
+
+    @Value("${mainItemCountCacheSpec}")
+    String mainItemCountCacheSpec;
+
+    @Value("${userDetailsCacheSpec}")
+    String userDetailsCacheSpec;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager();
+
+        // 미리 등록한 캐시만 사용하도록 동적 캐시 생성을 막습니다.
+        caffeineCacheManager.setCacheNames(Collections.emptyList());
+
+        // 캐시마다 최대 개수와 만료 시간이 다르므로 각각의 설정으로 캐시를 등록합니다.
+        caffeineCacheManager.registerCustomCache(ITEM_DTL, Caffeine.from(itemDtlCacheSpec).build());
+        caffeineCacheManager.registerCustomCache(MAIN_ITEM_COUNT, Caffeine.from(mainItemCountCacheSpec).build());
+        caffeineCacheManager.registerCustomCache(USER_DETAILS, Caffeine.from(userDetailsCacheSpec).build());
+
+        // 트랜잭션 안에서 캐시를 삭제하면 커밋되기 전에 다른 요청이 이전 데이터를 다시 캐시에 넣을 수 있습니다.
+        // TransactionAwareCacheManagerProxy 로 감싸서 트랜잭션이 커밋된 후에 캐시를 삭제하도록 합니다.
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+    }
+}
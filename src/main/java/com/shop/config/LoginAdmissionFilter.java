@@ -0,0 +1,40 @@
+package com.shop.config;
+
+import com.shop.service.LoginAdmissionService;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+// 로그인 요청(POST /members/login)이 UsernamePasswordAuthenticationFilter 에 도달하기 전에
+// 접속 IP 별 요청 속도와 이메일별 로그인 실패 횟수를 확인합니다. 허용된 값을 넘은 요청은 비밀번호를 확인하지 않고 안내 페이지로 이동시킵니다.
+// 프록시 뒤에서 실행하는 경우에는 server.forward-headers-strategy 를 설정해야 getRemoteAddr 가 실제 접속 IP 를 반환합니다.
+public class LoginAdmissionFilter extends OncePerRequestFilter {
+
+    private final RequestMatcher loginRequestMatcher = new AntPathRequestMatcher("/members/login", "POST");
+    private final LoginAdmissionService loginAdmissionService;
+
+    public LoginAdmissionFilter(LoginAdmissionService loginAdmissionService) {
+        this.loginAdmissionService = loginAdmissionService;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !loginRequestMatcher.matches(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!loginAdmissionService.tryAcquire(request.getRemoteAddr(), request.getParameter("email"))) {
+            response.sendRedirect(request.getContextPath() + "/members/login/throttled");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
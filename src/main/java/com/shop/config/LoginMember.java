@@ -0,0 +1,13 @@
+package com.shop.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// 컨트롤러 메소드의 Long 파라미터에 선언하면 현재 로그인한 회원의 아이디가 전달됩니다.
+// LoginMemberArgumentResolver 가 값을 채워 줍니다.
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface LoginMember {
+}
@@ -0,0 +1,59 @@
+package com.shop.config;
+
+import com.shop.entity.Member;
+import com.shop.repository.MemberRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+// @LoginMember 가 선언된 파라미터에 현재 로그인한 회원의 아이디를 전달합니다.
+//
+// 로그인할 때 만들어진 MemberUserDetails 에 회원 아이디가 들어 있으므로 데이터베이스를 조회하지 않습니다.
+// 다른 방식으로 인증된 경우(테스트의 @WithMockUser 등)에만 이메일로 회원을 조회하며,
+// 조회한 아이디는 요청 속성에 담아서 같은 요청 안에서는 다시 조회하지 않습니다.
+// 로그인하지 않은 요청에는 null 을 전달합니다.
+@Component
+@RequiredArgsConstructor
+public class LoginMemberArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private static final String MEMBER_ID_ATTRIBUTE = LoginMemberArgumentResolver.class.getName() + ".memberId";
+
+    private final MemberRepository memberRepository;
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(LoginMember.class) && Long.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+
+        if (authentication.getPrincipal() instanceof MemberUserDetails) {
+            return ((MemberUserDetails) authentication.getPrincipal()).getMemberId();
+        }
+
+        Long memberId = (Long) webRequest.getAttribute(MEMBER_ID_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (memberId == null) {
+            Member member = memberRepository.findByEmail(authentication.getName());
+            if (member == null) {
+                return null;
+            }
+            memberId = member.getId();
+            webRequest.setAttribute(MEMBER_ID_ATTRIBUTE, memberId, RequestAttributes.SCOPE_REQUEST);
+        }
+        return memberId;
+    }
+}
@@ -0,0 +1,60 @@
+package com.shop.config;
+
+import com.shop.constant.Role;
+import org.springframework.cache.Cache;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+
+// 로그인할 때 MemberService.loadUserByUsername 으로 조회한 회원 정보를 이메일을 키로 저장하는 UserCache 입니다.
+// DaoAuthenticationProvider 가 캐시에 있는 회원 정보로 비밀번호를 먼저 확인하고, 일치하지 않으면 데이터베이스에서 다시 조회합니다.
+//
+// 로그인에 성공하면 스프링 시큐리티가 인증 정보에 담긴 UserDetails 의 비밀번호를 지우므로(eraseCredentials)
+// UserDetails 객체를 그대로 저장하지 않고 회원 정보 값만 복사해 두었다가 조회할 때마다 새 MemberUserDetails 를 만들어 반환합니다.
+// 회원의 비밀번호, role, 이메일이 변경되면 MemberUserCacheListener 가 캐시에서 삭제합니다.
+public class MemberUserCache implements UserCache {
+
+    private final Cache cache;
+
+    public MemberUserCache(Cache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        CachedMember cachedMember = cache.get(username, CachedMember.class);
+        if (cachedMember == null) {
+            return null;
+        }
+        return new MemberUserDetails(cachedMember.memberId, cachedMember.email, cachedMember.password, cachedMember.role);
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        if (!(user instanceof MemberUserDetails) || user.getPassword() == null) {
+            return;
+        }
+
+        MemberUserDetails memberUserDetails = (MemberUserDetails) user;
+        cache.put(user.getUsername(), new CachedMember(memberUserDetails.getMemberId(), memberUserDetails.getUsername(),
+                                                       memberUserDetails.getPassword(), memberUserDetails.getRole()));
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+        cache.evict(username);
+    }
+
+    private static class CachedMember {
+        private final Long memberId;
+        private final String email;
+        private final String password;
+        private final Role role;
+
+        private CachedMember(Long memberId, String email, String password, Role role) {
+            this.memberId = memberId;
+            this.email = email;
+            this.password = password;
+            this.role = role;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.shop.config;
+
+import com.shop.entity.Member;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.security.core.userdetails.UserCache;
+
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+// 회원 정보가 변경되거나 삭제되면 로그인 정보 캐시(MemberUserCache)에서 해당 회원을 삭제하는 엔티티 리스너입니다.
+// 캐시는 트랜잭션을 사용하는 캐시이므로 변경된 회원 정보가 커밋된 후에 삭제됩니다.
+//
+// 이메일이 변경된 경우에는 이전 이메일로 저장된 항목도 삭제해야 하므로, 회원을 조회하거나 저장할 때의 이메일을 엔티티에 보관해 둡니다.
+// 리스너는 Hibernate 가 스프링 빈으로 생성하며, 엔티티 매니저 팩토리가 만들어질 때 생성되므로 UserCache 는 사용할 때 찾아옵니다.
+public class MemberUserCacheListener {
+
+    private final ObjectProvider<UserCache> userCacheProvider;
+
+    public MemberUserCacheListener(ObjectProvider<UserCache> userCacheProvider) {
+        this.userCacheProvider = userCacheProvider;
+    }
+
+    @PostLoad
+    @PostPersist
+    public void rememberEmail(Member member) {
+        member.setLoadedEmail(member.getEmail());
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void evict(Member member) {
+        UserCache userCache = userCacheProvider.getIfAvailable();
+        if (userCache != null) {
+            if (member.getLoadedEmail() != null && !member.getLoadedEmail().equals(member.getEmail())) {
+                userCache.removeUserFromCache(member.getLoadedEmail());
+            }
+            if (member.getEmail() != null) {
+                userCache.removeUserFromCache(member.getEmail());
+            }
+        }
+        member.setLoadedEmail(member.getEmail());
+    }
+}
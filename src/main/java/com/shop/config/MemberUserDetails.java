@@ -0,0 +1,28 @@
+package com.shop.config;
+
+import com.shop.constant.Role;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.User;
+
+// 로그인한 회원의 아이디와 role 을 함께 담는 UserDetails 입니다.
+// 세션에 저장된 인증 정보에서 회원 아이디를 바로 꺼낼 수 있으므로,
+// 요청마다 이메일로 회원을 다시 조회하지 않고 회원 아이디로 주문과 장바구니를 처리할 수 있습니다.
+public class MemberUserDetails extends User {
+
+    private final Long memberId;
+    private final Role role;
+
+    public MemberUserDetails(Long memberId, String email, String password, Role role) {
+        super(email, password, AuthorityUtils.createAuthorityList("ROLE_" + role));
+        this.memberId = memberId;
+        this.role = role;
+    }
+
+    public Long getMemberId() {
+        return memberId;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+}
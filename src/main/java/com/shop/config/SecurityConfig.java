@@ -1,16 +1,26 @@
 package com.shop.config;
 
+import com.shop.exception.PasswordHashRejectedException;
+import com.shop.service.LoginAdmissionService;
 import com.shop.service.MemberService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.ExceptionMappingAuthenticationFailureHandler;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
+import java.util.Collections;
+
 @Configuration
 @EnableWebSecurity // SpringSecurityFilterChain 이 자동으로 포함하여 보안 설정 커스터마이징
 public class SecurityConfig {
@@ -18,6 +28,9 @@ public class SecurityConfig {
     @Autowired
     MemberService memberService;
 
+    @Autowired
+    LoginAdmissionService loginAdmissionService;
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         // http 요청에 대한 보안을 설정합니다.
@@ -33,7 +46,8 @@ public class SecurityConfig {
                 .usernameParameter("email")
 
                 // 로그인 실패 시 이동할 URL 을 설정합니다.
-                .failureUrl("/members/login/error")
+                // 비밀번호 해시 작업이 밀려서 확인하지 못한 경우에는 비밀번호가 틀린 경우와 구분하여 안내합니다.
+                .failureHandler(loginFailureHandler())
 
                 .and()
                 .logout()
@@ -52,12 +66,21 @@ public class SecurityConfig {
                 // 메인 페이지, 회원 관련 URL, 뒤에서 만들 상품 상세 페이지, 상품 이미지를 불러오는 경로가 이에 해당합니다.
                 .mvcMatchers("/", "/members/**", "/item/**", "/images/**").permitAll()
 
+                // 검색창 자동완성 API 도 로그인 없이 사용할 수 있습니다.
+                .mvcMatchers("/api/items/suggest").permitAll()
+
                 // /admin 으로 시작하는 경로는 해당 계정이 ADMIN Role 일 경우에만 접근 가능하도록 설정합니다.
                 .mvcMatchers("/admin/**").hasRole("ADMIN")
 
+                // 캐시 적중률 등 애플리케이션 지표를 확인하는 /actuator 경로도 ADMIN Role 일 경우에만 접근 가능합니다.
+                .mvcMatchers("/actuator/**").hasRole("ADMIN")
+
                 // .mvcMatchers() 로 설정해준 경로를 제외한 나머지 경로들은 모두 인증을 요구하도록 설정합니다.
                 .anyRequest().authenticated();
 
+        // 로그인 요청이 비밀번호 확인에 도달하기 전에 접속 IP 별 요청 속도와 이메일별 로그인 실패 횟수를 제한합니다.
+        http.addFilterBefore(new LoginAdmissionFilter(loginAdmissionService), UsernamePasswordAuthenticationFilter.class);
+
         // 인증되지 않은 사용자가 리소스에 접근하였을 때 수행되는 핸들러를 등록합니다.
         http.exceptionHandling()
                 .authenticationEntryPoint(new CustomAuthenticationEntryPoint());
@@ -65,12 +88,47 @@ public class SecurityConfig {
         return http.build();
     }
 
+    private ExceptionMappingAuthenticationFailureHandler loginFailureHandler() {
+        ExceptionMappingAuthenticationFailureHandler failureHandler = new ExceptionMappingAuthenticationFailureHandler();
+        failureHandler.setDefaultFailureUrl("/members/login/error");
+        failureHandler.setExceptionMappings(Collections.singletonMap(
+                PasswordHashRejectedException.class.getName(), "/members/login/throttled"));
+        return failureHandler;
+    }
+
+    @Bean
+    public UserCache userCache(CacheManager cacheManager) {
+        // 로그인할 때마다 이메일로 회원을 조회하지 않도록 조회한 회원 정보를 캐시에 보관합니다.
+        // 캐시 크기와 보관 시간은 userDetailsCacheSpec 으로 설정하며, 적중률은 /actuator/metrics 의 cache.gets 로 확인할 수 있습니다.
+        return new MemberUserCache(cacheManager.getCache(CacheConfig.USER_DETAILS));
+    }
+
+    @Bean
+    public DaoAuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder, UserCache userCache) {
+        // 로그인 처리에 사용할 AuthenticationProvider 를 직접 등록하여 UserCache 를 연결합니다.
+        // BCrypt cost 가 변경된 비밀번호를 다시 해시하여 저장하도록 MemberService 를 UserDetailsPasswordService 로도 등록합니다.
+        DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider();
+        authenticationProvider.setUserDetailsService(memberService);
+        authenticationProvider.setUserDetailsPasswordService(memberService);
+        authenticationProvider.setPasswordEncoder(passwordEncoder);
+        authenticationProvider.setUserCache(userCache);
+        return authenticationProvider;
+    }
+
     @Bean
-    public PasswordEncoder passwordEncoder() {
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                           @Value("${bcryptStrength:10}") int strength,
+                                           @Value("${passwordHashThreads:0}") int threads,
+                                           @Value("${passwordHashQueueCapacity:100}") int queueCapacity,
+                                           @Value("${passwordHashTimeoutMillis:3000}") long timeoutMillis) {
         // 비밀번호를 DB 에 그대로 저장했을 경우, DB 가 해킹당하면 고객의 회원 정보가 노출됩니다.
-        // 그래서 BCryptPasswordEncoder 의 해시 함수를 이용하여 비밀번호를 암호화하여 저장합니다.
-        // BCryptPasswordEncoder 를 빈으로 등록하여 사용합니다.
-        return new BCryptPasswordEncoder();
+        // 그래서 BCrypt 해시 함수를 이용하여 비밀번호를 암호화하여 저장합니다.
+        // 해시 계산이 요청 스레드와 CPU 를 모두 차지하지 않도록 크기가 제한된 스레드 풀에서 실행하는 BoundedPasswordEncoder 를 사용합니다.
+        // passwordHashThreads 를 설정하지 않으면 CPU 코어 수의 절반을 사용합니다.
+        if (threads <= 0) {
+            threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        }
+        return new BoundedPasswordEncoder(strength, threads, queueCapacity, timeoutMillis, meterRegistry);
     }
 
 }
\ No newline at end of file
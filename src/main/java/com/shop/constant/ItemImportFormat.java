@@ -0,0 +1,8 @@
+package com.shop.constant;
+
+// 상품 대량 등록 파일의 형식입니다.
+// CSV: 첫 줄에 컬럼명(itemNm,price,stockNumber,itemDetail,itemSellStatus,imgUrl)이 있는 CSV 파일
+// JSON_LINES: 한 줄에 상품 하나씩 JSON 객체로 작성한 파일
+public enum ItemImportFormat {
+    CSV, JSON_LINES
+}
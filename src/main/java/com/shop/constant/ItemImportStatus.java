@@ -0,0 +1,7 @@
+package com.shop.constant;
+
+// 상품 대량 등록 작업의 처리 상태입니다.
+// RUNNING: 등록 대기 중이거나 등록 중, COMPLETED: 파일을 끝까지 읽고 등록 완료, FAILED: 파일을 읽지 못하는 등의 이유로 중단
+public enum ItemImportStatus {
+    RUNNING, COMPLETED, FAILED
+}
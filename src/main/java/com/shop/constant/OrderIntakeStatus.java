@@ -0,0 +1,7 @@
+package com.shop.constant;
+
+// 주문 접수 대기열에 들어간 주문의 처리 상태입니다.
+// PENDING: 처리 대기 중, COMPLETED: 주문 완료, FAILED: 재고 부족 등으로 주문 실패
+public enum OrderIntakeStatus {
+    PENDING, COMPLETED, FAILED
+}
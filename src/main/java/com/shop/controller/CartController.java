@@ -1,9 +1,14 @@
 package com.shop.controller;
 
+import com.shop.config.LoginMember;
 import com.shop.dto.CartDetailDto;
 import com.shop.dto.CartItemDto;
 import com.shop.dto.CartOrderDto;
+import com.shop.exception.DuplicateOrderException;
+import com.shop.exception.IdempotencyKeyReusedException;
 import com.shop.service.CartService;
+import com.shop.service.ItemAdmissionService;
+import com.shop.service.OrderIdempotencyService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -14,7 +19,7 @@ import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
-import java.security.Principal;
+import java.util.ArrayList;
 import java.util.List;
 
 @Controller
@@ -22,9 +27,11 @@ import java.util.List;
 public class CartController {
 
     private final CartService cartService;
+    private final ItemAdmissionService itemAdmissionService;
+    private final OrderIdempotencyService orderIdempotencyService;
 
     @PostMapping(value = "/cart")
-    public @ResponseBody ResponseEntity order(@RequestBody @Valid CartItemDto cartItemDto, BindingResult bindingResult, Principal principal) {
+    public @ResponseBody ResponseEntity order(@RequestBody @Valid CartItemDto cartItemDto, BindingResult bindingResult, @LoginMember Long memberId) {
 
         // 장바구니에 담을 상품 정보를 받는 cartItemDto 객체에 데이터 바인딩 시 에러가 있는지 검사합니다.
         if (bindingResult.hasErrors()) {
@@ -36,14 +43,22 @@ public class CartController {
             return new ResponseEntity<String>(sb.toString(), HttpStatus.BAD_REQUEST);
         }
 
-        // 현재 로그인한 회원의 이메일 정보를 변수에 저장합니다.
-        String email = principal.getName();
         Long cartItemId;
 
+        // 품절된 상품은 장바구니에 담지 않고 409(Conflict) 를 응답합니다.
+        // 요청이 너무 많으면 데이터베이스에 접근하지 않고 429(Too Many Requests) 를 응답합니다.
+        ItemAdmissionService.Admission admission = itemAdmissionService.check(cartItemDto.getItemId(), cartItemDto.getCount());
+        if (admission == ItemAdmissionService.Admission.SOLD_OUT) {
+            return new ResponseEntity<String>("품절된 상품입니다.", HttpStatus.CONFLICT);
+        }
+        if (admission == ItemAdmissionService.Admission.THROTTLED) {
+            return new ResponseEntity<String>("요청이 많아 처리하지 못했습니다. 잠시 후 다시 시도해 주세요.", HttpStatus.TOO_MANY_REQUESTS);
+        }
+
         try {
-            // 화면으로부터 넘어온 장바구니에 담을 상품 정보와 현재 로그인한 회원의 이메일 정보를 이용하여
+            // 화면으로부터 넘어온 장바구니에 담을 상품 정보와 현재 로그인한 회원의 아이디를 이용하여
             // 장바구니에 상품을 담는 로직을 호출합니다.
-            cartItemId = cartService.addCart(cartItemDto, email);
+            cartItemId = cartService.addCart(cartItemDto, memberId);
         } catch (Exception e) {
             return new ResponseEntity<String>(e.getMessage(), HttpStatus.BAD_REQUEST);
         }
@@ -53,10 +68,10 @@ public class CartController {
     }
 
     @GetMapping(value = "/cart")
-    public String orderHist(Principal principal, Model model) {
+    public String orderHist(@LoginMember Long memberId, Model model) {
 
-        // 현재 로그인한 사용자의 이메일 정보를 이용하여 장바구니에 담겨있는 상품 정보를 조회합니다.
-        List<CartDetailDto> cartDetailList = cartService.getCartList(principal.getName());
+        // 현재 로그인한 사용자의 아이디를 이용하여 장바구니에 담겨있는 상품 정보를 조회합니다.
+        List<CartDetailDto> cartDetailList = cartService.getCartList(memberId);
 
         // 조회한 장바구니 상품 정보를 뷰로 전달합니다.
         model.addAttribute("cartItems", cartDetailList);
@@ -66,13 +81,13 @@ public class CartController {
     // HTTP 메소드에서 PATCH 는 요청된 자원의 일부를 업데이트할 때 PATCH 를 사용합니다.
     // 장바구니 상품의 수량만 업데이트하기 때문에 @PatchMapping 을 사용하겠습니다.
     @PatchMapping(value = "/cartItem/{cartItemId}")
-    public @ResponseBody ResponseEntity updateCartItem(@PathVariable("cartItemId") Long cartItemId, int count, Principal principal) {
+    public @ResponseBody ResponseEntity updateCartItem(@PathVariable("cartItemId") Long cartItemId, int count, @LoginMember Long memberId) {
 
         // 장바구니에 담겨있는 상품의 개수를 0개 이하로,
         // 업데이트 요청을 할 때 에러 메세지를 담아서 반환합니다.
         if (count <= 0 ) {
             return new ResponseEntity<String>("최소 1개 이상 담아주세요", HttpStatus.BAD_REQUEST);
-        } else if (!cartService.validateCartItem(cartItemId, principal.getName())) { // 수정 권한을 체크합니다.
+        } else if (!cartService.validateCartItem(cartItemId, memberId)) { // 수정 권한을 체크합니다.
             return new ResponseEntity<String>("수정 권한이 없습니다.", HttpStatus.FORBIDDEN);
         }
 
@@ -84,10 +99,10 @@ public class CartController {
     // HTTP 메소드에서 DELETE 의 경우 요청된 자원을 삭제할 때 사용합니다.
     // 장바구니 상품을 삭제하기 때문에 @DeleteMapping 을 사용하겠습니다.
     @DeleteMapping(value = "/cartItem/{cartItemId}")
-    public @ResponseBody ResponseEntity deleteCartItem(@PathVariable("cartItemId") Long cartItemId, Principal principal) {
+    public @ResponseBody ResponseEntity deleteCartItem(@PathVariable("cartItemId") Long cartItemId, @LoginMember Long memberId) {
 
         // 수정 권한을 체크합니다.
-        if (!cartService.validateCartItem(cartItemId, principal.getName())) {
+        if (!cartService.validateCartItem(cartItemId, memberId)) {
             return new ResponseEntity<String>("수정 권한이 없습니다.", HttpStatus.FORBIDDEN);
         }
 
@@ -97,7 +112,8 @@ public class CartController {
     }
 
     @PostMapping(value = "/cart/orders")
-    public @ResponseBody ResponseEntity orderCartItem(@RequestBody CartOrderDto cartOrderDto, Principal principal) {
+    public @ResponseBody ResponseEntity orderCartItem(@RequestBody CartOrderDto cartOrderDto, @LoginMember Long memberId,
+                                                      @RequestHeader(value = OrderIdempotencyService.HEADER_NAME, required = false) String idempotencyKey) {
 
         List<CartOrderDto> cartOrderDtoList = cartOrderDto.getCartOrderDtoList();
 
@@ -106,15 +122,47 @@ public class CartController {
             return new ResponseEntity<String>("주문할 상품을 선택해주세요", HttpStatus.FORBIDDEN);
         }
 
+        // Idempotency-Key 로 이미 처리된 주문 요청이면 처음 만들어진 주문 번호를 응답합니다.
+        // 같은 키로 처음과 다른 장바구니 상품을 주문하면 422(Unprocessable Entity) 를 응답합니다.
+        // 주문한 장바구니 상품은 삭제되므로 주문 권한을 체크하기 전에 확인합니다.
+        String requestHash = null;
+        if (idempotencyKey != null) {
+            if (!OrderIdempotencyService.isValidKey(idempotencyKey)) {
+                return new ResponseEntity<String>("Idempotency-Key 는 1자 이상 " + OrderIdempotencyService.MAX_KEY_LENGTH + "자 이하로 보내 주세요.", HttpStatus.BAD_REQUEST);
+            }
+
+            requestHash = orderIdempotencyService.hashRequest(cartOrderDtoList);
+            try {
+                Long savedOrderId = orderIdempotencyService.findOrderId(memberId, idempotencyKey, requestHash);
+                if (savedOrderId != null) {
+                    return new ResponseEntity<Long>(savedOrderId, HttpStatus.OK);
+                }
+            } catch (IdempotencyKeyReusedException e) {
+                return new ResponseEntity<String>(e.getMessage(), HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+        }
+
         // 주문 권한을 체크합니다.
+        // 선택한 장바구니 상품들이 모두 현재 회원의 것인지 쿼리 한 번으로 확인합니다.
+        List<Long> cartItemIds = new ArrayList<>();
         for (CartOrderDto cartOrder : cartOrderDtoList) {
-            if (!cartService.validateCartItem(cartOrder.getCartItemId(), principal.getName())) {
-                return new ResponseEntity<String>("주문 권한이 없습니다.", HttpStatus.FORBIDDEN);
-            }
+            cartItemIds.add(cartOrder.getCartItemId());
+        }
+        if (!cartService.validateCartItems(cartItemIds, memberId)) {
+            return new ResponseEntity<String>("주문 권한이 없습니다.", HttpStatus.FORBIDDEN);
         }
 
         // 주문 로직 호출 결과 생성된 주문 번호를 반환 받습니다.
-        Long orderId = cartService.orderCartItem(cartOrderDtoList, principal.getName());
+        Long orderId;
+        try {
+            orderId = (idempotencyKey == null) ? cartService.orderCartItem(cartOrderDtoList, memberId)
+                    : orderIdempotencyService.order(memberId, idempotencyKey, requestHash,
+                                                    () -> cartService.orderCartItem(cartOrderDtoList, memberId));
+        } catch (DuplicateOrderException e) {
+            orderId = e.getOrderId();
+        } catch (IdempotencyKeyReusedException e) {
+            return new ResponseEntity<String>(e.getMessage(), HttpStatus.UNPROCESSABLE_ENTITY);
+        }
 
         // 생성된 주문 번호와 요청이 성공했다는 HTTP 응답 상태 코드를 반환합니다.
         return new ResponseEntity<Long>(orderId, HttpStatus.OK);
@@ -1,13 +1,23 @@
 package com.shop.controller;
 
+import com.shop.constant.ItemImportFormat;
 import com.shop.dto.ItemFormDto;
+import com.shop.dto.ItemImportJobDto;
 import com.shop.dto.ItemSearchDto;
+import com.shop.dto.ItemSuggestDto;
 import com.shop.entity.Item;
+import com.shop.service.ItemImportJobService;
 import com.shop.service.ItemService;
+import com.shop.service.ItemStockService;
+import com.shop.service.ItemSuggestAdmissionService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -15,11 +25,25 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.persistence.EntityNotFoundException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
 import javax.validation.Valid;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @Controller
@@ -27,6 +51,9 @@ import java.util.Optional;
 public class ItemController {
 
     private final ItemService itemService;
+    private final ItemImportJobService itemImportJobService;
+    private final ItemSuggestAdmissionService itemSuggestAdmissionService;
+    private final ItemStockService itemStockService;
 
     @GetMapping(value = "/admin/item/new")
     public String itemForm(Model model) {
@@ -102,6 +129,24 @@ public class ItemController {
         return "redirect:/";
     }
 
+    // 상품의 재고를 stockBucketCount 개의 bucket 에 다시 나누어 담고 상품 수정 화면으로 돌아갑니다.
+    @PostMapping(value = "/admin/item/{itemId}/stock-buckets")
+    public String itemStockRebalance(@PathVariable("itemId") Long itemId, @RequestParam("stockBucketCount") int stockBucketCount, Model model) {
+
+        try {
+            itemStockService.rebalanceStock(itemId, stockBucketCount);
+        } catch (IllegalArgumentException e) {
+            model.addAttribute("errorMessage", e.getMessage());
+            return itemDtl(itemId, model);
+        } catch (EntityNotFoundException e) {
+            model.addAttribute("errorMessage", "존재하지 않는 상품 입니다.");
+            model.addAttribute("itemFormDto", new ItemFormDto());
+            return "item/itemForm";
+        }
+
+        return "redirect:/admin/item/" + itemId;
+    }
+
     // value 에 상품 관리 화면 진입 시 URL 에 페이지 번호가 없는 경우와 페이지 번호가 있는 경우 2가지를 매핑합니다.
     @GetMapping(value = {"/admin/items", "/admin/items/{page}"})
     public String itemManage(ItemSearchDto itemSearchDto, @PathVariable("page") Optional<Integer> page, Model model) {
@@ -129,10 +174,108 @@ public class ItemController {
         return "item/itemMng";
     }
 
+    // 상품 관리 화면과 같은 조회 조건의 전체 상품을 CSV 파일로 내려받습니다.
+    // 페이지를 나누거나 전체 개수를 조회하지 않고, 조회한 행을 바로 응답으로 보냅니다.
+    @GetMapping(value = "/admin/items/export")
+    public void itemExport(ItemSearchDto itemSearchDto, HttpServletResponse response) throws IOException {
+        String fileName = "items-" + LocalDate.now() + ".csv";
+        response.setContentType("text/csv");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString());
+
+        Writer writer = new BufferedWriter(response.getWriter());
+
+        // 엑셀에서 한글이 깨지지 않도록 UTF-8 BOM 을 먼저 씁니다.
+        writer.write('\uFEFF');
+        itemService.writeAdminItemCsv(itemSearchDto, writer);
+    }
+
+    // CSV 또는 JSON Lines 파일로 상품을 한 번에 등록합니다.
+    // 파일 확장자가 .jsonl, .ndjson, .json 이면 JSON Lines 로, 그 외에는 CSV 로 읽습니다.
+    // 등록은 백그라운드에서 실행되므로 바로 202(Accepted) 와 작업 아이디를 응답하고,
+    // 화면에서는 작업 아이디로 진행 상황과 결과를 조회합니다.
+    @PostMapping(value = "/admin/items/import")
+    public @ResponseBody ResponseEntity itemImport(@RequestParam("importFile") MultipartFile importFile) throws IOException {
+        if (importFile.isEmpty()) {
+            return new ResponseEntity<String>("등록할 파일을 선택해 주세요.", HttpStatus.BAD_REQUEST);
+        }
+
+        String fileName = Optional.ofNullable(importFile.getOriginalFilename()).orElse("").toLowerCase();
+        ItemImportFormat format = (fileName.endsWith(".jsonl") || fileName.endsWith(".ndjson") || fileName.endsWith(".json"))
+                ? ItemImportFormat.JSON_LINES : ItemImportFormat.CSV;
+
+        try {
+            ItemImportJobDto job = itemImportJobService.submit(importFile, format);
+            return new ResponseEntity<ItemImportJobDto>(job, HttpStatus.ACCEPTED);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<String>(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    // 상품 대량 등록 작업의 진행 상황(ItemImportResultDto)과 처리 상태를 조회합니다.
+    @GetMapping(value = "/admin/items/import/{jobId}")
+    public @ResponseBody ResponseEntity itemImportJob(@PathVariable("jobId") String jobId) {
+        ItemImportJobDto job = itemImportJobService.getJob(jobId);
+        if (job == null) {
+            return new ResponseEntity<String>("상품 대량 등록 작업을 찾을 수 없습니다.", HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<ItemImportJobDto>(job, HttpStatus.OK);
+    }
+
     @GetMapping(value = "/item/{itemId}")
-    public String itemDtl(Model model, @PathVariable("itemId") Long itemId) {
+    public String itemDtl(Model model, @PathVariable("itemId") Long itemId, WebRequest webRequest, HttpServletRequest request, HttpServletResponse response, Principal principal) {
+
+        // 상품과 상품 이미지의 마지막 수정 시간을 조회합니다.
+        LocalDateTime lastModified = itemService.getItemDtlLastModified(itemId);
+
+        if (lastModified != null) {
+            long lastModifiedMillis = lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+            // 로그인하지 않은 사용자의 ETag 는 상품 아이디와 수정 시간만으로 만듭니다.
+            // csrf 토큰을 읽으면 토큰과 세션이 새로 만들어지므로, 쿠키를 보내지 않는 크롤러는 매번 ETag 가 달라져 304 응답을 받지 못합니다.
+            // 주문, 장바구니 담기는 로그인해야 할 수 있으므로 캐시한 페이지의 csrf 토큰이 오래되어도 문제가 없습니다.
+            String etag = "\"" + itemId + "-" + lastModifiedMillis;
+
+            // 로그인한 회원의 화면에는 회원마다 달라지는 메뉴와 csrf 토큰이 포함되어 있으므로 로그인 정보와 세션 아이디를 ETag 값에 포함시킵니다.
+            // csrf 토큰은 세션마다 만들어지고 로그인할 때 세션 아이디와 함께 바뀌므로, 토큰을 읽지 않고 세션 아이디로 대신합니다.
+            if (principal != null) {
+                HttpSession session = request.getSession(false);
+                etag += "-" + Integer.toHexString(Objects.hash(principal.getName(), session == null ? null : session.getId()));
+            }
+            etag += "\"";
+
+            // 브라우저가 캐시한 페이지를 다시 사용해도 되는지 매번 확인하도록 합니다.
+            // 공용 캐시(프록시)에는 저장되지 않도록 private 으로 설정합니다.
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+
+            // If-None-Match 나 If-Modified-Since 헤더로 보낸 값과 비교하여 변경이 없다면
+            // 상품 상세 정보를 조회하거나 화면을 그리지 않고 304(Not Modified) 응답을 보냅니다.
+            // 로그인한 회원은 화면이 회원마다 다르므로 ETag 로만 비교합니다.
+            boolean notModified = (principal == null) ? webRequest.checkNotModified(etag, lastModifiedMillis)
+                                                      : webRequest.checkNotModified(etag);
+            if (notModified) {
+                return null;
+            }
+        }
+
         ItemFormDto itemFormDto = itemService.getItemDtl(itemId);
         model.addAttribute("item", itemFormDto);
         return "item/itemDtl";
     }
+
+    // 검색창에 입력한 검색어로 시작하는 상품명을 인기 순서로 최대 limit 개 반환합니다.
+    // 메인 페이지 전체를 다시 조회하지 않고 자동완성 목록만 JSON 으로 응답합니다.
+    @GetMapping(value = "/api/items/suggest")
+    // 로그인하지 않아도 호출할 수 있으므로 접속 IP 마다 요청 속도를 제한하고, 넘으면 429 로 응답합니다.
+    public @ResponseBody ResponseEntity<List<ItemSuggestDto>> itemSuggest(@RequestParam("q") String q,
+                                                                          @RequestParam(value = "limit", defaultValue = "10") int limit,
+                                                                          HttpServletRequest request) {
+        if (!itemSuggestAdmissionService.tryAcquire(request.getRemoteAddr())) {
+            return new ResponseEntity<>(HttpStatus.TOO_MANY_REQUESTS);
+        }
+
+        // 한 번에 너무 많은 목록을 요청하지 않도록 최대 개수를 제한합니다.
+        int suggestLimit = Math.max(1, Math.min(limit, 20));
+        return new ResponseEntity<>(itemService.getItemSuggestList(q, suggestLimit), HttpStatus.OK);
+    }
 }
@@ -11,6 +11,7 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 
+import java.util.List;
 import java.util.Optional;
 
 @Controller
@@ -24,6 +25,12 @@ public class MainController {
         Pageable pageable = PageRequest.of(page.isPresent() ? page.get() : 0, 6);
         Page<MainItemDto> items = itemService.getMainItemPage(itemSearchDto, pageable);
         model.addAttribute("items", items);
+
+        // 커서 방식으로 다음 상품들을 이어서 볼 수 있도록 현재 페이지의 마지막 상품 아이디를 뷰에 전달합니다.
+        // 다음 페이지가 없다면 더 이상 볼 상품이 없으므로 null 을 전달합니다.
+        List<MainItemDto> content = items.getContent();
+        Long nextCursor = (items.hasNext() && !content.isEmpty()) ? content.get(content.size() - 1).getId() : null;
+        model.addAttribute("nextCursor", nextCursor);
         model.addAttribute("itemSearchDto", itemSearchDto);
         model.addAttribute("maxPage", 5);
         return "main";
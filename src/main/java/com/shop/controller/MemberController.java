@@ -2,6 +2,7 @@ package com.shop.controller;
 
 import com.shop.dto.MemberFormDto;
 import com.shop.entity.Member;
+import com.shop.exception.PasswordHashRejectedException;
 import com.shop.service.MemberService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -44,6 +45,10 @@ public class MemberController {
             // 회원 가입 시 중복 회원 가입 예외가 발생하면 에러 메시지를 뷰로 전달합니다.
             model.addAttribute("errorMessage", e.getMessage());
             return "member/memberForm";
+        } catch (PasswordHashRejectedException e) {
+            // 비밀번호 해시 작업이 밀려서 처리하지 못한 경우에도 입력한 내용을 유지한 채 안내합니다.
+            model.addAttribute("errorMessage", e.getMessage());
+            return "member/memberForm";
         }
 
         return "redirect:/";
@@ -59,4 +64,11 @@ public class MemberController {
         model.addAttribute("loginErrorMsg", "아이디 또는 비밀번호를 확인해주세요");
         return "/member/memberLoginForm";
     }
+
+    // 로그인 시도가 너무 많거나 비밀번호 확인 작업이 밀려서 로그인을 처리하지 못한 경우입니다.
+    @GetMapping(value = "/members/login/throttled")
+    public String loginThrottled(Model model) {
+        model.addAttribute("loginErrorMsg", "로그인 요청이 많아 처리하지 못했습니다. 잠시 후 다시 시도해 주세요.");
+        return "/member/memberLoginForm";
+    }
 }
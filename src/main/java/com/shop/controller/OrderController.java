@@ -1,7 +1,16 @@
 package com.shop.controller;
 
+import com.shop.config.LoginMember;
+import com.shop.constant.OrderIntakeStatus;
 import com.shop.dto.OrderDto;
 import com.shop.dto.OrderHistDto;
+import com.shop.dto.OrderIntakeResultDto;
+import com.shop.exception.DuplicateOrderException;
+import com.shop.exception.IdempotencyKeyReusedException;
+import com.shop.exception.OutOfStockException;
+import com.shop.service.ItemAdmissionService;
+import com.shop.service.OrderIdempotencyService;
+import com.shop.service.OrderIntakeService;
 import com.shop.service.OrderService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -14,23 +23,29 @@ import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import javax.validation.Valid;
-import java.security.Principal;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Controller
 @RequiredArgsConstructor
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderIntakeService orderIntakeService;
+    private final ItemAdmissionService itemAdmissionService;
+    private final OrderIdempotencyService orderIdempotencyService;
 
     // 스프링에서 비동기 처리를 할 때 @RequestBody 와 @ResponseBody 어노테이션을 사용합니다.
     // @RequestBody: HTTP 요청의 본문 body 에 담긴 내용을 자바 객체로 전달
     // @ResponseBody: 자바 객체를 HTTP 요청의 body 로 전달
     @PostMapping(value = "/order")
-    public @ResponseBody ResponseEntity order (@RequestBody @Valid OrderDto orderDto, BindingResult bindingResult, Principal principal) {
+    public @ResponseBody ResponseEntity order (@RequestBody @Valid OrderDto orderDto, BindingResult bindingResult, @LoginMember Long memberId,
+                                               @RequestHeader(value = OrderIdempotencyService.HEADER_NAME, required = false) String idempotencyKey) {
 
         // 주문 정보를 받는 orderDto 객체에 데이터 바인딩 시 에러가 있는지 검사합니다.
         if (bindingResult.hasErrors()) {
@@ -43,16 +58,96 @@ public class OrderController {
             return new ResponseEntity<String>(sb.toString(), HttpStatus.BAD_REQUEST);
         }
 
-        // 현재 로그인 유저의 정보를 얻기 위해서 @Controller 어노테이션이 선언된 클래스에서
-        // 메소드 인자로 principal 객체를 넘겨 줄 경우 해당 객체에 직접 접근할 수 있습니다.
-        // principal 객체에서 현재 로그인한 회원의 이메일 정보를 조회 합니다.
-        String email = principal.getName();
+        // 현재 로그인한 회원의 아이디는 @LoginMember 파라미터로 전달받습니다.
+        // 로그인할 때 인증 정보에 담아 둔 아이디이므로 회원을 다시 조회하지 않습니다.
+        Long itemId = orderDto.getItemId();
+        int count = orderDto.getCount();
+
+        // Idempotency-Key 로 이미 처리된 주문 요청이면 주문 로직을 실행하지 않고 처음 만들어진 주문 번호를 응답합니다.
+        // 대기열 모드에서는 주문을 다시 접수하지 않고 처음 접수한 주문의 token 과 처리 결과를 응답합니다.
+        // 같은 키로 처음과 다른 내용의 주문을 요청하면 422(Unprocessable Entity) 를 응답합니다.
+        String requestHash = null;
+        if (idempotencyKey != null) {
+            if (!OrderIdempotencyService.isValidKey(idempotencyKey)) {
+                return new ResponseEntity<String>("Idempotency-Key 는 1자 이상 " + OrderIdempotencyService.MAX_KEY_LENGTH + "자 이하로 보내 주세요.", HttpStatus.BAD_REQUEST);
+            }
+
+            requestHash = orderIdempotencyService.hashRequest(orderDto);
+            try {
+                if (orderIntakeService.isEnabled()) {
+                    OrderIntakeResultDto intakeResult = orderIntakeService.findResult(memberId, idempotencyKey, requestHash);
+                    if (intakeResult != null) {
+                        return new ResponseEntity<OrderIntakeResultDto>(intakeResult, HttpStatus.ACCEPTED);
+                    }
+                } else {
+                    Long savedOrderId = orderIdempotencyService.findOrderId(memberId, idempotencyKey, requestHash);
+                    if (savedOrderId != null) {
+                        return new ResponseEntity<Long>(savedOrderId, HttpStatus.OK);
+                    }
+                }
+            } catch (IdempotencyKeyReusedException e) {
+                return new ResponseEntity<String>(e.getMessage(), HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+        }
+
+        // 데이터베이스에 접근하기 전에 메모리의 남은 수량과 요청 속도로 주문을 걸러냅니다.
+        // 품절된 상품은 409(Conflict), 요청이 너무 많으면 429(Too Many Requests) 를 응답합니다.
+        ItemAdmissionService.Admission admission = itemAdmissionService.tryAcquire(itemId, count);
+        if (admission == ItemAdmissionService.Admission.SOLD_OUT) {
+            return new ResponseEntity<String>("품절된 상품입니다.", HttpStatus.CONFLICT);
+        }
+        if (admission == ItemAdmissionService.Admission.THROTTLED) {
+            return new ResponseEntity<String>("주문이 많아 처리하지 못했습니다. 잠시 후 다시 시도해 주세요.", HttpStatus.TOO_MANY_REQUESTS);
+        }
+
+        // 주문 접수 대기열을 사용하는 경우에는 주문을 대기열에 넣고 바로 응답합니다.
+        // 화면에서는 응답으로 받은 token 으로 주문 처리 결과를 조회합니다.
+        if (orderIntakeService.isEnabled()) {
+            OrderIntakeResultDto result;
+            try {
+                result = orderIntakeService.submit(orderDto, memberId, idempotencyKey, requestHash);
+            } catch (IllegalStateException e) {
+                itemAdmissionService.release(itemId, count);
+                return new ResponseEntity<String>(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+            } catch (DuplicateOrderException e) {
+                // 같은 키로 동시에 들어온 다른 요청이 먼저 접수되었다면 그 주문의 token 과 처리 결과를 응답합니다.
+                itemAdmissionService.release(itemId, count);
+                return new ResponseEntity<OrderIntakeResultDto>(e.getIntakeResult(), HttpStatus.ACCEPTED);
+            } catch (IdempotencyKeyReusedException e) {
+                itemAdmissionService.release(itemId, count);
+                return new ResponseEntity<String>(e.getMessage(), HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+
+            // 대기열에서 주문에 실패하면 미리 차감한 수량을 돌려줍니다.
+            orderIntakeService.getResultFuture(result.getToken(), memberId).thenAccept(intakeResult -> {
+                if (intakeResult.getStatus() == OrderIntakeStatus.FAILED) {
+                    itemAdmissionService.release(itemId, count);
+                }
+            });
+            return new ResponseEntity<OrderIntakeResultDto>(result, HttpStatus.ACCEPTED);
+        }
+
         Long orderId;
 
         try {
-            // 화면으로부터 넘어오는 주문 정보와 회원의 이메일 정보를 이용하여 주문 로직을 호출합니다.
-            orderId = orderService.order(orderDto, email);
+            // 화면으로부터 넘어오는 주문 정보와 회원의 아이디를 이용하여 주문 로직을 호출합니다.
+            // Idempotency-Key 가 있으면 키를 주문과 같은 트랜잭션에 저장합니다.
+            orderId = (idempotencyKey == null) ? orderService.order(orderDto, memberId)
+                    : orderIdempotencyService.order(memberId, idempotencyKey, requestHash, () -> orderService.order(orderDto, memberId));
+        } catch (DuplicateOrderException e) {
+            // 같은 키로 동시에 들어온 다른 요청이 먼저 주문을 만들었다면 그 주문 번호를 응답합니다.
+            itemAdmissionService.release(itemId, count);
+            return new ResponseEntity<Long>(e.getOrderId(), HttpStatus.OK);
+        } catch (IdempotencyKeyReusedException e) {
+            itemAdmissionService.release(itemId, count);
+            return new ResponseEntity<String>(e.getMessage(), HttpStatus.UNPROCESSABLE_ENTITY);
         } catch(Exception e) {
+            // 주문에 실패하면 미리 차감한 수량을 돌려줍니다.
+            // 데이터베이스의 재고가 부족했다면 메모리의 수량이 실제 재고와 달라진 것이므로 다시 읽어오게 합니다.
+            itemAdmissionService.release(itemId, count);
+            if (e instanceof OutOfStockException) {
+                itemAdmissionService.invalidate(Collections.singletonList(itemId));
+            }
             return new ResponseEntity<String>(e.getMessage(), HttpStatus.BAD_REQUEST);
         }
 
@@ -60,15 +155,41 @@ public class OrderController {
         return new ResponseEntity<Long>(orderId, HttpStatus.OK);
     }
 
+    // 대기열에 접수한 주문의 현재 처리 결과를 조회합니다.
+    @GetMapping(value = "/order/intake/{token}")
+    public @ResponseBody ResponseEntity orderIntakeResult(@PathVariable("token") String token, @LoginMember Long memberId) {
+        OrderIntakeResultDto result = orderIntakeService.getResult(token, memberId);
+        if (result == null) {
+            return new ResponseEntity<String>("접수된 주문 정보가 없습니다.", HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<OrderIntakeResultDto>(result, HttpStatus.OK);
+    }
+
+    // 대기열에 접수한 주문의 처리가 끝날 때까지 기다렸다가 결과를 응답합니다.
+    // 요청 스레드는 기다리는 동안 반환되고, 30초 안에 처리되지 않으면 PENDING 상태를 응답합니다.
+    @GetMapping(value = "/order/intake/{token}/wait")
+    public @ResponseBody DeferredResult<ResponseEntity> waitOrderIntakeResult(@PathVariable("token") String token, @LoginMember Long memberId) {
+        DeferredResult<ResponseEntity> deferredResult = new DeferredResult<>(30000L,
+                () -> new ResponseEntity<OrderIntakeResultDto>(OrderIntakeResultDto.pending(token), HttpStatus.OK));
+
+        CompletableFuture<OrderIntakeResultDto> future = orderIntakeService.getResultFuture(token, memberId);
+        if (future == null) {
+            deferredResult.setResult(new ResponseEntity<String>("접수된 주문 정보가 없습니다.", HttpStatus.NOT_FOUND));
+        } else {
+            future.thenAccept(result -> deferredResult.setResult(new ResponseEntity<OrderIntakeResultDto>(result, HttpStatus.OK)));
+        }
+        return deferredResult;
+    }
+
     @GetMapping(value = {"/orders", "/orders/{page}"})
-    public String orderHist(@PathVariable("page") Optional<Integer> page, Principal principal, Model model) {
+    public String orderHist(@PathVariable("page") Optional<Integer> page, @LoginMember Long memberId, Model model) {
 
         // 한 번에 가지고 올 주문의 개수는 4개로 설정하겠습니다.
         Pageable pageable = PageRequest.of(page.isPresent() ? page.get() : 0, 4);
 
-        // 현재 로그인한 회원은 이메일과 페이징 객체를 파라미터로 전달하여
+        // 현재 로그인한 회원의 아이디와 페이징 객체를 파라미터로 전달하여
         // 화면에 전달한 주문 목록 데이터를 리턴 값으로 받습니다.
-        Page<OrderHistDto> orderHistDtoList = orderService.getOrderList(principal.getName(), pageable);
+        Page<OrderHistDto> orderHistDtoList = orderService.getOrderList(memberId, pageable);
 
         model.addAttribute("orders", orderHistDtoList);
         model.addAttribute("page", pageable.getPageNumber());
@@ -77,11 +198,11 @@ public class OrderController {
     }
 
     @PostMapping("/order/{orderId}/cancel")
-    public @ResponseBody ResponseEntity cancelOrder(@PathVariable("orderId") Long orderId, Principal principal) {
+    public @ResponseBody ResponseEntity cancelOrder(@PathVariable("orderId") Long orderId, @LoginMember Long memberId) {
 
         // 자바스크립트에서 취소할 주문 번호는 조작이 가능하므로
         // 다른 사람의 주문을 취소하지 못하도록 주문 취소 권한 검사를 합니다.
-        if (!orderService.validateOrder(orderId, principal.getName())) {
+        if (!orderService.validateOrder(orderId, memberId)) {
             return new ResponseEntity<String>("주문 취소 권한이 없습니다.", HttpStatus.FORBIDDEN);
         }
 
@@ -0,0 +1,40 @@
+package com.shop.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import com.shop.constant.ItemSellStatus;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+// 관리자 상품 목록을 CSV 파일로 내보낼 때 한 행에 해당하는 데이터를 담는 DTO 입니다.
+// 엔티티 대신 필요한 컬럼만 조회하므로 영속성 컨텍스트에 엔티티가 쌓이지 않고,
+// 상품 상세 설명(@Lob)처럼 내보내지 않는 컬럼은 읽지 않습니다.
+@Getter
+public class ItemExportDto {
+
+    private Long id;
+
+    private String itemNm;
+
+    private Integer price;
+
+    private Integer stockNumber;
+
+    private ItemSellStatus itemSellStatus;
+
+    private String createdBy;
+
+    private LocalDateTime regTime;
+
+    @QueryProjection
+    public ItemExportDto(Long id, String itemNm, Integer price, Integer stockNumber,
+                         ItemSellStatus itemSellStatus, String createdBy, LocalDateTime regTime) {
+        this.id = id;
+        this.itemNm = itemNm;
+        this.price = price;
+        this.stockNumber = stockNumber;
+        this.itemSellStatus = itemSellStatus;
+        this.createdBy = createdBy;
+        this.regTime = regTime;
+    }
+}
@@ -29,6 +29,9 @@ public class ItemFormDto {
 
     private ItemSellStatus itemSellStatus;
 
+    // 재고를 나누어 저장하는 bucket 개수입니다. 상품 수정 화면에서 보여주기 위한 값이며, 변경은 재고 다시 나누기로만 합니다.
+    private int stockBucketCount;
+
     // 상품 저장 후 수정할 때 상품 이미지 정보를 저장하는 리스트입니다.
     private List<ItemImgDto> itemImgDtoList = new ArrayList<>();
 
@@ -0,0 +1,32 @@
+package com.shop.dto;
+
+import com.shop.constant.ItemImportStatus;
+import lombok.Getter;
+import lombok.Setter;
+
+// 백그라운드에서 실행되는 상품 대량 등록 작업의 상태를 담는 DTO 입니다.
+// 등록을 요청하면 jobId 와 RUNNING 상태를 먼저 응답하고, 화면에서는 jobId 로 진행 상황과 결과를 조회합니다.
+@Getter
+@Setter
+public class ItemImportJobDto {
+
+    // 등록 작업을 구분하는 값
+    private String jobId;
+
+    private ItemImportStatus status;
+
+    // 지금까지의 진행 상황 (완료되면 최종 결과)
+    private ItemImportResultDto result;
+
+    // 작업이 중단되었을 때 중단 사유
+    private String message;
+
+    public static ItemImportJobDto of(String jobId, ItemImportStatus status, ItemImportResultDto result, String message) {
+        ItemImportJobDto job = new ItemImportJobDto();
+        job.setJobId(jobId);
+        job.setStatus(status);
+        job.setResult(result);
+        job.setMessage(message);
+        return job;
+    }
+}
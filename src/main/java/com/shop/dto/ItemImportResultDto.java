@@ -0,0 +1,40 @@
+package com.shop.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 상품 대량 등록의 진행 상황과 결과를 담는 DTO 입니다.
+// 청크(chunk)가 저장될 때마다 진행 상황으로 전달되고, 등록이 끝나면 최종 결과로 반환됩니다.
+@Getter
+@Setter
+public class ItemImportResultDto {
+
+    // 지금까지 읽은 상품 행의 수
+    private long totalRows;
+
+    // 저장에 성공한 상품 수
+    private long importedRows;
+
+    // 입력값 검증이나 저장에 실패한 상품 수
+    private long failedRows;
+
+    // 실패한 행의 오류 메시지 (최대 100개까지만 담습니다.)
+    private List<String> errors = new ArrayList<>();
+
+    // 등록에 걸린 시간
+    private long elapsedMillis;
+
+    // 등록하는 스레드가 계속 변경하는 객체이므로, 진행 상황을 다른 스레드에 전달할 때는 복사해서 전달합니다.
+    public ItemImportResultDto copy() {
+        ItemImportResultDto copy = new ItemImportResultDto();
+        copy.setTotalRows(totalRows);
+        copy.setImportedRows(importedRows);
+        copy.setFailedRows(failedRows);
+        copy.setErrors(new ArrayList<>(errors));
+        copy.setElapsedMillis(elapsedMillis);
+        return copy;
+    }
+}
@@ -20,14 +20,27 @@ public class ItemSearchDto {
 
     // 상품을 조회할 때 어떤 유형으로 조회할지 선택합니다.
     // itemNm: 상품명
+    // itemDetail: 상품 상세 설명
     // createdBy: 상품 등록자 아이디
     private String searchBy;
 
     // 조회할 검색어 저장할 변수입니다.
     // searchBy 가 itemNm 일 경우 상품명을 기준으로 검색하고,
-    // createdBy 일 경우 상품 등록자 아이디 기준으로 검색합니다.
+    // itemDetail 일 경우 상품 상세 설명을, createdBy 일 경우 상품 등록자 아이디 기준으로 검색합니다.
     private String searchQuery = "";
 
+    // 커서(keyset) 방식으로 메인 페이지를 조회할 때 사용하는 변수입니다.
+    // 이전 페이지에서 마지막으로 본 상품 아이디를 담아두면
+    // offset 대신 "item.id < cursorId" 조건으로 다음 상품들을 조회합니다.
+    // 값이 없으면 기존처럼 페이지 번호(offset) 방식으로 조회합니다.
+    private Long cursorId;
+
+    // 검색어로 상품을 찾는 방식을 지정합니다.
+    // index: 역색인(ItemSearchIndex)에서 상품 아이디를 찾은 뒤 기본키로 조회합니다.
+    // like: 데이터베이스에서 "LIKE '%검색어%'" 조건으로 조회합니다.
+    // 값이 없으면 application.properties 의 itemSearchMode 설정을 따릅니다.
+    private String searchMode;
+
     // Querydsl 을 Spring Data Jpa 과 함께 사용하기 위해서는
     // 사용자 정의 레포지토리를 정의해야 합니다.
     // 총 3단계의 과정으로 구현하면 됩니다.
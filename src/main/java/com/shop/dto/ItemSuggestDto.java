@@ -0,0 +1,14 @@
+package com.shop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// 검색창 자동완성 목록에 보여줄 상품 정보를 담는 DTO 입니다.
+@Getter
+@AllArgsConstructor
+public class ItemSuggestDto {
+
+    private Long id;
+
+    private String itemNm;
+}
@@ -0,0 +1,47 @@
+package com.shop.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.shop.constant.OrderIntakeStatus;
+import lombok.Getter;
+import lombok.Setter;
+
+// 주문 접수 대기열에 들어간 주문의 처리 결과를 담는 DTO 입니다.
+// 주문을 접수하면 token 과 PENDING 상태를 먼저 응답하고, 화면에서는 token 으로 처리 결과를 조회합니다.
+@Getter
+@Setter
+public class OrderIntakeResultDto {
+
+    // 접수된 주문을 구분하는 값
+    private String token;
+
+    private OrderIntakeStatus status;
+
+    // 주문이 완료되었을 때 생성된 주문 아이디
+    // 자바스크립트에서 정밀도를 잃지 않도록 문자열로 응답합니다.
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private Long orderId;
+
+    // 주문에 실패했을 때 실패 사유
+    private String message;
+
+    public static OrderIntakeResultDto pending(String token) {
+        OrderIntakeResultDto result = new OrderIntakeResultDto();
+        result.setToken(token);
+        result.setStatus(OrderIntakeStatus.PENDING);
+        return result;
+    }
+
+    public static OrderIntakeResultDto completed(Long orderId) {
+        OrderIntakeResultDto result = new OrderIntakeResultDto();
+        result.setStatus(OrderIntakeStatus.COMPLETED);
+        result.setOrderId(orderId);
+        return result;
+    }
+
+    public static OrderIntakeResultDto failed(String message) {
+        OrderIntakeResultDto result = new OrderIntakeResultDto();
+        result.setStatus(OrderIntakeStatus.FAILED);
+        result.setMessage(message);
+        return result;
+    }
+}
@@ -1,6 +1,9 @@
 package com.shop.entity;
 
 import lombok.Data;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.*;
 
@@ -11,7 +14,9 @@ public class Cart extends BaseEntity {
 
     @Id
     @Column(name = "cart_id")
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "cart_seq_generator")
+    @GenericGenerator(name = "cart_seq_generator", strategy = PooledLoSequenceGenerator.STRATEGY,
+                      parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "cart_seq"))
     private Long id;
 
     @OneToOne(fetch = FetchType.LAZY)
@@ -1,8 +1,12 @@
 package com.shop.entity;
 
 import lombok.Data;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.*;
+import java.time.LocalDateTime;
 
 @Entity
 @Data
@@ -10,7 +14,9 @@ import javax.persistence.*;
 public class CartItem extends BaseEntity {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "cart_item_seq_generator")
+    @GenericGenerator(name = "cart_item_seq_generator", strategy = PooledLoSequenceGenerator.STRATEGY,
+                      parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "cart_item_seq"))
     @Column(name = "cart_item_id")
     private Long id;
 
@@ -30,6 +36,17 @@ public class CartItem extends BaseEntity {
     // 같은 상품을 장바구니에 몇 개 담을지 저장합니다.
     private int count;
 
+    // 장바구니에 담을 때 상품의 재고에서 미리 확보해 둔 수량입니다. 0 이면 확보한 재고가 없습니다.
+    // 확보한 재고는 주문할 때 재고를 다시 확인하지 않고 그대로 주문 수량으로 사용합니다.
+    // 재고 확보 정보는 CartItemRepository 의 update 쿼리로만 변경하며, 수량 변경 등의 변경 감지가
+    // 다른 트랜잭션이 먼저 바꾼 값을 덮어쓰지 않도록 updatable = false 로 지정합니다.
+    @Column(updatable = false)
+    private int reservedCount;
+
+    // 확보한 재고를 상품의 재고로 돌려놓는 시각입니다.
+    @Column(updatable = false)
+    private LocalDateTime reservedUntil;
+
     public static CartItem createCartItem(Cart cart, Item item, int count) {
         CartItem cartItem = new CartItem();
         cartItem.setCart(cart);
@@ -2,8 +2,10 @@ package com.shop.entity;
 
 import com.shop.constant.ItemSellStatus;
 import com.shop.dto.ItemFormDto;
-import com.shop.exception.OutOfStockException;
 import lombok.Data;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.*;
 
@@ -18,12 +20,16 @@ public class Item extends BaseEntity {
 
     @Id
     @Column(name="item_id")
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "item_seq_generator")
+    @GenericGenerator(name = "item_seq_generator", strategy = PooledLoSequenceGenerator.STRATEGY,
+                      parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "item_seq"))
     // entity 로 선언한 클래스는 반드시 기본키를 가져야 합니다.
     // 기본키가 되는 멤버변수에 @Id 어노테이션을 붙여줍니다.
     // 그리고 테이블에 매핑될 컬럼의 이름을 @Column 어노테이션을 통해 설정해줍니다.
     // Item 클래스의 id 변수와 item 테이블의 item_id 컬럼이 매핑되도록 합니다.
-    // 마지막으로 @GeneratedValue 어노테이션을 통해 기본키 생성 전략을 AUTO 로 지정하겠습니다.
+    // 마지막으로 @GeneratedValue 어노테이션을 통해 item_seq 시퀀스를 사용하는 PooledLoSequenceGenerator 로 기본키를 생성하겠습니다.
+    // 아이디를 한 번에 여러 개 할당 받아서 메모리에서 나누어 사용하므로
+    // 상품을 대량으로 등록할 때 상품마다 시퀀스를 조회하지 않고, insert 쿼리를 JDBC batch 로 묶어서 실행할 수 있습니다.
     private Long id; // 상품 코드
 
     @Column(nullable = false, length = 50)
@@ -38,6 +44,11 @@ public class Item extends BaseEntity {
     @Column(nullable = false)
     private int stockNumber; // 재고수량
 
+    @Column(nullable = false)
+    // 0 이면 재고를 stockNumber 한 곳에 저장하고, 2 이상이면 재고를 ItemStockBucket 여러 행에 나누어 저장합니다.
+    // 재고 분할 모드에서는 stockNumber 를 0 으로 두고 모든 재고를 bucket 에 담습니다.
+    private int stockBucketCount; // 재고 분할 bucket 개수
+
     @Lob
     @Column(nullable = false)
     private String itemDetail; // 상품 상세 설명
@@ -53,22 +64,11 @@ public class Item extends BaseEntity {
         this.itemSellStatus = itemFormDto.getItemSellStatus();
     }
 
-    public void removeStock(int stockNumber) {
-
-        // 상품의 재고 수량에서 주문 후 남은 재고 수량을 구합니다.
-        int restStock = this.stockNumber - stockNumber;
-
-        if (restStock < 0) {
-            // 상품의 재고가 주문 수량보다 작을 경우 재고 부족 예외를 발생시킵니다.
-            throw new OutOfStockException("상품의 재고가 부족 합니다. (현재 재고 수량: " + this.stockNumber + ")");
-        }
-
-        // 주문 후 남은 재고 수량을 상품의 현재 재고 값으로 할당합니다.
-        this.stockNumber = restStock;
+    public boolean isStockSplit() {
+        return stockBucketCount > 1;
     }
 
-    // 상품의 재고를 증가시키는 메소드입니다.
-    public void addStock(int stockNumber) {
-        this.stockNumber += stockNumber;
-    }
+    // 재고 수량의 증가와 감소는 엔티티의 값을 읽어서 계산한 뒤 변경 감지로 반영하지 않고,
+    // ItemStockService 의 removeStock(), addStock() 을 통해 데이터베이스에서 원자적으로 처리합니다.
+    // 여러 주문이 동시에 같은 상품의 재고를 변경해도 갱신 손실이 발생하지 않습니다.
 }
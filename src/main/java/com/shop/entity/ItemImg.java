@@ -1,6 +1,9 @@
 package com.shop.entity;
 
 import lombok.Data;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.*;
 
@@ -11,7 +14,10 @@ public class ItemImg extends BaseEntity {
 
     @Id
     @Column(name = "item_img_id")
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "item_img_seq_generator")
+    @GenericGenerator(name = "item_img_seq_generator", strategy = PooledLoSequenceGenerator.STRATEGY,
+                      parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "item_img_seq"))
+    // 상품과 함께 대량으로 등록될 수 있으므로 상품과 같이 아이디를 미리 할당 받는 시퀀스를 사용합니다.
     private Long id;
 
     private String imgName; // 이미지 파일명
@@ -20,6 +26,9 @@ public class ItemImg extends BaseEntity {
 
     private String imgUrl; // 이미지 조회 경로
 
+    @Column(length = 64)
+    private String imgHash; // 이미지 파일 내용의 SHA-256 해시
+
     private String repimgYn; // 대표 이미지 여부
 
     @ManyToOne(fetch = FetchType.LAZY)
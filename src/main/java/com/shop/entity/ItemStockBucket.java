@@ -0,0 +1,56 @@
+package com.shop.entity;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+// 재고 분할 모드인 상품의 재고를 여러 행에 나누어 저장하는 엔티티입니다.
+// 주문이 몰리는 상품의 재고를 item 행 하나에 두면 모든 주문이 같은 행의 잠금을 차례로 기다려야 합니다.
+// 재고를 bucket 여러 개에 나누어 두면 주문마다 서로 다른 행을 변경하게 되어 잠금 대기가 줄어듭니다.
+// 상품의 재고 수량은 Item.stockNumber 와 모든 bucket 의 재고 수량을 더한 값입니다.
+@Entity
+@Table(name = "item_stock_bucket",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"item_id", "bucket_no"}))
+@Getter @Setter
+public class ItemStockBucket {
+
+    @Id
+    @Column(name = "item_stock_bucket_id")
+    @GeneratedValue(generator = "item_stock_bucket_seq_generator")
+    @GenericGenerator(name = "item_stock_bucket_seq_generator", strategy = PooledLoSequenceGenerator.STRATEGY,
+                      parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "item_stock_bucket_seq"))
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "item_id", nullable = false)
+    private Item item;
+
+    @Column(name = "bucket_no", nullable = false)
+    private int bucketNo; // 0 부터 시작하는 bucket 번호
+
+    @Column(nullable = false)
+    private int stockNumber; // bucket 에 나누어 담긴 재고수량
+
+    // 주문으로 bucket 의 재고가 바뀌어도 item 행은 변경하지 않으므로, 상품 상세 페이지의 수정 시간에 더하기 위해 bucket 의 수정 시간을 따로 저장합니다.
+    // 주문의 update 쿼리는 직접 값을 넣고, 재고를 다시 나눌 때는 저장 직전에 현재 시간으로 바꿉니다.
+    private LocalDateTime updateTime;
+
+    @PrePersist
+    @PreUpdate
+    public void touchUpdateTime() {
+        this.updateTime = LocalDateTime.now();
+    }
+
+    public static ItemStockBucket createItemStockBucket(Item item, int bucketNo, int stockNumber) {
+        ItemStockBucket itemStockBucket = new ItemStockBucket();
+        itemStockBucket.setItem(item);
+        itemStockBucket.setBucketNo(bucketNo);
+        itemStockBucket.setStockNumber(stockNumber);
+        return itemStockBucket;
+    }
+}
@@ -1,27 +1,39 @@
 package com.shop.entity;
 
+import com.shop.config.MemberUserCacheListener;
 import com.shop.constant.Role;
 import com.shop.dto.MemberFormDto;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import javax.persistence.*;
 
 @Entity
-@Table(name="member")
+@Table(name="member",
+       uniqueConstraints = @UniqueConstraint(name = Member.EMAIL_UNIQUE_CONSTRAINT, columnNames = "email"))
+@EntityListeners(MemberUserCacheListener.class)
 @Data
 public class Member extends BaseEntity {
 
+    // 회원은 이메일을 통해 유일하게 구분해야 하기 때문에,
+    // 동일한 값이 DB 에 들어올 수 없도록 이름을 붙인 유니크 제약 조건을 지정합니다.
+    // 제약 조건 위반 예외에서 이 이름으로 중복 가입을 구분합니다.
+    public static final String EMAIL_UNIQUE_CONSTRAINT = "uk_member_email";
+
     @Id
     @Column(name="member_id")
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "member_seq_generator")
+    @GenericGenerator(name = "member_seq_generator", strategy = PooledLoSequenceGenerator.STRATEGY,
+                      parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "member_seq"))
     private Long id;
 
     private String name;
 
-    @Column(unique = true)
-    // 회원은 이메일을 통해 유일하게 구분해야 하기 때문에,
-    // 동일한 값이 DB 에 들어올 수 없도록 unique 속성을 지정합니다.
     private String email;
 
     private String password;
@@ -35,6 +47,13 @@ public class Member extends BaseEntity {
     // "EnumType.STRING" 옵션을 사용해서 String 으로 저장하기를 권장합니다.
     private Role role;
 
+    // 회원 정보가 변경되었을 때 로그인 정보 캐시에서 이전 이메일로 저장된 항목도 삭제할 수 있도록
+    // 조회하거나 저장할 당시의 이메일을 보관합니다. (MemberUserCacheListener)
+    @Transient
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private String loadedEmail;
+
     // Member 엔티티를 생성하는 메소드입니다.
     // Member 엔티티에 회원을 생성하는 메소드를 만들어서 관리를 한다면
     // 코드가 변경되더라도 한 군데만 수정하면 되는 이점이 있습니다.
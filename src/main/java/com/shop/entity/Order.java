@@ -2,6 +2,7 @@ package com.shop.entity;
 
 import com.shop.constant.OrderStatus;
 import lombok.Data;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
@@ -17,7 +18,9 @@ import java.util.List;
 public class Order extends BaseEntity{
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "order_id_generator")
+    @GenericGenerator(name = "order_id_generator", strategy = SnowflakeIdGenerator.STRATEGY)
+    // 주문 아이디는 데이터베이스 시퀀스 대신 애플리케이션 서버에서 시간 순서대로 만듭니다.
     @Column(name = "order_id")
     private Long id;
 
@@ -92,12 +95,10 @@ public class Order extends BaseEntity{
     }
 
     // 주문 상태를 취소 상태로 바꿔주는 메소드 입니다.
+    // 주문 수량만큼 재고를 다시 더해주는 작업은 주문할 때와 같은 경로인
+    // ItemRepository.addStock() 을 통해 OrderService 에서 처리합니다.
     public void cancelOrder() {
         this.orderStatus = OrderStatus.CANCEL;
-
-        for (OrderItem orderItem : orderItems) {
-            orderItem.cancel();
-        }
     }
 
 }
@@ -0,0 +1,48 @@
+package com.shop.entity;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import javax.persistence.*;
+
+// 주문 요청에 담긴 Idempotency-Key 와 그 요청으로 만들어진 주문 아이디를 저장하는 엔티티입니다.
+// 회원 아이디와 키에 유니크 제약 조건을 걸어서, 같은 키로 동시에 들어온 요청 중 하나만 주문을 만들 수 있도록 합니다.
+// 보관 시간이 지난 키는 등록 시간으로 찾아서 삭제하므로 등록 시간에 인덱스를 추가합니다.
+@Entity
+@Table(name = "order_idempotency_key",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"member_id", "idempotency_key"}),
+       indexes = @Index(name = "idx_order_idempotency_key_reg_time", columnList = "regTime"))
+@Getter @Setter
+public class OrderIdempotencyKey extends BaseTimeEntity {
+
+    @Id
+    @Column(name = "order_idempotency_key_id")
+    @GeneratedValue(generator = "order_idempotency_key_seq_generator")
+    @GenericGenerator(name = "order_idempotency_key_seq_generator", strategy = PooledLoSequenceGenerator.STRATEGY,
+                      parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "order_idempotency_key_seq"))
+    private Long id;
+
+    @Column(name = "member_id", nullable = false)
+    private Long memberId;
+
+    @Column(name = "idempotency_key", nullable = false, length = 100)
+    private String idempotencyKey;
+
+    // 키와 함께 받은 주문 요청 내용의 SHA-256 해시입니다. 같은 키로 다른 내용의 주문을 요청했는지 확인합니다.
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    // 키를 먼저 저장한 뒤 주문을 만들기 때문에, 주문이 만들어지기 전까지는 비어 있습니다.
+    private Long orderId;
+
+    public static OrderIdempotencyKey createOrderIdempotencyKey(Long memberId, String idempotencyKey, String requestHash) {
+        OrderIdempotencyKey orderIdempotencyKey = new OrderIdempotencyKey();
+        orderIdempotencyKey.setMemberId(memberId);
+        orderIdempotencyKey.setIdempotencyKey(idempotencyKey);
+        orderIdempotencyKey.setRequestHash(requestHash);
+        return orderIdempotencyKey;
+    }
+}
@@ -1,6 +1,7 @@
 package com.shop.entity;
 
 import lombok.Data;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 
@@ -12,7 +13,9 @@ import javax.persistence.*;
 public class OrderItem extends BaseEntity {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "order_item_id_generator")
+    @GenericGenerator(name = "order_item_id_generator", strategy = SnowflakeIdGenerator.STRATEGY)
+    // 주문 상품 아이디도 시퀀스를 조회하지 않고 만들어지므로 한 번의 주문에 저장되는 주문 상품들의 insert 쿼리를 batch 로 묶을 수 있습니다.
     @Column(name = "order_item_id")
     private Long id;
 
@@ -44,8 +47,8 @@ public class OrderItem extends BaseEntity {
         // 또한, 쿠폰이나 할인을 적용하는 케이스들도 있지만 여기서는 고려하지 않습니다.
         orderItem.setOrderPrice(item.getPrice());
 
-        // 주문 수량만큼 상품의 재고 수량을 감소시킵니다.
-        item.removeStock(count);
+        // 주문 수량만큼 상품의 재고를 감소시키는 작업은
+        // 주문 상품을 만들기 전에 ItemRepository.removeStock() 으로 처리합니다.
         return orderItem;
     }
 
@@ -55,9 +58,4 @@ public class OrderItem extends BaseEntity {
         return orderPrice * count;
     }
 
-    // 주문 취소 시 주문 수량만큼 상품의 재고를 더해줍니다.
-    public void cancel() {
-        this.getItem().addStock(count);
-    }
-
 }
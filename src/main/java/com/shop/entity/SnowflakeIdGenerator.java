@@ -0,0 +1,96 @@
+package com.shop.entity;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 데이터베이스를 거치지 않고 애플리케이션 서버에서 바로 만드는 64비트 기본키 생성기입니다. (Snowflake 방식)
+//
+// | 0 | 타임스탬프 41비트 (EPOCH 이후 경과한 밀리초) | 노드 아이디 10비트 | 같은 밀리초 안의 순번 12비트 |
+//
+// 타임스탬프가 가장 앞에 있으므로 아이디의 크기 순서가 대략 생성된 시간 순서와 같습니다.
+// 노드 아이디는 서버마다 다르게 설정해야 하며(0 ~ 1023), 같은 노드에서는 한 밀리초에 4096개까지 아이디를 만들 수 있습니다.
+// 마지막으로 발급한 타임스탬프와 순번을 AtomicLong 하나에 담아 CAS 로 변경하므로 락 없이 여러 스레드가 동시에 사용할 수 있습니다.
+//
+// 노드 아이디는 application.properties 의 spring.jpa.properties.shop.id.node_id 로 설정합니다.
+// 아이디가 자바스크립트 Number 의 정수 범위(2^53)를 넘으므로 화면에서는 문자열로 다루어야 합니다.
+public class SnowflakeIdGenerator implements IdentifierGenerator {
+
+    public static final String STRATEGY = "com.shop.entity.SnowflakeIdGenerator";
+
+    public static final String NODE_ID_SETTING = "shop.id.node_id";
+
+    // 타임스탬프의 기준 시간입니다. (2024-01-01T00:00:00Z)
+    static final long EPOCH = 1704067200000L;
+
+    static final int NODE_ID_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+
+    static final long MAX_NODE_ID = (1L << NODE_ID_BITS) - 1;
+    static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    // 마지막으로 발급한 아이디의 (타임스탬프 << SEQUENCE_BITS) | 순번 값입니다.
+    private final AtomicLong lastState = new AtomicLong();
+
+    private long nodeId;
+
+    public SnowflakeIdGenerator() {
+    }
+
+    SnowflakeIdGenerator(long nodeId) {
+        this.nodeId = validateNodeId(nodeId);
+    }
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        this.nodeId = validateNodeId(ConfigurationHelper.getInt(NODE_ID_SETTING,
+                serviceRegistry.getService(ConfigurationService.class).getSettings(), 0));
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        return nextId();
+    }
+
+    public long nextId() {
+        while (true) {
+            long last = lastState.get();
+            long lastTimestamp = last >>> SEQUENCE_BITS;
+            long now = System.currentTimeMillis() - EPOCH;
+
+            long next;
+            if (now > lastTimestamp) {
+                // 새로운 밀리초가 시작되었으므로 순번을 0부터 다시 시작합니다.
+                next = now << SEQUENCE_BITS;
+            } else if ((last & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                // 같은 밀리초이거나 서버 시간이 뒤로 돌아간 경우에는 마지막 타임스탬프에서 순번만 증가시켜
+                // 이미 발급한 아이디보다 항상 큰 아이디를 만듭니다.
+                next = last + 1;
+            } else {
+                // 한 밀리초의 순번을 모두 사용했다면 시간이 지나기를 기다리지 않고 다음 밀리초를 미리 사용합니다.
+                next = (lastTimestamp + 1) << SEQUENCE_BITS;
+            }
+
+            if (lastState.compareAndSet(last, next)) {
+                return ((next >>> SEQUENCE_BITS) << (NODE_ID_BITS + SEQUENCE_BITS))
+                        | (nodeId << SEQUENCE_BITS)
+                        | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    private static long validateNodeId(long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new MappingException(NODE_ID_SETTING + " 값은 0 ~ " + MAX_NODE_ID + " 사이여야 합니다. (" + nodeId + ")");
+        }
+        return nodeId;
+    }
+}
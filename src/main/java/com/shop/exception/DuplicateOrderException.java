@@ -0,0 +1,28 @@
+package com.shop.exception;
+
+import com.shop.dto.OrderIntakeResultDto;
+import lombok.Getter;
+
+// 같은 Idempotency-Key 로 이미 주문이 만들어져 있을 때 발생합니다.
+// 처음 요청으로 만들어진 주문 아이디를 담고 있습니다.
+// 주문 접수 대기열 모드에서는 처음 요청으로 접수된 주문의 token 과 현재 처리 결과를 담고 있습니다.
+@Getter
+public class DuplicateOrderException extends RuntimeException {
+
+    private final Long orderId;
+
+    private final OrderIntakeResultDto intakeResult;
+
+    public DuplicateOrderException(Long orderId) {
+        super("이미 처리된 주문 요청입니다.");
+        this.orderId = orderId;
+        this.intakeResult = null;
+    }
+
+    public DuplicateOrderException(OrderIntakeResultDto intakeResult) {
+        super("이미 접수된 주문 요청입니다.");
+        this.orderId = intakeResult.getOrderId();
+        this.intakeResult = intakeResult;
+    }
+
+}
@@ -0,0 +1,11 @@
+package com.shop.exception;
+
+// 이미 처리된 Idempotency-Key 로 처음과 다른 내용의 주문을 요청했을 때 발생합니다.
+// 키를 다른 주문에 다시 사용한 클라이언트의 오류이므로, 처음 만들어진 주문 번호를 돌려주지 않고 요청을 거절합니다.
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    public IdempotencyKeyReusedException() {
+        super("같은 Idempotency-Key 로 다른 주문을 요청할 수 없습니다. 새 주문에는 새 키를 보내 주세요.");
+    }
+
+}
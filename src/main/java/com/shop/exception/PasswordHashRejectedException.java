@@ -0,0 +1,13 @@
+package com.shop.exception;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+// 비밀번호 해시 작업 대기열이 가득 찼거나 정해진 시간 안에 처리되지 못했을 때 발생합니다.
+// 로그인 중에 발생하면 비밀번호가 틀린 경우와 구분하여 잠시 후 다시 시도하도록 안내합니다.
+public class PasswordHashRejectedException extends AuthenticationServiceException {
+
+    public PasswordHashRejectedException(String msg) {
+        super(msg);
+    }
+
+}
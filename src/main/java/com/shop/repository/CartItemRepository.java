@@ -3,9 +3,16 @@ package com.shop.repository;
 import com.shop.dto.CartDetailDto;
 import com.shop.entity.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
 
@@ -28,4 +35,37 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
             + "ORDER BY ci.regTime DESC")
     List<CartDetailDto> findCartDetailDtoList(Long cartId);
 
+    // 장바구니 상품 아이디들 중 memberId 회원의 장바구니에 담긴 상품의 개수를 조회합니다.
+    // 장바구니 상품마다 회원과 장바구니를 따로 조회하지 않고 쿼리 한 번으로 소유 여부를 확인합니다.
+    @Query("SELECT COUNT(ci) FROM CartItem ci WHERE ci.id IN :cartItemIds AND ci.cart.member.id = :memberId")
+    long countByIdInAndMemberId(@Param("cartItemIds") Collection<Long> cartItemIds, @Param("memberId") Long memberId);
+
+    // 주문한 장바구니 상품들을 delete 쿼리 한 번으로 삭제합니다.
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.id IN :cartItemIds")
+    int deleteAllByIdIn(@Param("cartItemIds") Collection<Long> cartItemIds);
+
+    // 만료 시각이 지난 재고 확보 정보를 장바구니 상품 아이디 오름차순으로 행 잠금을 잡고 조회합니다.
+    // 같은 장바구니 상품을 주문하는 트랜잭션과 동시에 처리되어 확보한 재고가 두 번 사용되지 않도록 합니다.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT ci FROM CartItem ci WHERE ci.id IN :cartItemIds AND ci.reservedCount > 0 AND ci.reservedUntil <= :now ORDER BY ci.id")
+    List<CartItem> findExpiredReservationsForUpdate(@Param("cartItemIds") Collection<Long> cartItemIds, @Param("now") LocalDateTime now);
+
+    // 아직 만료되지 않은 재고 확보 정보의 [장바구니 상품 아이디, 만료 시각]을 조회합니다.
+    @Query("SELECT ci.id, ci.reservedUntil FROM CartItem ci WHERE ci.id IN :cartItemIds AND ci.reservedCount > 0 AND ci.reservedUntil > :now")
+    List<Object[]> findLiveReservations(@Param("cartItemIds") Collection<Long> cartItemIds, @Param("now") LocalDateTime now);
+
+    // 애플리케이션이 시작될 때 데이터베이스에 남아 있는 모든 재고 확보 정보의 [장바구니 상품 아이디, 만료 시각]을 한 행씩 읽습니다.
+    @Query("SELECT ci.id, ci.reservedUntil FROM CartItem ci WHERE ci.reservedCount > 0")
+    Stream<Object[]> streamReservations();
+
+    // 확보한 수량을 더하고 만료 시각을 reservedUntil 로 연장합니다.
+    @Modifying
+    @Query("UPDATE CartItem ci SET ci.reservedCount = ci.reservedCount + :count, ci.reservedUntil = :reservedUntil WHERE ci.id = :cartItemId")
+    int addReservation(@Param("cartItemId") Long cartItemId, @Param("count") int count, @Param("reservedUntil") LocalDateTime reservedUntil);
+
+    @Modifying
+    @Query("UPDATE CartItem ci SET ci.reservedCount = 0, ci.reservedUntil = NULL WHERE ci.id IN :cartItemIds")
+    int clearReservations(@Param("cartItemIds") Collection<Long> cartItemIds);
+
 }
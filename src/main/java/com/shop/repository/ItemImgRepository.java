@@ -3,6 +3,7 @@ package com.shop.repository;
 import com.shop.entity.ItemImg;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ItemImgRepository extends JpaRepository<ItemImg, Long> {
@@ -11,4 +12,7 @@ public interface ItemImgRepository extends JpaRepository<ItemImg, Long> {
 
     ItemImg findByItemIdAndRepimgYn(Long itemId, String repimgYn);
 
+    // 여러 상품의 대표 이미지를 IN 조건으로 한 번에 조회합니다.
+    List<ItemImg> findByItemIdInAndRepimgYn(Collection<Long> itemIds, String repimgYn);
+
 }
@@ -0,0 +1,432 @@
+package com.shop.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.shop.entity.Item;
+import com.shop.entity.QItem;
+import com.shop.entity.QItemImg;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// 상품명을 초성과 자모 단위로 분해해서 메모리에 저장해두는 검색 색인입니다.
+// "ㅊㅂㅈ" 처럼 초성만 입력하거나 "청바ㅈ", "청밪" 처럼 글자를 다 조합하지 않은 검색어는
+// LIKE 조건이나 Lucene 색인으로는 찾을 수 없으므로 이 색인에서 상품 아이디를 찾습니다.
+// 메인 페이지에서만 사용하므로 메인 페이지에 보이는 상품(대표 이미지가 있는 상품)만 저장하여 전체 개수가 페이지와 어긋나지 않도록 합니다.
+//
+// 전체 상품은 변경되지 않는 배열(Snapshot)로 저장하고, 이후에 등록/수정된 상품은 작은 Map(delta)에 따로 저장합니다.
+// 검색은 잠금 없이 현재 상태(State)를 읽기만 하고, 변경은 새 State 를 만들어서 한 번에 교체합니다.
+@Slf4j
+@Repository
+public class ItemNmJamoIndex {
+
+    // 등록/수정된 상품이 이 개수보다 많아지면 Snapshot 을 다시 만들어서 delta 를 비웁니다.
+    private static final int MERGE_THRESHOLD = 1000;
+
+    // 색인을 만들 때 한 번에 읽어오는 상품 개수입니다.
+    private static final int BUILD_BATCH_SIZE = 1000;
+
+    // 완성된 한글(가 ~ 힣)의 범위입니다.
+    private static final char HANGUL_BEGIN = '가';
+    private static final char HANGUL_END = '힣';
+
+    // 한글 호환 자모 중 자음(ㄱ ~ ㅎ)과 모음(ㅏ ~ ㅣ)의 범위입니다.
+    private static final char CONSONANT_BEGIN = 'ㄱ';
+    private static final char CONSONANT_END = 'ㅎ';
+    private static final char VOWEL_END = 'ㅣ';
+
+    // 초성 19자, 중성 21자, 종성 27자(+ 종성 없음)입니다.
+    private static final String CHOSUNG = "ㄱㄲㄴㄷㄸㄹㅁㅂㅃㅅㅆㅇㅈㅉㅊㅋㅌㅍㅎ";
+    private static final String JUNGSUNG = "ㅏㅐㅑㅒㅓㅔㅕㅖㅗㅘㅙㅚㅛㅜㅝㅞㅟㅠㅡㅢㅣ";
+    private static final String JONGSUNG = " ㄱㄲㄳㄴㄵㄶㄷㄹㄺㄻㄼㄽㄾㄿㅀㅁㅂㅄㅅㅆㅇㅈㅊㅋㅌㅍㅎ";
+
+    // 겹받침과 이중 모음은 입력하는 순서대로 나누어 저장합니다.
+    // 예) "닭" 을 입력하는 중에는 "달" 이 되므로 "ㄺ" 을 "ㄹㄱ" 으로 나누어야 "달" 로도 찾을 수 있습니다.
+    private static final Map<Character, String> COMPOUND_JAMO = Map.ofEntries(
+            Map.entry('ㄳ', "ㄱㅅ"), Map.entry('ㄵ', "ㄴㅈ"), Map.entry('ㄶ', "ㄴㅎ"),
+            Map.entry('ㄺ', "ㄹㄱ"), Map.entry('ㄻ', "ㄹㅁ"), Map.entry('ㄼ', "ㄹㅂ"),
+            Map.entry('ㄽ', "ㄹㅅ"), Map.entry('ㄾ', "ㄹㅌ"), Map.entry('ㄿ', "ㄹㅍ"),
+            Map.entry('ㅀ', "ㄹㅎ"), Map.entry('ㅄ', "ㅂㅅ"),
+            Map.entry('ㅘ', "ㅗㅏ"), Map.entry('ㅙ', "ㅗㅐ"), Map.entry('ㅚ', "ㅗㅣ"),
+            Map.entry('ㅝ', "ㅜㅓ"), Map.entry('ㅞ', "ㅜㅔ"), Map.entry('ㅟ', "ㅜㅣ"),
+            Map.entry('ㅢ', "ㅡㅣ"));
+
+    private final JPAQueryFactory queryFactory;
+
+    private volatile State state = new State(Snapshot.build(Collections.emptyList()), Collections.emptyMap());
+
+    private volatile boolean ready = false;
+
+    public ItemNmJamoIndex(EntityManager em) {
+        this.queryFactory = new JPAQueryFactory(em);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // 검색어에 한글 자음이나 모음이 단독으로 들어 있으면 이 색인으로 검색해야 하는 검색어입니다.
+    public static boolean isJamoQuery(String searchQuery) {
+        if (searchQuery == null) {
+            return false;
+        }
+        for (int i = 0; i < searchQuery.length(); i++) {
+            char c = searchQuery.charAt(i);
+            if (c >= CONSONANT_BEGIN && c <= VOWEL_END) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 검색어에 완성된 한글이나 한글 자음, 모음이 들어 있는지 확인합니다.
+    // "청밪" 처럼 마지막 글자를 조합하는 중인 검색어는 자음이나 모음이 단독으로 들어 있지 않아서 isJamoQuery 로는 알 수 없으므로,
+    // 일반 검색 결과가 없을 때 이 색인으로 다시 찾을지 판단하는 데 사용합니다.
+    public static boolean containsHangul(String searchQuery) {
+        if (searchQuery == null) {
+            return false;
+        }
+        for (int i = 0; i < searchQuery.length(); i++) {
+            char c = searchQuery.charAt(i);
+            if ((c >= HANGUL_BEGIN && c <= HANGUL_END) || (c >= CONSONANT_BEGIN && c <= VOWEL_END)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 검색어가 공백을 제외하고 모두 자음으로만 되어 있으면 초성 검색입니다.
+    private static boolean isChosungQuery(String searchQuery) {
+        boolean hasConsonant = false;
+        for (int i = 0; i < searchQuery.length(); i++) {
+            char c = searchQuery.charAt(i);
+            if (c >= CONSONANT_BEGIN && c <= CONSONANT_END) {
+                hasConsonant = true;
+            } else if (!Character.isWhitespace(c)) {
+                return false;
+            }
+        }
+        return hasConsonant;
+    }
+
+    // 완성된 한글은 초성만 남기고, 나머지 글자는 소문자로 그대로 둡니다.
+    // 예) "청바지 Blue" -> "ㅊㅂㅈ blue"
+    static String toChosung(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= HANGUL_BEGIN && c <= HANGUL_END) {
+                sb.append(CHOSUNG.charAt((c - HANGUL_BEGIN) / 588));
+            } else {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    // 완성된 한글과 자음, 모음을 모두 입력 순서대로의 자모로 분해합니다.
+    // 예) "청바ㅈ" -> "ㅊㅓㅇㅂㅏㅈ", "과" -> "ㄱㅗㅏ"
+    static String toJamo(String text) {
+        StringBuilder sb = new StringBuilder(text.length() * 3);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= HANGUL_BEGIN && c <= HANGUL_END) {
+                int index = c - HANGUL_BEGIN;
+                appendJamo(sb, CHOSUNG.charAt(index / 588));
+                appendJamo(sb, JUNGSUNG.charAt((index % 588) / 28));
+                if (index % 28 != 0) {
+                    appendJamo(sb, JONGSUNG.charAt(index % 28));
+                }
+            } else if (c >= CONSONANT_BEGIN && c <= VOWEL_END) {
+                appendJamo(sb, c);
+            } else {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void appendJamo(StringBuilder sb, char jamo) {
+        String split = COMPOUND_JAMO.get(jamo);
+        if (split != null) {
+            sb.append(split);
+        } else {
+            sb.append(jamo);
+        }
+    }
+
+    // 애플리케이션이 시작되면 데이터베이스의 상품명으로 색인을 만듭니다.
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void buildOnStartup() {
+        rebuild();
+        ready = true;
+    }
+
+    // 데이터베이스에서 대표 이미지가 있는 전체 상품의 상품명으로 색인을 다시 만듭니다.
+    // 상품 상세 설명(@Lob)은 필요 없으므로 상품 아이디와 상품명만 조회합니다.
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        QItem item = QItem.item;
+        QItemImg itemImg = QItemImg.itemImg;
+
+        List<Entry> entries = new ArrayList<>();
+        Long lastId = null;
+        while (true) {
+            List<Tuple> tuples = queryFactory.select(item.id, item.itemNm)
+                                             .from(itemImg)
+                                             .join(itemImg.item, item)
+                                             .where(itemImg.repimgYn.eq("Y"))
+                                             .where(lastId == null ? null : item.id.gt(lastId))
+                                             .orderBy(item.id.asc())
+                                             .limit(BUILD_BATCH_SIZE)
+                                             .fetch();
+            if (tuples.isEmpty()) {
+                break;
+            }
+
+            for (Tuple tuple : tuples) {
+                entries.add(new Entry(tuple.get(item.id), tuple.get(item.itemNm)));
+            }
+            lastId = tuples.get(tuples.size() - 1).get(item.id);
+        }
+
+        state = new State(Snapshot.build(entries), Collections.emptyMap());
+        log.info("상품명 자모 색인 생성 완료 (상품 수: {})", entries.size());
+    }
+
+    // 상품 하나의 상품명을 색인에 추가하거나 변경합니다.
+    // 대표 이미지가 없는 상품은 메인 페이지에 보이지 않으므로 추가하지 않습니다.
+    // 트랜잭션 안에서 호출되면 커밋된 후에 반영합니다.
+    public void index(Item item) {
+        QItemImg itemImg = QItemImg.itemImg;
+        boolean repImg = queryFactory.selectOne()
+                                     .from(itemImg)
+                                     .where(itemImg.item.id.eq(item.getId()))
+                                     .where(itemImg.repimgYn.eq("Y"))
+                                     .fetchFirst() != null;
+        if (!repImg) {
+            return;
+        }
+
+        Entry entry = new Entry(item.getId(), item.getItemNm());
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(entry);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(entry);
+            }
+        });
+    }
+
+    private synchronized void put(Entry entry) {
+        State current = state;
+
+        Map<Long, Entry> delta = new HashMap<>(current.delta);
+        delta.put(entry.id, entry);
+
+        if (delta.size() < MERGE_THRESHOLD) {
+            state = new State(current.snapshot, Collections.unmodifiableMap(delta));
+            return;
+        }
+
+        // delta 가 커지면 검색할 때마다 delta 전체를 확인해야 하므로 Snapshot 에 합쳐서 다시 만듭니다.
+        List<Entry> entries = new ArrayList<>(current.snapshot.entries.length + delta.size());
+        for (Entry snapshotEntry : current.snapshot.entries) {
+            if (!delta.containsKey(snapshotEntry.id)) {
+                entries.add(snapshotEntry);
+            }
+        }
+        entries.addAll(delta.values());
+        state = new State(Snapshot.build(entries), Collections.emptyMap());
+    }
+
+    // 상품명에 검색어(초성 또는 자모)가 포함된 상품 아이디를 최신 상품 순서로 조회합니다.
+    // 커서 값이 있으면 커서보다 작은 상품 아이디만 조회합니다.
+    // countTotal 이 false 이면 필요한 개수만큼 찾은 뒤 바로 멈추고 전체 개수는 -1 로 반환합니다.
+    public ItemSearchIndex.Hits search(String searchQuery, Long cursorId, long offset, int limit, boolean countTotal) {
+        boolean chosung = isChosungQuery(searchQuery);
+        String key = chosung ? toChosung(searchQuery) : toJamo(searchQuery);
+        State current = state;
+
+        // delta 에서 찾은 상품은 수가 적으므로 먼저 모두 찾아서 최신 상품 순서로 정렬해둡니다.
+        List<Long> deltaIds = new ArrayList<>();
+        for (Entry entry : current.delta.values()) {
+            if ((cursorId == null || entry.id < cursorId) && entry.matches(key, chosung)) {
+                deltaIds.add(entry.id);
+            }
+        }
+        deltaIds.sort(Comparator.reverseOrder());
+
+        // Snapshot 에서는 검색어 조각이 들어 있는 상품만 후보로 확인합니다.
+        Snapshot snapshot = current.snapshot;
+        int[] candidates = snapshot.candidates(key, chosung);
+
+        long end = offset + limit;
+        List<Long> ids = new ArrayList<>();
+        long matched = 0;
+        int deltaIndex = 0;
+        int candidateIndex = 0;
+        int candidateCount = (candidates == null) ? snapshot.entries.length : candidates.length;
+
+        // Snapshot 의 후보와 delta 의 결과는 모두 상품 아이디 내림차순이므로 두 목록을 합치면서 순서대로 셉니다.
+        while (countTotal || matched < end) {
+            Long snapshotId = null;
+            while (candidateIndex < candidateCount) {
+                Entry entry = snapshot.entries[(candidates == null) ? candidateIndex : candidates[candidateIndex]];
+                if (!current.delta.containsKey(entry.id)
+                        && (cursorId == null || entry.id < cursorId)
+                        && entry.matches(key, chosung)) {
+                    snapshotId = entry.id;
+                    break;
+                }
+                candidateIndex++;
+            }
+
+            Long deltaId = (deltaIndex < deltaIds.size()) ? deltaIds.get(deltaIndex) : null;
+            if (snapshotId == null && deltaId == null) {
+                break;
+            }
+
+            long id;
+            if (deltaId == null || (snapshotId != null && snapshotId > deltaId)) {
+                id = snapshotId;
+                candidateIndex++;
+            } else {
+                id = deltaId;
+                deltaIndex++;
+            }
+
+            if (matched >= offset && matched < end) {
+                ids.add(id);
+            }
+            matched++;
+        }
+
+        return new ItemSearchIndex.Hits(Collections.unmodifiableList(ids), countTotal ? matched : -1);
+    }
+
+    // 검색 중에 바뀌지 않도록 Snapshot 과 delta 를 하나로 묶은 현재 상태입니다.
+    private static class State {
+        private final Snapshot snapshot;
+        private final Map<Long, Entry> delta;
+
+        private State(Snapshot snapshot, Map<Long, Entry> delta) {
+            this.snapshot = snapshot;
+            this.delta = delta;
+        }
+    }
+
+    private static class Entry {
+        private final long id;
+        private final String chosung;
+        private final String jamo;
+
+        private Entry(long id, String itemNm) {
+            this.id = id;
+            this.chosung = toChosung(itemNm);
+            this.jamo = toJamo(itemNm);
+        }
+
+        private boolean matches(String key, boolean chosung) {
+            return (chosung ? this.chosung : this.jamo).contains(key);
+        }
+    }
+
+    // 상품 아이디 내림차순으로 정렬한 상품 배열과, 검색어 조각별로 해당 조각이 들어 있는 상품의 배열 위치 목록입니다.
+    // 초성은 한 글자, 두 글자 조각을 저장하고 자모는 두 글자 조각만 저장합니다.
+    // 위치 목록은 int 배열로 저장하여 상품마다 객체를 만들지 않습니다.
+    private static class Snapshot {
+        private final Entry[] entries;
+        private final Map<String, int[]> postings;
+
+        private Snapshot(Entry[] entries, Map<String, int[]> postings) {
+            this.entries = entries;
+            this.postings = postings;
+        }
+
+        private static Snapshot build(List<Entry> entryList) {
+            Entry[] entries = entryList.toArray(new Entry[0]);
+            Arrays.sort(entries, (a, b) -> Long.compare(b.id, a.id));
+
+            Map<String, int[]> builders = new HashMap<>();
+            Map<String, Integer> sizes = new HashMap<>();
+            Set<String> grams = new HashSet<>();
+            for (int i = 0; i < entries.length; i++) {
+                grams.clear();
+                addGrams(grams, "c", entries[i].chosung, 1);
+                addGrams(grams, "c", entries[i].chosung, 2);
+                addGrams(grams, "j", entries[i].jamo, 2);
+
+                for (String gram : grams) {
+                    int size = sizes.getOrDefault(gram, 0);
+                    int[] posting = builders.get(gram);
+                    if (posting == null) {
+                        posting = new int[4];
+                    } else if (posting.length == size) {
+                        posting = Arrays.copyOf(posting, size * 2);
+                    }
+                    posting[size] = i;
+                    builders.put(gram, posting);
+                    sizes.put(gram, size + 1);
+                }
+            }
+
+            Map<String, int[]> postings = new HashMap<>(builders.size() * 2);
+            for (Map.Entry<String, int[]> builder : builders.entrySet()) {
+                postings.put(builder.getKey(), Arrays.copyOf(builder.getValue(), sizes.get(builder.getKey())));
+            }
+            return new Snapshot(entries, postings);
+        }
+
+        private static void addGrams(Set<String> grams, String prefix, String text, int gramSize) {
+            for (int i = 0; i + gramSize <= text.length(); i++) {
+                grams.add(prefix + text.substring(i, i + gramSize));
+            }
+        }
+
+        // 검색어의 조각 중 가장 적은 상품이 들어 있는 조각의 위치 목록을 후보로 반환합니다.
+        // 조각을 만들 수 없는 짧은 검색어라면 null 을 반환하여 전체 상품을 확인하도록 합니다.
+        private int[] candidates(String key, boolean chosung) {
+            String prefix = chosung ? "c" : "j";
+            if (key.length() == 1 && chosung) {
+                return postings.getOrDefault(prefix + key, new int[0]);
+            }
+            if (key.length() < 2) {
+                return null;
+            }
+
+            int[] smallest = null;
+            for (int i = 0; i + 2 <= key.length(); i++) {
+                int[] posting = postings.get(prefix + key.substring(i, i + 2));
+                if (posting == null) {
+                    return new int[0];
+                }
+                if (smallest == null || posting.length < smallest.length) {
+                    smallest = posting;
+                }
+            }
+            return smallest;
+        }
+    }
+}
@@ -0,0 +1,453 @@
+package com.shop.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.shop.constant.OrderStatus;
+import com.shop.dto.ItemSuggestDto;
+import com.shop.entity.QItem;
+import com.shop.entity.QOrderItem;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// 검색창 자동완성을 위해 상품명의 앞부분(prefix)으로 인기 상품을 찾는 메모리 색인입니다.
+//
+// 상품명의 각 단어 시작 위치부터 끝까지를 키로 만들고(예: "청바지 슬림핏" -> "청바지 슬림핏", "슬림핏"),
+// 초성 키("ㅊㅂㅈ ㅅㄹㅍ", "ㅅㄹㅍ")도 함께 만든 뒤 모든 키를 정렬해서 하나의 char 배열에 이어 붙여 저장합니다.
+// 정렬된 키에서 같은 prefix 를 가진 키들은 연속된 구간에 모이므로, 트라이의 한 노드가 가리키는 하위 키 구간을
+// 이진 탐색으로 바로 찾을 수 있습니다. 노드마다 객체나 Map 을 만들지 않아서 메모리를 적게 사용합니다.
+// 구간 안의 인기 상품 K개는 구간 전체를 보지 않고 찾습니다. 키를 BLOCK_SIZE 개씩 블록으로 나누어 블록마다 가장 인기 있는 키를
+// 구해 두고, 블록 단위의 구간 최댓값 테이블(sparse table)만 만듭니다. 구간 양 끝의 블록 조각은 직접 비교합니다.
+// 키마다 테이블을 만들면 n·log2(n) 개의 int 가 필요하지만(키 800만 개이면 약 700MB), 블록 단위로 만들면
+// (n / BLOCK_SIZE)·log2(n / BLOCK_SIZE) 개로 줄어듭니다(같은 경우 약 9MB).
+//
+// 색인은 변경되지 않는 객체(Snapshot)이며, 상품이 변경되면 백그라운드에서 새 Snapshot 을 만들어 교체합니다.
+// 주문으로 바뀌는 인기 점수는 itemSuggestScoreRefreshSeconds 마다 점수만 다시 읽어서 키 배열은 그대로 두고 블록 테이블만 다시 만듭니다.
+// 검색은 잠금 없이 현재 Snapshot 을 읽기 때문에 다시 만드는 동안에도 기다리지 않습니다.
+@Slf4j
+@Repository
+public class ItemNmSuggestIndex {
+
+    private static final int BUILD_BATCH_SIZE = 1000;
+
+    // 블록 하나에 들어가는 키의 개수입니다. 구간 양 끝의 블록 조각은 최대 BLOCK_SIZE 개씩 직접 비교합니다.
+    private static final int BLOCK_SIZE = 64;
+
+    private final JPAQueryFactory queryFactory;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final long scoreRefreshSeconds;
+
+    // 색인을 다시 만드는 작업과 인기 점수를 다시 읽는 작업은 하나의 스레드에서 순서대로 실행합니다.
+    private final ScheduledExecutorService rebuildExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "item-suggest-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // 다시 만들기 요청이 대기 중인지 표시합니다.
+    // 대기 중인 요청이 있으면 새 요청을 추가하지 않아서, 상품이 연속으로 변경되어도 한 번만 다시 만듭니다.
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean(false);
+
+    private volatile Snapshot snapshot = Snapshot.build(Collections.emptyList(), Collections.emptyMap());
+
+    public ItemNmSuggestIndex(EntityManager em, PlatformTransactionManager transactionManager,
+                              @Value("${itemSuggestScoreRefreshSeconds:300}") long scoreRefreshSeconds) {
+        this.queryFactory = new JPAQueryFactory(em);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.scoreRefreshSeconds = scoreRefreshSeconds;
+    }
+
+    @PreDestroy
+    public void close() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuild();
+
+        // 주문이 들어올 때마다 다시 만들지 않고, 정해진 주기마다 인기 점수만 다시 읽습니다. 0 이면 다시 읽지 않습니다.
+        if (scoreRefreshSeconds > 0) {
+            rebuildExecutor.scheduleWithFixedDelay(() -> {
+                try {
+                    refreshScores();
+                } catch (RuntimeException e) {
+                    log.error("상품 자동완성 인기 점수 갱신 실패", e);
+                }
+            }, scoreRefreshSeconds, scoreRefreshSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    // 상품이 등록되거나 수정되면 백그라운드에서 색인을 다시 만들도록 요청합니다.
+    // 트랜잭션 안에서 호출되면 커밋된 후에 요청합니다.
+    public void requestRebuild() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            submitRebuild();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submitRebuild();
+            }
+        });
+    }
+
+    private void submitRebuild() {
+        if (!rebuildRequested.compareAndSet(false, true)) {
+            return;
+        }
+
+        rebuildExecutor.execute(() -> {
+            // 다시 만드는 중에 들어온 변경은 다음 요청으로 반영되도록 시작하기 전에 표시를 해제합니다.
+            rebuildRequested.set(false);
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                log.error("상품 자동완성 색인 생성 실패", e);
+            }
+        });
+    }
+
+    // 데이터베이스의 상품명과 주문 수량으로 색인을 다시 만들어서 교체합니다.
+    public void rebuild() {
+        Snapshot newSnapshot = transactionTemplate.execute(status -> Snapshot.build(loadItems(), loadScores()));
+        snapshot = newSnapshot;
+        log.info("상품 자동완성 색인 생성 완료 (상품 수: {}, 키 수: {})", newSnapshot.itemIds.length, newSnapshot.keyItems.length);
+    }
+
+    // 현재 색인의 키는 그대로 두고 주문 수량으로 계산한 인기 점수만 다시 읽어서 교체합니다.
+    // 색인을 다시 만드는 작업과 같은 스레드에서 실행되므로, 새로 만든 색인을 이전 색인으로 덮어쓰지 않습니다.
+    public void refreshScores() {
+        Map<Long, Long> scores = transactionTemplate.execute(status -> loadScores());
+        snapshot = snapshot.withScores(scores);
+    }
+
+    // 상품 상세 설명(@Lob)은 필요 없으므로 상품 아이디와 상품명만 조회합니다.
+    private List<Tuple> loadItems() {
+        QItem item = QItem.item;
+
+        List<Tuple> items = new ArrayList<>();
+        Long lastId = null;
+        while (true) {
+            List<Tuple> tuples = queryFactory.select(item.id, item.itemNm)
+                                             .from(item)
+                                             .where(lastId == null ? null : item.id.gt(lastId))
+                                             .orderBy(item.id.asc())
+                                             .limit(BUILD_BATCH_SIZE)
+                                             .fetch();
+            if (tuples.isEmpty()) {
+                break;
+            }
+            items.addAll(tuples);
+            lastId = tuples.get(tuples.size() - 1).get(item.id);
+        }
+        return items;
+    }
+
+    // 상품별 인기 점수로 취소되지 않은 주문의 주문 수량 합계를 사용합니다.
+    private Map<Long, Long> loadScores() {
+        QOrderItem orderItem = QOrderItem.orderItem;
+
+        List<Tuple> tuples = queryFactory.select(orderItem.item.id, orderItem.count.sum())
+                                         .from(orderItem)
+                                         .where(orderItem.order.orderStatus.eq(OrderStatus.ORDER))
+                                         .groupBy(orderItem.item.id)
+                                         .fetch();
+
+        Map<Long, Long> scores = new HashMap<>();
+        for (Tuple tuple : tuples) {
+            // 데이터베이스에 따라 합계가 Long 으로 반환될 수 있으므로 Number 로 받습니다.
+            Number count = tuple.get(1, Number.class);
+            scores.put(tuple.get(orderItem.item.id), count == null ? 0L : count.longValue());
+        }
+        return scores;
+    }
+
+    // 검색어로 시작하는 상품을 인기 순서(같으면 최신 상품 순서)로 최대 limit 개 조회합니다.
+    public List<ItemSuggestDto> suggest(String prefix, int limit) {
+        Snapshot current = snapshot;
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        return current.topK(key, limit);
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private static class Snapshot {
+
+        // 상품 순번별 상품 아이디, 상품명, 인기 점수입니다.
+        private final long[] itemIds;
+        private final String[] itemNms;
+        private final long[] itemScores;
+
+        // 정렬된 모든 키를 이어 붙인 문자 배열과 각 키의 시작 위치(keyOffsets[i] ~ keyOffsets[i + 1])입니다.
+        private final char[] keyChars;
+        private final int[] keyOffsets;
+
+        // 키 순번별 상품 순번입니다.
+        private final int[] keyItems;
+
+        // sparse[j][b]: b 번째 블록부터 2^j 개의 블록 중에서 가장 인기 있는 상품의 키 순번
+        private int[][] sparse;
+
+        private Snapshot(long[] itemIds, String[] itemNms, long[] itemScores,
+                         char[] keyChars, int[] keyOffsets, int[] keyItems) {
+            this.itemIds = itemIds;
+            this.itemNms = itemNms;
+            this.itemScores = itemScores;
+            this.keyChars = keyChars;
+            this.keyOffsets = keyOffsets;
+            this.keyItems = keyItems;
+        }
+
+        private static Snapshot build(List<Tuple> items, Map<Long, Long> scores) {
+            QItem item = QItem.item;
+
+            int itemCount = items.size();
+            long[] itemIds = new long[itemCount];
+            String[] itemNms = new String[itemCount];
+            long[] itemScores = new long[itemCount];
+
+            List<String> keys = new ArrayList<>();
+            List<Integer> keyOwners = new ArrayList<>();
+            for (int i = 0; i < itemCount; i++) {
+                Tuple tuple = items.get(i);
+                itemIds[i] = tuple.get(item.id);
+                itemNms[i] = tuple.get(item.itemNm);
+                itemScores[i] = scores.getOrDefault(itemIds[i], 0L);
+
+                String itemNm = normalize(itemNms[i]);
+                addWordKeys(keys, keyOwners, itemNm, i);
+                addWordKeys(keys, keyOwners, ItemNmJamoIndex.toChosung(itemNm), i);
+            }
+
+            // 키를 정렬하되 키 문자열은 배열에 복사한 뒤 버립니다.
+            Integer[] order = new Integer[keys.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> keys.get(a).compareTo(keys.get(b)));
+
+            int totalChars = 0;
+            for (String key : keys) {
+                totalChars += key.length();
+            }
+
+            char[] keyChars = new char[totalChars];
+            int[] keyOffsets = new int[order.length + 1];
+            int[] keyItems = new int[order.length];
+            int position = 0;
+            for (int i = 0; i < order.length; i++) {
+                String key = keys.get(order[i]);
+                key.getChars(0, key.length(), keyChars, position);
+                keyOffsets[i] = position;
+                keyItems[i] = keyOwners.get(order[i]);
+                position += key.length();
+            }
+            keyOffsets[order.length] = position;
+
+            Snapshot snapshot = new Snapshot(itemIds, itemNms, itemScores, keyChars, keyOffsets, keyItems);
+            snapshot.sparse = snapshot.buildSparseTable();
+            return snapshot;
+        }
+
+        // 키 배열은 공유하고 인기 점수와 블록 테이블만 새로 만든 Snapshot 을 반환합니다.
+        private Snapshot withScores(Map<Long, Long> scores) {
+            long[] newScores = new long[itemIds.length];
+            for (int i = 0; i < itemIds.length; i++) {
+                newScores[i] = scores.getOrDefault(itemIds[i], 0L);
+            }
+
+            Snapshot snapshot = new Snapshot(itemIds, itemNms, newScores, keyChars, keyOffsets, keyItems);
+            snapshot.sparse = snapshot.buildSparseTable();
+            return snapshot;
+        }
+
+        // 상품명의 각 단어 시작 위치부터 끝까지를 키로 추가합니다.
+        private static void addWordKeys(List<String> keys, List<Integer> keyOwners, String text, int itemIndex) {
+            for (int i = 0; i < text.length(); i++) {
+                if (!Character.isWhitespace(text.charAt(i)) && (i == 0 || Character.isWhitespace(text.charAt(i - 1)))) {
+                    keys.add(text.substring(i));
+                    keyOwners.add(itemIndex);
+                }
+            }
+        }
+
+        private int[][] buildSparseTable() {
+            int n = (keyItems.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            int levels = 1;
+            while ((1 << levels) <= n) {
+                levels++;
+            }
+
+            int[][] table = new int[levels][];
+            table[0] = new int[n];
+            for (int b = 0; b < n; b++) {
+                table[0][b] = scan(b * BLOCK_SIZE, Math.min((b + 1) * BLOCK_SIZE, keyItems.length) - 1);
+            }
+            for (int j = 1; j < levels; j++) {
+                int half = 1 << (j - 1);
+                table[j] = new int[n - (1 << j) + 1];
+                for (int i = 0; i < table[j].length; i++) {
+                    table[j][i] = better(table[j - 1][i], table[j - 1][i + half]);
+                }
+            }
+            return table;
+        }
+
+        // 두 키 중 인기 점수가 높은 상품의 키를 반환합니다. 점수가 같으면 최신 상품(아이디가 큰 상품)을 반환합니다.
+        private int better(int a, int b) {
+            int itemA = keyItems[a];
+            int itemB = keyItems[b];
+            if (itemScores[itemA] != itemScores[itemB]) {
+                return itemScores[itemA] > itemScores[itemB] ? a : b;
+            }
+            return itemIds[itemA] >= itemIds[itemB] ? a : b;
+        }
+
+        // [from, to] 구간의 키를 하나씩 비교하여 가장 인기 있는 상품의 키 순번을 반환합니다.
+        private int scan(int from, int to) {
+            int result = from;
+            for (int i = from + 1; i <= to; i++) {
+                result = better(result, i);
+            }
+            return result;
+        }
+
+        // [from, to] 구간에서 가장 인기 있는 상품의 키 순번을 반환합니다.
+        // 양 끝 블록의 조각은 직접 비교하고, 그 사이에 있는 블록들은 블록 테이블로 찾습니다.
+        private int best(int from, int to) {
+            int fromBlock = from / BLOCK_SIZE;
+            int toBlock = to / BLOCK_SIZE;
+            if (fromBlock == toBlock) {
+                return scan(from, to);
+            }
+
+            int result = better(scan(from, (fromBlock + 1) * BLOCK_SIZE - 1), scan(toBlock * BLOCK_SIZE, to));
+            if (fromBlock + 1 <= toBlock - 1) {
+                int level = 31 - Integer.numberOfLeadingZeros(toBlock - fromBlock - 1);
+                result = better(result, better(sparse[level][fromBlock + 1], sparse[level][toBlock - (1 << level)]));
+            }
+            return result;
+        }
+
+        // prefix 로 시작하는 키의 구간을 찾고, 구간에서 인기 있는 키부터 꺼내면서
+        // 남은 구간을 둘로 나누어 다시 후보에 넣는 방식으로 상위 limit 개 상품을 찾습니다.
+        private List<ItemSuggestDto> topK(String prefix, int limit) {
+            int from = lowerBound(prefix);
+            int to = upperBound(prefix) - 1;
+            if (from > to) {
+                return Collections.emptyList();
+            }
+
+            PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> a[2] == b[2] ? 0 : (better(a[2], b[2]) == a[2] ? -1 : 1));
+            ranges.add(new int[]{from, to, best(from, to)});
+
+            List<ItemSuggestDto> result = new ArrayList<>(limit);
+            int[] selectedItems = new int[limit];
+            while (!ranges.isEmpty() && result.size() < limit) {
+                int[] range = ranges.poll();
+                int keyIndex = range[2];
+                int itemIndex = keyItems[keyIndex];
+
+                // 한 상품이 여러 키(단어, 초성)로 저장되어 있으므로 이미 선택된 상품은 건너뜁니다.
+                boolean selected = false;
+                for (int i = 0; i < result.size(); i++) {
+                    if (selectedItems[i] == itemIndex) {
+                        selected = true;
+                        break;
+                    }
+                }
+                if (!selected) {
+                    selectedItems[result.size()] = itemIndex;
+                    result.add(new ItemSuggestDto(itemIds[itemIndex], itemNms[itemIndex]));
+                }
+
+                if (range[0] <= keyIndex - 1) {
+                    ranges.add(new int[]{range[0], keyIndex - 1, best(range[0], keyIndex - 1)});
+                }
+                if (keyIndex + 1 <= range[1]) {
+                    ranges.add(new int[]{keyIndex + 1, range[1], best(keyIndex + 1, range[1])});
+                }
+            }
+            return result;
+        }
+
+        // prefix 보다 작지 않은 첫 번째 키의 순번을 찾습니다.
+        private int lowerBound(String prefix) {
+            int low = 0;
+            int high = keyItems.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compareKey(mid, prefix, false) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // prefix 로 시작하는 키들 다음의 첫 번째 키의 순번을 찾습니다.
+        private int upperBound(String prefix) {
+            int low = 0;
+            int high = keyItems.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compareKey(mid, prefix, true) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // 키와 prefix 를 비교합니다. prefixOnly 가 true 이면 키의 앞부분이 prefix 와 같을 때 0 을 반환합니다.
+        private int compareKey(int keyIndex, String prefix, boolean prefixOnly) {
+            int start = keyOffsets[keyIndex];
+            int length = keyOffsets[keyIndex + 1] - start;
+            int common = Math.min(length, prefix.length());
+            for (int i = 0; i < common; i++) {
+                char c = keyChars[start + i];
+                if (c != prefix.charAt(i)) {
+                    return c - prefix.charAt(i);
+                }
+            }
+            if (prefixOnly && length >= prefix.length()) {
+                return 0;
+            }
+            return length - prefix.length();
+        }
+    }
+}
@@ -35,18 +35,18 @@ public interface ItemRepository extends JpaRepository<Item, Long>, QuerydslPredi
 
     List<Item> findByPriceLessThanOrderByPriceDesc(Integer price);
 
-    // @Query 어노테이션 안에 JPQL 로 작성한 쿼리문을 넣어줍니다.
-    // FROM 뒤에는 엔티티 클래스로 작성한 Item 을 지정해주었고,
-    // Item 으로부터 데이터를 SELECT 하겠다는 것을 의미합니다.
-    @Query("SELECT i FROM Item i WHERE i.itemDetail LIKE %:itemDetail% ORDER BY i.price DESC")
-    List<Item> findByItemDetail(@Param("itemDetail") String itemDetail);
-    // 파라미터에 @Param 어노테이션을 이용하여 파라미터로 넘어온 값을 JPQL 에 들어갈 변수로 지정해줄 수 있습니다.
-    // 현재는 itemDetail 변수를 "LIKE % %" 사이에 ":itemDetail" 로 값이 들어가도록 작성했습니다.
+    // 상품 상세 설명으로 조회하는 findByItemDetail 은 "LIKE '%검색어%'" 조건으로 @Lob 컬럼 전체를 읽지 않도록
+    // ItemRepositoryCustomImpl 에서 검색 색인(ItemSearchIndex)을 이용하여 구현합니다.
 
     // 기존의 테이터베이스에서 사용하던 쿼리를 그대로 사용해야 할 때는
     // @Query 의 nativeQuery 속성을 사용하면 기존 쿼리를 그대로 활용할 수 있습니다.
     // value 안에 네이티브 쿼리문을 작성하고 "nativeQuery = true" 를 지정합니다.
+    // 색인을 거치지 않고 LIKE 조건으로 조회하므로 색인 검색 결과와 비교할 때 사용합니다.
     @Query(value = "SELECT * FROM item i WHERE i.item_detail LIKE CONCAT('%', :itemDetail, '%') ORDER BY i.price DESC", nativeQuery = true)
     List<Item> findByItemDetailByNative(@Param("itemDetail") String itemDetail);
 
+    // 상품 엔티티 전체를 조회하지 않고 현재 재고 수량만 조회합니다.
+    @Query("SELECT i.stockNumber FROM Item i WHERE i.id = :itemId")
+    Integer findStockNumberById(@Param("itemId") Long itemId);
+
 }
@@ -1,11 +1,17 @@
 package com.shop.repository;
 
+import com.shop.dto.ItemExportDto;
 import com.shop.dto.ItemSearchDto;
 import com.shop.dto.MainItemDto;
 import com.shop.entity.Item;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
 public interface ItemRepositoryCustom {
     // 상품 조회 조건을 담고 있는 itemSearchDto 객체와 페이징 정보를 담고 있는 pageable 객체를
     // 파라미터로 받는 getAdminItemPage 메소드를 정의합니다.
@@ -14,4 +20,32 @@ public interface ItemRepositoryCustom {
 
     Page<MainItemDto> getMainItemPage(ItemSearchDto itemSearchDto, Pageable pageable);
 
+    // 상품 상세 설명에 검색어가 포함된 상품을 가격 내림차순으로 조회합니다.
+    // 검색 색인이 준비되어 있으면 색인에서 상품 아이디를 찾은 뒤 기본키로 조회하고, 준비되기 전에는 LIKE 조건으로 조회합니다.
+    List<Item> findByItemDetail(String itemDetail);
+
+    // 관리자 상품 페이지와 같은 조회 조건으로 전체 상품을 한 행씩 읽어오는 Stream 을 반환합니다.
+    // 결과를 한 번에 메모리에 올리지 않고 앞에서부터 순서대로(forward-only) 읽어오므로
+    // 반드시 트랜잭션 안에서 사용하고, 다 읽은 후에는 close() 해야 합니다.
+    Stream<ItemExportDto> streamAdminItems(ItemSearchDto itemSearchDto);
+
+    // 상품과 상품 이미지의 수정 시간 중 가장 최근 시간을 조회합니다.
+    // 상품 상세 설명(@Lob)을 읽지 않고 수정 여부만 빠르게 확인할 때 사용합니다.
+    // 상품이 존재하지 않으면 null 을 반환합니다.
+    LocalDateTime getItemDtlUpdateTime(Long itemId);
+
+    // 재고가 주문 수량 이상일 때만 재고를 감소시키는 update 쿼리를 한 번 실행합니다.
+    // 변경된 행이 없으면 재고가 부족한 것이므로 OutOfStockException 을 발생시킵니다.
+    void removeStock(Long itemId, int count);
+
+    // 여러 상품의 재고를 update 쿼리 한 번으로 함께 감소시킵니다.
+    // 파라미터로 상품 아이디와 주문 수량을 담은 Map 을 받으며,
+    // 한 상품이라도 재고가 부족하면 OutOfStockException 을 발생시킵니다.
+    void removeStocks(Map<Long, Integer> itemCountMap);
+
+    // 주문 취소 시 주문 수량만큼 재고를 다시 더해주는 update 쿼리를 실행합니다.
+    void addStock(Long itemId, int count);
+
+    void addStocks(Map<Long, Integer> itemCountMap);
+
 }
@@ -1,33 +1,86 @@
 package com.shop.repository;
 
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.CaseBuilder;
+import com.querydsl.core.types.dsl.NumberExpression;
 import com.querydsl.core.types.dsl.Wildcard;
+import com.querydsl.jpa.JPAExpressions;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.shop.config.CacheConfig;
 import com.shop.constant.ItemSellStatus;
+import com.shop.dto.ItemExportDto;
 import com.shop.dto.ItemSearchDto;
 import com.shop.dto.MainItemDto;
+import com.shop.dto.QItemExportDto;
 import com.shop.dto.QMainItemDto;
 import com.shop.entity.Item;
 import com.shop.entity.QItem;
 import com.shop.entity.QItemImg;
+import com.shop.entity.QItemStockBucket;
+import com.shop.exception.OutOfStockException;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
 import org.thymeleaf.util.StringUtils;
 
 import javax.persistence.EntityManager;
+import javax.persistence.EntityNotFoundException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 // ItemRepositoryCustom 을 상속받습니다.
 public class ItemRepositoryCustomImpl implements ItemRepositoryCustom {
 
+    // 상품 목록을 내보낼 때 데이터베이스에서 한 번에 가져오는 행의 수입니다.
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
     // 동적으로 쿼리를 생성하기 위해서 JPAQueryFactory 클래스를 사용합니다.
     private JPAQueryFactory queryFactory;
 
+    // 메인 페이지의 전체 상품 개수를 저장해두는 캐시입니다.
+    private Cache mainItemCountCache;
+
+    // 검색어가 포함된 상품 아이디를 찾기 위한 역색인입니다.
+    private ItemSearchIndex itemSearchIndex;
+
+    // 초성, 자모로 상품명을 찾기 위한 메모리 색인입니다.
+    private ItemNmJamoIndex itemNmJamoIndex;
+
+    // 검색 방식을 지정하지 않았을 때 사용할 기본 검색 방식입니다. (index 또는 like)
+    private String defaultSearchMode;
+
     // JPAQueryFactory 의 생성자로 EntityManager 객체를 넣어줍니다.
-    public ItemRepositoryCustomImpl(EntityManager em) {
+    public ItemRepositoryCustomImpl(EntityManager em, CacheManager cacheManager,
+                                    ItemSearchIndex itemSearchIndex, ItemNmJamoIndex itemNmJamoIndex,
+                                    @Value("${itemSearchMode:index}") String defaultSearchMode) {
         this.queryFactory = new JPAQueryFactory(em);
+        this.mainItemCountCache = cacheManager.getCache(CacheConfig.MAIN_ITEM_COUNT);
+        this.itemSearchIndex = itemSearchIndex;
+        this.itemNmJamoIndex = itemNmJamoIndex;
+        this.defaultSearchMode = defaultSearchMode;
+    }
+
+    // 검색어가 있고 검색 방식이 index 이면 역색인으로 상품 아이디를 찾습니다.
+    // 시작 시점에 색인이 아직 준비되지 않았다면 LIKE 조건으로 조회합니다.
+    private boolean useSearchIndex(ItemSearchDto itemSearchDto) {
+        if (StringUtils.isEmpty(itemSearchDto.getSearchQuery()) || !itemSearchIndex.isReady()) {
+            return false;
+        }
+
+        String searchMode = (itemSearchDto.getSearchMode() != null) ? itemSearchDto.getSearchMode() : defaultSearchMode;
+        return StringUtils.equals(ItemSearchIndex.SEARCH_MODE_INDEX, searchMode);
     }
 
     // 상품 판매 상태 조건이 전체(null)일 경우는 null 을 리턴합니다.
@@ -42,6 +95,13 @@ public class ItemRepositoryCustomImpl implements ItemRepositoryCustom {
     // 예를 들어 searchDateType 값이 "1m" 인 경우 dateTime 의 시간을 한 달 전으로 세팅 후
     // 최근 한 달동안 등록된 상품만 조회하도록 조건값을 반환합니다.
     private BooleanExpression regDtsAfter(String searchDateType) {
+        LocalDateTime dateTime = regTimeAfter(searchDateType);
+        return dateTime == null ? null : QItem.item.regTime.after(dateTime);
+    }
+
+    // searchDateType 에 해당하는 기준 시간을 반환합니다. 전체(all)일 경우는 null 을 반환합니다.
+    // 역색인으로 조회할 때도 같은 기준 시간을 사용합니다.
+    private LocalDateTime regTimeAfter(String searchDateType) {
 
         LocalDateTime dateTime = LocalDateTime.now();
 
@@ -57,15 +117,17 @@ public class ItemRepositoryCustomImpl implements ItemRepositoryCustom {
             dateTime = dateTime.minusMonths(6);
         }
 
-        return QItem.item.regTime.after(dateTime);
+        return dateTime;
     }
 
-    // searchBy 의 값에 따라서 상품명에 검색어를 포함하고 있는 상품 또는 상품 생성자의 아이디에
+    // searchBy 의 값에 따라서 상품명, 상품 상세 설명 또는 상품 생성자의 아이디에
     // 검색어를 포함하고 있는 상품을 조회하도록 조건값을 반환합니다.
     private BooleanExpression searchByLike(String searchBy, String searchQuery) {
 
         if (StringUtils.equals("itemNm", searchBy)) {
             return QItem.item.itemNm.like("%" + searchQuery + "%");
+        } else if (StringUtils.equals("itemDetail", searchBy)) {
+            return QItem.item.itemDetail.like("%" + searchQuery + "%");
         } else if (StringUtils.equals("createdBy", searchBy)){
             return QItem.item.createdBy.like("%" + searchQuery + "%");
         }
@@ -76,6 +138,12 @@ public class ItemRepositoryCustomImpl implements ItemRepositoryCustom {
     @Override
     public Page<Item> getAdminItemPage(ItemSearchDto itemSearchDto, Pageable pageable) {
 
+        if (useSearchIndex(itemSearchDto) && (StringUtils.equals("itemNm", itemSearchDto.getSearchBy())
+                || StringUtils.equals("itemDetail", itemSearchDto.getSearchBy())
+                || StringUtils.equals("createdBy", itemSearchDto.getSearchBy()))) {
+            return getAdminItemPageFromIndex(itemSearchDto, pageable);
+        }
+
         // 이제 queryFactory 를 이용해서 쿼리를 생성합니다.
         // 쿼리문을 직접 작성할 때의 형태와 문법이 비슷한 것을 볼 수 있습니다.
         // selectFrom(QItem.item): 상품 데이터를 조회하기 위해서 QItem 의 item 을 지정합니다.
@@ -114,16 +182,148 @@ public class ItemRepositoryCustomImpl implements ItemRepositoryCustom {
         return new PageImpl<>(content, pageable, total);
     }
 
+    @Override
+    public Stream<ItemExportDto> streamAdminItems(ItemSearchDto itemSearchDto) {
+        QItem item = QItem.item;
+        QItemStockBucket itemStockBucket = QItemStockBucket.itemStockBucket;
+
+        // 재고 분할 모드인 상품은 bucket 에 나누어 담긴 재고까지 더한 수량을 내보냅니다.
+        NumberExpression<Integer> stockNumber = item.stockNumber.add(
+                JPAExpressions.select(itemStockBucket.stockNumber.sum().coalesce(0))
+                              .from(itemStockBucket)
+                              .where(itemStockBucket.item.eq(item)));
+
+        // fetchSize 만큼씩 데이터베이스에서 가져오면서 한 행씩 읽습니다.
+        // 엔티티가 아닌 DTO 로 조회하고 읽기 전용 힌트를 주어서 영속성 컨텍스트에 아무것도 쌓이지 않도록 합니다.
+        return queryFactory.select(new QItemExportDto(item.id, item.itemNm, item.price, stockNumber,
+                                                      item.itemSellStatus, item.createdBy, item.regTime))
+                           .from(item)
+                           .where(regDtsAfter(itemSearchDto.getSearchDateType()),
+                                  searchSellStatusEq(itemSearchDto.getSearchSellStatus()),
+                                  searchByLike(itemSearchDto.getSearchBy(), itemSearchDto.getSearchQuery()))
+                           .orderBy(item.id.desc())
+                           .setHint(QueryHints.HINT_FETCH_SIZE, EXPORT_FETCH_SIZE)
+                           .setHint(QueryHints.HINT_READONLY, true)
+                           .stream();
+    }
+
+    // 관리자 상품 페이지의 검색 조건을 역색인에서 처리하고,
+    // 찾은 상품 아이디로만 상품 데이터를 조회합니다.
+    private Page<Item> getAdminItemPageFromIndex(ItemSearchDto itemSearchDto, Pageable pageable) {
+        ItemSearchIndex.Hits hits = itemSearchIndex.searchAdminItem(itemSearchDto.getSearchBy(),
+                                                                    itemSearchDto.getSearchQuery(),
+                                                                    itemSearchDto.getSearchSellStatus(),
+                                                                    regTimeAfter(itemSearchDto.getSearchDateType()),
+                                                                    pageable.getOffset(),
+                                                                    pageable.getPageSize());
+
+        List<Item> content = hits.getIds().isEmpty() ? new ArrayList<>()
+                : queryFactory.selectFrom(QItem.item)
+                              .where(QItem.item.id.in(hits.getIds()))
+                              .orderBy(QItem.item.id.desc())
+                              .fetch();
+
+        return new PageImpl<>(content, pageable, hits.getTotal());
+    }
+
+    @Override
+    public List<Item> findByItemDetail(String itemDetail) {
+        QItem item = QItem.item;
+
+        // 색인이 준비되기 전이거나 검색어가 비어 있으면 LIKE 조건으로 조회합니다.
+        if (StringUtils.isEmpty(itemDetail) || !itemSearchIndex.isReady()) {
+            return queryFactory.selectFrom(item)
+                               .where(item.itemDetail.like("%" + (itemDetail == null ? "" : itemDetail) + "%"))
+                               .orderBy(item.price.desc())
+                               .fetch();
+        }
+
+        // 상품 상세 설명(@Lob)을 LIKE 조건으로 모두 읽지 않고, 색인에서 찾은 상품만 기본키로 조회합니다.
+        List<Long> itemIds = itemSearchIndex.searchItemDetail(itemDetail);
+        if (itemIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return queryFactory.selectFrom(item)
+                           .where(item.id.in(itemIds))
+                           .orderBy(item.price.desc())
+                           .fetch();
+    }
+
     // 검색어가 null 이 아니면 상품명에 해당 검색어가 포함되는 상품을 조회하는 조건을 반환합니다.
     private BooleanExpression itemNmLike(String searchQuery) {
         return StringUtils.isEmpty(searchQuery) ? null : QItem.item.itemNm.like("%" + searchQuery + "%");
     }
 
+    // 커서 값이 있으면 마지막으로 본 상품 아이디보다 작은 상품만 조회하는 조건을 반환합니다.
+    // 기본키 인덱스를 타고 바로 시작 위치를 찾기 때문에 뒤쪽 페이지로 갈수록
+    // 앞의 데이터를 읽고 버리는 offset 방식과 달리 조회 속도가 일정하게 유지됩니다.
+    private BooleanExpression itemIdLt(Long cursorId) {
+        return cursorId == null ? null : QItem.item.id.lt(cursorId);
+    }
+
     @Override
     public Page<MainItemDto> getMainItemPage(ItemSearchDto itemSearchDto, Pageable pageable) {
+        boolean cursorMode = itemSearchDto.getCursorId() != null;
+
+        // 초성("ㅊㅂㅈ")이나 덜 조합된 글자("청바ㅈ")가 들어 있는 검색어는 LIKE 조건이나 검색 색인으로 찾을 수 없으므로
+        // 상품명 자모 색인에서 상품 아이디를 찾습니다.
+        if (ItemNmJamoIndex.isJamoQuery(itemSearchDto.getSearchQuery()) && itemNmJamoIndex.isReady()) {
+            return getMainItemPageFromJamoIndex(itemSearchDto, pageable, cursorMode);
+        }
+
+        Page<MainItemDto> page = searchMainItemPage(itemSearchDto, pageable, cursorMode);
+
+        // "청밪"(청바지를 입력하는 중) 처럼 마지막 글자에 다음 글자의 초성이 받침으로 붙은 검색어는 단독 자모가 없어서
+        // 위에서 자모 색인으로 보내지 못하고, 일반 검색으로는 아무 상품도 찾지 못합니다.
+        // 한글 검색어에 맞는 상품이 하나도 없을 때만 자모 색인으로 다시 찾아서, 완성된 검색어의 결과는 바뀌지 않도록 합니다.
+        // 커서 방식은 전체 개수를 모르므로 첫 페이지와 같은 방식으로 찾도록 일반 검색에 맞는 상품이 있는지 따로 확인합니다.
+        if (page.getContent().isEmpty() && itemNmJamoIndex.isReady()
+                && ItemNmJamoIndex.containsHangul(itemSearchDto.getSearchQuery())
+                && (cursorMode ? !existsMainItem(itemSearchDto) : page.getTotalElements() == 0)) {
+            return getMainItemPageFromJamoIndex(itemSearchDto, pageable, cursorMode);
+        }
+        return page;
+    }
+
+    private Page<MainItemDto> getMainItemPageFromJamoIndex(ItemSearchDto itemSearchDto, Pageable pageable, boolean cursorMode) {
+        ItemSearchIndex.Hits hits = itemNmJamoIndex.search(itemSearchDto.getSearchQuery(),
+                                                           itemSearchDto.getCursorId(),
+                                                           cursorMode ? 0 : pageable.getOffset(),
+                                                           cursorMode ? pageable.getPageSize() + 1 : pageable.getPageSize(),
+                                                           !cursorMode);
+        return getMainItemPageByIds(hits, pageable, cursorMode);
+    }
+
+    // 커서와 상관없이 검색어에 맞는 메인 페이지 상품이 하나라도 있는지 확인합니다.
+    private boolean existsMainItem(ItemSearchDto itemSearchDto) {
+        if (useSearchIndex(itemSearchDto)) {
+            return !itemSearchIndex.searchMainItem(itemSearchDto.getSearchQuery(), null, 0, 1, false).getIds().isEmpty();
+        }
+
+        QItem item = QItem.item;
+        QItemImg itemImg = QItemImg.itemImg;
+        return queryFactory.selectOne()
+                           .from(itemImg)
+                           .join(itemImg.item, item)
+                           .where(itemImg.repimgYn.eq("Y"))
+                           .where(itemNmLike(itemSearchDto.getSearchQuery()))
+                           .fetchFirst() != null;
+    }
+
+    // 검색 색인 또는 LIKE 조건으로 메인 페이지 상품을 조회합니다.
+    private Page<MainItemDto> searchMainItemPage(ItemSearchDto itemSearchDto, Pageable pageable, boolean cursorMode) {
         QItem item = QItem.item;
         QItemImg itemImg = QItemImg.itemImg;
 
+        if (useSearchIndex(itemSearchDto)) {
+            ItemSearchIndex.Hits hits = itemSearchIndex.searchMainItem(itemSearchDto.getSearchQuery(),
+                                                                       itemSearchDto.getCursorId(),
+                                                                       cursorMode ? 0 : pageable.getOffset(),
+                                                                       cursorMode ? pageable.getPageSize() + 1 : pageable.getPageSize(),
+                                                                       !cursorMode);
+            return getMainItemPageByIds(hits, pageable, cursorMode);
+        }
+
         // QMainItemDto 의 생성자에 반환할 값들을 넣어줍니다.
         // @QueryProjection 을 사용하면 DTO 로 바로 조회가 가능합니다.
         // 엔티티 조회 후 DTO 로 변환하는 과정을 줄일 수 있습니다.
@@ -132,20 +332,223 @@ public class ItemRepositoryCustomImpl implements ItemRepositoryCustom {
                                                 .join(itemImg.item, item) // itemImg 와 item 을 내부 조인합니다.
                                                 .where(itemImg.repimgYn.eq("Y")) // 상품 이미지의 경우 대표 상품 이미지만 불러옵니다.
                                                 .where(itemNmLike(itemSearchDto.getSearchQuery()))
+                                                .where(itemIdLt(itemSearchDto.getCursorId())) // 커서 방식일 경우 마지막으로 본 상품 이후부터 조회합니다.
                                                 .orderBy(item.id.desc())
-                                                .offset(pageable.getOffset())
-                                                .limit(pageable.getPageSize())
+                                                // 커서 방식일 경우 시작 위치를 커서 조건으로 찾기 때문에 offset 을 사용하지 않습니다.
+                                                .offset(cursorMode ? 0 : pageable.getOffset())
+                                                // 커서 방식일 경우 다음 페이지가 있는지 알기 위해서 1개를 더 조회합니다.
+                                                .limit(cursorMode ? pageable.getPageSize() + 1 : pageable.getPageSize())
                                                 .fetch();
 
-        Long totalResult = queryFactory.select(Wildcard.count)
-                                       .from(QItem.item)
-                                       .where(regDtsAfter(itemSearchDto.getSearchDateType()),
-                                                      searchSellStatusEq(itemSearchDto.getSearchSellStatus()),
-                                                      searchByLike(itemSearchDto.getSearchBy(), itemSearchDto.getSearchQuery()))
-                                       .fetchOne();
+        if (cursorMode) {
+            // 커서 방식에서는 다음 페이지가 있는지만 필요하므로 전체 개수를 조회하지 않습니다.
+            // 한 페이지보다 1개 더 조회되었다면 다음 페이지가 있는 것입니다.
+            boolean hasNext = content.size() > pageable.getPageSize();
+            if (hasNext) {
+                content = new ArrayList<>(content.subList(0, pageable.getPageSize()));
+            }
+            Pageable cursorPageable = PageRequest.of(0, pageable.getPageSize());
+            return new PageImpl<>(content, cursorPageable, hasNext ? content.size() + 1 : content.size());
+        }
 
-        long total = (totalResult != null) ? totalResult : 0L;
+        // PageableExecutionUtils.getPage() 는 첫 페이지의 조회 결과가 한 페이지보다 적거나
+        // 마지막 페이지를 조회한 경우처럼 조회 결과만으로 전체 개수를 알 수 있을 때는 count 쿼리를 실행하지 않습니다.
+        return PageableExecutionUtils.getPage(content, pageable, () -> countMainItem(itemSearchDto.getSearchQuery()));
+    }
 
-        return new PageImpl<>(content, pageable, total);
+    // 색인에서 찾은 상품 아이디로 상품 테이블 전체를 LIKE 조건으로 읽지 않고 기본키로 해당 상품만 조회합니다.
+    // 전체 개수도 색인에서 바로 구할 수 있으므로 count 쿼리와 개수 캐시를 사용하지 않습니다.
+    // 커서 방식일 경우 색인에서 한 페이지보다 1개 더 찾아서 다음 페이지가 있는지 판단합니다.
+    private Page<MainItemDto> getMainItemPageByIds(ItemSearchIndex.Hits hits, Pageable pageable, boolean cursorMode) {
+        List<Long> itemIds = hits.getIds();
+        boolean hasNext = cursorMode && itemIds.size() > pageable.getPageSize();
+        if (hasNext) {
+            itemIds = itemIds.subList(0, pageable.getPageSize());
+        }
+
+        List<MainItemDto> content = itemIds.isEmpty() ? new ArrayList<>() : findMainItemsByIds(itemIds);
+
+        if (cursorMode) {
+            Pageable cursorPageable = PageRequest.of(0, pageable.getPageSize());
+            return new PageImpl<>(content, cursorPageable, hasNext ? content.size() + 1 : content.size());
+        }
+        return new PageImpl<>(content, pageable, hits.getTotal());
+    }
+
+    private List<MainItemDto> findMainItemsByIds(List<Long> itemIds) {
+        QItem item = QItem.item;
+        QItemImg itemImg = QItemImg.itemImg;
+
+        return queryFactory.select(new QMainItemDto(item.id, item.itemNm, item.itemDetail, itemImg.imgUrl, item.price))
+                           .from(itemImg)
+                           .join(itemImg.item, item)
+                           .where(itemImg.repimgYn.eq("Y"))
+                           .where(item.id.in(itemIds))
+                           .orderBy(item.id.desc())
+                           .fetch();
+    }
+
+    // 메인 페이지의 전체 상품 개수를 조회합니다.
+    // 상품 조회 쿼리와 같은 조건(대표 이미지, 상품명 검색어)으로 개수를 구하며,
+    // 검색어를 키로 캐시에 저장해두고 상품이 등록되거나 수정되면 캐시를 비웁니다.
+    private long countMainItem(String searchQuery) {
+        // 검색어가 없는 경우(null, "")는 같은 조건이므로 같은 키를 사용합니다.
+        String cacheKey = StringUtils.isEmpty(searchQuery) ? "" : searchQuery;
+
+        Long total = mainItemCountCache.get(cacheKey, () -> {
+            QItem item = QItem.item;
+            QItemImg itemImg = QItemImg.itemImg;
+
+            Long totalResult = queryFactory.select(Wildcard.count)
+                                           .from(itemImg)
+                                           .join(itemImg.item, item)
+                                           .where(itemImg.repimgYn.eq("Y"))
+                                           .where(itemNmLike(cacheKey))
+                                           .fetchOne();
+
+            return (totalResult != null) ? totalResult : 0L;
+        });
+
+        return (total != null) ? total : 0L;
+    }
+
+    @Override
+    public LocalDateTime getItemDtlUpdateTime(Long itemId) {
+        QItem item = QItem.item;
+        QItemImg itemImg = QItemImg.itemImg;
+        QItemStockBucket itemStockBucket = QItemStockBucket.itemStockBucket;
+
+        // 재고 분할 모드인 상품은 주문으로 bucket 의 재고만 변경되므로 bucket 의 수정 시간도 함께 비교합니다.
+        Expression<LocalDateTime> bucketUpdateTime = JPAExpressions.select(itemStockBucket.updateTime.max())
+                                                                   .from(itemStockBucket)
+                                                                   .where(itemStockBucket.item.eq(item));
+
+        // 상품, 상품 이미지들, 재고 bucket 들의 수정 시간 중 가장 최근 값을 한 번의 쿼리로 조회합니다.
+        Tuple result = queryFactory.select(item.updateTime, itemImg.updateTime.max(), bucketUpdateTime)
+                                   .from(item)
+                                   .leftJoin(itemImg).on(itemImg.item.eq(item))
+                                   .where(item.id.eq(itemId))
+                                   .groupBy(item.id, item.updateTime)
+                                   .fetchOne();
+
+        if (result == null) {
+            return null;
+        }
+
+        return latest(latest(result.get(item.updateTime), result.get(itemImg.updateTime.max())), result.get(bucketUpdateTime));
+    }
+
+    private static LocalDateTime latest(LocalDateTime first, LocalDateTime second) {
+        if (first == null || (second != null && second.isAfter(first))) {
+            return second;
+        }
+        return first;
+    }
+
+    @Override
+    @Transactional
+    public void removeStock(Long itemId, int count) {
+        QItem item = QItem.item;
+
+        // 재고를 읽어서 자바에서 계산한 뒤 변경 감지로 반영하면
+        // 동시에 들어온 주문끼리 서로의 변경을 덮어쓰는 갱신 손실이 발생할 수 있습니다.
+        // "UPDATE item SET stock_number = stock_number - :count WHERE item_id = :itemId AND stock_number >= :count"
+        // 형태의 쿼리 한 번으로 재고 확인과 감소를 함께 처리합니다.
+        long updatedCount = queryFactory.update(item)
+                                        .set(item.stockNumber, item.stockNumber.subtract(count))
+                                        .set(item.updateTime, LocalDateTime.now())
+                                        .where(item.id.eq(itemId),
+                                               item.stockNumber.goe(count))
+                                        .execute();
+
+        if (updatedCount == 0) {
+            // 변경된 행이 없다면 상품이 없거나 재고가 주문 수량보다 작은 경우입니다.
+            Integer stockNumber = queryFactory.select(item.stockNumber)
+                                              .from(item)
+                                              .where(item.id.eq(itemId))
+                                              .fetchOne();
+
+            if (stockNumber == null) {
+                throw new EntityNotFoundException();
+            }
+
+            throw new OutOfStockException("상품의 재고가 부족 합니다. (현재 재고 수량: " + stockNumber + ")");
+        }
+    }
+
+    @Override
+    @Transactional
+    public void removeStocks(Map<Long, Integer> itemCountMap) {
+        QItem item = QItem.item;
+
+        // 상품별 주문 수량을 "CASE WHEN item_id = ? THEN ? ... END" 형태로 만들어서
+        // 상품 개수와 상관없이 update 쿼리 한 번으로 재고를 감소시킵니다.
+        // 기본키 IN 조건으로 변경하므로 데이터베이스는 상품 아이디 오름차순으로 행 잠금을 잡게 되고,
+        // 같은 상품들을 서로 다른 순서로 주문하는 트랜잭션끼리 교착 상태에 빠지지 않습니다.
+        CaseBuilder.Cases<Integer, NumberExpression<Integer>> cases = null;
+        for (Map.Entry<Long, Integer> entry : itemCountMap.entrySet()) {
+            BooleanExpression itemIdEq = item.id.eq(entry.getKey());
+            cases = (cases == null) ? new CaseBuilder().when(itemIdEq).then(entry.getValue())
+                                    : cases.when(itemIdEq).then(entry.getValue());
+        }
+
+        if (cases == null) {
+            return;
+        }
+
+        NumberExpression<Integer> orderCount = cases.otherwise(0);
+
+        long updatedCount = queryFactory.update(item)
+                                        .set(item.stockNumber, item.stockNumber.subtract(orderCount))
+                                        .set(item.updateTime, LocalDateTime.now())
+                                        .where(item.id.in(itemCountMap.keySet()),
+                                               item.stockNumber.goe(orderCount))
+                                        .execute();
+
+        if (updatedCount != itemCountMap.size()) {
+            // 일부 상품만 변경되었다면 재고가 부족한 상품이 있는 것입니다.
+            // 예외가 발생하면 트랜잭션이 롤백되므로 먼저 감소된 재고도 원래대로 돌아갑니다.
+            throw new OutOfStockException("상품의 재고가 부족 합니다.");
+        }
+    }
+
+    @Override
+    @Transactional
+    public void addStock(Long itemId, int count) {
+        QItem item = QItem.item;
+
+        long updatedCount = queryFactory.update(item)
+                                        .set(item.stockNumber, item.stockNumber.add(count))
+                                        .set(item.updateTime, LocalDateTime.now())
+                                        .where(item.id.eq(itemId))
+                                        .execute();
+
+        if (updatedCount == 0) {
+            throw new EntityNotFoundException();
+        }
+    }
+
+    @Override
+    @Transactional
+    public void addStocks(Map<Long, Integer> itemCountMap) {
+        QItem item = QItem.item;
+
+        // removeStocks 와 같이 상품별 수량을 CASE 식으로 만들어서 update 쿼리 한 번으로 재고를 더합니다.
+        CaseBuilder.Cases<Integer, NumberExpression<Integer>> cases = null;
+        for (Map.Entry<Long, Integer> entry : itemCountMap.entrySet()) {
+            BooleanExpression itemIdEq = item.id.eq(entry.getKey());
+            cases = (cases == null) ? new CaseBuilder().when(itemIdEq).then(entry.getValue())
+                                    : cases.when(itemIdEq).then(entry.getValue());
+        }
+
+        if (cases == null) {
+            return;
+        }
+
+        queryFactory.update(item)
+                    .set(item.stockNumber, item.stockNumber.add(cases.otherwise(0)))
+                    .set(item.updateTime, LocalDateTime.now())
+                    .where(item.id.in(itemCountMap.keySet()))
+                    .execute();
     }
-}
\ No newline at end of file
+}
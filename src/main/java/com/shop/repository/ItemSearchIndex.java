@@ -0,0 +1,417 @@
+package com.shop.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.shop.constant.ItemSellStatus;
+import com.shop.entity.Item;
+import com.shop.entity.QItem;
+import com.shop.entity.QItemImg;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.ngram.NGramTokenizer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.PhraseQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.thymeleaf.util.StringUtils;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// 상품명, 상품 상세 설명, 상품 등록자를 검색하기 위한 Lucene 역색인(inverted index)입니다.
+// "LIKE '%검색어%'" 조건은 인덱스를 사용할 수 없어서 item 테이블 전체(@Lob 인 상품 상세 설명 포함)를 읽게 됩니다.
+// 역색인에서 검색어가 포함된 상품 아이디를 먼저 찾은 뒤, 데이터베이스에서는 기본키로 해당 상품만 조회합니다.
+// 메인 페이지는 대표 이미지가 있는 상품만 보여주므로, 대표 이미지 여부도 색인에 저장하여 전체 개수를 같은 조건으로 셉니다.
+@Slf4j
+@Repository
+public class ItemSearchIndex {
+
+    // 검색 방식 이름입니다.
+    // index: 역색인에서 상품 아이디를 찾은 뒤 기본키로 조회합니다.
+    // like: 기존처럼 데이터베이스에서 LIKE 조건으로 조회합니다.
+    public static final String SEARCH_MODE_INDEX = "index";
+    public static final String SEARCH_MODE_LIKE = "like";
+
+    public static final String FIELD_ITEM_NM = "itemNm";
+    public static final String FIELD_ITEM_DETAIL = "itemDetail";
+    public static final String FIELD_CREATED_BY = "createdBy";
+
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_ID_POINT = "idPoint";
+    private static final String FIELD_ID_SORT = "idSort";
+    private static final String FIELD_ITEM_SELL_STATUS = "itemSellStatus";
+    private static final String FIELD_REG_TIME = "regTime";
+    private static final String FIELD_REP_IMG = "repImg";
+
+    // 한 글자 검색어를 위해 텍스트를 한 글자씩 색인하는 필드에 붙이는 접미사입니다.
+    private static final String UNIGRAM_SUFFIX = "_1";
+
+    // 색인을 다시 만들 때 한 번에 읽어오는 상품 개수입니다.
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private final JPAQueryFactory queryFactory;
+
+    private final Directory directory;
+
+    private final IndexWriter indexWriter;
+
+    // 검색할 때마다 색인을 새로 열지 않고, 변경이 있을 때만 새 IndexSearcher 를 만들어서 공유합니다.
+    private final SearcherManager searcherManager;
+
+    private final boolean rebuildOnStartup;
+
+    // 시작 시점의 색인 확인(재생성)이 끝나기 전에는 색인으로 검색하지 않습니다.
+    private volatile boolean ready = false;
+
+    // itemIndexLocation 이 비어 있으면 디스크 대신 메모리에 색인을 저장합니다. (테스트용)
+    public ItemSearchIndex(EntityManager em,
+                           @Value("${itemIndexLocation:}") String itemIndexLocation,
+                           @Value("${itemIndexRebuildOnStartup:true}") boolean rebuildOnStartup) throws IOException {
+        this.queryFactory = new JPAQueryFactory(em);
+        this.rebuildOnStartup = rebuildOnStartup;
+        this.directory = StringUtils.isEmpty(itemIndexLocation)
+                ? new ByteBuffersDirectory()
+                : FSDirectory.open(Paths.get(itemIndexLocation));
+        this.indexWriter = new IndexWriter(directory, new IndexWriterConfig(createAnalyzer()));
+        this.searcherManager = new SearcherManager(indexWriter, null);
+    }
+
+    // 텍스트를 두 글자씩 겹쳐서 자른 토큰(bigram)으로 색인합니다.
+    // 예) "청바지" -> "청바", "바지"
+    // 검색어도 같은 방식으로 잘라서 연속된 위치에 나오는지(PhraseQuery) 확인하면
+    // 형태소 분석 없이도 "LIKE '%검색어%'" 와 같은 결과를 얻을 수 있습니다.
+    // 한 글자 검색어는 bigram 으로 찾을 수 없으므로 "_1" 필드에 한 글자씩 따로 색인합니다.
+    private static Analyzer createAnalyzer() {
+        Analyzer unigramAnalyzer = ngramAnalyzer(1);
+        return new PerFieldAnalyzerWrapper(ngramAnalyzer(2), Map.of(
+                FIELD_ITEM_NM + UNIGRAM_SUFFIX, unigramAnalyzer,
+                FIELD_ITEM_DETAIL + UNIGRAM_SUFFIX, unigramAnalyzer,
+                FIELD_CREATED_BY + UNIGRAM_SUFFIX, unigramAnalyzer));
+    }
+
+    private static Analyzer ngramAnalyzer(int gramSize) {
+        return new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(String fieldName) {
+                Tokenizer tokenizer = new NGramTokenizer(gramSize, gramSize);
+                return new TokenStreamComponents(tokenizer, new LowerCaseFilter(tokenizer));
+            }
+        };
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        indexWriter.close();
+        directory.close();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // 애플리케이션이 시작되면 데이터베이스의 상품으로 색인을 다시 만듭니다.
+    // 디스크에 색인이 남아 있고 itemIndexRebuildOnStartup 이 false 라면 기존 색인을 그대로 사용합니다.
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuildOnStartup() {
+        if (rebuildOnStartup || indexWriter.getDocStats().numDocs == 0) {
+            rebuild();
+        }
+        ready = true;
+    }
+
+    // 데이터베이스의 전체 상품으로 색인을 다시 만듭니다.
+    // 상품 아이디 순서로 나누어 읽고, 상품 엔티티 대신 색인하는 컬럼만 조회하여 영속성 컨텍스트에 아무것도 쌓이지 않도록 합니다.
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        QItem item = QItem.item;
+
+        try {
+            indexWriter.deleteAll();
+
+            Long lastId = null;
+            while (true) {
+                List<Tuple> rows = queryFactory.select(item.id, item.itemNm, item.itemDetail, item.createdBy,
+                                                       item.itemSellStatus, item.regTime)
+                                               .from(item)
+                                               .where(lastId == null ? null : item.id.gt(lastId))
+                                               .orderBy(item.id.asc())
+                                               .limit(REBUILD_BATCH_SIZE)
+                                               .fetch();
+                if (rows.isEmpty()) {
+                    break;
+                }
+
+                List<Long> itemIds = new ArrayList<>(rows.size());
+                for (Tuple row : rows) {
+                    itemIds.add(row.get(item.id));
+                }
+
+                Set<Long> repImgItemIds = findRepImgItemIds(itemIds);
+                for (Tuple row : rows) {
+                    Long itemId = row.get(item.id);
+                    indexWriter.addDocument(createDocument(itemId, row.get(item.itemNm), row.get(item.itemDetail),
+                                                           row.get(item.createdBy), row.get(item.itemSellStatus),
+                                                           row.get(item.regTime), repImgItemIds.contains(itemId)));
+                }
+                lastId = itemIds.get(itemIds.size() - 1);
+            }
+
+            indexWriter.commit();
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 상품 하나의 색인을 추가하거나 변경합니다.
+    public void index(Item item) {
+        index(Collections.singletonList(item));
+    }
+
+    // 여러 상품의 색인을 추가하거나 변경하고, 색인 커밋은 한 번만 실행합니다.
+    // 트랜잭션 안에서 호출되면 커밋된 후에 반영하여, 롤백된 상품이 검색되지 않도록 합니다.
+    // 색인 반영에 실패하더라도 이미 커밋된 상품 저장은 실패로 처리하지 않고 로그만 남깁니다.
+    public void index(List<Item> items) {
+        List<Long> itemIds = new ArrayList<>(items.size());
+        for (Item item : items) {
+            itemIds.add(item.getId());
+        }
+
+        Set<Long> repImgItemIds = findRepImgItemIds(itemIds);
+        Map<Long, Document> documents = new LinkedHashMap<>();
+        for (Item item : items) {
+            documents.put(item.getId(), createDocument(item.getId(), item.getItemNm(), item.getItemDetail(),
+                                                       item.getCreatedBy(), item.getItemSellStatus(),
+                                                       item.getRegTime(), repImgItemIds.contains(item.getId())));
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            updateDocuments(documents);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    updateDocuments(documents);
+                } catch (RuntimeException e) {
+                    log.error("상품 색인 반영 실패 (상품 아이디: {})", documents.keySet(), e);
+                }
+            }
+        });
+    }
+
+    private synchronized void updateDocuments(Map<Long, Document> documents) {
+        try {
+            // 같은 상품 아이디의 기존 문서를 지우고 새 문서를 추가합니다.
+            for (Map.Entry<Long, Document> entry : documents.entrySet()) {
+                indexWriter.updateDocument(new Term(FIELD_ID, String.valueOf(entry.getKey())), entry.getValue());
+            }
+            indexWriter.commit();
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 상품 중에서 대표 이미지가 있는 상품의 아이디를 조회합니다.
+    // 같은 트랜잭션에서 저장한 상품 이미지도 조회되도록 조회 전에 쓰기 지연된 insert 쿼리가 실행됩니다.
+    private Set<Long> findRepImgItemIds(List<Long> itemIds) {
+        QItemImg itemImg = QItemImg.itemImg;
+
+        if (itemIds.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        return new HashSet<>(queryFactory.select(itemImg.item.id)
+                                         .from(itemImg)
+                                         .where(itemImg.item.id.in(itemIds))
+                                         .where(itemImg.repimgYn.eq("Y"))
+                                         .fetch());
+    }
+
+    private Document createDocument(Long id, String itemNm, String itemDetail, String createdBy,
+                                    ItemSellStatus itemSellStatus, LocalDateTime regTime, boolean repImg) {
+        Document document = new Document();
+
+        document.add(new StringField(FIELD_ID, String.valueOf(id), Field.Store.YES));
+        document.add(new LongPoint(FIELD_ID_POINT, id));
+        document.add(new NumericDocValuesField(FIELD_ID_SORT, id));
+
+        addTextField(document, FIELD_ITEM_NM, itemNm);
+        addTextField(document, FIELD_ITEM_DETAIL, itemDetail);
+        addTextField(document, FIELD_CREATED_BY, createdBy);
+
+        // 메인 페이지의 조회 조건(대표 이미지가 있는 상품)을 색인에서 함께 처리합니다.
+        if (repImg) {
+            document.add(new StringField(FIELD_REP_IMG, "Y", Field.Store.NO));
+        }
+
+        // 관리자 상품 페이지의 검색 조건(판매 상태, 등록일)도 색인에서 함께 처리합니다.
+        if (itemSellStatus != null) {
+            document.add(new StringField(FIELD_ITEM_SELL_STATUS, itemSellStatus.name(), Field.Store.NO));
+        }
+        if (regTime != null) {
+            document.add(new LongPoint(FIELD_REG_TIME, toEpochMilli(regTime)));
+        }
+
+        return document;
+    }
+
+    private void addTextField(Document document, String field, String value) {
+        if (value == null) {
+            return;
+        }
+        document.add(new TextField(field, value, Field.Store.NO));
+        document.add(new TextField(field + UNIGRAM_SUFFIX, value, Field.Store.NO));
+    }
+
+    // 메인 페이지에서 상품명에 검색어가 포함되고 대표 이미지가 있는 상품 아이디를 최신 상품 순서로 조회합니다.
+    // 데이터베이스에서 상품을 조회하는 조건과 같으므로 전체 개수와 페이지의 상품 수가 어긋나지 않습니다.
+    // 커서 값이 있으면 커서보다 작은 상품 아이디만 조회합니다.
+    // countTotal 이 false 이면 전체 개수를 세지 않습니다.
+    public Hits searchMainItem(String searchQuery, Long cursorId, long offset, int limit, boolean countTotal) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        builder.add(containsQuery(FIELD_ITEM_NM, searchQuery), BooleanClause.Occur.FILTER);
+        builder.add(new TermQuery(new Term(FIELD_REP_IMG, "Y")), BooleanClause.Occur.FILTER);
+        if (cursorId != null) {
+            builder.add(LongPoint.newRangeQuery(FIELD_ID_POINT, Long.MIN_VALUE, cursorId - 1), BooleanClause.Occur.FILTER);
+        }
+        return search(builder.build(), offset, limit, countTotal);
+    }
+
+    // 관리자 상품 페이지의 검색 조건(등록일, 판매 상태, 상품명, 상품 상세 설명 또는 등록자)으로 상품 아이디를 조회합니다.
+    // searchBy 에는 검색할 필드 이름(itemNm, itemDetail, createdBy)을 넘겨줍니다.
+    public Hits searchAdminItem(String searchBy, String searchQuery, ItemSellStatus searchSellStatus,
+                                LocalDateTime regTimeAfter, long offset, int limit) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        builder.add(new MatchAllDocsQuery(), BooleanClause.Occur.FILTER);
+        if (!StringUtils.isEmpty(searchQuery)) {
+            builder.add(containsQuery(searchBy, searchQuery), BooleanClause.Occur.FILTER);
+        }
+        if (searchSellStatus != null) {
+            builder.add(new TermQuery(new Term(FIELD_ITEM_SELL_STATUS, searchSellStatus.name())), BooleanClause.Occur.FILTER);
+        }
+        if (regTimeAfter != null) {
+            builder.add(LongPoint.newRangeQuery(FIELD_REG_TIME, toEpochMilli(regTimeAfter) + 1, Long.MAX_VALUE), BooleanClause.Occur.FILTER);
+        }
+        return search(builder.build(), offset, limit, true);
+    }
+
+    // 상품 상세 설명에 검색어가 포함된 상품 아이디를 모두 조회합니다.
+    public List<Long> searchItemDetail(String searchQuery) {
+        return search(containsQuery(FIELD_ITEM_DETAIL, searchQuery), 0, Integer.MAX_VALUE, false).getIds();
+    }
+
+    // 검색어를 색인과 같은 방식으로 잘라서 "검색어가 포함된" 문서를 찾는 쿼리를 만듭니다.
+    private Query containsQuery(String field, String searchQuery) {
+        String text = searchQuery.toLowerCase(Locale.ROOT);
+        int[] codePoints = text.codePoints().toArray();
+
+        if (codePoints.length == 1) {
+            return new TermQuery(new Term(field + UNIGRAM_SUFFIX, text));
+        }
+
+        PhraseQuery.Builder builder = new PhraseQuery.Builder();
+        for (int i = 0; i < codePoints.length - 1; i++) {
+            builder.add(new Term(field, new String(codePoints, i, 2)), i);
+        }
+        return builder.build();
+    }
+
+    private Hits search(Query query, long offset, int limit, boolean countTotal) {
+        int size = (int) Math.min(Integer.MAX_VALUE, offset + limit);
+        Sort sort = new Sort(new SortField(FIELD_ID_SORT, SortField.Type.LONG, true));
+
+        IndexSearcher searcher = null;
+        try {
+            searcher = searcherManager.acquire();
+
+            List<Long> ids = new ArrayList<>();
+            if (size > 0) {
+                TopFieldDocs topDocs = searcher.search(query, size, sort);
+                StoredFields storedFields = searcher.storedFields();
+                ScoreDoc[] scoreDocs = topDocs.scoreDocs;
+                for (int i = (int) Math.min(offset, scoreDocs.length); i < scoreDocs.length; i++) {
+                    ids.add(Long.valueOf(storedFields.document(scoreDocs[i].doc).get(FIELD_ID)));
+                }
+            }
+
+            long total = countTotal ? searcher.count(query) : -1;
+            return new Hits(Collections.unmodifiableList(ids), total);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (searcher != null) {
+                try {
+                    searcherManager.release(searcher);
+                } catch (IOException e) {
+                    log.warn("IndexSearcher 반환 실패", e);
+                }
+            }
+        }
+    }
+
+    private static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    // 색인 검색 결과입니다.
+    // ids: 최신 상품 순서로 정렬된 상품 아이디 목록
+    // total: 조건에 맞는 전체 상품 개수 (세지 않은 경우 -1)
+    @Getter
+    @AllArgsConstructor
+    public static class Hits {
+        private final List<Long> ids;
+        private final long total;
+    }
+}
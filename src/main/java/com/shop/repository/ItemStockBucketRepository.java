@@ -0,0 +1,45 @@
+package com.shop.repository;
+
+import com.shop.entity.ItemStockBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ItemStockBucketRepository extends JpaRepository<ItemStockBucket, Long> {
+
+    // 주문 수량보다 재고가 많은 경우에만 bucket 하나의 재고를 감소시키고 변경된 행의 개수를 반환합니다.
+    // 엔티티를 읽지 않고 update 쿼리 한 번으로 재고 확인과 감소를 함께 처리합니다.
+    // 상품 상세 페이지가 변경된 것을 알 수 있도록 bucket 의 수정 시간도 함께 변경합니다.
+    @Modifying
+    @Query("UPDATE ItemStockBucket b SET b.stockNumber = b.stockNumber - :count, b.updateTime = :now " +
+           "WHERE b.item.id = :itemId AND b.bucketNo = :bucketNo AND b.stockNumber >= :count")
+    int removeStock(@Param("itemId") Long itemId, @Param("bucketNo") int bucketNo, @Param("count") int count,
+                    @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE ItemStockBucket b SET b.stockNumber = b.stockNumber + :count, b.updateTime = :now " +
+           "WHERE b.item.id = :itemId AND b.bucketNo = :bucketNo")
+    int addStock(@Param("itemId") Long itemId, @Param("bucketNo") int bucketNo, @Param("count") int count,
+                 @Param("now") LocalDateTime now);
+
+    // 엔티티를 영속성 컨텍스트에 올리지 않고 bucket 번호 순서로 현재 재고 수량만 조회합니다.
+    @Query("SELECT b.stockNumber FROM ItemStockBucket b WHERE b.item.id = :itemId ORDER BY b.bucketNo")
+    List<Integer> findStockNumbersByItemId(@Param("itemId") Long itemId);
+
+    // 여러 상품의 bucket 재고 합계를 [상품 아이디, 재고 합계] 형태로 한 번에 조회합니다.
+    @Query("SELECT b.item.id, SUM(b.stockNumber) FROM ItemStockBucket b WHERE b.item.id IN :itemIds GROUP BY b.item.id")
+    List<Object[]> sumStockNumbers(@Param("itemIds") Collection<Long> itemIds);
+
+    // 재고를 다시 나누는 동안 주문이 bucket 의 재고를 변경하지 못하도록 bucket 번호 순서로 행 잠금을 잡습니다.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM ItemStockBucket b WHERE b.item.id = :itemId ORDER BY b.bucketNo")
+    List<ItemStockBucket> findByItemIdForUpdate(@Param("itemId") Long itemId);
+
+}
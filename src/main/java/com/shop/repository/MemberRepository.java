@@ -2,6 +2,13 @@ package com.shop.repository;
 
 import com.shop.entity.Member;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import javax.persistence.QueryHint;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 public interface MemberRepository extends JpaRepository<Member, Long> {
 
@@ -9,4 +16,9 @@ public interface MemberRepository extends JpaRepository<Member, Long> {
     // 이메일로 회원을 검사할 수 있도록 쿼리 메소드를 작성합니다.
     Member findByEmail(String email);
 
+    // 회원 이메일 블룸 필터를 만들 때 회원 엔티티를 만들지 않고 이메일만 한 행씩 읽습니다.
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT m.email FROM Member m WHERE m.email IS NOT NULL")
+    Stream<String> streamEmails();
+
 }
@@ -0,0 +1,28 @@
+package com.shop.repository;
+
+import com.shop.entity.OrderIdempotencyKey;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OrderIdempotencyKeyRepository extends JpaRepository<OrderIdempotencyKey, Long> {
+
+    // 엔티티 전체를 조회하지 않고 키로 만들어진 [주문 아이디, 요청 해시]만 조회합니다.
+    @Query("SELECT k.orderId, k.requestHash FROM OrderIdempotencyKey k WHERE k.memberId = :memberId AND k.idempotencyKey = :idempotencyKey")
+    List<Object[]> findOrderIdAndRequestHash(@Param("memberId") Long memberId, @Param("idempotencyKey") String idempotencyKey);
+
+    // 보관 시간이 지난 키의 아이디를 등록 시간 인덱스를 이용하여 pageable 의 크기만큼 조회합니다.
+    @Query("SELECT k.id FROM OrderIdempotencyKey k WHERE k.regTime < :expiredBefore ORDER BY k.regTime")
+    List<Long> findExpiredIds(@Param("expiredBefore") LocalDateTime expiredBefore, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM OrderIdempotencyKey k WHERE k.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+
+}
@@ -11,11 +11,22 @@ import java.util.List;
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
     // 현재 로그인한 사용자의 주문 데이터를 페이징 조건에 맞춰서 조회합니다.
-    @Query("SELECT o FROM Order o " + "WHERE o.member.email = :email " + "ORDER BY o.orderDate DESC")
-    List<Order> findOrders(@Param("email") String email, Pageable pageable);
+    // 주문 아이디는 생성된 시간 순서대로 커지므로(SnowflakeIdGenerator) 주문일 대신 기본키로 정렬합니다.
+    // 회원 아이디는 주문 테이블의 외래키이므로 회원 테이블과 조인하지 않습니다.
+    @Query("SELECT o FROM Order o " + "WHERE o.member.id = :memberId " + "ORDER BY o.id DESC")
+    List<Order> findOrders(@Param("memberId") Long memberId, Pageable pageable);
 
     // 현재 로그인한 회원의 주문 개수가 몇 개인지 조회합니다.
-    @Query("SELECT COUNT(o) FROM Order o " + "WHERE o.member.email = :email")
-    Long countOrders(@Param("email") String email);
+    @Query("SELECT COUNT(o) FROM Order o " + "WHERE o.member.id = :memberId")
+    Long countOrders(@Param("memberId") Long memberId);
+
+    // 주문이 회원의 주문인지 확인합니다.
+    boolean existsByIdAndMemberId(Long orderId, Long memberId);
+
+    // 페이징으로 조회한 주문들의 주문 상품과 상품 엔티티를 fetch join 으로 한 번에 조회합니다.
+    // 컬렉션을 fetch join 하면서 페이징을 하면 메모리에서 페이징이 일어나므로
+    // 페이징은 findOrders 에서 먼저 하고, 조회된 주문 아이디들로만 fetch join 을 합니다.
+    @Query("SELECT DISTINCT o FROM Order o " + "JOIN FETCH o.orderItems oi " + "JOIN FETCH oi.item " + "WHERE o.id IN :orderIds")
+    List<Order> findOrdersWithOrderItems(@Param("orderIds") List<Long> orderIds);
 
 }
@@ -0,0 +1,86 @@
+package com.shop.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// 문자열 키를 담는 블룸 필터입니다.
+// mightContain 이 false 를 반환한 키는 한 번도 추가된 적이 없는 키이며, true 를 반환한 키는 추가되지 않았을 수도 있습니다.(false positive)
+// 예상 키 개수와 목표 false positive 비율로 비트 수(m)와 해시 함수 개수(k)를 정하고,
+// 64비트 해시 하나를 두 개로 나누어 k 개의 위치를 만듭니다. (Kirsch-Mitzenmacher)
+// 비트 배열은 AtomicLongArray 이므로 여러 스레드가 잠금 없이 동시에 추가하고 조회할 수 있습니다.
+class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final int bitSize;
+    private final int hashCount;
+
+    BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+        long n = Math.max(1, expectedInsertions);
+        long bits = (long) Math.ceil(-n * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        this.bitSize = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, bits));
+        this.hashCount = Math.max(1, (int) Math.round((double) bitSize / n * Math.log(2)));
+        this.words = new AtomicLongArray((bitSize + 63) / 64);
+    }
+
+    void put(String key) {
+        long hash = hash64(key);
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            int index = index(hash1 + i * hash2);
+            long mask = 1L << index;
+            int wordIndex = index >>> 6;
+            if ((words.get(wordIndex) & mask) == 0) {
+                words.getAndAccumulate(wordIndex, mask, (word, bit) -> word | bit);
+            }
+        }
+    }
+
+    boolean mightContain(String key) {
+        long hash = hash64(key);
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            int index = index(hash1 + i * hash2);
+            if ((words.get(index >>> 6) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 현재 채워진 비트 비율로 계산한 false positive 확률입니다.
+    double expectedFalsePositiveProbability() {
+        long setBits = 0;
+        for (int i = 0; i < words.length(); i++) {
+            setBits += Long.bitCount(words.get(i));
+        }
+        return Math.pow((double) setBits / bitSize, hashCount);
+    }
+
+    int bitSize() {
+        return bitSize;
+    }
+
+    int hashCount() {
+        return hashCount;
+    }
+
+    private int index(int combinedHash) {
+        return (combinedHash < 0 ? ~combinedHash : combinedHash) % bitSize;
+    }
+
+    // FNV-1a 로 문자를 섞은 뒤 MurmurHash3 의 fmix64 로 비트를 고르게 퍼뜨립니다.
+    private static long hash64(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
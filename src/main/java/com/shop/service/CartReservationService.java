@@ -0,0 +1,299 @@
+package com.shop.service;
+
+import com.shop.config.CacheConfig;
+import com.shop.entity.CartItem;
+import com.shop.entity.Item;
+import com.shop.repository.CartItemRepository;
+import com.shop.repository.ItemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// 상품을 장바구니에 담을 때 담은 수량만큼 재고를 일정 시간 동안 미리 확보해 두는 서비스입니다.
+//
+// 재고를 확보하지 않으면 장바구니에서 주문할 때에야 품절을 알게 되고, 실패한 주문이 다시 시도되면서 주문 처리에 부하가 몰립니다.
+// 재고 확보 모드(cartReservationEnabled=true)에서는 장바구니에 담을 때 재고를 감소시키고 CartItem 에 확보한 수량과 만료 시각을 기록합니다.
+// 장바구니에서 주문하면 확보한 수량은 재고를 다시 확인하지 않고 주문으로 넘어갑니다.
+//
+// 만료 시각은 ReservationTimingWheel 에 장바구니 상품 아이디만 담아서 관리하므로 예약마다 타이머나 스레드를 만들지 않습니다.
+// 작업 스레드 하나가 cartReservationTickMillis 마다 만료된 아이디를 꺼내고, cartReservationReleaseBatchSize 개씩 묶어서
+// 상품별로 합산한 수량을 update 쿼리 한 번으로 재고에 돌려놓습니다.
+// 재고 확보 정보는 데이터베이스에 있으므로 애플리케이션이 다시 시작되면 데이터베이스에서 읽어서 휠을 다시 채웁니다.
+@Slf4j
+@Service
+public class CartReservationService {
+
+    private final CartItemRepository cartItemRepository;
+    private final ItemRepository itemRepository;
+    private final ItemStockService itemStockService;
+    private final ItemAdmissionService itemAdmissionService;
+    private final CacheManager cacheManager;
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final long tickMillis;
+    private final int releaseBatchSize;
+    private final ReservationTimingWheel timingWheel;
+
+    private ScheduledExecutorService scheduler;
+
+    public CartReservationService(CartItemRepository cartItemRepository,
+                                  ItemRepository itemRepository,
+                                  ItemStockService itemStockService,
+                                  ItemAdmissionService itemAdmissionService,
+                                  CacheManager cacheManager,
+                                  EntityManager em,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${cartReservationEnabled:false}") boolean enabled,
+                                  @Value("${cartReservationTtlSeconds:900}") long ttlSeconds,
+                                  @Value("${cartReservationTickMillis:1000}") long tickMillis,
+                                  @Value("${cartReservationReleaseBatchSize:1000}") int releaseBatchSize) {
+        this.cartItemRepository = cartItemRepository;
+        this.itemRepository = itemRepository;
+        this.itemStockService = itemStockService;
+        this.itemAdmissionService = itemAdmissionService;
+        this.cacheManager = cacheManager;
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.tickMillis = tickMillis;
+        this.releaseBatchSize = releaseBatchSize;
+
+        // 휠 한 바퀴가 확보 시간보다 길도록 칸 수를 정하여 모든 예약이 한 바퀴 안에 들어가도록 합니다.
+        this.timingWheel = new ReservationTimingWheel(tickMillis, (int) (ttlMillis / tickMillis) + 2, System.currentTimeMillis());
+    }
+
+    // 재고 확보 모드인 경우에만 데이터베이스에 남아 있는 재고 확보 정보로 휠을 채우고 작업 스레드를 시작합니다.
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || scheduler != null) {
+            return;
+        }
+
+        TransactionTemplate readOnlyTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnlyTemplate.setReadOnly(true);
+        readOnlyTemplate.executeWithoutResult(status -> {
+            try (Stream<Object[]> stream = cartItemRepository.streamReservations()) {
+                stream.forEach(row -> timingWheel.add((Long) row[0], toEpochMilli((LocalDateTime) row[1])));
+            }
+        });
+        log.info("장바구니 재고 확보 {}건을 불러왔습니다.", timingWheel.size());
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cart-reservation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::expireReservations, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // 장바구니 상품의 재고를 count 만큼 확보하고 만료 시각을 연장합니다.
+    // 재고가 부족하면 OutOfStockException 이 발생하여 장바구니에 담지 못합니다.
+    public void reserve(CartItem cartItem, int count) {
+        if (!enabled) {
+            return;
+        }
+
+        // 만료 처리, 주문과 같은 순서로 장바구니 상품 행의 잠금을 먼저 잡고 상품 행의 잠금을 잡도록
+        // 재고 확보 정보를 먼저 기록한 뒤에 재고를 감소시킵니다.
+        // 재고가 부족하면 트랜잭션이 롤백되므로 기록한 재고 확보 정보도 함께 취소됩니다.
+        LocalDateTime reservedUntil = LocalDateTime.now().plus(ttlMillis, ChronoUnit.MILLIS);
+        cartItemRepository.addReservation(cartItem.getId(), count, reservedUntil);
+
+        Item item = cartItem.getItem();
+        itemStockService.removeStock(item, count);
+        stockChanged(Collections.singletonList(item.getId()));
+
+        // 연장하기 전의 만료 시각으로 휠에 들어 있던 아이디는 먼저 꺼내지지만,
+        // 그때 데이터베이스의 만료 시각을 확인하여 연장된 시각으로 다시 넣습니다.
+        long cartItemId = cartItem.getId();
+        long deadlineMillis = toEpochMilli(reservedUntil);
+        afterCommit(() -> timingWheel.add(cartItemId, deadlineMillis));
+    }
+
+    // 장바구니 상품을 주문하기 전에 확보해 둔 재고를 주문으로 넘기고, 상품 아이디별로 넘긴 수량을 반환합니다.
+    // 장바구니 상품 행의 잠금을 잡고 다시 읽으므로, 만료 처리와 동시에 실행되어도 확보한 재고가 두 번 사용되지 않습니다.
+    // 장바구니 수량보다 많이 확보되어 있다면 남는 수량은 재고로 돌려놓습니다.
+    public Map<Long, Integer> claim(List<CartItem> cartItemList) {
+        if (!enabled) {
+            return Collections.emptyMap();
+        }
+
+        List<CartItem> sortedCartItemList = new ArrayList<>(cartItemList);
+        sortedCartItemList.sort(Comparator.comparing(CartItem::getId));
+
+        // 모든 장바구니 상품 행의 잠금을 아이디 오름차순으로 먼저 잡은 뒤에 상품 행의 잠금을 잡습니다.
+        for (CartItem cartItem : sortedCartItemList) {
+            em.refresh(cartItem, LockModeType.PESSIMISTIC_WRITE);
+        }
+
+        Map<Long, Integer> reservedCountMap = new HashMap<>();
+        for (CartItem cartItem : sortedCartItemList) {
+            if (cartItem.getReservedCount() == 0) {
+                continue;
+            }
+
+            int claimedCount = Math.min(cartItem.getReservedCount(), cartItem.getCount());
+            reservedCountMap.merge(cartItem.getItem().getId(), claimedCount, Integer::sum);
+
+            if (cartItem.getReservedCount() > claimedCount) {
+                itemStockService.addStock(cartItem.getItem(), cartItem.getReservedCount() - claimedCount);
+                stockChanged(Collections.singletonList(cartItem.getItem().getId()));
+            }
+        }
+        return reservedCountMap;
+    }
+
+    // 장바구니 상품을 삭제하기 전에 확보해 둔 재고를 재고로 돌려놓습니다.
+    public void release(CartItem cartItem) {
+        if (!enabled) {
+            return;
+        }
+
+        em.refresh(cartItem, LockModeType.PESSIMISTIC_WRITE);
+        if (cartItem.getReservedCount() > 0) {
+            itemStockService.addStock(cartItem.getItem(), cartItem.getReservedCount());
+            cartItemRepository.clearReservations(Collections.singletonList(cartItem.getId()));
+            stockChanged(Collections.singletonList(cartItem.getItem().getId()));
+        }
+    }
+
+    // 작업 스레드가 tick 마다 호출합니다.
+    // 휠에서 만료된 아이디를 꺼내서 releaseBatchSize 개씩 한 트랜잭션으로 재고를 돌려놓습니다.
+    void expireReservations() {
+        long[] expiredIds = timingWheel.advance(System.currentTimeMillis());
+        if (expiredIds.length == 0) {
+            return;
+        }
+
+        // 장바구니 상품 아이디 오름차순으로 처리합니다.
+        // 장바구니 담기, 주문, 만료 처리 모두 장바구니 상품 행의 잠금을 아이디 오름차순으로 먼저 잡고 상품 행의 잠금을 잡으므로
+        // 서로 교착 상태에 빠지지 않습니다.
+        Arrays.sort(expiredIds);
+        for (int from = 0; from < expiredIds.length; from += releaseBatchSize) {
+            List<Long> cartItemIds = new ArrayList<>(Math.min(releaseBatchSize, expiredIds.length - from));
+            for (int i = from; i < Math.min(from + releaseBatchSize, expiredIds.length); i++) {
+                cartItemIds.add(expiredIds[i]);
+            }
+
+            try {
+                releaseExpired(cartItemIds);
+            } catch (RuntimeException e) {
+                // 처리하지 못한 아이디는 다음 tick 에 다시 처리하도록 휠에 다시 넣습니다.
+                log.error("장바구니 재고 확보 {}건의 만료 처리에 실패했습니다.", cartItemIds.size(), e);
+                long retryMillis = System.currentTimeMillis() + tickMillis;
+                for (Long cartItemId : cartItemIds) {
+                    timingWheel.add(cartItemId, retryMillis);
+                }
+            }
+        }
+    }
+
+    private void releaseExpired(List<Long> cartItemIds) {
+        releaseExpired(cartItemIds, LocalDateTime.now());
+    }
+
+    // now 시각을 기준으로 만료된 재고 확보 정보를 한 트랜잭션으로 재고에 돌려놓습니다.
+    void releaseExpired(List<Long> cartItemIds, LocalDateTime now) {
+        transactionTemplate.executeWithoutResult(status -> {
+            // 이미 주문되었거나 삭제된 장바구니 상품, 만료 시각이 연장된 장바구니 상품은 조회되지 않습니다.
+            List<CartItem> expiredCartItems = cartItemRepository.findExpiredReservationsForUpdate(cartItemIds, now);
+
+            if (!expiredCartItems.isEmpty()) {
+                Map<Long, Integer> itemCountMap = new TreeMap<>();
+                List<Long> expiredCartItemIds = new ArrayList<>(expiredCartItems.size());
+                for (CartItem cartItem : expiredCartItems) {
+                    itemCountMap.merge(cartItem.getItem().getId(), cartItem.getReservedCount(), Integer::sum);
+                    expiredCartItemIds.add(cartItem.getId());
+                }
+
+                Map<Long, Item> itemMap = new HashMap<>();
+                for (Item item : itemRepository.findAllById(itemCountMap.keySet())) {
+                    itemMap.put(item.getId(), item);
+                }
+
+                // 상품별로 합산한 수량을 update 쿼리 한 번으로 재고에 돌려놓고, 재고 확보 정보도 update 쿼리 한 번으로 지웁니다.
+                itemStockService.addStocks(itemCountMap, itemMap);
+                cartItemRepository.clearReservations(expiredCartItemIds);
+                stockChanged(itemCountMap.keySet());
+            }
+
+            // 만료 시각이 연장되었거나 휠 한 바퀴보다 먼 만료 시각이라 일찍 꺼내진 아이디는 실제 만료 시각으로 다시 넣습니다.
+            if (expiredCartItems.size() < cartItemIds.size()) {
+                for (Object[] row : cartItemRepository.findLiveReservations(cartItemIds, now)) {
+                    timingWheel.add((Long) row[0], toEpochMilli((LocalDateTime) row[1]));
+                }
+            }
+        });
+
+        log.debug("장바구니 재고 확보 {}건의 만료를 처리했습니다.", cartItemIds.size());
+    }
+
+    // 재고가 변경된 상품의 상세 정보 캐시를 지우고, 커밋 후 주문 입장 제어의 남은 수량을 다시 읽어오게 합니다.
+    private void stockChanged(Collection<Long> itemIds) {
+        for (Long itemId : itemIds) {
+            cacheManager.getCache(CacheConfig.ITEM_DTL).evict(itemId);
+        }
+        itemAdmissionService.invalidate(new ArrayList<>(itemIds));
+    }
+
+    private void afterCommit(Runnable runnable) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            runnable.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                runnable.run();
+            }
+        });
+    }
+
+    private static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
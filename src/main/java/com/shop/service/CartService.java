@@ -7,7 +7,6 @@ import com.shop.dto.OrderDto;
 import com.shop.entity.Cart;
 import com.shop.entity.CartItem;
 import com.shop.entity.Item;
-import com.shop.entity.Member;
 import com.shop.repository.CartItemRepository;
 import com.shop.repository.CartRepository;
 import com.shop.repository.ItemRepository;
@@ -15,11 +14,16 @@ import com.shop.repository.MemberRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.thymeleaf.util.StringUtils;
 
 import javax.persistence.EntityNotFoundException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 
 @Service
@@ -32,22 +36,21 @@ public class CartService {
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
     private final OrderService orderService;
+    private final CartReservationService cartReservationService;
 
-    public Long addCart(CartItemDto cartItemDto, String email) {
+    public Long addCart(CartItemDto cartItemDto, Long memberId) {
 
         // 장바구니에 담을 상품 엔티티를 조회합니다.
         Item item = itemRepository.findById(cartItemDto.getItemId()).orElseThrow(EntityNotFoundException::new);
 
-        // 현재 로그인한 회원 엔티티를 조회합니다.
-        Member member = memberRepository.findByEmail(email);
-
         // 현재 로그인한 회원의 장바구니 엔티티를 조회합니다.
-        Cart cart = cartRepository.findByMemberId(member.getId());
+        Cart cart = cartRepository.findByMemberId(memberId);
 
         // 상품을 처음으로 장바구니에 담을 경우
         // 해당 회원의 장바구니에 담을 수량 만큼을 더해줍니다.
+        // 회원은 조회하지 않고 아이디만 가진 프록시로 장바구니에 연결합니다.
         if (cart == null) {
-            cart = Cart.createCart(member);
+            cart = Cart.createCart(memberRepository.getReferenceById(memberId));
             cartRepository.save(cart);
         }
 
@@ -55,8 +58,10 @@ public class CartService {
         CartItem savedCartItem = cartItemRepository.findByCartIdAndItemId(cart.getId(), item.getId());
 
         // 장바구니에 이미 있던 상품일 경우 기존 수량에 현재 장바구니에 담을 수량 만큼을 더해줍니다.
+        // 재고 확보 모드이면 담을 수량만큼 재고를 확보하며, 재고가 부족하면 장바구니에 담지 못합니다.
         if (savedCartItem != null) {
             savedCartItem.addCount(cartItemDto.getCount());
+            cartReservationService.reserve(savedCartItem, cartItemDto.getCount());
             return savedCartItem.getId();
         } else {
             // 장바구니 엔티티, 상품 엔티티, 장바구니에 담을 수량을 이용하여 CartItem 엔티티를 생성합니다.
@@ -64,20 +69,19 @@ public class CartService {
 
             // 장바구니에 들어갈 상품을 저장합니다.
             cartItemRepository.save(cartItem);
+            cartReservationService.reserve(cartItem, cartItemDto.getCount());
             return cartItem.getId();
         }
 
     }
 
     @Transactional(readOnly = true)
-    public List<CartDetailDto> getCartList(String email) {
+    public List<CartDetailDto> getCartList(Long memberId) {
 
         List<CartDetailDto> cartDetailDtoList = new ArrayList<>();
 
-        Member member = memberRepository.findByEmail(email);
-
         // 현재 로그인한 회원의 장바구니 엔티티를 조회합니다.
-        Cart cart = cartRepository.findByMemberId(member.getId());
+        Cart cart = cartRepository.findByMemberId(memberId);
 
         // 장바구니에 상품을 한 번도 안 담았을 경우
         // 장바구니 엔티티가 없으므로 빈 리스트를 반환합니다.
@@ -92,22 +96,19 @@ public class CartService {
     }
 
     @Transactional(readOnly = true)
-    public boolean validateCartItem(Long cartItemId, String email) {
-
-        // 현재 로그인한 회원을 조회합니다.
-        Member curMember = memberRepository.findByEmail(email);
-        CartItem cartItem = cartItemRepository.findById(cartItemId).orElseThrow(EntityNotFoundException::new);
-
-        // 장바구니 상품을 저장한 회원을 조회합니다.
-        Member savedMember = cartItem.getCart().getMember();
+    public boolean validateCartItem(Long cartItemId, Long memberId) {
+        return validateCartItems(Collections.singletonList(cartItemId), memberId);
+    }
 
-        // 현재 로그인한 회원과 장바구니 상품을 저장한 회원이 다를 경우
-        // false 를, 같으면 true 를 반환합니다.
-        if (!StringUtils.equals(curMember.getEmail(), savedMember.getEmail())) {
+    // 장바구니 상품들이 모두 현재 로그인한 회원의 장바구니에 담겨 있으면 true 를 반환합니다.
+    // 다른 회원의 장바구니 상품이나 존재하지 않는 장바구니 상품이 하나라도 있으면 false 를 반환합니다.
+    @Transactional(readOnly = true)
+    public boolean validateCartItems(Collection<Long> cartItemIds, Long memberId) {
+        Set<Long> cartItemIdSet = new HashSet<>(cartItemIds);
+        if (cartItemIdSet.isEmpty() || cartItemIdSet.contains(null)) {
             return false;
         }
-
-        return true;
+        return cartItemRepository.countByIdInAndMemberId(cartItemIdSet, memberId) == cartItemIdSet.size();
     }
 
     // 장바구니 상품의 수량을 업데이트하는 메소드입니다.
@@ -119,30 +120,42 @@ public class CartService {
 
     public void deleteCartItem(Long cartItemId) {
         CartItem cartItem = cartItemRepository.findById(cartItemId).orElseThrow(EntityNotFoundException::new);
+
+        // 장바구니에 담을 때 확보해 둔 재고를 돌려놓습니다.
+        cartReservationService.release(cartItem);
         cartItemRepository.delete(cartItem);
     }
 
-    public Long orderCartItem(List<CartOrderDto> cartOrderDtoList, String email) {
-        List<OrderDto> orderDtoList = new ArrayList<>();
-
-        // 장바구니 페이지에서 전달받은 주문 상품 번호를 이용하여 주문 로직으로 전달할 orderDto 객체를 만듭니다.
+    public Long orderCartItem(List<CartOrderDto> cartOrderDtoList, Long memberId) {
+        // 주문할 장바구니 상품들을 한 번의 쿼리로 조회합니다.
+        Set<Long> cartItemIds = new LinkedHashSet<>();
         for (CartOrderDto cartOrderDto : cartOrderDtoList) {
-            CartItem cartItem = cartItemRepository.findById(cartOrderDto.getCartItemId()).orElseThrow(EntityNotFoundException::new);
+            cartItemIds.add(cartOrderDto.getCartItemId());
+        }
+
+        List<CartItem> cartItemList = cartItemRepository.findAllById(cartItemIds);
+        if (cartItemList.size() != cartItemIds.size()) {
+            throw new EntityNotFoundException();
+        }
 
+        // 조회한 장바구니 상품을 이용하여 주문 로직으로 전달할 orderDto 객체를 만듭니다.
+        // 상품은 지연 로딩 프록시이지만 아이디는 외래키 값으로 가지고 있으므로 상품을 조회하지 않습니다.
+        List<OrderDto> orderDtoList = new ArrayList<>();
+        for (CartItem cartItem : cartItemList) {
             OrderDto orderDto = new OrderDto();
             orderDto.setItemId(cartItem.getItem().getId());
             orderDto.setCount(cartItem.getCount());
             orderDtoList.add(orderDto);
         }
 
+        // 장바구니에 담을 때 확보해 둔 재고는 재고를 다시 확인하지 않고 주문으로 넘깁니다.
+        Map<Long, Integer> reservedCountMap = cartReservationService.claim(cartItemList);
+
         // 장바구니에 담은 상품을 주문하도록 주문 로직을 호출합니다.
-        Long orderId = orderService.orders(orderDtoList, email);
+        Long orderId = orderService.orders(orderDtoList, memberId, reservedCountMap);
 
-        // 주문한 상품들을 장바구니에서 제거합니다.
-        for (CartOrderDto cartOrderDto : cartOrderDtoList) {
-            CartItem cartItem = cartItemRepository.findById(cartOrderDto.getCartItemId()).orElseThrow(EntityNotFoundException::new);
-            cartItemRepository.delete(cartItem);
-        }
+        // 주문한 상품들을 delete 쿼리 한 번으로 장바구니에서 제거합니다.
+        cartItemRepository.deleteAllByIdIn(cartItemIds);
 
         return orderId;
     }
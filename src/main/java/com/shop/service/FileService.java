@@ -1,17 +1,37 @@
 package com.shop.service;
 
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
-import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.UUID;
 
 @Service
 @Slf4j
 public class FileService {
 
-    public String uploadFile(String uploadPath, String originalFileName, byte[] fileData) throws Exception {
+    // 업로드한 파일을 옮겨 담을 때 사용하는 버퍼의 크기입니다.
+    // 파일 크기와 관계없이 업로드 한 건당 이 크기만큼만 메모리를 사용합니다.
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // 업로드한 파일의 내용을 byte[] 로 읽지 않고 inputStream 에서 버퍼 크기만큼씩 읽어서 FileChannel 로 저장합니다.
+    // 관리자가 큰 이미지를 동시에 여러 개 올려도 파일 크기만큼의 배열을 만들지 않으며,
+    // 저장하면서 파일 내용의 SHA-256 해시를 함께 계산합니다.
+    public UploadedFile uploadFile(String uploadPath, String originalFileName, InputStream inputStream) throws IOException {
         // UUID(Universally Unique Identifier) 는 서로 다른 개체들을 구별하기 위해서 이름을 부여할 때 사용합니다.
         // 실제 사용 시 중복될 가능성이 거의 없기 때문에 파일의 이름으로 사용하면 파일명 중복 문제를 해결할 수 있습니다.
         UUID uuid = UUID.randomUUID();
@@ -19,18 +39,31 @@ public class FileService {
 
         // UUID 로 받은 값과 원래 파일의 이름의 확장자를 조합해서 저장될 파일 이름을 만듭니다.
         String savedFileName = uuid.toString() + extension;
-        String fileUploadFullUrl = uploadPath + "/" + savedFileName;
+        Path fileUploadFullPath = Paths.get(uploadPath, savedFileName);
 
-        // FileOutputStream 클래스는 바이트 단위의 출력을 내보내는 클래스입니다.
-        // 생성자로 파일이 저장될 위치와 파일의 이름을 념겨 파일에 쓸 파일 출력 스트림을 만듭니다.
-        FileOutputStream fos = new FileOutputStream(fileUploadFullUrl);
+        MessageDigest messageDigest = newSha256Digest();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long size = 0;
 
-        // fileData 를 파일 출력 스트림에 입력합니다.
-        fos.write(fileData);
-        fos.close();
+        try (ReadableByteChannel in = Channels.newChannel(inputStream);
+             FileChannel out = FileChannel.open(fileUploadFullPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            while (in.read(buffer) != -1) {
+                buffer.flip();
+                messageDigest.update(buffer.array(), 0, buffer.limit());
+                size += buffer.limit();
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                buffer.clear();
+            }
+        } catch (IOException | RuntimeException e) {
+            // 저장하다가 실패하면 일부만 저장된 파일을 남기지 않습니다.
+            Files.deleteIfExists(fileUploadFullPath);
+            throw e;
+        }
 
-        // 업로드된 파일의 이름을 반환합니다.
-        return savedFileName;
+        // 업로드된 파일의 이름, 크기, 내용의 해시를 반환합니다.
+        return new UploadedFile(savedFileName, size, HexFormat.of().formatHex(messageDigest.digest()));
     }
 
     public void deleteFile(String fileName) throws Exception {
@@ -46,4 +79,27 @@ public class FileService {
             log.info("파일이 존재하지 않습니다.");
         }
     }
+
+    private static MessageDigest newSha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // 모든 자바 플랫폼은 SHA-256 을 지원해야 합니다.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // 저장한 파일의 이름, 크기(byte), 내용의 SHA-256 해시(16진수 문자열)입니다.
+    @Getter
+    public static class UploadedFile {
+        private final String savedFileName;
+        private final long size;
+        private final String sha256;
+
+        public UploadedFile(String savedFileName, long size, String sha256) {
+            this.savedFileName = savedFileName;
+            this.size = size;
+            this.sha256 = sha256;
+        }
+    }
 }
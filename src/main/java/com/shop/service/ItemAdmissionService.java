@@ -0,0 +1,204 @@
+package com.shop.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// 한정 수량 상품의 판매가 시작되어 같은 상품에 주문이 몰릴 때, 데이터베이스에 도달하기 전에 요청을 걸러내는 입장 제어 서비스입니다.
+//
+// 상품마다 남은 판매 가능 수량을 메모리에 들고 있다가 품절된 상품의 주문은 데이터베이스를 조회하지 않고 바로 거절합니다.
+// 남은 수량은 여러 칸(stripe)에 나누어 담아서 동시에 들어온 요청들이 같은 값을 두고 CAS 경합하지 않도록 합니다.
+// 또한 상품마다 토큰 버킷을 두어 데이터베이스로 전달되는 주문 요청의 속도를 제한합니다.
+//
+// 재고의 기준은 항상 데이터베이스입니다. 메모리의 수량은 처음 요청될 때 상품의 재고 수량(재고 분할 모드이면 bucket 합계)으로 채워지고,
+// 재고가 다른 경로로 변경되면(상품 수정, 주문 취소, 장바구니 주문) invalidate 로 삭제되어 다음 요청 때 다시 읽어옵니다.
+@Service
+public class ItemAdmissionService {
+
+    public enum Admission {
+        // 주문을 진행해도 되며, 주문 수량만큼 남은 수량을 미리 차감했습니다.
+        ADMITTED,
+        // 메모리의 남은 수량이 주문 수량보다 적습니다.
+        SOLD_OUT,
+        // 허용된 요청 속도를 넘었습니다.
+        THROTTLED
+    }
+
+    private final ItemStockService itemStockService;
+
+    private final boolean enabled;
+    private final long permitIntervalNanos;
+    private final long burst;
+    private final int stripeCount;
+
+    private final Cache<Long, ItemAdmission> admissionCache;
+
+    public ItemAdmissionService(ItemStockService itemStockService,
+                                @Value("${itemAdmissionEnabled:true}") boolean enabled,
+                                @Value("${itemAdmissionPermitsPerSecond:1000}") long permitsPerSecond,
+                                @Value("${itemAdmissionBurst:2000}") long burst,
+                                @Value("${itemAdmissionCacheSpec:maximumSize=10000,expireAfterAccess=10m}") String cacheSpec) {
+        this.itemStockService = itemStockService;
+        this.enabled = enabled;
+        this.permitIntervalNanos = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+        this.burst = burst;
+        this.stripeCount = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()));
+        this.admissionCache = Caffeine.from(cacheSpec).build();
+    }
+
+    // 주문 수량만큼 남은 수량을 차감하고 주문을 진행해도 되는지 반환합니다.
+    // ADMITTED 를 받은 뒤 주문에 실패하면 반드시 release 를 호출해서 차감한 수량을 돌려주어야 합니다.
+    public Admission tryAcquire(Long itemId, int count) {
+        ItemAdmission admission = getAdmission(itemId);
+        if (admission == null) {
+            return Admission.ADMITTED;
+        }
+
+        // 품절된 상품은 토큰을 사용하지 않고 바로 거절합니다.
+        if (admission.counter.sum() < count) {
+            return Admission.SOLD_OUT;
+        }
+        if (!admission.tokenBucket.tryTake()) {
+            return Admission.THROTTLED;
+        }
+        return admission.counter.tryAcquire(count) ? Admission.ADMITTED : Admission.SOLD_OUT;
+    }
+
+    // 장바구니 담기처럼 재고를 사용하지 않는 요청은 남은 수량을 차감하지 않고 품절 여부와 요청 속도만 확인합니다.
+    public Admission check(Long itemId, int count) {
+        ItemAdmission admission = getAdmission(itemId);
+        if (admission == null) {
+            return Admission.ADMITTED;
+        }
+
+        if (admission.counter.sum() < count) {
+            return Admission.SOLD_OUT;
+        }
+        return admission.tokenBucket.tryTake() ? Admission.ADMITTED : Admission.THROTTLED;
+    }
+
+    // tryAcquire 로 차감한 수량을 돌려줍니다.
+    public void release(Long itemId, int count) {
+        ItemAdmission admission = enabled ? admissionCache.getIfPresent(itemId) : null;
+        if (admission != null) {
+            admission.counter.release(count);
+        }
+    }
+
+    // 데이터베이스의 재고가 변경된 상품의 남은 수량을 삭제하여 다음 요청 때 데이터베이스에서 다시 읽어오도록 합니다.
+    // 트랜잭션 안에서 호출되면 커밋된 후에 삭제하여, 커밋 전의 재고를 다시 읽어오지 않도록 합니다.
+    public void invalidate(Collection<Long> itemIds) {
+        if (!enabled || itemIds.isEmpty()) {
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            admissionCache.invalidateAll(itemIds);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                admissionCache.invalidateAll(itemIds);
+            }
+        });
+    }
+
+    private ItemAdmission getAdmission(Long itemId) {
+        if (!enabled) {
+            return null;
+        }
+
+        // 존재하지 않는 상품은 null 을 반환하여 주문 로직에서 오류를 처리하도록 합니다.
+        return admissionCache.get(itemId, id -> {
+            Integer stockNumber = itemStockService.getStockNumber(id);
+            return (stockNumber == null) ? null : new ItemAdmission(stockNumber);
+        });
+    }
+
+    // 상품 하나의 남은 판매 가능 수량과 토큰 버킷입니다.
+    private class ItemAdmission {
+        private final StripedCounter counter;
+        private final TokenBucket tokenBucket = new TokenBucket(permitIntervalNanos, burst);
+
+        private ItemAdmission(int stockNumber) {
+            this.counter = new StripedCounter(stripeCount, stockNumber);
+        }
+    }
+
+    // 남은 수량을 여러 칸에 나누어 저장하는 카운터입니다.
+    // 칸끼리 같은 캐시 라인을 공유하지 않도록 PADDING 간격으로 떨어뜨려 저장합니다.
+    static class StripedCounter {
+        private static final int PADDING = 16;
+
+        private final AtomicIntegerArray cells;
+        private final int stripeCount;
+
+        StripedCounter(int stripeCount, int total) {
+            this.stripeCount = stripeCount;
+            this.cells = new AtomicIntegerArray(stripeCount * PADDING);
+            for (int i = 0; i < stripeCount; i++) {
+                cells.set(i * PADDING, total / stripeCount + (i < total % stripeCount ? 1 : 0));
+            }
+        }
+
+        int sum() {
+            int sum = 0;
+            for (int i = 0; i < stripeCount; i++) {
+                sum += cells.get(i * PADDING);
+            }
+            return sum;
+        }
+
+        boolean tryAcquire(int count) {
+            int start = ThreadLocalRandom.current().nextInt(stripeCount);
+
+            // 한 칸에서 주문 수량을 모두 차감할 수 있으면 그 칸만 변경합니다.
+            for (int i = 0; i < stripeCount; i++) {
+                int index = ((start + i) % stripeCount) * PADDING;
+                int value;
+                while ((value = cells.get(index)) >= count) {
+                    if (cells.compareAndSet(index, value, value - count)) {
+                        return true;
+                    }
+                }
+            }
+
+            // 남은 수량이 여러 칸에 흩어져 있으면 여러 칸에서 나누어 차감합니다.
+            // 그래도 부족하면 차감한 수량을 되돌리고 실패를 반환합니다.
+            int remaining = count;
+            for (int i = 0; i < stripeCount && remaining > 0; i++) {
+                int index = ((start + i) % stripeCount) * PADDING;
+                int value;
+                while ((value = cells.get(index)) > 0) {
+                    int taken = Math.min(value, remaining);
+                    if (cells.compareAndSet(index, value, value - taken)) {
+                        remaining -= taken;
+                        break;
+                    }
+                }
+            }
+
+            if (remaining > 0) {
+                release(count - remaining);
+                return false;
+            }
+            return true;
+        }
+
+        void release(int count) {
+            if (count > 0) {
+                cells.addAndGet(ThreadLocalRandom.current().nextInt(stripeCount) * PADDING, count);
+            }
+        }
+    }
+}
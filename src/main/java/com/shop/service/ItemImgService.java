@@ -1,15 +1,18 @@
 package com.shop.service;
 
+import com.shop.config.CacheConfig;
 import com.shop.entity.ItemImg;
 import com.shop.repository.ItemImgRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 import org.thymeleaf.util.StringUtils;
 
 import javax.persistence.EntityNotFoundException;
+import java.io.InputStream;
 
 @Service
 @RequiredArgsConstructor
@@ -25,17 +28,26 @@ public class ItemImgService {
 
     private final FileService fileService;
 
+    private final CacheManager cacheManager;
+
     public void saveItemImg(ItemImg itemImg, MultipartFile itemImgFile) throws Exception {
         String oriImgName = itemImgFile.getOriginalFilename();
         String imgName = "";
         String imgUrl = "";
+        String imgHash = null;
 
         // 파일 업로드
         if (!StringUtils.isEmpty(oriImgName)) {
-            // 사용자가 상품의 이미지를 등록했다면 저장할 경로와 파일의 이름, 파일을
-            // 파일의 바이트 배열을 파일 업로드 파라미터로 uploadFIle 메소드를 호출합니다.
+            // 사용자가 상품의 이미지를 등록했다면 저장할 경로와 파일의 이름, 파일의 입력 스트림을
+            // 파일 업로드 파라미터로 uploadFIle 메소드를 호출합니다.
+            // 파일 내용을 바이트 배열로 읽지 않으므로 이미지 크기만큼 메모리를 사용하지 않습니다.
             // 호출 결과 로컬에 저장된 파일의 이름을 imgName 변수에 저장합니다.
-            imgName = fileService.uploadFile(itemImgLocation, oriImgName, itemImgFile.getBytes());
+            FileService.UploadedFile uploadedFile;
+            try (InputStream inputStream = itemImgFile.getInputStream()) {
+                uploadedFile = fileService.uploadFile(itemImgLocation, oriImgName, inputStream);
+            }
+            imgName = uploadedFile.getSavedFileName();
+            imgHash = uploadedFile.getSha256();
 
             // 저장한 상품 이미지를 불러올 경로를 설정합니다.
             // 외부 리소스를 불러오는 urlPattern 로 WebMvcConfig 클래스에서 "/images/**" 를 설정해주었습니다.
@@ -49,6 +61,7 @@ public class ItemImgService {
         // oriImgName: 업로드했던 상품 이미지 파일의 원래 이름
         // imgUrl: 업로드 결과 로컬에 저장된 상품 이미지 파일을 불러오는 경로
         itemImg.updateItemImg(oriImgName, imgName, imgUrl);
+        itemImg.setImgHash(imgHash);
         itemImgRepository.save(itemImg);
     }
 
@@ -66,7 +79,11 @@ public class ItemImgService {
             String oriImgName = itemImgFile.getOriginalFilename();
 
             // 업데이트한 상품 이미지 파일을 업로드합니다.
-            String imgName = fileService.uploadFile(itemImgLocation, oriImgName, itemImgFile.getBytes());
+            FileService.UploadedFile uploadedFile;
+            try (InputStream inputStream = itemImgFile.getInputStream()) {
+                uploadedFile = fileService.uploadFile(itemImgLocation, oriImgName, inputStream);
+            }
+            String imgName = uploadedFile.getSavedFileName();
             String imgUrl = "/images/item/" + imgName;
 
             // 변경된 상품 이미지 정보를 세팅해줍니다.
@@ -75,6 +92,10 @@ public class ItemImgService {
             // 변경 감지 기능이 동작하여 트랜잭션이 끝날 때 update 쿼리가 실행됩니다.
             // 여기서 중요한 것은 엔티티가 영속 상태여야 한다는 것입니다.
             savedItemImg.updateItemImg(oriImgName, imgName, imgUrl);
+            savedItemImg.setImgHash(uploadedFile.getSha256());
+
+            // 이미지가 변경되었으므로 캐시에 저장된 상품 상세 정보를 삭제합니다.
+            cacheManager.getCache(CacheConfig.ITEM_DTL).evict(savedItemImg.getItem().getId());
         }
     }
 
@@ -0,0 +1,122 @@
+package com.shop.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.shop.constant.ItemImportFormat;
+import com.shop.constant.ItemImportStatus;
+import com.shop.dto.ItemImportJobDto;
+import com.shop.dto.ItemImportResultDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// 관리자 화면에서 올린 상품 파일을 요청 스레드가 아닌 백그라운드 스레드에서 등록하는 서비스입니다.
+//
+// 상품 100만 건을 등록하면 몇 분이 걸리므로 요청 스레드에서 등록하면 그동안 톰캣 스레드를 붙잡고 있고, 응답 시간 제한에 걸려 결과도 받지 못합니다.
+// 올린 파일은 임시 파일로 옮겨 두고 바로 jobId 를 응답하며, 작업 스레드가 ItemImportService 로 등록하면서
+// 청크가 저장될 때마다 진행 상황을 갱신합니다. 화면에서는 jobId 로 진행 상황과 결과를 조회합니다.
+//
+// 등록 작업은 하나의 스레드에서 순서대로 실행하고, 대기할 수 있는 작업 수(itemImportJobQueueCapacity)를 넘으면 거절합니다.
+// 작업 상태는 마지막으로 갱신된 후 itemImportJobExpireMinutes 동안 보관합니다.
+@Slf4j
+@Service
+public class ItemImportJobService {
+
+    private final ItemImportService itemImportService;
+
+    private final ThreadPoolExecutor importExecutor;
+
+    private final Cache<String, ItemImportJobDto> jobCache;
+
+    public ItemImportJobService(ItemImportService itemImportService,
+                                @Value("${itemImportJobQueueCapacity:10}") int queueCapacity,
+                                @Value("${itemImportJobExpireMinutes:60}") long expireMinutes) {
+        this.itemImportService = itemImportService;
+        this.importExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                                                     new ArrayBlockingQueue<>(queueCapacity),
+                                                     runnable -> {
+                                                         Thread thread = new Thread(runnable, "item-import");
+                                                         thread.setDaemon(true);
+                                                         return thread;
+                                                     });
+        this.jobCache = Caffeine.newBuilder()
+                                .expireAfterWrite(Duration.ofMinutes(expireMinutes))
+                                .build();
+    }
+
+    @PreDestroy
+    public void stop() {
+        importExecutor.shutdownNow();
+    }
+
+    // 올린 파일을 임시 파일로 옮기고 등록 작업을 대기열에 넣은 뒤 RUNNING 상태의 작업을 반환합니다.
+    // 대기 중인 작업이 너무 많으면 IllegalStateException 이 발생합니다.
+    public ItemImportJobDto submit(MultipartFile importFile, ItemImportFormat format) throws IOException {
+        Path tempFile = Files.createTempFile("item-import-", ".tmp");
+        try {
+            importFile.transferTo(tempFile);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        return submit(tempFile, format);
+    }
+
+    // 임시 파일을 읽어서 등록하는 작업을 대기열에 넣습니다. 작업이 끝나면 임시 파일은 삭제됩니다.
+    ItemImportJobDto submit(Path tempFile, ItemImportFormat format) throws IOException {
+        String jobId = UUID.randomUUID().toString();
+        ItemImportJobDto job = ItemImportJobDto.of(jobId, ItemImportStatus.RUNNING, new ItemImportResultDto(), null);
+        jobCache.put(jobId, job);
+
+        try {
+            // 작업 스레드에는 로그인 정보가 없으므로, 요청한 관리자의 SecurityContext 를 넘겨주어야
+            // AuditorAwareImpl 이 등록한 상품의 등록자와 수정자를 관리자 아이디로 기록합니다.
+            importExecutor.execute(new DelegatingSecurityContextRunnable(() -> runImport(jobId, tempFile, format)));
+        } catch (RejectedExecutionException e) {
+            jobCache.invalidate(jobId);
+            Files.deleteIfExists(tempFile);
+            throw new IllegalStateException("대기 중인 상품 대량 등록 작업이 많습니다. 잠시 후 다시 시도해 주세요.");
+        }
+        return job;
+    }
+
+    // jobId 로 작업의 상태를 조회합니다. 작업이 없거나 보관 시간이 지났으면 null 을 반환합니다.
+    public ItemImportJobDto getJob(String jobId) {
+        return jobCache.getIfPresent(jobId);
+    }
+
+    private void runImport(String jobId, Path tempFile, ItemImportFormat format) {
+        try (Reader reader = Files.newBufferedReader(tempFile, StandardCharsets.UTF_8)) {
+            // 진행 상황은 복사해서 새 작업 상태로 교체하므로, 조회하는 스레드는 등록 중인 객체를 보지 않습니다.
+            ItemImportResultDto result = itemImportService.importItems(reader, format,
+                    progress -> jobCache.put(jobId, ItemImportJobDto.of(jobId, ItemImportStatus.RUNNING, progress.copy(), null)));
+            jobCache.put(jobId, ItemImportJobDto.of(jobId, ItemImportStatus.COMPLETED, result.copy(), null));
+        } catch (IOException | RuntimeException e) {
+            log.error("상품 대량 등록 작업 실패 (작업 아이디: {})", jobId, e);
+            ItemImportJobDto job = jobCache.getIfPresent(jobId);
+            jobCache.put(jobId, ItemImportJobDto.of(jobId, ItemImportStatus.FAILED,
+                                                    job == null ? new ItemImportResultDto() : job.getResult(), e.getMessage()));
+        } finally {
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException e) {
+                log.warn("상품 대량 등록 임시 파일 삭제 실패 ({})", tempFile, e);
+            }
+        }
+    }
+}
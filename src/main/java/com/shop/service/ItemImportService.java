@@ -0,0 +1,374 @@
+package com.shop.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shop.config.CacheConfig;
+import com.shop.constant.ItemImportFormat;
+import com.shop.constant.ItemSellStatus;
+import com.shop.dto.ItemFormDto;
+import com.shop.dto.ItemImportResultDto;
+import com.shop.entity.Item;
+import com.shop.entity.ItemImg;
+import com.shop.repository.ItemNmJamoIndex;
+import com.shop.repository.ItemNmSuggestIndex;
+import com.shop.repository.ItemSearchIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.thymeleaf.util.StringUtils;
+
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+// 상품을 CSV 또는 JSON Lines 파일로 한 번에 대량 등록하는 서비스입니다.
+//
+// 파일 전체를 메모리에 올리지 않고 한 행씩 읽으면서 ItemFormDto 와 같은 규칙으로 검증하고,
+// 검증을 통과한 상품은 청크(chunk) 단위로 모아서 하나의 트랜잭션으로 저장합니다.
+// 상품 아이디는 시퀀스에서 미리 할당 받아 두고(PooledLoSequenceGenerator), insert 쿼리는 JDBC batch 로 묶어서 실행됩니다.
+// 화면에서 올린 파일은 ItemImportJobService 가 백그라운드 작업으로 등록합니다.
+// 청크를 저장할 때마다 영속성 컨텍스트를 비우므로 등록하는 상품 수와 상관없이 메모리 사용량이 일정합니다.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ItemImportService {
+
+    // 오류 메시지는 최대 100개까지만 결과에 담습니다.
+    private static final int MAX_ERRORS = 100;
+
+    private final EntityManager em;
+    private final PlatformTransactionManager transactionManager;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemNmJamoIndex itemNmJamoIndex;
+    private final ItemNmSuggestIndex itemNmSuggestIndex;
+    private final CacheManager cacheManager;
+
+    // 한 트랜잭션에서 저장할 상품 개수입니다.
+    @Value("${itemImportChunkSize:1000}")
+    private int chunkSize;
+
+    // reader 로부터 상품을 읽어서 등록합니다.
+    // 청크가 저장될 때마다 progressListener 로 지금까지의 진행 상황을 전달합니다.
+    public ItemImportResultDto importItems(Reader reader, ItemImportFormat format,
+                                           Consumer<ItemImportResultDto> progressListener) throws IOException {
+        long startTime = System.currentTimeMillis();
+        ItemImportResultDto result = new ItemImportResultDto();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        BufferedReader bufferedReader = (reader instanceof BufferedReader) ? (BufferedReader) reader : new BufferedReader(reader);
+        RowReader rowReader = (format == ItemImportFormat.JSON_LINES) ? new JsonLinesRowReader(bufferedReader)
+                                                                      : new CsvRowReader(bufferedReader);
+
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        ImportRow row;
+        while ((row = rowReader.next()) != null) {
+            result.setTotalRows(result.getTotalRows() + 1);
+
+            String error = (row.error != null) ? row.error : validate(row.itemFormDto);
+            if (error != null) {
+                result.setFailedRows(result.getFailedRows() + 1);
+                addError(result, row.lineNumber + "행: " + error);
+                continue;
+            }
+
+            chunk.add(row);
+            if (chunk.size() >= chunkSize) {
+                saveChunk(transactionTemplate, chunk, result);
+                chunk.clear();
+                reportProgress(result, startTime, progressListener);
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            saveChunk(transactionTemplate, chunk, result);
+            reportProgress(result, startTime, progressListener);
+        }
+
+        if (result.getImportedRows() > 0) {
+            refreshAfterImport();
+        }
+
+        result.setElapsedMillis(System.currentTimeMillis() - startTime);
+        log.info("상품 대량 등록 완료 (읽은 행: {}, 등록: {}, 실패: {}, 소요 시간: {}ms)",
+                 result.getTotalRows(), result.getImportedRows(), result.getFailedRows(), result.getElapsedMillis());
+        return result;
+    }
+
+    // 상품 등록 화면과 같은 검증 규칙(ItemFormDto 의 어노테이션)으로 입력값을 검증합니다.
+    private String validate(ItemFormDto itemFormDto) {
+        Set<ConstraintViolation<ItemFormDto>> violations = validator.validate(itemFormDto);
+        if (violations.isEmpty()) {
+            return null;
+        }
+
+        List<String> messages = new ArrayList<>();
+        for (ConstraintViolation<ItemFormDto> violation : violations) {
+            messages.add(violation.getMessage());
+        }
+        messages.sort(null);
+        return String.join(", ", messages);
+    }
+
+    // 청크의 상품들을 하나의 트랜잭션으로 저장합니다.
+    // 저장에 실패하면 해당 청크만 롤백되고, 이미 저장된 청크와 이후 청크는 그대로 진행합니다.
+    private void saveChunk(TransactionTemplate transactionTemplate, List<ImportRow> chunk, ItemImportResultDto result) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Item> items = new ArrayList<>(chunk.size());
+                for (ImportRow row : chunk) {
+                    Item item = row.itemFormDto.createItem();
+                    em.persist(item);
+
+                    // 이미지 경로가 있으면 대표 이미지로 등록하여 메인 페이지에 보이도록 합니다.
+                    if (!StringUtils.isEmpty(row.imgUrl)) {
+                        String imgName = row.imgUrl.substring(row.imgUrl.lastIndexOf('/') + 1);
+                        ItemImg itemImg = new ItemImg();
+                        itemImg.setItem(item);
+                        itemImg.setRepimgYn("Y");
+                        itemImg.updateItemImg(imgName, imgName, row.imgUrl);
+                        em.persist(itemImg);
+                    }
+                    items.add(item);
+                }
+
+                // 트랜잭션이 커밋되면 청크의 상품을 한 번에 검색 색인에 추가합니다.
+                itemSearchIndex.index(items);
+
+                // 모아둔 insert 쿼리를 batch 로 실행한 뒤 영속성 컨텍스트를 비웁니다.
+                em.flush();
+                em.clear();
+            });
+            result.setImportedRows(result.getImportedRows() + chunk.size());
+        } catch (RuntimeException e) {
+            log.error("상품 대량 등록 청크 저장 실패 ({}행 ~ {}행)", chunk.get(0).lineNumber, chunk.get(chunk.size() - 1).lineNumber, e);
+            result.setFailedRows(result.getFailedRows() + chunk.size());
+            addError(result, chunk.get(0).lineNumber + "행 ~ " + chunk.get(chunk.size() - 1).lineNumber + "행: 저장 실패 (" + e.getMessage() + ")");
+        }
+    }
+
+    private void reportProgress(ItemImportResultDto result, long startTime, Consumer<ItemImportResultDto> progressListener) {
+        result.setElapsedMillis(System.currentTimeMillis() - startTime);
+        log.info("상품 대량 등록 진행 중 (읽은 행: {}, 등록: {}, 실패: {})",
+                 result.getTotalRows(), result.getImportedRows(), result.getFailedRows());
+        if (progressListener != null) {
+            progressListener.accept(result);
+        }
+    }
+
+    private void addError(ItemImportResultDto result, String error) {
+        if (result.getErrors().size() < MAX_ERRORS) {
+            result.getErrors().add(error);
+        }
+    }
+
+    // 상품이 한꺼번에 많이 추가되었으므로 상품마다 반영하지 않고
+    // 등록이 끝난 뒤 자모 색인, 자동완성 색인을 다시 만들고 메인 페이지 상품 개수 캐시를 비웁니다.
+    private void refreshAfterImport() {
+        itemNmJamoIndex.rebuild();
+        itemNmSuggestIndex.requestRebuild();
+
+        Cache mainItemCountCache = cacheManager.getCache(CacheConfig.MAIN_ITEM_COUNT);
+        if (mainItemCountCache != null) {
+            mainItemCountCache.clear();
+        }
+    }
+
+    // 파일에서 읽은 상품 한 행입니다.
+    // 값을 읽거나 변환하는 중에 오류가 있으면 error 에 메시지를 담습니다.
+    private static class ImportRow {
+        private final long lineNumber;
+        private final ItemFormDto itemFormDto;
+        private final String imgUrl;
+        private final String error;
+
+        private ImportRow(long lineNumber, ItemFormDto itemFormDto, String imgUrl, String error) {
+            this.lineNumber = lineNumber;
+            this.itemFormDto = itemFormDto;
+            this.imgUrl = imgUrl;
+            this.error = error;
+        }
+    }
+
+    private interface RowReader {
+        // 다음 상품 행을 반환합니다. 더 이상 읽을 행이 없으면 null 을 반환합니다.
+        ImportRow next() throws IOException;
+    }
+
+    // 한 줄에 상품 하나씩 JSON 객체로 작성된 파일을 읽습니다.
+    // 예) {"itemNm":"청바지","price":10000,"stockNumber":100,"itemDetail":"청바지 상세 설명","itemSellStatus":"SELL"}
+    private class JsonLinesRowReader implements RowReader {
+        private final BufferedReader reader;
+        private long lineNumber = 0;
+
+        private JsonLinesRowReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                    line = line.substring(1);
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                try {
+                    JsonNode node = objectMapper.readTree(line);
+                    ItemFormDto itemFormDto = objectMapper.treeToValue(node, ItemFormDto.class);
+                    if (itemFormDto.getItemSellStatus() == null) {
+                        itemFormDto.setItemSellStatus(ItemSellStatus.SELL);
+                    }
+                    return new ImportRow(lineNumber, itemFormDto, node.path("imgUrl").asText(null), null);
+                } catch (JsonProcessingException e) {
+                    return new ImportRow(lineNumber, null, null, "JSON 형식이 올바르지 않습니다. (" + e.getOriginalMessage() + ")");
+                }
+            }
+            return null;
+        }
+    }
+
+    // 첫 줄에 컬럼명이 있는 CSV 파일을 읽습니다.
+    // 필수 컬럼: itemNm, price, stockNumber, itemDetail / 선택 컬럼: itemSellStatus(기본값 SELL), imgUrl
+    // 큰따옴표로 감싼 값 안의 쉼표, 줄바꿈, 두 번 쓴 큰따옴표("")를 처리합니다.
+    private static class CsvRowReader implements RowReader {
+        private final BufferedReader reader;
+        private long lineNumber = 1;
+        private Map<String, Integer> columns;
+
+        private CsvRowReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            if (columns == null) {
+                List<String> header = readRecord();
+                if (header == null) {
+                    return null;
+                }
+                columns = new HashMap<>();
+                for (int i = 0; i < header.size(); i++) {
+                    String column = header.get(i).trim();
+                    if (i == 0 && column.startsWith("\uFEFF")) {
+                        column = column.substring(1);
+                    }
+                    columns.put(column, i);
+                }
+            }
+
+            while (true) {
+                long recordLineNumber = lineNumber;
+                List<String> record = readRecord();
+                if (record == null) {
+                    return null;
+                }
+                if (record.size() == 1 && record.get(0).isBlank()) {
+                    continue;
+                }
+
+                try {
+                    ItemFormDto itemFormDto = new ItemFormDto();
+                    itemFormDto.setItemNm(get(record, "itemNm"));
+                    itemFormDto.setItemDetail(get(record, "itemDetail"));
+                    itemFormDto.setPrice(toInteger(get(record, "price"), "price"));
+                    itemFormDto.setStockNumber(toInteger(get(record, "stockNumber"), "stockNumber"));
+
+                    String itemSellStatus = get(record, "itemSellStatus");
+                    itemFormDto.setItemSellStatus(StringUtils.isEmpty(itemSellStatus) ? ItemSellStatus.SELL
+                                                                                     : ItemSellStatus.valueOf(itemSellStatus.trim()));
+                    return new ImportRow(recordLineNumber, itemFormDto, get(record, "imgUrl"), null);
+                } catch (IllegalArgumentException e) {
+                    return new ImportRow(recordLineNumber, null, null, e.getMessage());
+                }
+            }
+        }
+
+        private String get(List<String> record, String column) {
+            Integer index = columns.get(column);
+            return (index == null || index >= record.size()) ? null : record.get(index);
+        }
+
+        private Integer toInteger(String value, String column) {
+            if (StringUtils.isEmpty(value)) {
+                return null;
+            }
+            try {
+                return Integer.valueOf(value.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(column + " 값이 숫자가 아닙니다. (" + value + ")");
+            }
+        }
+
+        // CSV 레코드 하나를 읽습니다. 더 이상 읽을 내용이 없으면 null 을 반환합니다.
+        private List<String> readRecord() throws IOException {
+            int c = reader.read();
+            if (c == -1) {
+                return null;
+            }
+
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+
+            while (true) {
+                if (c == -1) {
+                    fields.add(field.toString());
+                    return fields;
+                }
+
+                char ch = (char) c;
+                if (quoted) {
+                    if (ch == '"') {
+                        int next = reader.read();
+                        if (next == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            c = next;
+                            continue;
+                        }
+                    } else {
+                        if (ch == '\n') {
+                            lineNumber++;
+                        }
+                        field.append(ch);
+                    }
+                } else if (ch == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (ch == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (ch == '\n') {
+                    lineNumber++;
+                    fields.add(field.toString());
+                    return fields;
+                } else if (ch != '\r') {
+                    field.append(ch);
+                }
+
+                c = reader.read();
+            }
+        }
+    }
+}
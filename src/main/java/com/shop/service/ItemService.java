@@ -1,23 +1,39 @@
 package com.shop.service;
 
+import com.shop.config.CacheConfig;
+import com.shop.dto.ItemExportDto;
 import com.shop.dto.ItemFormDto;
 import com.shop.dto.ItemImgDto;
 import com.shop.dto.ItemSearchDto;
+import com.shop.dto.ItemSuggestDto;
 import com.shop.dto.MainItemDto;
 import com.shop.entity.Item;
 import com.shop.entity.ItemImg;
 import com.shop.repository.ItemImgRepository;
+import com.shop.repository.ItemNmJamoIndex;
+import com.shop.repository.ItemNmSuggestIndex;
 import com.shop.repository.ItemRepository;
+import com.shop.repository.ItemSearchIndex;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.persistence.EntityNotFoundException;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -27,7 +43,14 @@ public class ItemService {
     private final ItemRepository itemRepository;
     private final ItemImgService itemImgService;
     private final ItemImgRepository itemImgRepository;
-
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemNmJamoIndex itemNmJamoIndex;
+    private final ItemNmSuggestIndex itemNmSuggestIndex;
+    private final ItemAdmissionService itemAdmissionService;
+    private final ItemStockService itemStockService;
+
+    @CacheEvict(value = CacheConfig.MAIN_ITEM_COUNT, allEntries = true)
+    // 상품이 등록되면 메인 페이지의 상품 개수가 달라지므로 상품 개수 캐시를 비웁니다.
     public Long saveItem(ItemFormDto itemFormDto, List<MultipartFile> itemImgFileList) throws Exception {
 
         // 상품 등록 폼으로부터 입력 받은 데이터를 이용하여 item 객체를 생성합니다.
@@ -53,6 +76,12 @@ public class ItemService {
             // 상품의 이미지 정보를 저장합니다.
             itemImgService.saveItemImg(itemImg, itemImgFileList.get(i));
         }
+
+        // 트랜잭션이 커밋되면 등록한 상품을 검색 색인과 상품명 자모 색인에 추가합니다.
+        itemSearchIndex.index(item);
+        itemNmJamoIndex.index(item);
+        itemNmSuggestIndex.requestRebuild();
+
         return item.getId();
     }
 
@@ -60,6 +89,10 @@ public class ItemService {
     // 상품 데이터를 읽어오는 트랜잭션을 읽기 전용을 설정합니다.
     // 이럴 경우 JPA 가 더티체킹(변경감지)을 수행하지 않아서 성능을 향상 시킬 수 있습니다.
 
+    @Cacheable(value = CacheConfig.ITEM_DTL, key = "#itemId")
+    // 조회한 상품 상세 정보를 상품 아이디를 키로 캐시에 저장합니다.
+    // 같은 상품을 다시 조회하면 데이터베이스를 조회하지 않고 캐시에 저장된 값을 반환합니다.
+
     public ItemFormDto getItemDtl(Long itemId) {
 
         // 해당 상품의 이미지를 조회합니다.
@@ -79,9 +112,27 @@ public class ItemService {
         Item item = itemRepository.findById(itemId).orElseThrow(EntityNotFoundException::new);
         ItemFormDto itemFormDto = ItemFormDto.of(item);
         itemFormDto.setItemImgDtoList(itemImgDtoList);
+
+        // 재고 분할 모드인 상품은 bucket 에 나누어 담긴 재고까지 더한 수량을 보여줍니다.
+        if (item.isStockSplit()) {
+            itemFormDto.setStockNumber(itemStockService.getStockNumber(item.getId()));
+        }
         return itemFormDto;
     }
 
+    // 상품 상세 페이지가 마지막으로 변경된 시간을 조회합니다.
+    // 상품 상세 정보 전체를 조회하지 않고 수정 시간만 조회하므로 가볍게 실행됩니다.
+    @Transactional(readOnly = true)
+    public LocalDateTime getItemDtlLastModified(Long itemId) {
+        return itemRepository.getItemDtlUpdateTime(itemId);
+    }
+
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.ITEM_DTL, key = "#itemFormDto.id"),
+            @CacheEvict(value = CacheConfig.MAIN_ITEM_COUNT, allEntries = true)
+    })
+    // 상품 정보가 수정되면 캐시에 저장된 상품 상세 정보를 삭제합니다.
+    // 상품명이 바뀌면 검색 결과 개수도 달라질 수 있으므로 상품 개수 캐시도 비웁니다.
     public Long updateItem(ItemFormDto itemFormDto, List<MultipartFile> itemImgFileList) throws Exception {
 
         // 상품 수정
@@ -91,6 +142,9 @@ public class ItemService {
         // 상품 등록 화면으로부터 전달 받은 ItemFormDto 를 통해 상품 엔티티를 업데이트합니다.
         item.updateItem(itemFormDto);
 
+        // 재고 분할 모드인 상품은 입력한 재고 수량을 bucket 에 다시 나누어 담습니다.
+        itemStockService.updateStock(item, itemFormDto.getStockNumber());
+
         // 상품 이미지 아이디 리스트를 조회합니다.
         List<Long> itemImgIds = itemFormDto.getItemImgIds();
 
@@ -101,6 +155,14 @@ public class ItemService {
             itemImgService.updateItemImg(itemImgIds.get(i), itemImgFileList.get(i));
         }
 
+        // 트랜잭션이 커밋되면 수정한 상품명, 상품 상세 설명, 판매 상태로 검색 색인을 변경합니다.
+        itemSearchIndex.index(item);
+        itemNmJamoIndex.index(item);
+        itemNmSuggestIndex.requestRebuild();
+
+        // 재고 수량이 변경되었을 수 있으므로 커밋 후 주문 입장 제어의 남은 수량을 다시 읽어오게 합니다.
+        itemAdmissionService.invalidate(Collections.singletonList(item.getId()));
+
         return item.getId();
     }
 
@@ -111,9 +173,64 @@ public class ItemService {
         return itemRepository.getAdminItemPage(itemSearchDto, pageable);
     }
 
+    // 관리자 상품 페이지와 같은 조회 조건의 전체 상품을 CSV 형식으로 writer 에 씁니다.
+    // 조회 결과를 목록으로 모으지 않고 한 행씩 읽어서 바로 쓰기 때문에
+    // 내보내는 상품이 1천 개이든 5백만 개이든 메모리 사용량이 일정합니다.
+    @Transactional(readOnly = true)
+    public long writeAdminItemCsv(ItemSearchDto itemSearchDto, Writer writer) throws IOException {
+        writer.write("상품 아이디,상품명,가격,재고수량,판매상태,등록자,등록일\n");
+
+        long count = 0;
+        try (Stream<ItemExportDto> stream = itemRepository.streamAdminItems(itemSearchDto)) {
+            Iterator<ItemExportDto> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                ItemExportDto item = iterator.next();
+                writer.write(String.valueOf(item.getId()));
+                writer.write(',');
+                writer.write(toCsvField(item.getItemNm()));
+                writer.write(',');
+                writer.write(String.valueOf(item.getPrice()));
+                writer.write(',');
+                writer.write(String.valueOf(item.getStockNumber()));
+                writer.write(',');
+                writer.write(item.getItemSellStatus() == null ? "" : item.getItemSellStatus().name());
+                writer.write(',');
+                writer.write(toCsvField(item.getCreatedBy()));
+                writer.write(',');
+                writer.write(item.getRegTime() == null ? "" : item.getRegTime().toString());
+                writer.write('\n');
+                count++;
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    // 쉼표, 큰따옴표, 줄바꿈이 들어 있는 값은 큰따옴표로 감싸고 안의 큰따옴표는 두 번 씁니다.
+    // 스프레드시트에서 수식으로 실행되지 않도록 =, +, -, @ 로 시작하는 값은 앞에 ' 를 붙입니다.
+    private String toCsvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (!value.isEmpty() && "=+-@".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
     @Transactional(readOnly = true)
     public Page<MainItemDto> getMainItemPage(ItemSearchDto itemSearchDto, Pageable pageable) {
         return itemRepository.getMainItemPage(itemSearchDto, pageable);
     }
 
+    // 검색창 자동완성 목록을 메모리 색인에서 조회합니다.
+    // 데이터베이스를 사용하지 않으므로 트랜잭션(데이터베이스 커넥션)을 시작하지 않습니다.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<ItemSuggestDto> getItemSuggestList(String searchQuery, int limit) {
+        return itemNmSuggestIndex.suggest(searchQuery, limit);
+    }
+
 }
@@ -0,0 +1,238 @@
+package com.shop.service;
+
+import com.shop.entity.Item;
+import com.shop.entity.ItemStockBucket;
+import com.shop.exception.OutOfStockException;
+import com.shop.repository.ItemRepository;
+import com.shop.repository.ItemStockBucketRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityNotFoundException;
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+// 상품의 재고 수량을 변경하고 조회하는 서비스입니다.
+//
+// 기본 모드에서는 재고를 item.stock_number 한 곳에 저장하고 조건부 update 쿼리로 원자적으로 변경합니다.
+// 재고 분할 모드(Item.stockBucketCount > 1)에서는 재고를 item_stock_bucket 여러 행에 나누어 저장합니다.
+// 주문마다 임의의 bucket 에서 재고를 감소시키므로, 같은 상품에 주문이 몰려도 한 행의 잠금을 차례로 기다리지 않습니다.
+// 어느 모드이든 상품의 재고 수량은 item.stock_number 와 모든 bucket 의 재고 수량을 더한 값입니다.
+//
+// 주문으로 재고를 변경할 때 bucket 엔티티는 영속성 컨텍스트에 올리지 않고 update 쿼리로만 변경합니다.
+// 이때 item 행은 변경하지 않으므로 상품 상세 페이지의 수정 시간은 bucket 의 수정 시간(ItemStockBucket.updateTime)으로 알 수 있습니다.
+// 엔티티로 bucket 을 다루는 것은 잠금을 잡고 재고를 다시 나눌 때뿐입니다.
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class ItemStockService {
+
+    // bucket 을 너무 많이 만들면 재고가 잘게 흩어져서 여러 bucket 에서 나누어 차감하는 경우가 늘어납니다.
+    public static final int MAX_BUCKET_COUNT = 64;
+
+    private final ItemRepository itemRepository;
+    private final ItemStockBucketRepository itemStockBucketRepository;
+    private final EntityManager em;
+
+    // 주문 수량만큼 상품의 재고를 감소시킵니다.
+    // 재고가 부족하면 OutOfStockException 이 발생합니다.
+    public void removeStock(Item item, int count) {
+        if (!item.isStockSplit()) {
+            itemRepository.removeStock(item.getId(), count);
+            return;
+        }
+
+        // 임의의 bucket 부터 시작해서 주문 수량을 한 번에 감소시킬 수 있는 bucket 을 찾습니다.
+        // 다른 주문과 같은 bucket 을 고를 확률이 낮으므로 대부분 첫 번째 update 쿼리에서 끝납니다.
+        int bucketCount = item.getStockBucketCount();
+        int start = ThreadLocalRandom.current().nextInt(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            if (itemStockBucketRepository.removeStock(item.getId(), (start + i) % bucketCount, count, LocalDateTime.now()) == 1) {
+                return;
+            }
+        }
+
+        // 재고가 여러 bucket 에 조금씩 흩어져 있으면 여러 bucket 에서 나누어 감소시킵니다.
+        // 조회한 뒤에 다른 주문이 재고를 가져가도 update 쿼리의 조건으로 음수가 되지 않으며,
+        // 끝내 주문 수량을 채우지 못하면 예외가 발생하여 먼저 감소시킨 재고도 롤백됩니다.
+        List<Integer> stockNumbers = itemStockBucketRepository.findStockNumbersByItemId(item.getId());
+        int stockNumber = 0;
+        for (Integer bucketStockNumber : stockNumbers) {
+            stockNumber += bucketStockNumber;
+        }
+        if (stockNumber < count) {
+            throw new OutOfStockException("상품의 재고가 부족 합니다. (현재 재고 수량: " + stockNumber + ")");
+        }
+
+        int remaining = count;
+        for (int bucketNo = 0; bucketNo < stockNumbers.size() && remaining > 0; bucketNo++) {
+            int taken = Math.min(stockNumbers.get(bucketNo), remaining);
+            if (taken > 0 && itemStockBucketRepository.removeStock(item.getId(), bucketNo, taken, LocalDateTime.now()) == 1) {
+                remaining -= taken;
+            }
+        }
+
+        if (remaining > 0) {
+            throw new OutOfStockException("상품의 재고가 부족 합니다. (현재 재고 수량: " + getStockNumber(item.getId()) + ")");
+        }
+    }
+
+    // 여러 상품의 재고를 상품 아이디 오름차순으로 감소시킵니다.
+    // 기본 모드의 상품들은 update 쿼리 한 번으로 감소시키고, 재고 분할 모드의 상품은 상품마다 bucket 에서 감소시킵니다.
+    public void removeStocks(Map<Long, Integer> itemCountMap, Map<Long, Item> itemMap) {
+        Map<Long, Integer> singleRowCountMap = new TreeMap<>();
+        for (Map.Entry<Long, Integer> entry : itemCountMap.entrySet()) {
+            Item item = itemMap.get(entry.getKey());
+            if (item.isStockSplit()) {
+                removeStock(item, entry.getValue());
+            } else {
+                singleRowCountMap.put(entry.getKey(), entry.getValue());
+            }
+        }
+        itemRepository.removeStocks(singleRowCountMap);
+    }
+
+    // 주문 취소 등으로 돌아온 재고를 더합니다.
+    // 재고 분할 모드의 상품은 임의의 bucket 하나에 더합니다.
+    public void addStock(Item item, int count) {
+        if (item.isStockSplit()
+                && itemStockBucketRepository.addStock(item.getId(),
+                        ThreadLocalRandom.current().nextInt(item.getStockBucketCount()), count, LocalDateTime.now()) == 1) {
+            return;
+        }
+        itemRepository.addStock(item.getId(), count);
+    }
+
+    // 여러 상품의 재고를 더합니다.
+    // 기본 모드의 상품들은 update 쿼리 한 번으로 더하고, 재고 분할 모드의 상품은 상품마다 bucket 에 더합니다.
+    public void addStocks(Map<Long, Integer> itemCountMap, Map<Long, Item> itemMap) {
+        Map<Long, Integer> singleRowCountMap = new TreeMap<>();
+        for (Map.Entry<Long, Integer> entry : itemCountMap.entrySet()) {
+            Item item = itemMap.get(entry.getKey());
+            if (item != null && item.isStockSplit()) {
+                addStock(item, entry.getValue());
+            } else {
+                singleRowCountMap.put(entry.getKey(), entry.getValue());
+            }
+        }
+        itemRepository.addStocks(singleRowCountMap);
+    }
+
+    // item.stock_number 와 모든 bucket 의 재고 수량을 더한 현재 재고 수량을 반환합니다.
+    // 존재하지 않는 상품이면 null 을 반환합니다.
+    @Transactional(readOnly = true)
+    public Integer getStockNumber(Long itemId) {
+        Integer stockNumber = itemRepository.findStockNumberById(itemId);
+        if (stockNumber == null) {
+            return null;
+        }
+
+        for (Integer bucketStockNumber : itemStockBucketRepository.findStockNumbersByItemId(itemId)) {
+            stockNumber += bucketStockNumber;
+        }
+        return stockNumber;
+    }
+
+    // 이미 조회한 상품들의 현재 재고 수량을 상품 아이디를 키로 하는 Map 에 담아 반환합니다.
+    // 재고 분할 모드인 상품이 있을 때만 bucket 의 재고 합계를 한 번의 쿼리로 조회합니다.
+    @Transactional(readOnly = true)
+    public Map<Long, Integer> getStockNumbers(Collection<Item> items) {
+        Map<Long, Integer> stockNumberMap = new HashMap<>();
+        List<Long> splitItemIds = new ArrayList<>();
+        for (Item item : items) {
+            stockNumberMap.put(item.getId(), item.getStockNumber());
+            if (item.isStockSplit()) {
+                splitItemIds.add(item.getId());
+            }
+        }
+
+        if (!splitItemIds.isEmpty()) {
+            for (Object[] row : itemStockBucketRepository.sumStockNumbers(splitItemIds)) {
+                stockNumberMap.merge((Long) row[0], ((Number) row[1]).intValue(), Integer::sum);
+            }
+        }
+        return stockNumberMap;
+    }
+
+    // 상품의 재고를 bucketCount 개의 bucket 에 고르게 다시 나누어 담습니다.
+    // bucketCount 가 1 이하이면 재고 분할 모드를 해제하고 모든 재고를 item.stock_number 로 옮깁니다.
+    // 주문으로 bucket 사이의 재고가 한쪽으로 치우쳤을 때 관리자가 호출하여 다시 고르게 나눌 수 있습니다.
+    public void rebalanceStock(Long itemId, int bucketCount) {
+        // 상품 행과 bucket 행 순서로 잠금을 잡아서, 다시 나누는 동안 들어온 주문은 잠금이 풀릴 때까지 기다리게 합니다.
+        // 같은 트랜잭션에서 변경한 내용이 있다면 먼저 반영한 뒤 데이터베이스의 값으로 다시 읽습니다.
+        Item item = itemRepository.findById(itemId).orElseThrow(EntityNotFoundException::new);
+        em.flush();
+        em.refresh(item, LockModeType.PESSIMISTIC_WRITE);
+        List<ItemStockBucket> buckets = findBucketsForUpdate(itemId);
+
+        int stockNumber = item.getStockNumber();
+        for (ItemStockBucket bucket : buckets) {
+            stockNumber += bucket.getStockNumber();
+        }
+        distributeStock(item, buckets, bucketCount, stockNumber);
+    }
+
+    // 상품 수정 화면에서 입력한 재고 수량으로 바꾸면서 현재 bucket 개수대로 다시 나누어 담습니다.
+    // 재고 분할 모드가 아닌 상품은 변경 감지로 저장되는 Item.stockNumber 를 그대로 사용합니다.
+    public void updateStock(Item item, int stockNumber) {
+        if (!item.isStockSplit()) {
+            return;
+        }
+        List<ItemStockBucket> buckets = findBucketsForUpdate(item.getId());
+        distributeStock(item, buckets, item.getStockBucketCount(), stockNumber);
+    }
+
+    // 재고는 update 쿼리로만 변경되므로 이미 영속성 컨텍스트에 있는 엔티티의 재고 수량은 데이터베이스와 다를 수 있습니다.
+    // 잠금을 잡은 뒤 데이터베이스의 값으로 다시 읽어서 변경 감지가 올바른 값과 비교하도록 합니다.
+    private List<ItemStockBucket> findBucketsForUpdate(Long itemId) {
+        List<ItemStockBucket> buckets = itemStockBucketRepository.findByItemIdForUpdate(itemId);
+        for (ItemStockBucket bucket : buckets) {
+            em.refresh(bucket);
+        }
+        return buckets;
+    }
+
+    private void distributeStock(Item item, List<ItemStockBucket> buckets, int bucketCount, int stockNumber) {
+        if (bucketCount < 0 || bucketCount > MAX_BUCKET_COUNT) {
+            throw new IllegalArgumentException("재고 분할 개수는 0 이상 " + MAX_BUCKET_COUNT + " 이하로 입력해 주세요.");
+        }
+
+        if (bucketCount <= 1) {
+            itemStockBucketRepository.deleteAll(buckets);
+            item.setStockNumber(stockNumber);
+            item.setStockBucketCount(0);
+            return;
+        }
+
+        // bucket 번호가 0 부터 bucketCount - 1 까지가 되도록 기존 bucket 을 재사용하고, 남는 bucket 은 삭제하며, 모자란 bucket 은 추가합니다.
+        ItemStockBucket[] bucketArray = new ItemStockBucket[bucketCount];
+        for (ItemStockBucket bucket : buckets) {
+            if (bucket.getBucketNo() < bucketCount) {
+                bucketArray[bucket.getBucketNo()] = bucket;
+            } else {
+                itemStockBucketRepository.delete(bucket);
+            }
+        }
+
+        for (int bucketNo = 0; bucketNo < bucketCount; bucketNo++) {
+            int bucketStockNumber = stockNumber / bucketCount + (bucketNo < stockNumber % bucketCount ? 1 : 0);
+            if (bucketArray[bucketNo] == null) {
+                itemStockBucketRepository.save(ItemStockBucket.createItemStockBucket(item, bucketNo, bucketStockNumber));
+            } else {
+                bucketArray[bucketNo].setStockNumber(bucketStockNumber);
+            }
+        }
+
+        item.setStockNumber(0);
+        item.setStockBucketCount(bucketCount);
+    }
+}
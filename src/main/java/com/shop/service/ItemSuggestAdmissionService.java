@@ -0,0 +1,50 @@
+package com.shop.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+// 로그인하지 않아도 호출할 수 있는 상품명 자동완성 API 의 요청 속도를 접속 IP 마다 제한하는 입장 제어 서비스입니다.
+// 자동완성은 검색어를 입력할 때마다 호출되므로 한 번에 몰리는 요청은 넉넉하게 허용하고, 계속 반복되는 요청만 거절합니다.
+@Service
+public class ItemSuggestAdmissionService {
+
+    private final boolean enabled;
+    private final long permitIntervalNanos;
+    private final long burst;
+
+    private final Cache<String, TokenBucket> ipBucketCache;
+
+    private final Counter rejectedCounter;
+
+    public ItemSuggestAdmissionService(MeterRegistry meterRegistry,
+                                       @Value("${itemSuggestAdmissionEnabled:true}") boolean enabled,
+                                       @Value("${itemSuggestPermitsPerSecond:10}") long permitsPerSecond,
+                                       @Value("${itemSuggestBurst:30}") long burst,
+                                       @Value("${itemSuggestAdmissionCacheSpec:maximumSize=100000,expireAfterAccess=10m}") String cacheSpec) {
+        this.enabled = enabled;
+        this.permitIntervalNanos = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+        this.burst = burst;
+        this.ipBucketCache = Caffeine.from(cacheSpec).build();
+        this.rejectedCounter = Counter.builder("item.suggest.admission.rejected").register(meterRegistry);
+    }
+
+    // 자동완성 목록을 조회해도 되면 true 를, 허용된 요청 속도를 넘었으면 false 를 반환합니다.
+    public boolean tryAcquire(String ip) {
+        if (!enabled) {
+            return true;
+        }
+
+        TokenBucket ipBucket = ipBucketCache.get(ip, key -> new TokenBucket(permitIntervalNanos, burst));
+        if (!ipBucket.tryTake()) {
+            rejectedCounter.increment();
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,131 @@
+package com.shop.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.event.AuthenticationFailureBadCredentialsEvent;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+// 로그인 요청이 비밀번호 확인(BCrypt)에 도달하기 전에 요청 속도를 제한하는 입장 제어 서비스입니다.
+//
+// 접속 IP 마다 토큰 버킷을 두어서, 한 곳에서 많은 계정으로 시도하는(credential stuffing) 요청을 비밀번호 해시를 계산하지 않고 거절합니다.
+//
+// 이메일은 누구나 보낼 수 있으므로 이메일로 받은 요청 수를 세면, 다른 사람이 요청을 보내는 것만으로 회원의 로그인을 막을 수 있습니다.
+// 그래서 이메일은 비밀번호가 틀린 로그인(AuthenticationFailureBadCredentialsEvent)만 셉니다.
+// "접속 IP + 이메일" 버킷은 한 곳에서 한 계정의 비밀번호를 맞혀 보는 요청을 막고,
+// 훨씬 느슨한 이메일 버킷은 여러 곳에서 나누어 한 계정으로 시도하는 요청을 막습니다.
+// 로그인 요청은 두 실패 버킷을 확인만 하고 토큰은 비밀번호가 틀렸을 때 꺼냅니다.
+@Service
+public class LoginAdmissionService {
+
+    private final boolean enabled;
+    private final long ipPermitIntervalNanos;
+    private final long ipBurst;
+    private final long ipEmailFailureIntervalNanos;
+    private final long ipEmailFailureBurst;
+    private final long emailFailureIntervalNanos;
+    private final long emailFailureBurst;
+
+    private final Cache<String, TokenBucket> ipBucketCache;
+    private final Cache<String, TokenBucket> ipEmailFailureBucketCache;
+    private final Cache<String, TokenBucket> emailFailureBucketCache;
+
+    private final Counter ipRejectedCounter;
+    private final Counter ipEmailRejectedCounter;
+    private final Counter emailRejectedCounter;
+
+    public LoginAdmissionService(MeterRegistry meterRegistry,
+                                 @Value("${loginAdmissionEnabled:true}") boolean enabled,
+                                 @Value("${loginIpPermitsPerMinute:60}") long ipPermitsPerMinute,
+                                 @Value("${loginIpBurst:20}") long ipBurst,
+                                 @Value("${loginIpEmailFailuresPerMinute:10}") long ipEmailFailuresPerMinute,
+                                 @Value("${loginIpEmailFailureBurst:5}") long ipEmailFailureBurst,
+                                 @Value("${loginEmailFailuresPerMinute:100}") long emailFailuresPerMinute,
+                                 @Value("${loginEmailFailureBurst:50}") long emailFailureBurst,
+                                 @Value("${loginAdmissionCacheSpec:maximumSize=100000,expireAfterAccess=10m}") String cacheSpec) {
+        this.enabled = enabled;
+        this.ipPermitIntervalNanos = TimeUnit.MINUTES.toNanos(1) / ipPermitsPerMinute;
+        this.ipBurst = ipBurst;
+        this.ipEmailFailureIntervalNanos = TimeUnit.MINUTES.toNanos(1) / ipEmailFailuresPerMinute;
+        this.ipEmailFailureBurst = ipEmailFailureBurst;
+        this.emailFailureIntervalNanos = TimeUnit.MINUTES.toNanos(1) / emailFailuresPerMinute;
+        this.emailFailureBurst = emailFailureBurst;
+        this.ipBucketCache = Caffeine.from(cacheSpec).build();
+        this.ipEmailFailureBucketCache = Caffeine.from(cacheSpec).build();
+        this.emailFailureBucketCache = Caffeine.from(cacheSpec).build();
+        this.ipRejectedCounter = Counter.builder("login.admission.rejected").tag("key", "ip").register(meterRegistry);
+        this.ipEmailRejectedCounter = Counter.builder("login.admission.rejected").tag("key", "ip_email").register(meterRegistry);
+        this.emailRejectedCounter = Counter.builder("login.admission.rejected").tag("key", "email").register(meterRegistry);
+    }
+
+    // 로그인을 진행해도 되면 true 를, 허용된 요청 속도나 실패 횟수를 넘었으면 false 를 반환합니다.
+    public boolean tryAcquire(String ip, String email) {
+        if (!enabled) {
+            return true;
+        }
+
+        TokenBucket ipBucket = ipBucketCache.get(ip, key -> new TokenBucket(ipPermitIntervalNanos, ipBurst));
+        if (!ipBucket.tryTake()) {
+            ipRejectedCounter.increment();
+            return false;
+        }
+
+        String emailKey = emailKey(email);
+        if (emailKey == null) {
+            return true;
+        }
+
+        // 실패 버킷은 실패한 로그인이 있어야 만들어지므로, 버킷이 없으면 확인할 필요가 없습니다.
+        TokenBucket ipEmailFailureBucket = ipEmailFailureBucketCache.getIfPresent(ipEmailKey(ip, emailKey));
+        if (ipEmailFailureBucket != null && !ipEmailFailureBucket.hasToken()) {
+            ipEmailRejectedCounter.increment();
+            return false;
+        }
+
+        TokenBucket emailFailureBucket = emailFailureBucketCache.getIfPresent(emailKey);
+        if (emailFailureBucket != null && !emailFailureBucket.hasToken()) {
+            emailRejectedCounter.increment();
+            return false;
+        }
+        return true;
+    }
+
+    // 비밀번호가 틀린 로그인마다 "접속 IP + 이메일" 버킷과 이메일 버킷에서 토큰을 하나씩 꺼냅니다.
+    // 없는 이메일로 로그인해도 DaoAuthenticationProvider 가 BadCredentialsException 으로 바꾸어 주므로 같이 셉니다.
+    @EventListener
+    public void onLoginFailure(AuthenticationFailureBadCredentialsEvent event) {
+        if (!enabled) {
+            return;
+        }
+
+        String emailKey = emailKey(event.getAuthentication().getName());
+        if (emailKey == null) {
+            return;
+        }
+
+        Object details = event.getAuthentication().getDetails();
+        String ip = details instanceof WebAuthenticationDetails ? ((WebAuthenticationDetails) details).getRemoteAddress() : null;
+
+        ipEmailFailureBucketCache.get(ipEmailKey(ip, emailKey),
+                                      key -> new TokenBucket(ipEmailFailureIntervalNanos, ipEmailFailureBurst)).tryTake();
+        emailFailureBucketCache.get(emailKey, key -> new TokenBucket(emailFailureIntervalNanos, emailFailureBurst)).tryTake();
+    }
+
+    // 대소문자만 다른 이메일로 버킷을 나누어 쓰지 못하도록 소문자로 바꾸어 사용합니다.
+    private static String emailKey(String email) {
+        if (email == null || email.trim().isEmpty()) {
+            return null;
+        }
+        return email.trim().toLowerCase();
+    }
+
+    private static String ipEmailKey(String ip, String emailKey) {
+        return ip + "\n" + emailKey;
+    }
+}
@@ -0,0 +1,179 @@
+package com.shop.service;
+
+import com.shop.repository.MemberRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// 가입된 회원 이메일을 블룸 필터에 담아 두고, 회원 가입 시 중복 회원 조회를 건너뛸 수 있는지 알려주는 서비스입니다.
+//
+// 캠페인 기간에 가입 요청이 몰리면 요청마다 이메일로 회원을 조회하게 되는데, 대부분은 가입된 적이 없는 이메일입니다.
+// 블룸 필터에 없는 이메일은 가입된 적이 없다는 것이 확실하므로 데이터베이스를 조회하지 않습니다.
+// 블룸 필터에 있다고 나온 이메일만 조회하며, 동시에 같은 이메일로 가입하는 경우는 member.email 유니크 제약 조건이 막아줍니다.
+//
+// 블룸 필터는 애플리케이션이 시작될 때 회원 엔티티를 만들지 않고 이메일만 한 행씩 읽어서 만들고, 가입할 때마다 이메일을 추가합니다.
+// 롤백된 가입의 이메일이 남거나 회원 수가 늘어 false positive 비율이 높아지지 않도록 memberEmailFilterRebuildHours 마다 다시 만듭니다.
+// 다시 만드는 동안 가입한 이메일은 기존 필터와 새 필터에 모두 추가하여 빠지지 않도록 합니다.
+//
+// 필터 결과는 member.email.filter 지표에 negative(조회 생략), true_positive(가입된 이메일), false_positive(조회했지만 없던 이메일)로
+// 기록되며, 현재 채워진 비트로 계산한 예상 false positive 비율은 member.email.filter.expected.fpp 로 확인할 수 있습니다.
+@Slf4j
+@Service
+public class MemberEmailFilterService {
+
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate readOnlyTemplate;
+
+    private final boolean enabled;
+    private final long expectedInsertions;
+    private final double falsePositiveProbability;
+    private final long rebuildIntervalHours;
+
+    private final Counter negativeCounter;
+    private final Counter truePositiveCounter;
+    private final Counter falsePositiveCounter;
+
+    // 처음 만들어지기 전에는 null 이며, 이때는 모든 이메일을 조회합니다.
+    private volatile BloomFilter filter;
+
+    // 다시 만드는 중인 필터입니다.
+    private volatile BloomFilter rebuildingFilter;
+
+    private ScheduledExecutorService scheduler;
+
+    public MemberEmailFilterService(MemberRepository memberRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${memberEmailFilterEnabled:true}") boolean enabled,
+                                    @Value("${memberEmailFilterExpectedInsertions:1000000}") long expectedInsertions,
+                                    @Value("${memberEmailFilterFpp:0.01}") double falsePositiveProbability,
+                                    @Value("${memberEmailFilterRebuildHours:24}") long rebuildIntervalHours) {
+        this.memberRepository = memberRepository;
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.enabled = enabled;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.rebuildIntervalHours = rebuildIntervalHours;
+
+        this.negativeCounter = Counter.builder("member.email.filter").tag("result", "negative").register(meterRegistry);
+        this.truePositiveCounter = Counter.builder("member.email.filter").tag("result", "true_positive").register(meterRegistry);
+        this.falsePositiveCounter = Counter.builder("member.email.filter").tag("result", "false_positive").register(meterRegistry);
+        meterRegistry.gauge("member.email.filter.expected.fpp", this, service -> {
+            BloomFilter current = service.filter;
+            return current == null ? Double.NaN : current.expectedFalsePositiveProbability();
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || scheduler != null) {
+            return;
+        }
+
+        rebuild();
+
+        if (rebuildIntervalHours > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "member-email-filter");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::rebuildQuietly, rebuildIntervalHours, rebuildIntervalHours, TimeUnit.HOURS);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    // 가입된 적이 있을 수도 있는 이메일이면 true 를, 가입된 적이 없는 것이 확실한 이메일이면 false 를 반환합니다.
+    public boolean mightContain(String email) {
+        BloomFilter current = filter;
+        if (current == null) {
+            return true;
+        }
+        if (!current.mightContain(normalize(email))) {
+            negativeCounter.increment();
+            return false;
+        }
+        return true;
+    }
+
+    // mightContain 이 true 를 반환한 이메일을 데이터베이스에서 조회한 결과를 기록합니다.
+    public void recordLookup(boolean found) {
+        if (filter == null) {
+            return;
+        }
+        (found ? truePositiveCounter : falsePositiveCounter).increment();
+    }
+
+    // 가입한 회원의 이메일을 추가합니다.
+    // 가입이 롤백되어도 이메일이 남을 뿐이므로(false positive) 트랜잭션이 커밋되기를 기다리지 않고 바로 추가합니다.
+    public void add(String email) {
+        String key = normalize(email);
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(key);
+        }
+        BloomFilter rebuilding = rebuildingFilter;
+        if (rebuilding != null) {
+            rebuilding.put(key);
+        }
+    }
+
+    // 데이터베이스의 회원 이메일로 블룸 필터를 다시 만든 뒤 교체합니다.
+    // 회원 수가 예상 키 개수의 절반을 넘으면 회원 수의 두 배를 기준으로 크기를 정합니다.
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        long memberCount = memberRepository.count();
+        BloomFilter newFilter = new BloomFilter(Math.max(expectedInsertions, memberCount * 2), falsePositiveProbability);
+        rebuildingFilter = newFilter;
+        try {
+            readOnlyTemplate.executeWithoutResult(status -> {
+                try (Stream<String> emails = memberRepository.streamEmails()) {
+                    emails.forEach(email -> newFilter.put(normalize(email)));
+                }
+            });
+            filter = newFilter;
+        } finally {
+            rebuildingFilter = null;
+        }
+        log.info("회원 이메일 블룸 필터를 만들었습니다. (회원 수: {}, 비트 수: {}, 해시 함수 수: {}, {}ms)", memberCount,
+                 newFilter.bitSize(), newFilter.hashCount(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.error("회원 이메일 블룸 필터를 다시 만들지 못했습니다.", e);
+        }
+    }
+
+    // 데이터베이스의 정렬 규칙에 따라 대소문자만 다른 이메일이 중복으로 처리될 수 있으므로 소문자로 바꾸어 담습니다.
+    private static String normalize(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,10 +1,13 @@
 package com.shop.service;
 
+import com.shop.config.MemberUserDetails;
 import com.shop.entity.Member;
 import com.shop.repository.MemberRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.userdetails.User;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -23,18 +26,55 @@ import org.springframework.transaction.annotation.Transactional;
 // @Autowired 어노테이션 없이 의존성 주입이 가능합니다.
 
 // MemberService 가 UserDetailsService 를 구현합니다.
-public class MemberService implements UserDetailsService {
+// UserDetailsPasswordService 를 함께 구현하면, 로그인에 성공했을 때 저장된 비밀번호의 BCrypt cost 가
+// 현재 설정(bcryptStrength)과 다를 경우 스프링 시큐리티가 새 cost 로 해시한 비밀번호로 updatePassword 를 호출합니다.
+// 비밀번호가 변경되면 MemberUserCacheListener 가 로그인 정보 캐시에서 회원을 삭제합니다.
+public class MemberService implements UserDetailsService, UserDetailsPasswordService {
 
     private final MemberRepository memberRepository;
+    private final MemberEmailFilterService memberEmailFilterService;
 
     public Member saveMember(Member member) {
         validateDuplicateMember(member);
-        return memberRepository.save(member);
+
+        // 중복 회원 조회를 건너뛰었거나 같은 이메일로 동시에 가입한 경우에는 유니크 제약 조건이 중복 가입을 막아줍니다.
+        // 바로 insert 쿼리를 실행하여 이메일 유니크 제약 조건 위반만 중복 회원 예외로 바꾸어 주고, 다른 위반은 그대로 던집니다.
+        Member savedMember;
+        try {
+            savedMember = memberRepository.saveAndFlush(member);
+        } catch (DataIntegrityViolationException e) {
+            if (isEmailUniqueViolation(e)) {
+                throw new IllegalStateException("이미 가입된 회원입니다.");
+            }
+            throw e;
+        }
+
+        memberEmailFilterService.add(savedMember.getEmail());
+        return savedMember;
+    }
+
+    // 예외의 원인 중 하이버네이트의 ConstraintViolationException 이 회원 이메일 유니크 제약 조건을 위반한 것인지 확인합니다.
+    // 데이터베이스마다 제약 조건 이름의 대소문자와 앞뒤에 붙는 내용이 다르므로 대소문자 구분 없이 이름이 포함되어 있는지 확인합니다.
+    private static boolean isEmailUniqueViolation(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException) {
+                String constraintName = ((ConstraintViolationException) cause).getConstraintName();
+                return constraintName != null
+                        && constraintName.toLowerCase().contains(Member.EMAIL_UNIQUE_CONSTRAINT);
+            }
+        }
+        return false;
     }
 
     // 이미 가입된 회원의 경우 IllegalStateException 예외를 발생시킵니다.
+    // 블룸 필터에 없는 이메일은 가입된 적이 없으므로 회원을 조회하지 않습니다.
     private void validateDuplicateMember(Member member) {
+        if (!memberEmailFilterService.mightContain(member.getEmail())) {
+            return;
+        }
+
         Member findMember = memberRepository.findByEmail(member.getEmail());
+        memberEmailFilterService.recordLookup(findMember != null);
         if (findMember != null) {
             throw new IllegalStateException("이미 가입된 회원입니다.");
         }
@@ -50,12 +90,21 @@ public class MemberService implements UserDetailsService {
             throw new UsernameNotFoundException(email);
         }
 
-        // UserDetail 을 구현하고 있는 User 객체를 반환해줍니다.
-        // User 객체를 생성하기 위해서 생성자로 회원의 이메일, 비밀번호, role 을 파라미터 넘겨 줍니다.
-        return User.builder()
-                .username(member.getEmail())
-                .password(member.getPassword())
-                .roles(member.getRole().toString())
-                .build();
+        // User 객체를 상속한 MemberUserDetails 객체를 반환해줍니다.
+        // 회원의 이메일, 비밀번호, role 과 함께 회원 아이디를 담아 두어서
+        // 로그인한 뒤의 요청에서는 이메일로 회원을 다시 조회하지 않도록 합니다.
+        return new MemberUserDetails(member.getId(), member.getEmail(), member.getPassword(), member.getRole());
+    }
+
+    @Override
+    // 다시 해시한 비밀번호를 저장하고, 새 비밀번호를 담은 UserDetails 를 반환합니다.
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        Member member = memberRepository.findByEmail(user.getUsername());
+        if (member == null) {
+            return user;
+        }
+
+        member.setPassword(newPassword);
+        return new MemberUserDetails(member.getId(), member.getEmail(), newPassword, member.getRole());
     }
 }
@@ -0,0 +1,221 @@
+package com.shop.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.shop.entity.OrderIdempotencyKey;
+import com.shop.exception.DuplicateOrderException;
+import com.shop.exception.IdempotencyKeyReusedException;
+import com.shop.repository.OrderIdempotencyKeyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// 주문 요청의 Idempotency-Key 로 중복 주문을 막는 서비스입니다.
+//
+// 응답을 받지 못한 클라이언트가 같은 주문을 다시 요청하면 주문이 두 번 만들어지고 재고도 두 번 감소합니다.
+// 클라이언트가 주문 요청마다 Idempotency-Key 헤더에 고유한 값을 담아 보내면, 같은 키로 다시 들어온 요청은
+// 주문 로직을 실행하지 않고 처음 만들어진 주문 아이디를 그대로 돌려줍니다.
+// 키와 함께 주문 요청 내용의 해시를 저장하여, 같은 키로 내용이 다른 주문을 요청하면 IdempotencyKeyReusedException 으로 거절합니다.
+//
+// 처리된 키는 order_idempotency_key 테이블에 저장하고, 최근에 처리된 키는 크기와 보관 시간이 제한된 메모리 캐시에서 먼저 찾습니다.
+// 키는 주문과 같은 트랜잭션에서 먼저 저장하므로, 같은 키로 동시에 들어온 요청은 유니크 제약 조건에 의해 하나만 주문을 만들 수 있습니다.
+// 주문에 실패하면 키도 함께 롤백되어 같은 키로 다시 주문할 수 있습니다.
+//
+// 키는 orderIdempotencyTtlHours 동안 보관합니다. 작업 스레드가 orderIdempotencyPurgeIntervalMinutes 마다
+// 보관 시간이 지난 키를 등록 시간 인덱스로 찾아서 orderIdempotencyPurgeBatchSize 개씩 삭제합니다.
+@Slf4j
+@Service
+public class OrderIdempotencyService {
+
+    public static final String HEADER_NAME = "Idempotency-Key";
+    public static final int MAX_KEY_LENGTH = 100;
+
+    private final OrderIdempotencyKeyRepository orderIdempotencyKeyRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    private final long ttlHours;
+    private final long purgeIntervalMinutes;
+    private final int purgeBatchSize;
+
+    // "회원 아이디 + 키" 를 키로 주문 아이디와 요청 해시를 저장합니다.
+    private final Cache<String, SavedOrder> savedOrderCache;
+
+    private ScheduledExecutorService scheduler;
+
+    public OrderIdempotencyService(OrderIdempotencyKeyRepository orderIdempotencyKeyRepository,
+                                   ObjectMapper objectMapper,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${orderIdempotencyCacheSpec:maximumSize=100000}") String cacheSpec,
+                                   @Value("${orderIdempotencyTtlHours:24}") long ttlHours,
+                                   @Value("${orderIdempotencyPurgeIntervalMinutes:60}") long purgeIntervalMinutes,
+                                   @Value("${orderIdempotencyPurgeBatchSize:1000}") int purgeBatchSize) {
+        this.orderIdempotencyKeyRepository = orderIdempotencyKeyRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttlHours = ttlHours;
+        this.purgeIntervalMinutes = purgeIntervalMinutes;
+        this.purgeBatchSize = purgeBatchSize;
+
+        // 캐시의 보관 시간도 데이터베이스의 보관 시간과 같게 맞춥니다.
+        this.savedOrderCache = Caffeine.from(cacheSpec).expireAfterWrite(Duration.ofHours(ttlHours)).build();
+    }
+
+    // 보관 시간이 지난 키를 주기적으로 삭제하는 작업 스레드를 시작합니다.
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-idempotency-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                purgeExpiredKeys(LocalDateTime.now().minusHours(ttlHours));
+            } catch (RuntimeException e) {
+                log.error("보관 시간이 지난 Idempotency-Key 삭제 실패", e);
+            }
+        }, purgeIntervalMinutes, purgeIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    // 헤더로 받은 키가 비어 있거나 너무 길면 사용할 수 없습니다.
+    public static boolean isValidKey(String idempotencyKey) {
+        return !idempotencyKey.isEmpty() && idempotencyKey.length() <= MAX_KEY_LENGTH;
+    }
+
+    // 주문 요청 내용을 JSON 으로 바꾼 뒤 SHA-256 해시를 16진수 문자열로 반환합니다.
+    public String hashRequest(Object request) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(messageDigest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // 회원이 보낸 키로 이미 만들어진 주문이 있으면 주문 아이디를, 없으면 null 을 반환합니다.
+    // 같은 키로 처음과 다른 내용의 주문을 요청했다면 IdempotencyKeyReusedException 이 발생합니다.
+    public Long findOrderId(Long memberId, String idempotencyKey, String requestHash) {
+        String cacheKey = cacheKey(memberId, idempotencyKey);
+        SavedOrder savedOrder = savedOrderCache.getIfPresent(cacheKey);
+        if (savedOrder == null) {
+            List<Object[]> rows = orderIdempotencyKeyRepository.findOrderIdAndRequestHash(memberId, idempotencyKey);
+            if (rows.isEmpty() || rows.get(0)[0] == null) {
+                return null;
+            }
+            savedOrder = new SavedOrder((Long) rows.get(0)[0], (String) rows.get(0)[1]);
+            savedOrderCache.put(cacheKey, savedOrder);
+        }
+
+        if (!savedOrder.requestHash.equals(requestHash)) {
+            throw new IdempotencyKeyReusedException();
+        }
+        return savedOrder.orderId;
+    }
+
+    // 키를 저장하고 주문 로직을 실행한 뒤, 만들어진 주문 아이디를 키와 함께 저장합니다.
+    // 같은 키로 다른 요청이 먼저 주문을 만들었다면 DuplicateOrderException 이,
+    // 먼저 만들어진 주문과 요청 내용이 다르다면 IdempotencyKeyReusedException 이 발생합니다.
+    public Long order(Long memberId, String idempotencyKey, String requestHash, Supplier<Long> orderAction) {
+        Long orderId;
+        try {
+            orderId = transactionTemplate.execute(status -> {
+                // 키를 먼저 insert 하여, 같은 키로 동시에 들어온 요청은 주문 로직을 실행하기 전에 유니크 제약 조건에 걸리도록 합니다.
+                OrderIdempotencyKey orderIdempotencyKey = orderIdempotencyKeyRepository.saveAndFlush(
+                        OrderIdempotencyKey.createOrderIdempotencyKey(memberId, idempotencyKey, requestHash));
+
+                Long createdOrderId = orderAction.get();
+                orderIdempotencyKey.setOrderId(createdOrderId);
+
+                // 주문 트랜잭션이 커밋된 후에만 캐시에 저장합니다.
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        savedOrderCache.put(cacheKey(memberId, idempotencyKey), new SavedOrder(createdOrderId, requestHash));
+                    }
+                });
+                return createdOrderId;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // 유니크 제약 조건은 먼저 저장한 트랜잭션이 커밋된 뒤에 위반되므로, 키가 원인이라면 주문 아이디를 찾을 수 있습니다.
+            Long existingOrderId = findOrderId(memberId, idempotencyKey, requestHash);
+            if (existingOrderId == null) {
+                throw e;
+            }
+            throw new DuplicateOrderException(existingOrderId);
+        }
+        return orderId;
+    }
+
+    // expiredBefore 보다 먼저 등록된 키를 purgeBatchSize 개씩 나누어 삭제하고, 삭제한 개수를 반환합니다.
+    // 한 트랜잭션에서 모두 삭제하지 않으므로 삭제하는 동안 주문 트랜잭션이 오래 기다리지 않습니다.
+    // 메모리 캐시는 같은 보관 시간으로 만료되므로 따로 비우지 않습니다.
+    public long purgeExpiredKeys(LocalDateTime expiredBefore) {
+        long purged = 0;
+        while (true) {
+            Integer deleted = transactionTemplate.execute(status -> {
+                List<Long> ids = orderIdempotencyKeyRepository.findExpiredIds(expiredBefore, PageRequest.of(0, purgeBatchSize));
+                return ids.isEmpty() ? 0 : orderIdempotencyKeyRepository.deleteAllByIdIn(ids);
+            });
+            purged += deleted;
+            if (deleted < purgeBatchSize) {
+                break;
+            }
+        }
+
+        if (purged > 0) {
+            log.info("보관 시간이 지난 Idempotency-Key {}건을 삭제했습니다.", purged);
+        }
+        return purged;
+    }
+
+    private static String cacheKey(Long memberId, String idempotencyKey) {
+        return memberId + "\n" + idempotencyKey;
+    }
+
+    // 키로 만들어진 주문 아이디와 요청 해시입니다.
+    private static final class SavedOrder {
+
+        private final Long orderId;
+        private final String requestHash;
+
+        private SavedOrder(Long orderId, String requestHash) {
+            this.orderId = orderId;
+            this.requestHash = requestHash;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.shop.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.shop.constant.OrderIntakeStatus;
+import com.shop.dto.OrderDto;
+import com.shop.dto.OrderIntakeResultDto;
+import com.shop.exception.DuplicateOrderException;
+import com.shop.exception.IdempotencyKeyReusedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// 주문을 요청 스레드에서 바로 처리하지 않고 대기열에 넣은 뒤, 작업 스레드가 여러 주문을 모아서 한 번에 처리합니다. (group commit)
+//
+// 인기 상품에 주문이 몰리면 주문마다 트랜잭션을 열고 같은 상품 행의 잠금을 기다리게 되므로 처리량이 트랜잭션 수에 묶입니다.
+// 대기열 모드(orderIntakeMode=queue)에서는 작업 스레드가 최대 orderIntakeBatchSize 개의 주문 또는 orderIntakeBatchWindowMillis 동안
+// 들어온 주문을 모아서 OrderService.orderBatch 로 처리하고, 상품별 재고 감소와 주문 저장을 하나의 트랜잭션으로 커밋합니다.
+//
+// 주문을 접수하면 token 을 반환하고, 처리 결과는 token 으로 조회(getResult)하거나 완료될 때까지 기다릴 수 있습니다.(getResultFuture)
+// 처리 결과는 orderIntakeResultExpireMinutes 동안 보관합니다.
+//
+// 주문 요청에 Idempotency-Key 가 있으면 키를 접수한 token 과 함께 결과 보관 시간 동안 기록하고, 같은 키로 다시 들어온 요청에는
+// 주문을 다시 접수하지 않고 처음 받은 token 의 처리 결과를 돌려줍니다. 주문에 실패하면 키를 지워서 같은 키로 다시 주문할 수 있습니다.
+@Slf4j
+@Service
+public class OrderIntakeService {
+
+    public static final String MODE_DIRECT = "direct";
+    public static final String MODE_QUEUE = "queue";
+
+    private final OrderService orderService;
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final long batchWindowNanos;
+
+    private final BlockingQueue<OrderIntakeTicket> queue;
+    private final Cache<String, OrderIntakeTicket> ticketCache;
+
+    // "회원 아이디 + Idempotency-Key" 를 키로 접수한 주문을 저장합니다.
+    private final Cache<String, OrderIntakeTicket> idempotencyKeyCache;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public OrderIntakeService(OrderService orderService,
+                              @Value("${orderIntakeMode:direct}") String orderIntakeMode,
+                              @Value("${orderIntakeQueueCapacity:10000}") int queueCapacity,
+                              @Value("${orderIntakeBatchSize:200}") int batchSize,
+                              @Value("${orderIntakeBatchWindowMillis:5}") long batchWindowMillis,
+                              @Value("${orderIntakeResultExpireMinutes:10}") long resultExpireMinutes) {
+        this.orderService = orderService;
+        this.enabled = MODE_QUEUE.equals(orderIntakeMode);
+        this.batchSize = batchSize;
+        this.batchWindowNanos = TimeUnit.MILLISECONDS.toNanos(batchWindowMillis);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.ticketCache = Caffeine.newBuilder()
+                                   .expireAfterWrite(Duration.ofMinutes(resultExpireMinutes))
+                                   .build();
+        this.idempotencyKeyCache = Caffeine.newBuilder()
+                                           .expireAfterWrite(Duration.ofMinutes(resultExpireMinutes))
+                                           .build();
+    }
+
+    // 대기열 모드인 경우에만 애플리케이션이 시작된 후 작업 스레드를 시작합니다.
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::drainLoop, "order-intake");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public synchronized void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+
+        // 처리되지 못한 주문은 실패로 응답합니다.
+        List<OrderIntakeTicket> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (OrderIntakeTicket ticket : remaining) {
+            ticket.complete(OrderIntakeResultDto.failed("서버가 종료되어 주문이 처리되지 않았습니다. 다시 주문해 주세요."));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // 주문을 대기열에 넣고 PENDING 상태의 결과를 반환합니다.
+    // 대기열이 가득 차면 주문을 받지 않고 IllegalStateException 을 발생시킵니다.
+    public OrderIntakeResultDto submit(OrderDto orderDto, Long memberId) {
+        return submit(orderDto, memberId, null, null);
+    }
+
+    // Idempotency-Key 와 주문 요청 내용의 해시를 token 과 함께 기록하고 주문을 대기열에 넣습니다.
+    // 같은 키로 동시에 들어온 다른 요청이 먼저 접수되었다면 DuplicateOrderException 이,
+    // 먼저 접수된 주문과 요청 내용이 다르다면 IdempotencyKeyReusedException 이 발생합니다.
+    public OrderIntakeResultDto submit(OrderDto orderDto, Long memberId, String idempotencyKey, String requestHash) {
+        String idempotencyCacheKey = (idempotencyKey == null) ? null : idempotencyCacheKey(memberId, idempotencyKey);
+        OrderIntakeTicket ticket = new OrderIntakeTicket(UUID.randomUUID().toString(), orderDto, memberId, idempotencyCacheKey, requestHash);
+
+        if (idempotencyCacheKey != null) {
+            OrderIntakeTicket existing = idempotencyKeyCache.asMap().putIfAbsent(idempotencyCacheKey, ticket);
+            if (existing != null) {
+                if (!existing.requestHash.equals(requestHash)) {
+                    throw new IdempotencyKeyReusedException();
+                }
+                throw new DuplicateOrderException(existing.currentResult());
+            }
+        }
+        ticketCache.put(ticket.token, ticket);
+
+        if (!queue.offer(ticket)) {
+            ticketCache.invalidate(ticket.token);
+            if (idempotencyCacheKey != null) {
+                idempotencyKeyCache.asMap().remove(idempotencyCacheKey, ticket);
+            }
+            throw new IllegalStateException("주문이 많아 접수하지 못했습니다. 잠시 후 다시 시도해 주세요.");
+        }
+        return OrderIntakeResultDto.pending(ticket.token);
+    }
+
+    // 회원이 보낸 Idempotency-Key 로 이미 접수된 주문이 있으면 그 주문의 현재 처리 결과를, 없으면 null 을 반환합니다.
+    // 같은 키로 처음과 다른 내용의 주문을 요청했다면 IdempotencyKeyReusedException 이 발생합니다.
+    public OrderIntakeResultDto findResult(Long memberId, String idempotencyKey, String requestHash) {
+        OrderIntakeTicket ticket = idempotencyKeyCache.getIfPresent(idempotencyCacheKey(memberId, idempotencyKey));
+        if (ticket == null) {
+            return null;
+        }
+        if (!ticket.requestHash.equals(requestHash)) {
+            throw new IdempotencyKeyReusedException();
+        }
+        return ticket.currentResult();
+    }
+
+    // 접수한 주문의 현재 처리 결과를 반환합니다.
+    // 다른 회원이 접수한 주문이거나 보관 기간이 지난 경우에는 null 을 반환합니다.
+    public OrderIntakeResultDto getResult(String token, Long memberId) {
+        CompletableFuture<OrderIntakeResultDto> future = getResultFuture(token, memberId);
+        if (future == null) {
+            return null;
+        }
+        return future.getNow(OrderIntakeResultDto.pending(token));
+    }
+
+    private static String idempotencyCacheKey(Long memberId, String idempotencyKey) {
+        return memberId + "\n" + idempotencyKey;
+    }
+
+    // 접수한 주문의 처리가 끝나면 완료되는 CompletableFuture 를 반환합니다.
+    public CompletableFuture<OrderIntakeResultDto> getResultFuture(String token, Long memberId) {
+        OrderIntakeTicket ticket = ticketCache.getIfPresent(token);
+        if (ticket == null || !ticket.memberId.equals(memberId)) {
+            return null;
+        }
+        return ticket.future;
+    }
+
+    private void drainLoop() {
+        List<OrderIntakeTicket> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                OrderIntakeTicket first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // 첫 번째 주문을 꺼낸 뒤 batchWindow 동안 batchSize 개가 찰 때까지 주문을 더 모읍니다.
+                long deadline = System.nanoTime() + batchWindowNanos;
+                while (batch.size() < batchSize) {
+                    // 이미 쌓여 있는 주문은 기다리지 않고 한 번에 가져옵니다.
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remainingNanos = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remainingNanos <= 0) {
+                        break;
+                    }
+
+                    OrderIntakeTicket next = queue.poll(remainingNanos, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                processBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                for (OrderIntakeTicket ticket : batch) {
+                    ticket.complete(OrderIntakeResultDto.failed("서버가 종료되어 주문이 처리되지 않았습니다. 다시 주문해 주세요."));
+                }
+                return;
+            } catch (RuntimeException e) {
+                log.error("주문 대기열 처리 중 오류가 발생했습니다.", e);
+                for (OrderIntakeTicket ticket : batch) {
+                    ticket.complete(OrderIntakeResultDto.failed("주문 처리 중 오류가 발생했습니다."));
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void processBatch(List<OrderIntakeTicket> batch) {
+        List<OrderDto> orderDtoList = new ArrayList<>(batch.size());
+        List<Long> memberIdList = new ArrayList<>(batch.size());
+        for (OrderIntakeTicket ticket : batch) {
+            orderDtoList.add(ticket.orderDto);
+            memberIdList.add(ticket.memberId);
+        }
+
+        List<OrderIntakeResultDto> results;
+        try {
+            results = orderService.orderBatch(orderDtoList, memberIdList);
+        } catch (RuntimeException e) {
+            // 대기열을 거치지 않은 주문과 재고를 경합하여 일괄 처리가 롤백되었다면
+            // 주문을 하나씩 다시 처리하여 처리할 수 있는 주문은 완료시킵니다.
+            log.warn("주문 {}건의 일괄 처리에 실패하여 하나씩 다시 처리합니다. ({})", batch.size(), e.getMessage());
+            for (OrderIntakeTicket ticket : batch) {
+                try {
+                    ticket.complete(OrderIntakeResultDto.completed(orderService.order(ticket.orderDto, ticket.memberId)));
+                } catch (RuntimeException orderException) {
+                    ticket.complete(OrderIntakeResultDto.failed(orderException.getMessage() != null ? orderException.getMessage()
+                                                                                    : "주문 처리 중 오류가 발생했습니다."));
+                }
+            }
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).complete(results.get(i));
+        }
+        log.debug("주문 {}건을 한 번에 처리했습니다.", batch.size());
+    }
+
+    // 대기열에 들어간 주문과 처리 결과를 함께 보관합니다.
+    private class OrderIntakeTicket {
+        private final String token;
+        private final OrderDto orderDto;
+        private final Long memberId;
+        private final String idempotencyCacheKey;
+        private final String requestHash;
+        private final CompletableFuture<OrderIntakeResultDto> future = new CompletableFuture<>();
+
+        private OrderIntakeTicket(String token, OrderDto orderDto, Long memberId, String idempotencyCacheKey, String requestHash) {
+            this.token = token;
+            this.orderDto = orderDto;
+            this.memberId = memberId;
+            this.idempotencyCacheKey = idempotencyCacheKey;
+            this.requestHash = requestHash;
+        }
+
+        private OrderIntakeResultDto currentResult() {
+            return future.getNow(OrderIntakeResultDto.pending(token));
+        }
+
+        private void complete(OrderIntakeResultDto result) {
+            result.setToken(token);
+
+            // 주문에 실패하면 결과를 알리기 전에 키를 지워서 같은 키로 다시 주문할 수 있게 합니다.
+            if (idempotencyCacheKey != null && result.getStatus() == OrderIntakeStatus.FAILED) {
+                idempotencyKeyCache.asMap().remove(idempotencyCacheKey, this);
+            }
+            future.complete(result);
+        }
+    }
+}
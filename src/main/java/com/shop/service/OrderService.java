@@ -1,24 +1,33 @@
 package com.shop.service;
 
+import com.shop.config.CacheConfig;
 import com.shop.dto.OrderDto;
 import com.shop.dto.OrderHistDto;
+import com.shop.dto.OrderIntakeResultDto;
 import com.shop.dto.OrderItemDto;
 import com.shop.entity.*;
+import com.shop.exception.OutOfStockException;
 import com.shop.repository.ItemImgRepository;
 import com.shop.repository.ItemRepository;
 import com.shop.repository.MemberRepository;
 import com.shop.repository.OrderRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.thymeleaf.util.StringUtils;
 
 import javax.persistence.EntityNotFoundException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 @Service
 @Transactional
@@ -30,17 +39,25 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final ItemImgRepository imgRepository;
     private final ItemImgRepository itemImgRepository;
+    private final CacheManager cacheManager;
+    private final ItemAdmissionService itemAdmissionService;
+    private final ItemStockService itemStockService;
 
-    public Long order(OrderDto orderDto, String email) {
+    public Long order(OrderDto orderDto, Long memberId) {
 
         // 주문할 상품을 조회합니다.
         Item item = itemRepository.findById(orderDto.getItemId()).orElseThrow(EntityNotFoundException::new);
 
-        // 현재 로그인한 회원의 이메일 정보를 이용해서 회원 정보를 조회합니다.
-        Member member = memberRepository.findByEmail(email);
+        // 현재 로그인한 회원은 조회하지 않고 아이디만 가진 프록시로 주문에 연결합니다.
+        Member member = memberRepository.getReferenceById(memberId);
 
         List<OrderItem> orderItemList = new ArrayList<>();
 
+        // 주문 수량만큼 상품의 재고를 감소시킵니다.
+        // 재고가 부족하면 OutOfStockException 이 발생합니다.
+        itemStockService.removeStock(item, orderDto.getCount());
+        evictItemDtlCache(item.getId());
+
         // 주문할 상품 엔티티와 주문 수량을 이용하여 주문 상품 엔티티를 생성합니다.
         OrderItem orderItem = OrderItem.createOrderItem(item, orderDto.getCount());
         orderItemList.add(orderItem);
@@ -55,16 +72,44 @@ public class OrderService {
     }
 
     @Transactional(readOnly = true)
-    public Page<OrderHistDto> getOrderList(String email, Pageable pageable) {
+    public Page<OrderHistDto> getOrderList(Long memberId, Pageable pageable) {
 
         // 유저의 아이디와 페이징 조건을 이용하여 주문 목록을 조회합니다.
-        List<Order> orders = orderRepository.findOrders(email, pageable);
+        List<Order> orders = orderRepository.findOrders(memberId, pageable);
 
         // 유저의 주문 총 개수를 구합니다.
-        Long totalCount = orderRepository.countOrders(email);
+        Long totalCount = orderRepository.countOrders(memberId);
 
         List<OrderHistDto> orderHistDtos = new ArrayList<>();
 
+        // 조회된 주문이 없으면 추가 조회 없이 빈 페이지를 반환합니다.
+        if (orders.isEmpty()) {
+            return new PageImpl<OrderHistDto>(orderHistDtos, pageable, totalCount);
+        }
+
+        List<Long> orderIds = new ArrayList<>();
+        for (Order order : orders) {
+            orderIds.add(order.getId());
+        }
+
+        // 주문 상품과 상품 정보를 한 번의 쿼리로 가지고 옵니다.
+        // 이미 영속성 컨텍스트에 있는 주문 엔티티의 orderItems 가 함께 초기화됩니다.
+        orderRepository.findOrdersWithOrderItems(orderIds);
+
+        // 주문한 상품들의 대표 이미지를 한 번에 조회한 뒤 상품 아이디를 키로 하는 Map 에 담아둡니다.
+        // 주문 상품마다 대표 이미지를 따로 조회하지 않으므로 페이지 크기와 관계없이 쿼리 수가 일정합니다.
+        Set<Long> itemIds = new HashSet<>();
+        for (Order order : orders) {
+            for (OrderItem orderItem : order.getOrderItems()) {
+                itemIds.add(orderItem.getItem().getId());
+            }
+        }
+
+        Map<Long, String> repImgUrlMap = new HashMap<>();
+        for (ItemImg itemImg : itemImgRepository.findByItemIdInAndRepimgYn(itemIds, "Y")) {
+            repImgUrlMap.put(itemImg.getItem().getId(), itemImg.getImgUrl());
+        }
+
         // 주문 리스트를 순회하면서 구매 이력 페이지에 전달할 DTO 를 생성합니다.
         for (Order order : orders) {
 
@@ -72,11 +117,7 @@ public class OrderService {
             List<OrderItem> orderItems = order.getOrderItems();
 
             for (OrderItem orderItem : orderItems) {
-
-                // 주문한 상품의 대표 이미지를 조회합니다.
-                ItemImg itemImg = itemImgRepository.findByItemIdAndRepimgYn(orderItem.getItem().getId(), "Y");
-
-                OrderItemDto orderItemDto = new OrderItemDto(orderItem, itemImg.getImgUrl());
+                OrderItemDto orderItemDto = new OrderItemDto(orderItem, repImgUrlMap.get(orderItem.getItem().getId()));
                 orderHistDto.addOrderItemDto(orderItemDto);
             }
 
@@ -90,33 +131,89 @@ public class OrderService {
     // 현재 로그인한 사용자와 주문 데이터를 생성한 사용자가 같은지 검사를 합니다.
     // 같을 때는 true 를 반환하고 같지 않을 경우는 false 를 반환합니다.
     @Transactional(readOnly = true)
-    public boolean validateOrder(Long orderId, String email) {
-        Member curMember = memberRepository.findByEmail(email);
-        Order order = orderRepository.findById(orderId).orElseThrow(EntityNotFoundException::new);
-        Member savedMember = order.getMember();
-
-        if (!StringUtils.equals(curMember.getEmail(), savedMember.getEmail())) {
-            return false;
-        }
-        return true;
+    // 회원과 주문을 따로 조회하지 않고 주문의 회원 아이디를 쿼리 한 번으로 확인합니다.
+    public boolean validateOrder(Long orderId, Long memberId) {
+        return orderRepository.existsByIdAndMemberId(orderId, memberId);
     }
 
     // 주문 취소 상태로 변경하면 변경 감지 기능에 의해서 트랜잭션이 끝날 때 update 쿼리가 실행됩니다.
     public void cancelOrder(Long orderId) {
         Order order = orderRepository.findById(orderId).orElseThrow(EntityNotFoundException::new);
         order.cancelOrder();
+
+        // 주문 취소 시 주문 수량만큼 상품의 재고를 다시 더해줍니다.
+        Set<Long> itemIds = new HashSet<>();
+        for (OrderItem orderItem : order.getOrderItems()) {
+            itemStockService.addStock(orderItem.getItem(), orderItem.getCount());
+            evictItemDtlCache(orderItem.getItem().getId());
+            itemIds.add(orderItem.getItem().getId());
+        }
+
+        // 다시 판매할 수 있게 된 수량을 주문 입장 제어에 반영하도록 커밋 후 남은 수량을 다시 읽어오게 합니다.
+        itemAdmissionService.invalidate(itemIds);
     }
 
-    public Long orders(List<OrderDto> orderDtoList, String email) {
+    public Long orders(List<OrderDto> orderDtoList, Long memberId) {
+        return orders(orderDtoList, memberId, Collections.emptyMap());
+    }
 
-        Member member = memberRepository.findByEmail(email);
-        List<OrderItem> orderItemList = new ArrayList<>();
+    // 장바구니에 담을 때 미리 확보해 둔 재고가 있는 주문입니다.
+    // reservedCountMap 에는 상품 아이디별로 이미 재고에서 감소시켜 둔 수량이 담겨 있으며,
+    // 이 수량은 재고를 다시 확인하거나 감소시키지 않고 주문 수량에서 제외합니다.
+    public Long orders(List<OrderDto> orderDtoList, Long memberId, Map<Long, Integer> reservedCountMap) {
 
-        // 주문할 상품 리스트를 만들어 줍니다.
+        Member member = memberRepository.getReferenceById(memberId);
+
+        // 상품 아이디별 주문 수량을 합산합니다.
+        // TreeMap 을 사용하여 상품 아이디 오름차순으로 재고를 처리하도록 합니다.
+        Map<Long, Integer> itemCountMap = new TreeMap<>();
         for (OrderDto orderDto : orderDtoList) {
-            Item item = itemRepository.findById(orderDto.getItemId()).orElseThrow(EntityNotFoundException::new);
+            itemCountMap.merge(orderDto.getItemId(), orderDto.getCount(), Integer::sum);
+        }
 
-            OrderItem orderItem = OrderItem.createOrderItem(item, orderDto.getCount());
+        // 주문할 상품들을 상품마다 조회하지 않고 한 번의 쿼리로 조회합니다.
+        Map<Long, Item> itemMap = new HashMap<>();
+        for (Item item : itemRepository.findAllById(itemCountMap.keySet())) {
+            itemMap.put(item.getId(), item);
+        }
+
+        // 재고를 변경하기 전에 모든 주문 상품을 먼저 검증합니다.
+        // 존재하지 않는 상품이나 재고가 부족한 상품이 있으면 아무것도 변경하지 않고 예외를 발생시킵니다.
+        if (itemMap.size() != itemCountMap.size()) {
+            throw new EntityNotFoundException();
+        }
+
+        // 미리 확보해 둔 수량을 제외하고 재고에서 더 감소시켜야 하는 수량만 남깁니다.
+        Map<Long, Integer> removeCountMap = new TreeMap<>();
+        for (Map.Entry<Long, Integer> entry : itemCountMap.entrySet()) {
+            int removeCount = entry.getValue() - reservedCountMap.getOrDefault(entry.getKey(), 0);
+            if (removeCount > 0) {
+                removeCountMap.put(entry.getKey(), removeCount);
+            }
+        }
+
+        Map<Long, Integer> stockNumberMap = itemStockService.getStockNumbers(itemMap.values());
+        for (Map.Entry<Long, Integer> entry : removeCountMap.entrySet()) {
+            int stockNumber = stockNumberMap.get(entry.getKey());
+            if (stockNumber < entry.getValue()) {
+                throw new OutOfStockException("상품의 재고가 부족 합니다. (현재 재고 수량: " + stockNumber + ")");
+            }
+        }
+
+        // 재고 분할 모드가 아닌 상품들의 재고는 update 쿼리 한 번으로 감소시킵니다.
+        // 검증 이후에 다른 주문이 재고를 가져갔다면 여기서 OutOfStockException 이 발생합니다.
+        itemStockService.removeStocks(removeCountMap, itemMap);
+        for (Long itemId : itemCountMap.keySet()) {
+            evictItemDtlCache(itemId);
+        }
+
+        // 장바구니 주문은 주문 입장 제어를 거치지 않고 재고를 감소시키므로 커밋 후 남은 수량을 다시 읽어오게 합니다.
+        itemAdmissionService.invalidate(itemCountMap.keySet());
+
+        // 주문할 상품 리스트를 만들어 줍니다.
+        List<OrderItem> orderItemList = new ArrayList<>();
+        for (OrderDto orderDto : orderDtoList) {
+            OrderItem orderItem = OrderItem.createOrderItem(itemMap.get(orderDto.getItemId()), orderDto.getCount());
             orderItemList.add(orderItem);
         }
 
@@ -129,4 +226,82 @@ public class OrderService {
         return order.getId();
     }
 
+    // 주문 접수 대기열(OrderIntakeService)에 모인 여러 회원의 주문을 하나의 트랜잭션으로 처리합니다.
+    // 재고는 접수된 순서대로 메모리에서 먼저 배분하고, 배분한 수량을 상품별로 합산하여 update 쿼리 한 번으로 감소시킵니다.
+    // 존재하지 않는 상품이나 재고가 부족한 주문은 실패 결과를 담고, 나머지 주문은 그대로 저장합니다.
+    // 배분 이후에 다른 트랜잭션이 재고를 가져갔다면 OutOfStockException 이 발생하고 전체 주문이 롤백됩니다.
+    // 반환하는 결과의 순서는 orderDtoList 의 순서와 같습니다.
+    public List<OrderIntakeResultDto> orderBatch(List<OrderDto> orderDtoList, List<Long> memberIdList) {
+
+        Set<Long> itemIds = new HashSet<>();
+        for (OrderDto orderDto : orderDtoList) {
+            itemIds.add(orderDto.getItemId());
+        }
+
+        // 주문할 상품과 회원을 주문마다 조회하지 않고 한 번의 쿼리로 조회합니다.
+        Map<Long, Item> itemMap = new HashMap<>();
+        for (Item item : itemRepository.findAllById(itemIds)) {
+            itemMap.put(item.getId(), item);
+        }
+
+        Map<Long, Member> memberMap = new HashMap<>();
+        for (Member member : memberRepository.findAllById(new HashSet<>(memberIdList))) {
+            memberMap.put(member.getId(), member);
+        }
+
+        Map<Long, Integer> remainingStockMap = itemStockService.getStockNumbers(itemMap.values());
+
+        // TreeMap 을 사용하여 상품 아이디 오름차순으로 재고를 처리하도록 합니다.
+        Map<Long, Integer> itemCountMap = new TreeMap<>();
+        List<OrderIntakeResultDto> results = new ArrayList<>(orderDtoList.size());
+        Order[] orders = new Order[orderDtoList.size()];
+
+        for (int i = 0; i < orderDtoList.size(); i++) {
+            OrderDto orderDto = orderDtoList.get(i);
+            Item item = itemMap.get(orderDto.getItemId());
+            Member member = memberMap.get(memberIdList.get(i));
+
+            if (item == null || member == null) {
+                results.add(OrderIntakeResultDto.failed("존재하지 않는 상품 또는 회원입니다."));
+                continue;
+            }
+
+            int remainingStock = remainingStockMap.get(item.getId());
+            if (remainingStock < orderDto.getCount()) {
+                results.add(OrderIntakeResultDto.failed("상품의 재고가 부족 합니다. (현재 재고 수량: " + remainingStock + ")"));
+                continue;
+            }
+
+            remainingStockMap.put(item.getId(), remainingStock - orderDto.getCount());
+            itemCountMap.merge(item.getId(), orderDto.getCount(), Integer::sum);
+
+            List<OrderItem> orderItemList = new ArrayList<>();
+            orderItemList.add(OrderItem.createOrderItem(item, orderDto.getCount()));
+            orders[i] = Order.createOrder(member, orderItemList);
+            results.add(null);
+        }
+
+        // 배분된 재고를 상품별로 합산하여 update 쿼리 한 번으로 감소시킵니다.
+        itemStockService.removeStocks(itemCountMap, itemMap);
+        for (Long itemId : itemCountMap.keySet()) {
+            evictItemDtlCache(itemId);
+        }
+
+        // 주문 아이디는 저장할 때 데이터베이스를 거치지 않고 만들어지므로 insert 쿼리는 batch 로 묶여서 실행됩니다.
+        for (int i = 0; i < orders.length; i++) {
+            if (orders[i] != null) {
+                orderRepository.save(orders[i]);
+                results.set(i, OrderIntakeResultDto.completed(orders[i].getId()));
+            }
+        }
+
+        return results;
+    }
+
+    // 재고가 변경된 상품의 상세 정보를 캐시에서 삭제합니다.
+    // 트랜잭션을 사용하는 캐시이므로 주문 트랜잭션이 커밋된 후에 삭제됩니다.
+    private void evictItemDtlCache(Long itemId) {
+        cacheManager.getCache(CacheConfig.ITEM_DTL).evict(itemId);
+    }
+
 }
@@ -0,0 +1,89 @@
+package com.shop.service;
+
+import java.util.Arrays;
+
+// 만료 시각이 정해진 아이디들을 모아두었다가, 만료 시각이 지난 아이디들을 한 번에 꺼내주는 해시 타이밍 휠(hashed timing wheel)입니다.
+//
+// 시간을 tickMillis 간격의 칸(slot)으로 나누고, 아이디는 만료 시각이 속한 칸의 long 배열에 추가합니다.
+// 아이디마다 타이머나 객체를 만들지 않으므로 예약이 100만 개여도 아이디 하나당 8 바이트만 사용하며,
+// 추가는 배열 끝에 값을 넣는 것으로 끝나고, 만료 처리는 지나간 칸의 배열을 통째로 꺼내는 것으로 끝납니다.
+//
+// 휠 한 바퀴의 길이(wheelSize * tickMillis)보다 먼 만료 시각은 마지막 칸에 넣으므로 실제보다 일찍 꺼내질 수 있습니다.
+// 중간에 취소되거나 연장된 아이디도 휠에서 지우지 않으므로, 꺼낸 아이디가 정말 만료되었는지는 사용하는 쪽에서 확인해야 합니다.
+class ReservationTimingWheel {
+
+    private static final long[] EMPTY = new long[0];
+    private static final int INITIAL_SLOT_CAPACITY = 16;
+
+    private final long tickMillis;
+    private final long[][] slots;
+    private final int[] slotSizes;
+
+    // 마지막으로 꺼낸 칸의 tick 번호입니다. (시각 / tickMillis)
+    private long currentTick;
+    private int size;
+
+    ReservationTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("tickMillis 와 wheelSize 는 0 보다 커야 합니다.");
+        }
+        this.tickMillis = tickMillis;
+        this.slots = new long[wheelSize][];
+        this.slotSizes = new int[wheelSize];
+        Arrays.fill(slots, EMPTY);
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    // 만료 시각이 deadlineMillis 인 아이디를 추가합니다.
+    // 이미 지난 만료 시각이면 다음 칸에 넣어서 다음 advance 때 꺼내지도록 합니다.
+    synchronized void add(long id, long deadlineMillis) {
+        long tick = (deadlineMillis + tickMillis - 1) / tickMillis;
+        tick = Math.max(tick, currentTick + 1);
+        tick = Math.min(tick, currentTick + slots.length);
+
+        int index = (int) (tick % slots.length);
+        long[] slot = slots[index];
+        int slotSize = slotSizes[index];
+        if (slotSize == slot.length) {
+            slot = Arrays.copyOf(slot, Math.max(INITIAL_SLOT_CAPACITY, slot.length * 2));
+            slots[index] = slot;
+        }
+        slot[slotSize] = id;
+        slotSizes[index] = slotSize + 1;
+        size++;
+    }
+
+    // nowMillis 까지 지나간 칸의 아이디를 모두 꺼내서 반환합니다.
+    // 꺼낸 칸의 배열은 버리고 빈 배열로 바꾸므로, 만료된 예약이 차지하던 메모리는 바로 반환됩니다.
+    synchronized long[] advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        if (targetTick <= currentTick) {
+            return EMPTY;
+        }
+
+        // 휠 한 바퀴보다 오래 멈춰 있었다면 모든 칸을 한 번씩만 꺼내면 됩니다.
+        long lastTick = Math.min(targetTick, currentTick + slots.length);
+        int expiredSize = 0;
+        for (long tick = currentTick + 1; tick <= lastTick; tick++) {
+            expiredSize += slotSizes[(int) (tick % slots.length)];
+        }
+
+        long[] expired = new long[expiredSize];
+        int offset = 0;
+        for (long tick = currentTick + 1; tick <= lastTick; tick++) {
+            int index = (int) (tick % slots.length);
+            System.arraycopy(slots[index], 0, expired, offset, slotSizes[index]);
+            offset += slotSizes[index];
+            slots[index] = EMPTY;
+            slotSizes[index] = 0;
+        }
+
+        currentTick = targetTick;
+        size -= expiredSize;
+        return expired;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+}
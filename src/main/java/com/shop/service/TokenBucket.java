@@ -0,0 +1,38 @@
+package com.shop.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// 요청 속도를 제한하는 토큰 버킷을 GCRA(Generic Cell Rate Algorithm) 방식으로 구현합니다.
+// 다음 요청이 허용되는 이론적인 시각(theoretical arrival time)을 AtomicLong 하나로 관리하며,
+// 이 시각이 현재보다 (burst - 1) 개의 요청 간격보다 더 앞서 있으면 버킷이 빈 것입니다.
+class TokenBucket {
+
+    private final long permitIntervalNanos;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrivalTime = new AtomicLong(System.nanoTime());
+
+    TokenBucket(long permitIntervalNanos, long burst) {
+        this.permitIntervalNanos = permitIntervalNanos;
+        this.burstNanos = permitIntervalNanos * Math.max(0, burst - 1);
+    }
+
+    boolean tryTake() {
+        while (true) {
+            long now = System.nanoTime();
+            long tat = theoreticalArrivalTime.get();
+            long base = Math.max(tat, now);
+            if (base - now > burstNanos) {
+                return false;
+            }
+            if (theoreticalArrivalTime.compareAndSet(tat, base + permitIntervalNanos)) {
+                return true;
+            }
+        }
+    }
+
+    // 토큰을 꺼내지 않고 버킷에 토큰이 남아 있는지만 확인합니다.
+    boolean hasToken() {
+        long now = System.nanoTime();
+        return Math.max(theoreticalArrivalTime.get(), now) - now <= burstNanos;
+    }
+}
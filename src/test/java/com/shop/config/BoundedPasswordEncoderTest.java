@@ -0,0 +1,91 @@
+package com.shop.config;
+
+import com.shop.exception.PasswordHashRejectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedPasswordEncoderTest {
+
+    @Test
+    @DisplayName("비밀번호 해시 및 cost 변경 확인 테스트")
+    void encodeAndUpgrade() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        BoundedPasswordEncoder passwordEncoder = new BoundedPasswordEncoder(5, 1, 10, 5000, meterRegistry);
+
+        String encodedPassword = passwordEncoder.encode("1234");
+        assertTrue(encodedPassword.startsWith("$2a$05$"));
+        assertTrue(passwordEncoder.matches("1234", encodedPassword));
+        assertFalse(passwordEncoder.matches("12345", encodedPassword));
+
+        // 설정한 cost 와 다른 cost 로 해시된 비밀번호만 다시 해시합니다.
+        assertFalse(passwordEncoder.upgradeEncoding(encodedPassword));
+        assertTrue(passwordEncoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("1234")));
+        assertTrue(passwordEncoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("1234")));
+        assertFalse(passwordEncoder.upgradeEncoding("plain-text"));
+
+        // 해시 계산 시간은 작업 종류별로 기록됩니다.
+        assertEquals(1, meterRegistry.get("password.hash").tag("operation", "encode").timer().count());
+        assertEquals(2, meterRegistry.get("password.hash").tag("operation", "matches").timer().count());
+        assertEquals(3, meterRegistry.get("password.hash.wait").timer().count());
+        passwordEncoder.destroy();
+    }
+
+    @Test
+    @DisplayName("비밀번호 해시 대기열이 가득 찼을 때 거절 테스트")
+    void rejectWhenQueueIsFull() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        // 스레드 1개와 대기열 1칸으로 동시에 2개까지만 처리할 수 있는 encoder 입니다.
+        BoundedPasswordEncoder passwordEncoder = new BoundedPasswordEncoder(12, 1, 1, 10000, meterRegistry);
+        String encodedPassword = new BCryptPasswordEncoder(12).encode("1234");
+
+        int requestCount = 8;
+        ExecutorService executorService = Executors.newFixedThreadPool(requestCount);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        AtomicInteger rejectedCount = new AtomicInteger();
+        List<Future<Boolean>> futures = new ArrayList<>();
+
+        for (int i = 0; i < requestCount; i++) {
+            futures.add(executorService.submit(() -> {
+                startLatch.await();
+                try {
+                    return passwordEncoder.matches("1234", encodedPassword);
+                } catch (PasswordHashRejectedException e) {
+                    rejectedCount.incrementAndGet();
+                    return null;
+                }
+            }));
+        }
+        startLatch.countDown();
+
+        int matchedCount = 0;
+        for (Future<Boolean> future : futures) {
+            if (Boolean.TRUE.equals(future.get(60, TimeUnit.SECONDS))) {
+                matchedCount++;
+            }
+        }
+        executorService.shutdown();
+
+        // 실행 중인 1개와 대기열의 1개를 넘는 요청은 해시를 계산하지 않고 거절됩니다.
+        assertTrue(rejectedCount.get() > 0);
+        assertTrue(matchedCount >= 2);
+        assertEquals(requestCount, matchedCount + rejectedCount.get());
+        assertEquals(rejectedCount.get(), (int) meterRegistry.get("password.hash.rejected").counter().count());
+        passwordEncoder.destroy();
+    }
+}
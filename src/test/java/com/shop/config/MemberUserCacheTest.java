@@ -0,0 +1,101 @@
+package com.shop.config;
+
+import com.shop.dto.MemberFormDto;
+import com.shop.entity.Member;
+import com.shop.repository.MemberRepository;
+import com.shop.service.MemberService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(locations="classpath:application-test.properties")
+// 회원 정보가 커밋된 후에 캐시에서 삭제되는지 확인하므로 테스트 트랜잭션을 사용하지 않습니다.
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MemberUserCacheTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    PasswordEncoder passwordEncoder;
+
+    @Autowired
+    UserCache userCache;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    double cacheHitCount() {
+        return meterRegistry.get("cache.gets").tag("cache", CacheConfig.USER_DETAILS).tag("result", "hit")
+                            .functionCounter().count();
+    }
+
+    void login(String email, String password, boolean expectAuthenticated) throws Exception {
+        mockMvc.perform(formLogin().userParameter("email")
+                        .loginProcessingUrl("/members/login")
+                        .user(email).password(password))
+                .andExpect(expectAuthenticated ? SecurityMockMvcResultMatchers.authenticated()
+                                               : SecurityMockMvcResultMatchers.unauthenticated());
+    }
+
+    @Test
+    @DisplayName("로그인 회원 정보 캐시 및 비밀번호 변경 시 삭제 테스트")
+    void cacheAndEvictOnPasswordChange() throws Exception {
+        String email = "user-cache@email.com";
+        MemberFormDto memberFormDto = new MemberFormDto();
+        memberFormDto.setEmail(email);
+        memberFormDto.setName("홍길동");
+        memberFormDto.setAddress("서울시 마포구 합정동");
+        memberFormDto.setPassword("1234");
+        Member member = memberService.saveMember(Member.createMember(memberFormDto, passwordEncoder));
+
+        // 처음 로그인할 때 데이터베이스에서 조회한 회원 정보가 캐시에 저장됩니다.
+        login(email, "1234", true);
+        UserDetails cachedUser = userCache.getUserFromCache(email);
+        assertNotNull(cachedUser);
+        assertEquals(member.getId(), ((MemberUserDetails) cachedUser).getMemberId());
+
+        // 인증이 끝난 뒤 비밀번호가 지워져도 캐시의 회원 정보에는 비밀번호가 남아 있어 다음 로그인에 사용됩니다.
+        double hitCount = cacheHitCount();
+        login(email, "1234", true);
+        assertTrue(cacheHitCount() > hitCount);
+
+        // 비밀번호가 변경되어 커밋되면 캐시에서 삭제되고, 새 비밀번호로만 로그인할 수 있습니다.
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                memberRepository.findByEmail(email).setPassword(passwordEncoder.encode("5678")));
+        assertNull(userCache.getUserFromCache(email));
+
+        login(email, "1234", false);
+        login(email, "5678", true);
+    }
+}
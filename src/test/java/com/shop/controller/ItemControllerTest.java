@@ -1,16 +1,36 @@
 package com.shop.controller;
 
+import com.shop.constant.ItemSellStatus;
+import com.shop.dto.OrderDto;
+import com.shop.entity.Item;
+import com.shop.entity.ItemImg;
+import com.shop.entity.Member;
+import com.shop.repository.ItemImgRepository;
+import com.shop.repository.ItemNmSuggestIndex;
+import com.shop.repository.ItemRepository;
+import com.shop.repository.MemberRepository;
+import com.shop.service.OrderService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpSession;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -49,4 +69,224 @@ class ItemControllerTest {
                 // 테스트가 성공적으로 통과합니다.
                 .andExpect(status().isForbidden());
     }
-}
\ No newline at end of file
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    @Autowired
+    ItemImgRepository itemImgRepository;
+
+    @Test
+    @DisplayName("상품 상세 페이지 조건부 요청 테스트")
+    public void itemDtlNotModifiedTest() throws Exception {
+        Item item = new Item();
+        item.setItemNm("조건부 요청 테스트 상품");
+        item.setPrice(10000);
+        item.setItemDetail("조건부 요청 테스트 상품 상세 설명");
+        item.setItemSellStatus(ItemSellStatus.SELL);
+        item.setStockNumber(100);
+        itemRepository.save(item);
+
+        ItemImg itemImg = new ItemImg();
+        itemImg.setItem(item);
+        itemImg.setRepimgYn("Y");
+        itemImg.updateItemImg("image.jpg", "image.jpg", "/images/item/image.jpg");
+        itemImgRepository.save(itemImg);
+
+        // 처음 요청하면 상세 페이지와 함께 ETag 값을 응답합니다.
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/item/" + item.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn();
+
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+
+        // 로그인하지 않은 사용자의 ETag 는 csrf 토큰과 상관없으므로, 쿠키(세션) 없이 다시 요청해도 304 응답을 받습니다.
+        mockMvc.perform(MockMvcRequestBuilders.get("/item/" + item.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        // 상품이 변경되면 ETag 값이 달라지므로 다시 상세 페이지를 응답합니다.
+        item.setPrice(20000);
+        itemRepository.save(item);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/item/" + item.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("로그인한 회원의 상품 상세 페이지 조건부 요청 테스트")
+    @WithMockUser(username = "user", roles = "USER")
+    public void itemDtlNotModifiedWithLoginTest() throws Exception {
+        Item item = new Item();
+        item.setItemNm("로그인 조건부 요청 테스트 상품");
+        item.setPrice(10000);
+        item.setItemDetail("로그인 조건부 요청 테스트 상품 상세 설명");
+        item.setItemSellStatus(ItemSellStatus.SELL);
+        item.setStockNumber(100);
+        itemRepository.save(item);
+
+        ItemImg itemImg = new ItemImg();
+        itemImg.setItem(item);
+        itemImg.setRepimgYn("Y");
+        itemImg.updateItemImg("image.jpg", "image.jpg", "/images/item/image.jpg");
+        itemImgRepository.save(itemImg);
+
+        // 로그인한 회원의 ETag 에는 세션 아이디가 포함되므로 같은 세션으로 요청해야 ETag 값이 유지됩니다.
+        MockHttpSession session = new MockHttpSession();
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/item/" + item.getId()).session(session))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn();
+
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/item/" + item.getId()).session(session)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        // 세션이 바뀌면 csrf 토큰도 바뀌므로 캐시한 페이지를 사용하지 않고 다시 상세 페이지를 응답합니다.
+        mockMvc.perform(MockMvcRequestBuilders.get("/item/" + item.getId()).session(new MockHttpSession())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Autowired
+    ItemNmSuggestIndex itemNmSuggestIndex;
+
+    @Test
+    @DisplayName("상품명 자동완성 API 테스트")
+    public void itemSuggestTest() throws Exception {
+        List<Long> itemIds = new ArrayList<>();
+        for (String itemNm : new String[]{"자동완성 원피스", "자동완성 원목 책상", "자동완성 청바지"}) {
+            Item item = new Item();
+            item.setItemNm(itemNm);
+            item.setPrice(10000);
+            item.setItemDetail(itemNm + " 상세 설명");
+            item.setItemSellStatus(ItemSellStatus.SELL);
+            item.setStockNumber(100);
+            itemRepository.save(item);
+            itemIds.add(item.getId());
+        }
+        itemNmSuggestIndex.rebuild();
+
+        // 상품명의 중간 단어로 시작하는 검색어도 찾고, 주문 수량이 같으면 최신 상품부터 보여줍니다.
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items/suggest").param("q", "원"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(itemIds.get(1)))
+                .andExpect(jsonPath("$[1].id").value(itemIds.get(0)));
+
+        // 초성으로도 찾을 수 있고, limit 개수만큼만 응답합니다.
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items/suggest").param("q", "ㅈㄷㅇㅅ").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].itemNm").value("자동완성 청바지"));
+    }
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    OrderService orderService;
+
+    @Test
+    @DisplayName("상품명 자동완성 블록 구간 및 인기 점수 갱신 테스트")
+    public void itemSuggestRankingTest() throws Exception {
+        // 검색어로 시작하는 키가 여러 블록에 걸치도록 상품을 등록합니다.
+        List<Long> itemIds = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            Item item = new Item();
+            item.setItemNm(String.format("블록인기 상품 %03d", i));
+            item.setPrice(10000);
+            item.setItemDetail("블록인기 상품 상세 설명");
+            item.setItemSellStatus(ItemSellStatus.SELL);
+            item.setStockNumber(100);
+            itemRepository.save(item);
+            itemIds.add(item.getId());
+        }
+        itemNmSuggestIndex.rebuild();
+
+        // 주문 수량이 모두 같으므로 최신 상품부터 보여줍니다.
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items/suggest").param("q", "블록인기").param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(itemIds.get(149)))
+                .andExpect(jsonPath("$[1].id").value(itemIds.get(148)))
+                .andExpect(jsonPath("$[2].id").value(itemIds.get(147)));
+
+        // 주문이 들어온 뒤 인기 점수를 다시 읽으면 주문된 상품이 맨 앞에 나옵니다.
+        Member member = new Member();
+        member.setEmail("suggest-ranking@test.com");
+        memberRepository.save(member);
+
+        OrderDto orderDto = new OrderDto();
+        orderDto.setItemId(itemIds.get(10));
+        orderDto.setCount(2);
+        orderService.order(orderDto, member.getId());
+        itemNmSuggestIndex.refreshScores();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items/suggest").param("q", "블록인기").param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(itemIds.get(10)))
+                .andExpect(jsonPath("$[1].id").value(itemIds.get(149)))
+                .andExpect(jsonPath("$[2].id").value(itemIds.get(148)));
+    }
+
+    @Test
+    @DisplayName("상품명 자동완성 요청 속도 제한 테스트")
+    public void itemSuggestThrottleTest() throws Exception {
+        // 같은 접속 IP 에서 허용된 요청 수를 넘도록 계속 요청하면 429 로 응답합니다.
+        int lastStatus = 0;
+        for (int i = 0; i < 1000 && lastStatus != 429; i++) {
+            lastStatus = mockMvc.perform(MockMvcRequestBuilders.get("/api/items/suggest").param("q", "속도")
+                            .with(request -> {
+                                request.setRemoteAddr("10.0.0.10");
+                                return request;
+                            }))
+                    .andReturn().getResponse().getStatus();
+        }
+        assertEquals(429, lastStatus);
+
+        // 다른 접속 IP 의 요청은 거절되지 않습니다.
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items/suggest").param("q", "속도")
+                        .with(request -> {
+                            request.setRemoteAddr("10.0.0.11");
+                            return request;
+                        }))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("상품 목록 CSV 내보내기 테스트")
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void itemExportTest() throws Exception {
+        for (String itemNm : new String[]{"내보내기 상품", "내보내기 상품, \"특가\"", "=내보내기 상품"}) {
+            Item item = new Item();
+            item.setItemNm(itemNm);
+            item.setPrice(10000);
+            item.setItemDetail(itemNm + " 상세 설명");
+            item.setItemSellStatus(ItemSellStatus.SELL);
+            item.setStockNumber(100);
+            itemRepository.save(item);
+        }
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/admin/items/export")
+                        .param("searchBy", "itemNm")
+                        .param("searchQuery", "내보내기 상품"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "text/csv;charset=UTF-8"))
+                .andReturn();
+
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+
+        // 헤더 1줄과 검색된 상품 3줄이 최신 상품 순서로 출력되어야 합니다.
+        assertEquals(4, lines.length);
+        assertTrue(lines[0].endsWith("상품 아이디,상품명,가격,재고수량,판매상태,등록자,등록일"));
+
+        // 수식으로 시작하는 값과 쉼표, 큰따옴표가 들어 있는 값은 CSV 형식에 맞게 변환되어야 합니다.
+        assertTrue(lines[1].contains(",'=내보내기 상품,10000,100,SELL,"));
+        assertTrue(lines[2].contains(",\"내보내기 상품, \"\"특가\"\"\",10000,100,SELL,"));
+    }
+}
@@ -2,6 +2,7 @@ package com.shop.controller;
 
 import com.shop.dto.MemberFormDto;
 import com.shop.entity.Member;
+import com.shop.repository.MemberRepository;
 import com.shop.service.MemberService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -9,12 +10,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.transaction.annotation.Transactional;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -35,6 +42,9 @@ class MemberControllerTest {
     @Autowired
     PasswordEncoder passwordEncoder;
 
+    @Autowired
+    MemberRepository memberRepository;
+
     // 로그인 예제 진행을 위해서 로그인 전 회원을 등록하는 메소드를 만들어줍니다.
     public Member createMember(String email, String password) {
         MemberFormDto memberFormDto = new MemberFormDto();
@@ -46,6 +56,18 @@ class MemberControllerTest {
         return memberService.saveMember(member);
     }
 
+    // 접속 IP 를 지정하여 로그인을 요청합니다.
+    private MockHttpServletRequestBuilder loginFrom(String ip, String email, String password) {
+        return post("/members/login")
+                .param("email", email)
+                .param("password", password)
+                .with(csrf())
+                .with(request -> {
+                    request.setRemoteAddr(ip);
+                    return request;
+                });
+    }
+
     @Test
     @DisplayName("로그인 성공 테스트")
     public void loginSuccessTest() throws Exception{
@@ -78,4 +100,78 @@ class MemberControllerTest {
                 .andExpect(SecurityMockMvcResultMatchers.unauthenticated());
     }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("BCrypt cost 변경 후 로그인 시 비밀번호 재해시 테스트")
+    public void rehashPasswordOnLoginTest() throws Exception {
+        String email = "rehash@email.com";
+        String password = "1234";
+        Member member = this.createMember(email, password);
+
+        // 예전 cost(4)로 해시된 비밀번호가 저장되어 있는 회원입니다.
+        member.setPassword(new BCryptPasswordEncoder(4).encode(password));
+        memberRepository.flush();
+
+        mockMvc.perform(formLogin().userParameter("email")
+                        .loginProcessingUrl("/members/login")
+                        .user(email).password(password))
+                .andExpect(SecurityMockMvcResultMatchers.authenticated());
+
+        // 로그인에 성공하면 현재 설정한 cost(10)로 다시 해시한 비밀번호가 저장됩니다.
+        String rehashedPassword = memberRepository.findByEmail(email).getPassword();
+        assertTrue(rehashedPassword.startsWith("$2a$10$"));
+        assertTrue(passwordEncoder.matches(password, rehashedPassword));
+    }
+
+    @Test
+    @DisplayName("같은 이메일로 로그인 실패가 몰릴 때 입장 제어 테스트")
+    public void loginThrottledTest() throws Exception {
+        String email = "throttle@email.com";
+        this.createMember(email, "1234");
+
+        // 접속 IP 하나에서 이메일 하나로 한 번에 허용되는 로그인 실패 수(loginIpEmailFailureBurst=5)까지는 비밀번호를 확인합니다.
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(formLogin().userParameter("email")
+                            .loginProcessingUrl("/members/login")
+                            .user(email).password("12345"))
+                    .andExpect(redirectedUrl("/members/login/error"));
+        }
+
+        // 그 이후의 요청은 비밀번호를 확인하지 않고 안내 페이지로 이동합니다.
+        mockMvc.perform(formLogin().userParameter("email")
+                        .loginProcessingUrl("/members/login")
+                        .user(email).password("1234"))
+                .andExpect(SecurityMockMvcResultMatchers.unauthenticated())
+                .andExpect(redirectedUrl("/members/login/throttled"));
+    }
+
+    @Test
+    @DisplayName("다른 IP 의 로그인 실패로 회원의 로그인이 막히지 않는지 테스트")
+    public void loginNotThrottledByOtherIpTest() throws Exception {
+        String email = "lockout@email.com";
+        String password = "1234";
+        this.createMember(email, password);
+
+        // 성공한 로그인은 실패 횟수로 세지 않습니다.
+        for (int i = 0; i < 6; i++) {
+            mockMvc.perform(formLogin().userParameter("email")
+                            .loginProcessingUrl("/members/login")
+                            .user(email).password(password))
+                    .andExpect(SecurityMockMvcResultMatchers.authenticated());
+        }
+
+        // 다른 IP 에서 회원의 이메일로 로그인 실패가 몰려서 그 IP 는 막히더라도,
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(loginFrom("10.0.0.20", email, "12345"))
+                    .andExpect(redirectedUrl("/members/login/error"));
+        }
+        mockMvc.perform(loginFrom("10.0.0.20", email, password))
+                .andExpect(redirectedUrl("/members/login/throttled"));
+
+        // 회원은 자신의 IP 에서 계속 로그인할 수 있습니다.
+        mockMvc.perform(formLogin().userParameter("email")
+                        .loginProcessingUrl("/members/login")
+                        .user(email).password(password))
+                .andExpect(SecurityMockMvcResultMatchers.authenticated());
+    }
+
+}
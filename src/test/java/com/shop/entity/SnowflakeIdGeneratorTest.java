@@ -0,0 +1,82 @@
+package com.shop.entity;
+
+import org.hibernate.MappingException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SnowflakeIdGeneratorTest {
+
+    @Test
+    @DisplayName("Snowflake 아이디 구성 테스트")
+    public void idLayout() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(37);
+
+        long before = System.currentTimeMillis() - SnowflakeIdGenerator.EPOCH;
+        long id = generator.nextId();
+        long after = System.currentTimeMillis() - SnowflakeIdGenerator.EPOCH;
+
+        // 아이디에서 타임스탬프와 노드 아이디를 다시 꺼낼 수 있어야 합니다.
+        long timestamp = id >>> (SnowflakeIdGenerator.NODE_ID_BITS + SnowflakeIdGenerator.SEQUENCE_BITS);
+        long nodeId = (id >>> SnowflakeIdGenerator.SEQUENCE_BITS) & SnowflakeIdGenerator.MAX_NODE_ID;
+
+        assertTrue(timestamp >= before && timestamp <= after);
+        assertEquals(37, nodeId);
+        assertTrue(id > 0);
+
+        assertThrows(MappingException.class, () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1));
+    }
+
+    @Test
+    @DisplayName("Snowflake 아이디 동시 생성 테스트")
+    public void nextIdConcurrently() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+        int threadCount = 8;
+        int idCountPerThread = 20000;
+
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        List<Future<long[]>> futures = new ArrayList<>();
+        try {
+            Callable<long[]> task = () -> {
+                long[] ids = new long[idCountPerThread];
+                for (int i = 0; i < idCountPerThread; i++) {
+                    ids[i] = generator.nextId();
+                }
+                return ids;
+            };
+            for (int i = 0; i < threadCount; i++) {
+                futures.add(executorService.submit(task));
+            }
+
+            Set<Long> idSet = new HashSet<>();
+            for (Future<long[]> future : futures) {
+                long[] ids = future.get();
+
+                // 한 스레드에서 차례대로 만든 아이디는 항상 커져야 합니다.
+                for (int i = 1; i < ids.length; i++) {
+                    assertTrue(ids[i] > ids[i - 1]);
+                }
+                for (long id : ids) {
+                    idSet.add(id);
+                }
+            }
+
+            // 여러 스레드가 동시에 만들어도 중복된 아이디가 없어야 합니다.
+            assertEquals(threadCount * idCountPerThread, idSet.size());
+        } finally {
+            executorService.shutdown();
+        }
+    }
+}
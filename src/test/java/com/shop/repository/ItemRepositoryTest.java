@@ -4,7 +4,10 @@ import com.querydsl.core.BooleanBuilder;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import com.shop.constant.ItemSellStatus;
+import com.shop.dto.ItemSearchDto;
+import com.shop.dto.MainItemDto;
 import com.shop.entity.Item;
+import com.shop.entity.ItemImg;
 import com.shop.entity.QItem;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -14,13 +17,21 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import org.thymeleaf.util.StringUtils;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 @SpringBootTest
 // 통합 테스트를 위해 스프링 부트에서 제공하는 어노테이션입니다.
 // 실제 애플리케이션을 구동할 때처럼 모든 Bean 을 IoC 컨테이너에 등록합니다.
@@ -247,4 +258,306 @@ class ItemRepositoryTest {
         }
     }
 
-}
\ No newline at end of file
+    @Autowired
+    ItemImgRepository itemImgRepository;
+
+    // 대표 이미지 없이 상품을 저장합니다. 메인 페이지에는 보이지 않아야 하는 상품입니다.
+    public Item createItemWithoutImg(String itemNm) {
+        Item item = new Item();
+        item.setItemNm(itemNm);
+        item.setPrice(10000);
+        item.setItemDetail(itemNm + " 상세 설명");
+        item.setItemSellStatus(ItemSellStatus.SELL);
+        item.setStockNumber(100);
+        return itemRepository.save(item);
+    }
+
+    // 메인 페이지 조회 테스트를 위해 대표 이미지를 가진 상품 10개를 저장하고,
+    // 저장된 상품 아이디를 등록 순서대로 반환합니다.
+    public List<Long> createMainItemList(String itemNm) {
+        List<Long> itemIds = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            Item item = new Item();
+            item.setItemNm(itemNm + i);
+            item.setPrice(10000 + i);
+            item.setItemDetail(itemNm + " 상세 설명" + i);
+            item.setItemSellStatus(ItemSellStatus.SELL);
+            item.setStockNumber(100);
+            itemRepository.save(item);
+
+            ItemImg itemImg = new ItemImg();
+            itemImg.setItem(item);
+            itemImg.setRepimgYn("Y");
+            itemImg.updateItemImg("image" + i + ".jpg", "image" + i + ".jpg", "/images/item/image" + i + ".jpg");
+            itemImgRepository.save(itemImg);
+
+            itemIds.add(item.getId());
+        }
+        return itemIds;
+    }
+
+    @Test
+    @Transactional
+    @DisplayName("메인 페이지 커서 조회 테스트")
+    public void getMainItemPageByCursorTest() {
+        List<Long> itemIds = this.createMainItemList("커서 테스트 상품");
+
+        ItemSearchDto itemSearchDto = new ItemSearchDto();
+        itemSearchDto.setSearchQuery("커서 테스트 상품");
+
+        // 첫 페이지는 커서 없이 조회합니다.
+        Pageable pageable = PageRequest.of(0, 4);
+        List<MainItemDto> firstPage = itemRepository.getMainItemPage(itemSearchDto, pageable).getContent();
+        assertEquals(4, firstPage.size());
+
+        // 첫 페이지의 마지막 상품 아이디를 커서로 넘겨서 다음 상품들을 조회합니다.
+        itemSearchDto.setCursorId(firstPage.get(firstPage.size() - 1).getId());
+        List<MainItemDto> secondPage = itemRepository.getMainItemPage(itemSearchDto, pageable).getContent();
+
+        // 커서 방식으로 조회한 결과는 offset 방식으로 두 번째 페이지를 조회한 결과와 같아야 합니다.
+        itemSearchDto.setCursorId(null);
+        List<MainItemDto> offsetPage = itemRepository.getMainItemPage(itemSearchDto, PageRequest.of(1, 4)).getContent();
+
+        assertEquals(offsetPage.size(), secondPage.size());
+        for (int i = 0; i < secondPage.size(); i++) {
+            assertEquals(offsetPage.get(i).getId(), secondPage.get(i).getId());
+        }
+
+        // 아이디 내림차순이므로 두 번째 페이지의 첫 상품은 뒤에서 다섯 번째로 저장한 상품입니다.
+        assertEquals(itemIds.get(itemIds.size() - 5), secondPage.get(0).getId());
+    }
+
+    @Test
+    @Transactional
+    @DisplayName("메인 페이지 상품 개수 조회 테스트")
+    public void getMainItemPageCountTest() {
+        this.createMainItemList("개수 테스트 상품");
+
+        // 대표 이미지가 없는 상품은 메인 페이지에 보이지 않으므로 개수에도 포함되지 않아야 합니다.
+        Item noImgItem = new Item();
+        noImgItem.setItemNm("개수 테스트 상품 이미지 없음");
+        noImgItem.setPrice(10000);
+        noImgItem.setItemDetail("개수 테스트 상품 상세 설명");
+        noImgItem.setItemSellStatus(ItemSellStatus.SELL);
+        noImgItem.setStockNumber(100);
+        itemRepository.save(noImgItem);
+
+        ItemSearchDto itemSearchDto = new ItemSearchDto();
+        itemSearchDto.setSearchQuery("개수 테스트 상품");
+
+        // 전체 개수는 상품 조회 쿼리와 같은 조건으로 계산되어야 합니다.
+        Page<MainItemDto> page = itemRepository.getMainItemPage(itemSearchDto, PageRequest.of(0, 4));
+        assertEquals(10, page.getTotalElements());
+        assertEquals(3, page.getTotalPages());
+
+        // 커서 방식에서는 전체 개수 없이 다음 페이지 여부만 알려줍니다.
+        itemSearchDto.setCursorId(page.getContent().get(page.getContent().size() - 1).getId());
+        Page<MainItemDto> secondPage = itemRepository.getMainItemPage(itemSearchDto, PageRequest.of(0, 4));
+        assertEquals(4, secondPage.getContent().size());
+        assertTrue(secondPage.hasNext());
+
+        itemSearchDto.setCursorId(secondPage.getContent().get(secondPage.getContent().size() - 1).getId());
+        Page<MainItemDto> lastPage = itemRepository.getMainItemPage(itemSearchDto, PageRequest.of(0, 4));
+        assertEquals(2, lastPage.getContent().size());
+        assertFalse(lastPage.hasNext());
+    }
+
+    @Autowired
+    ItemSearchIndex itemSearchIndex;
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    // 검색 색인은 트랜잭션이 커밋된 데이터로 만들어지므로 테스트 트랜잭션 없이 실행합니다.
+    @DisplayName("검색 색인을 이용한 메인 페이지 조회 테스트")
+    public void getMainItemPageFromIndexTest() {
+        List<Long> itemIds = this.createMainItemList("색인 검색 상품");
+        itemIds.add(this.createItemWithoutImg("색인 검색 상품 이미지 없음").getId());
+
+        try {
+            itemSearchIndex.rebuild();
+
+            ItemSearchDto likeSearchDto = new ItemSearchDto();
+            likeSearchDto.setSearchQuery("색인 검색 상품");
+            likeSearchDto.setSearchMode(ItemSearchIndex.SEARCH_MODE_LIKE);
+
+            ItemSearchDto indexSearchDto = new ItemSearchDto();
+            indexSearchDto.setSearchQuery("색인 검색 상품");
+            indexSearchDto.setSearchMode(ItemSearchIndex.SEARCH_MODE_INDEX);
+
+            // 색인으로 조회한 결과는 LIKE 조건으로 조회한 결과와 같아야 합니다.
+            Page<MainItemDto> likePage = itemRepository.getMainItemPage(likeSearchDto, PageRequest.of(1, 4));
+            Page<MainItemDto> indexPage = itemRepository.getMainItemPage(indexSearchDto, PageRequest.of(1, 4));
+            assertEquals(likePage.getContent(), indexPage.getContent());
+
+            // 대표 이미지가 없는 상품은 전체 개수에서도 제외되어야 페이지 수가 맞습니다.
+            assertEquals(likePage.getTotalElements(), indexPage.getTotalElements());
+            assertEquals(10, indexPage.getTotalElements());
+            Page<MainItemDto> lastIndexPage = itemRepository.getMainItemPage(indexSearchDto, PageRequest.of(2, 4));
+            assertEquals(2, lastIndexPage.getContent().size());
+            assertEquals(3, lastIndexPage.getTotalPages());
+
+            // 검색어 중간에 공백이 있거나 검색어가 상품명의 일부분이어도 찾을 수 있어야 합니다.
+            indexSearchDto.setSearchQuery("검색 상품1");
+            assertEquals(2, itemRepository.getMainItemPage(indexSearchDto, PageRequest.of(0, 4)).getTotalElements());
+
+            // 커서 방식도 색인에서 커서보다 작은 상품 아이디만 조회합니다.
+            indexSearchDto.setSearchQuery("색인 검색 상품");
+            indexSearchDto.setCursorId(itemIds.get(2));
+            Page<MainItemDto> cursorPage = itemRepository.getMainItemPage(indexSearchDto, PageRequest.of(0, 4));
+            assertEquals(2, cursorPage.getContent().size());
+            assertEquals(itemIds.get(1), cursorPage.getContent().get(0).getId());
+            assertFalse(cursorPage.hasNext());
+            indexSearchDto.setCursorId(null);
+
+            // 상품명이 변경되면 색인도 변경되어 새 상품명으로만 검색되어야 합니다.
+            Item item = itemRepository.findById(itemIds.get(2)).orElseThrow();
+            item.setItemNm("색인 변경 상품");
+            itemRepository.save(item);
+            itemSearchIndex.index(item);
+
+            indexSearchDto.setSearchQuery("색인 변경");
+            List<MainItemDto> changed = itemRepository.getMainItemPage(indexSearchDto, PageRequest.of(0, 4)).getContent();
+            assertEquals(1, changed.size());
+            assertEquals(itemIds.get(2), changed.get(0).getId());
+
+            indexSearchDto.setSearchQuery("색인 검색 상품");
+            assertEquals(9, itemRepository.getMainItemPage(indexSearchDto, PageRequest.of(0, 4)).getTotalElements());
+        } finally {
+            for (Long itemId : itemIds) {
+                itemImgRepository.deleteAll(itemImgRepository.findByItemIdOrderByIdAsc(itemId));
+            }
+            itemRepository.deleteAllById(itemIds);
+            itemSearchIndex.rebuild();
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("검색 색인을 이용한 상품 상세 설명 조회 테스트")
+    public void findByItemDetailFromIndexTest() {
+        List<Long> itemIds = this.createMainItemList("상세 색인 상품");
+        itemIds.add(this.createItemWithoutImg("상세 색인 상품 이미지 없음").getId());
+
+        try {
+            itemSearchIndex.rebuild();
+
+            // 색인으로 조회한 결과는 LIKE 조건으로 조회한 결과와 같아야 합니다.
+            List<Item> indexItems = itemRepository.findByItemDetail("상세 색인 상품");
+            List<Item> likeItems = itemRepository.findByItemDetailByNative("상세 색인 상품");
+            assertEquals(11, indexItems.size());
+            assertEquals(likeItems.size(), indexItems.size());
+            for (int i = 0; i < likeItems.size(); i++) {
+                assertEquals(likeItems.get(i).getId(), indexItems.get(i).getId());
+            }
+
+            // 관리자 상품 페이지에서도 상품 상세 설명으로 색인을 이용해 검색할 수 있습니다.
+            ItemSearchDto likeSearchDto = new ItemSearchDto();
+            likeSearchDto.setSearchBy("itemDetail");
+            likeSearchDto.setSearchQuery("상품 상세 설명1");
+            likeSearchDto.setSearchMode(ItemSearchIndex.SEARCH_MODE_LIKE);
+
+            ItemSearchDto indexSearchDto = new ItemSearchDto();
+            indexSearchDto.setSearchBy("itemDetail");
+            indexSearchDto.setSearchQuery("상품 상세 설명1");
+            indexSearchDto.setSearchMode(ItemSearchIndex.SEARCH_MODE_INDEX);
+
+            Page<Item> likePage = itemRepository.getAdminItemPage(likeSearchDto, PageRequest.of(0, 5));
+            Page<Item> indexPage = itemRepository.getAdminItemPage(indexSearchDto, PageRequest.of(0, 5));
+            assertEquals(likePage.getTotalElements(), indexPage.getTotalElements());
+            assertEquals(likePage.getContent(), indexPage.getContent());
+            assertTrue(indexPage.getContent().stream().anyMatch(item -> item.getId().equals(itemIds.get(0))));
+            assertTrue(indexPage.getContent().stream().anyMatch(item -> item.getId().equals(itemIds.get(9))));
+        } finally {
+            for (Long itemId : itemIds) {
+                itemImgRepository.deleteAll(itemImgRepository.findByItemIdOrderByIdAsc(itemId));
+            }
+            itemRepository.deleteAllById(itemIds);
+            itemSearchIndex.rebuild();
+        }
+    }
+
+    @Autowired
+    ItemNmJamoIndex itemNmJamoIndex;
+
+    private List<Long> searchMainItemIds(String searchQuery) {
+        ItemSearchDto itemSearchDto = new ItemSearchDto();
+        itemSearchDto.setSearchQuery(searchQuery);
+        Page<MainItemDto> page = itemRepository.getMainItemPage(itemSearchDto, PageRequest.of(0, 20));
+
+        List<Long> itemIds = new ArrayList<>();
+        for (MainItemDto mainItemDto : page.getContent()) {
+            itemIds.add(mainItemDto.getId());
+        }
+        return itemIds;
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    // 자모 색인은 트랜잭션이 커밋된 뒤에 반영되므로 테스트 트랜잭션 없이 실행합니다.
+    @DisplayName("초성, 자모 검색어로 메인 페이지 조회 테스트")
+    public void getMainItemPageByJamoTest() {
+        List<Long> jeansIds = this.createMainItemList("청바지 슬림핏");
+        List<Long> chickenIds = this.createMainItemList("닭가슴살 도시락");
+        Item itemWithoutImg = this.createItemWithoutImg("청바지 슬림핏 이미지 없음");
+
+        try {
+            // 대표 이미지가 없는 상품은 메인 페이지에 보이지 않으므로 자모 색인에도 추가되지 않습니다.
+            itemNmJamoIndex.index(itemWithoutImg);
+            for (Item item : itemRepository.findAllById(jeansIds)) {
+                itemNmJamoIndex.index(item);
+            }
+            for (Item item : itemRepository.findAllById(chickenIds)) {
+                itemNmJamoIndex.index(item);
+            }
+
+            // 초성만 입력한 검색어
+            assertEquals(jeansIds, reverse(searchMainItemIds("ㅊㅂㅈ ㅅㄹㅍ")));
+            assertEquals(chickenIds, reverse(searchMainItemIds("ㄷㄱㅅㅅ")));
+
+            // 마지막 글자를 다 조합하지 않은 검색어
+            assertEquals(jeansIds, reverse(searchMainItemIds("청바ㅈ")));
+
+            // 다음 글자의 초성이 받침으로 붙어 있는 검색어 ("청바지" 를 입력하는 중인 "청밪")
+            assertEquals(jeansIds, reverse(searchMainItemIds("청밪")));
+
+            // 커서 방식으로 다음 페이지를 조회해도 같은 방식으로 찾습니다.
+            ItemSearchDto cursorSearchDto = new ItemSearchDto();
+            cursorSearchDto.setSearchQuery("청밪");
+            cursorSearchDto.setCursorId(jeansIds.get(5));
+            List<MainItemDto> cursorPage = itemRepository.getMainItemPage(cursorSearchDto, PageRequest.of(0, 20)).getContent();
+            assertEquals(5, cursorPage.size());
+            assertEquals(jeansIds.get(4), cursorPage.get(0).getId());
+
+            // 일반 검색으로 찾을 수 있는 완성된 검색어는 자모 색인으로 다시 찾지 않습니다.
+            assertEquals(jeansIds, reverse(searchMainItemIds("청바지")));
+
+            // 겹받침을 입력하는 중인 검색어 ("닭" 을 입력하는 중인 "달" + "ㄱ")
+            assertEquals(chickenIds, reverse(searchMainItemIds("달ㄱ")));
+
+            // 상품명이 변경되면 변경된 상품명의 초성으로만 조회되어야 합니다.
+            Item item = itemRepository.findById(jeansIds.get(0)).orElseThrow();
+            item.setItemNm("청자켓");
+            itemRepository.save(item);
+            itemNmJamoIndex.index(item);
+
+            assertEquals(9, searchMainItemIds("ㅊㅂㅈ ㅅㄹㅍ").size());
+            assertTrue(searchMainItemIds("ㅊㅈㅋ").contains(jeansIds.get(0)));
+        } finally {
+            List<Long> itemIds = new ArrayList<>(jeansIds);
+            itemIds.addAll(chickenIds);
+            itemIds.add(itemWithoutImg.getId());
+            for (Long itemId : itemIds) {
+                itemImgRepository.deleteAll(itemImgRepository.findByItemIdOrderByIdAsc(itemId));
+            }
+            itemRepository.deleteAllById(itemIds);
+            itemNmJamoIndex.rebuild();
+        }
+    }
+
+    private List<Long> reverse(List<Long> itemIds) {
+        List<Long> reversed = new ArrayList<>(itemIds);
+        Collections.reverse(reversed);
+        return reversed;
+    }
+
+}
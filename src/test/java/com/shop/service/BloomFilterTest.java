@@ -0,0 +1,39 @@
+package com.shop.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    @Test
+    @DisplayName("블룸 필터 false negative 및 false positive 비율 테스트")
+    void falsePositiveProbability() {
+        int insertions = 100000;
+        BloomFilter bloomFilter = new BloomFilter(insertions, 0.01);
+
+        for (int i = 0; i < insertions; i++) {
+            bloomFilter.put("member" + i + "@test.com");
+        }
+
+        // 추가한 키는 항상 있다고 나와야 합니다.
+        for (int i = 0; i < insertions; i++) {
+            assertTrue(bloomFilter.mightContain("member" + i + "@test.com"));
+        }
+
+        // 추가하지 않은 키가 있다고 나오는 비율은 목표 비율(1%) 근처여야 합니다.
+        int falsePositiveCount = 0;
+        for (int i = 0; i < insertions; i++) {
+            if (bloomFilter.mightContain("guest" + i + "@test.com")) {
+                falsePositiveCount++;
+            }
+        }
+        double falsePositiveRate = (double) falsePositiveCount / insertions;
+        System.out.println("false positive rate: " + falsePositiveRate
+                + ", expected: " + bloomFilter.expectedFalsePositiveProbability());
+
+        assertTrue(falsePositiveRate < 0.02);
+        assertTrue(bloomFilter.expectedFalsePositiveProbability() < 0.02);
+    }
+}
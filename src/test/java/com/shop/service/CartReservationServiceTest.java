@@ -0,0 +1,201 @@
+package com.shop.service;
+
+import com.shop.constant.ItemSellStatus;
+import com.shop.dto.CartItemDto;
+import com.shop.dto.CartOrderDto;
+import com.shop.entity.CartItem;
+import com.shop.entity.Item;
+import com.shop.entity.Member;
+import com.shop.exception.OutOfStockException;
+import com.shop.repository.CartItemRepository;
+import com.shop.repository.ItemRepository;
+import com.shop.repository.MemberRepository;
+import com.shop.repository.OrderRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityNotFoundException;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@TestPropertySource(locations="classpath:application-test.properties",
+                    properties = {"cartReservationEnabled=true", "cartReservationTtlSeconds=2", "cartReservationTickMillis=100",
+                                  // 설정이 달라서 별도의 애플리케이션 컨텍스트가 만들어지므로, 다른 테스트의 데이터베이스를 다시 생성하지 않도록 분리합니다.
+                                  "spring.datasource.url=jdbc:h2:mem:cart-reservation"})
+// 재고 확보 만료는 작업 스레드의 트랜잭션으로 처리되므로 테스트 트랜잭션을 사용하지 않습니다.
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CartReservationServiceTest {
+
+    @Autowired
+    CartService cartService;
+
+    @Autowired
+    CartReservationService cartReservationService;
+
+    @Autowired
+    ItemStockService itemStockService;
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    CartItemRepository cartItemRepository;
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    Item saveItem(int stockNumber) {
+        Item item = new Item();
+        item.setItemNm("재고 확보 테스트 상품");
+        item.setPrice(10000);
+        item.setItemDetail("재고 확보 테스트 상품 상세 설명");
+        item.setItemSellStatus(ItemSellStatus.SELL);
+        item.setStockNumber(stockNumber);
+        return itemRepository.save(item);
+    }
+
+    Member saveMember(String email) {
+        Member member = new Member();
+        member.setEmail(email);
+        return memberRepository.save(member);
+    }
+
+    Long addCart(Item item, Member member, int count) {
+        CartItemDto cartItemDto = new CartItemDto();
+        cartItemDto.setItemId(item.getId());
+        cartItemDto.setCount(count);
+        return cartService.addCart(cartItemDto, member.getId());
+    }
+
+    CartItem findCartItem(Long cartItemId) {
+        return cartItemRepository.findById(cartItemId).orElseThrow(EntityNotFoundException::new);
+    }
+
+    @Test
+    @DisplayName("장바구니 재고 확보 후 주문 테스트")
+    void reserveAndOrder() {
+        Item item = saveItem(5);
+        Member member = saveMember("reserve-order@test.com");
+
+        // 장바구니에 담으면 담은 수량만큼 재고가 감소합니다.
+        Long cartItemId = addCart(item, member, 3);
+        addCart(item, member, 2);
+        assertEquals(0, itemStockService.getStockNumber(item.getId()));
+        assertEquals(5, findCartItem(cartItemId).getReservedCount());
+
+        // 남은 재고보다 많이 담으려고 하면 장바구니에 담지 못합니다.
+        Member otherMember = saveMember("reserve-other@test.com");
+        assertThrows(OutOfStockException.class, () -> addCart(item, otherMember, 1));
+
+        // 재고는 0 이지만 확보해 둔 재고로 주문할 수 있습니다.
+        CartOrderDto cartOrderDto = new CartOrderDto();
+        cartOrderDto.setCartItemId(cartItemId);
+        Long orderId = cartService.orderCartItem(Collections.singletonList(cartOrderDto), member.getId());
+
+        assertNotNull(orderRepository.findById(orderId).orElse(null));
+        assertEquals(0, itemStockService.getStockNumber(item.getId()));
+        assertEquals(false, cartItemRepository.existsById(cartItemId));
+    }
+
+    @Test
+    @DisplayName("장바구니 재고 확보 만료 테스트")
+    void expireReservation() throws InterruptedException {
+        Item item = saveItem(10);
+        Member member = saveMember("reserve-expire@test.com");
+
+        Long cartItemId = addCart(item, member, 4);
+        assertEquals(6, itemStockService.getStockNumber(item.getId()));
+
+        // 확보 시간이 지나면 작업 스레드가 확보한 재고를 돌려놓습니다.
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (itemStockService.getStockNumber(item.getId()) != 10 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        assertEquals(10, itemStockService.getStockNumber(item.getId()));
+        assertEquals(0, findCartItem(cartItemId).getReservedCount());
+
+        // 확보한 재고가 만료된 뒤에 주문하면 재고를 다시 확인하고 감소시킵니다.
+        CartOrderDto cartOrderDto = new CartOrderDto();
+        cartOrderDto.setCartItemId(cartItemId);
+        cartService.orderCartItem(Collections.singletonList(cartOrderDto), member.getId());
+        assertEquals(6, itemStockService.getStockNumber(item.getId()));
+    }
+
+    @Test
+    @DisplayName("장바구니 상품 삭제 시 재고 반환 테스트")
+    void releaseOnDelete() {
+        Item item = saveItem(10);
+        Member member = saveMember("reserve-delete@test.com");
+
+        Long cartItemId = addCart(item, member, 7);
+        assertEquals(3, itemStockService.getStockNumber(item.getId()));
+
+        cartService.deleteCartItem(cartItemId);
+        assertEquals(10, itemStockService.getStockNumber(item.getId()));
+    }
+
+    @Test
+    @DisplayName("장바구니 재고 확보와 만료 처리 동시 실행 테스트")
+    void reserveWhileExpiring() throws InterruptedException {
+        Item item = saveItem(1000);
+        Member member = saveMember("reserve-concurrent@test.com");
+        Long cartItemId = addCart(item, member, 1);
+
+        int repeatCount = 50;
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+        CountDownLatch startLatch = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        // 한 스레드는 같은 상품을 계속 장바구니에 담아 재고를 확보하고,
+        // 다른 스레드는 같은 장바구니 상품의 재고 확보를 만료된 것으로 보고 계속 돌려놓습니다.
+        executor.submit(() -> {
+            try {
+                startLatch.await();
+                for (int i = 0; i < repeatCount; i++) {
+                    addCart(item, member, 1);
+                }
+            } catch (Throwable e) {
+                errors.add(e);
+            }
+        });
+        executor.submit(() -> {
+            try {
+                startLatch.await();
+                for (int i = 0; i < repeatCount; i++) {
+                    cartReservationService.releaseExpired(Collections.singletonList(cartItemId), LocalDateTime.now().plusHours(1));
+                }
+            } catch (Throwable e) {
+                errors.add(e);
+            }
+        });
+
+        startLatch.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        // 잠금 순서가 같으므로 교착 상태나 잠금 대기 시간 초과 없이 모두 처리되고,
+        // 남은 재고와 확보한 수량의 합은 처음 재고와 같습니다.
+        assertTrue(errors.isEmpty(), () -> errors.toString());
+        assertEquals(1000, itemStockService.getStockNumber(item.getId()) + findCartItem(cartItemId).getReservedCount());
+    }
+}
@@ -2,6 +2,7 @@ package com.shop.service;
 
 import com.shop.constant.ItemSellStatus;
 import com.shop.dto.CartItemDto;
+import com.shop.dto.CartOrderDto;
 import com.shop.entity.CartItem;
 import com.shop.entity.Item;
 import com.shop.entity.Member;
@@ -16,8 +17,13 @@ import org.springframework.test.context.TestPropertySource;
 
 import javax.persistence.EntityNotFoundException;
 import javax.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
 @Transactional
@@ -36,6 +42,9 @@ public class CartServiceTest {
     @Autowired
     CartItemRepository cartItemRepository;
 
+    @Autowired
+    ItemStockService itemStockService;
+
     // 장바구니에 담을 상품을 저장하는 메소드를 생성합니다.
     public Item saveItem() {
         Item item = new Item();
@@ -67,7 +76,7 @@ public class CartServiceTest {
         cartItemDto.setItemId(item.getId());
 
         // 상품을 장바구니에 담는 로직 호출 결과 생성된 장바구니 상품 아이디를 cartItemId 변수에 저장합니다.
-        Long cartItemId = cartService.addCart(cartItemDto, member.getEmail());
+        Long cartItemId = cartService.addCart(cartItemDto, member.getId());
 
         // 장바구니 상품 아이디를 이용하여 생성된 장바구니 상품 정보를 조회합니다.
         CartItem cartItem = cartItemRepository.findById(cartItemId).orElseThrow(EntityNotFoundException::new);
@@ -76,4 +85,52 @@ public class CartServiceTest {
         assertEquals(item.getId(), cartItem.getItem().getId());
         assertEquals(cartItemDto.getCount(), cartItem.getCount());
     }
+
+    @Test
+    @DisplayName("장바구니 상품 주문 권한 일괄 확인 및 주문 테스트")
+    public void validateAndOrderCartItems() {
+        Item item1 = saveItem();
+        Item item2 = saveItem();
+        Member member = saveMember();
+
+        Member otherMember = new Member();
+        otherMember.setEmail("other@test.com");
+        memberRepository.save(otherMember);
+
+        CartItemDto cartItemDto = new CartItemDto();
+        cartItemDto.setItemId(item1.getId());
+        cartItemDto.setCount(2);
+        Long cartItemId1 = cartService.addCart(cartItemDto, member.getId());
+
+        cartItemDto.setItemId(item2.getId());
+        cartItemDto.setCount(3);
+        Long cartItemId2 = cartService.addCart(cartItemDto, member.getId());
+
+        cartItemDto.setItemId(item1.getId());
+        cartItemDto.setCount(1);
+        Long otherCartItemId = cartService.addCart(cartItemDto, otherMember.getId());
+
+        // 자신의 장바구니 상품만 선택하면 주문할 수 있고, 다른 회원의 장바구니 상품이 섞여 있으면 주문할 수 없습니다.
+        assertTrue(cartService.validateCartItems(Arrays.asList(cartItemId1, cartItemId2), member.getId()));
+        assertTrue(cartService.validateCartItems(Arrays.asList(cartItemId1, cartItemId1), member.getId()));
+        assertFalse(cartService.validateCartItems(Arrays.asList(cartItemId1, otherCartItemId), member.getId()));
+        assertFalse(cartService.validateCartItems(Arrays.asList(cartItemId1, -1L), member.getId()));
+        assertTrue(cartService.validateCartItem(otherCartItemId, otherMember.getId()));
+        assertFalse(cartService.validateCartItem(otherCartItemId, member.getId()));
+
+        List<CartOrderDto> cartOrderDtoList = new ArrayList<>();
+        for (Long cartItemId : Arrays.asList(cartItemId1, cartItemId2)) {
+            CartOrderDto cartOrderDto = new CartOrderDto();
+            cartOrderDto.setCartItemId(cartItemId);
+            cartOrderDtoList.add(cartOrderDto);
+        }
+        cartService.orderCartItem(cartOrderDtoList, member.getId());
+
+        // 주문한 장바구니 상품만 삭제되고 재고가 감소합니다.
+        assertFalse(cartItemRepository.existsById(cartItemId1));
+        assertFalse(cartItemRepository.existsById(cartItemId2));
+        assertTrue(cartItemRepository.existsById(otherCartItemId));
+        assertEquals(98, itemStockService.getStockNumber(item1.getId()));
+        assertEquals(97, itemStockService.getStockNumber(item2.getId()));
+    }
 }
@@ -0,0 +1,62 @@
+package com.shop.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileServiceTest {
+
+    FileService fileService = new FileService();
+
+    @TempDir
+    Path uploadDir;
+
+    @Test
+    @DisplayName("파일 스트림 업로드 및 해시 계산 테스트")
+    void uploadFile() throws Exception {
+        // 버퍼 크기(64KB)의 배수가 아닌 크기의 파일을 업로드합니다.
+        byte[] fileData = new byte[3 * 1024 * 1024 + 123];
+        new SplittableRandom(42).nextBytes(fileData);
+
+        FileService.UploadedFile uploadedFile = fileService.uploadFile(uploadDir.toString(), "image.jpg",
+                                                                       new ByteArrayInputStream(fileData));
+
+        assertTrue(uploadedFile.getSavedFileName().endsWith(".jpg"));
+        assertEquals(fileData.length, uploadedFile.getSize());
+        assertArrayEquals(fileData, Files.readAllBytes(uploadDir.resolve(uploadedFile.getSavedFileName())));
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(fileData)), uploadedFile.getSha256());
+    }
+
+    @Test
+    @DisplayName("파일 업로드 중 오류 발생 시 저장하던 파일 삭제 테스트")
+    void uploadFileFailure() throws Exception {
+        InputStream brokenInputStream = new SequenceInputStream(new ByteArrayInputStream(new byte[100000]), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("업로드가 중단되었습니다.");
+            }
+        });
+
+        assertThrows(IOException.class, () -> fileService.uploadFile(uploadDir.toString(), "image.jpg", brokenInputStream));
+
+        try (Stream<Path> files = Files.list(uploadDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.shop.service;
+
+import com.shop.constant.ItemSellStatus;
+import com.shop.entity.Item;
+import com.shop.repository.ItemRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@TestPropertySource(locations="classpath:application-test.properties")
+class ItemAdmissionServiceTest {
+
+    @Autowired
+    ItemAdmissionService itemAdmissionService;
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    @Autowired
+    ItemStockService itemStockService;
+
+    Item saveItem(int stockNumber) {
+        Item item = new Item();
+        item.setItemNm("입장 제어 테스트 상품");
+        item.setPrice(10000);
+        item.setItemDetail("입장 제어 테스트 상품 상세 설명");
+        item.setItemSellStatus(ItemSellStatus.SELL);
+        item.setStockNumber(stockNumber);
+        return itemRepository.save(item);
+    }
+
+    @Test
+    @DisplayName("품절 상품 주문 거절 테스트")
+    void tryAcquireSoldOut() {
+        Item item = saveItem(5);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(ItemAdmissionService.Admission.ADMITTED, itemAdmissionService.tryAcquire(item.getId(), 1));
+        }
+
+        // 남은 수량을 모두 차감하면 데이터베이스를 조회하지 않고 거절합니다.
+        assertEquals(ItemAdmissionService.Admission.SOLD_OUT, itemAdmissionService.tryAcquire(item.getId(), 1));
+        assertEquals(ItemAdmissionService.Admission.SOLD_OUT, itemAdmissionService.check(item.getId(), 1));
+
+        // 주문에 실패하여 수량을 돌려주면 다시 주문할 수 있습니다.
+        itemAdmissionService.release(item.getId(), 1);
+        assertEquals(ItemAdmissionService.Admission.ADMITTED, itemAdmissionService.tryAcquire(item.getId(), 1));
+
+        // 데이터베이스의 재고가 변경되면 남은 수량을 다시 읽어옵니다.
+        item.setStockNumber(3);
+        itemRepository.save(item);
+        itemAdmissionService.invalidate(Collections.singletonList(item.getId()));
+        assertEquals(ItemAdmissionService.Admission.SOLD_OUT, itemAdmissionService.tryAcquire(item.getId(), 4));
+        assertEquals(ItemAdmissionService.Admission.ADMITTED, itemAdmissionService.tryAcquire(item.getId(), 3));
+
+        // 존재하지 않는 상품은 주문 로직에서 오류를 처리하도록 통과시킵니다.
+        assertEquals(ItemAdmissionService.Admission.ADMITTED, itemAdmissionService.tryAcquire(Long.MAX_VALUE, 1));
+    }
+
+    @Test
+    @DisplayName("상품별 요청 속도 제한 테스트")
+    void tryAcquireThrottled() {
+        Item item = saveItem(100);
+
+        // 초당 1개, 최대 2개까지 몰려도 허용하는 입장 제어를 만듭니다.
+        ItemAdmissionService throttledAdmissionService = new ItemAdmissionService(itemStockService, true, 1, 2, "maximumSize=100");
+
+        assertEquals(ItemAdmissionService.Admission.ADMITTED, throttledAdmissionService.tryAcquire(item.getId(), 1));
+        assertEquals(ItemAdmissionService.Admission.ADMITTED, throttledAdmissionService.tryAcquire(item.getId(), 1));
+        assertEquals(ItemAdmissionService.Admission.THROTTLED, throttledAdmissionService.tryAcquire(item.getId(), 1));
+        assertEquals(ItemAdmissionService.Admission.THROTTLED, throttledAdmissionService.check(item.getId(), 1));
+    }
+
+    @Test
+    @DisplayName("남은 수량 동시 차감 테스트")
+    void stripedCounterConcurrently() throws Exception {
+        ItemAdmissionService.StripedCounter counter = new ItemAdmissionService.StripedCounter(8, 10000);
+
+        int threadCount = 16;
+        AtomicInteger acquiredCount = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch doneLatch = new CountDownLatch(threadCount);
+
+        for (int i = 0; i < threadCount; i++) {
+            int count = (i % 3) + 1;
+            executorService.submit(() -> {
+                try {
+                    while (counter.tryAcquire(count)) {
+                        acquiredCount.addAndGet(count);
+                    }
+                } finally {
+                    doneLatch.countDown();
+                }
+            });
+        }
+
+        doneLatch.await(30, TimeUnit.SECONDS);
+        executorService.shutdown();
+
+        // 여러 스레드가 동시에 차감해도 전체 수량만큼만 정확히 차감되어야 합니다.
+        assertEquals(10000, acquiredCount.get());
+        assertEquals(0, counter.sum());
+    }
+}
@@ -0,0 +1,179 @@
+package com.shop.service;
+
+import com.shop.constant.ItemImportFormat;
+import com.shop.constant.ItemImportStatus;
+import com.shop.constant.ItemSellStatus;
+import com.shop.dto.ItemImportJobDto;
+import com.shop.dto.ItemImportResultDto;
+import com.shop.entity.Item;
+import com.shop.entity.ItemImg;
+import com.shop.repository.ItemImgRepository;
+import com.shop.repository.ItemRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+// 청크 단위 저장을 확인할 수 있도록 청크 크기를 작게 설정합니다.
+@TestPropertySource(locations="classpath:application-test.properties", properties = "itemImportChunkSize=2")
+// 청크마다 트랜잭션을 커밋하므로 테스트 트랜잭션을 사용하지 않고, 테스트가 끝나면 등록한 상품을 삭제합니다.
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ItemImportServiceTest {
+
+    @Autowired
+    ItemImportService itemImportService;
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    @Autowired
+    ItemImgRepository itemImgRepository;
+
+    void deleteImportedItems(String itemDetail) {
+        for (Item item : itemRepository.findByItemDetail(itemDetail)) {
+            itemImgRepository.deleteAll(itemImgRepository.findByItemIdOrderByIdAsc(item.getId()));
+            itemRepository.delete(item);
+        }
+    }
+
+    @Test
+    @DisplayName("CSV 상품 대량 등록 테스트")
+    void importItemsFromCsv() throws Exception {
+        String itemDetail = "CSV 대량 등록 테스트";
+        String csv = "itemNm,price,stockNumber,itemDetail,itemSellStatus,imgUrl\r\n"
+                + "CSV 상품1,1000,10," + itemDetail + " 상품1,SELL,/images/item/csv1.jpg\r\n"
+                + "\"CSV 상품2, 쉼표\",2000,20,\"" + itemDetail + " 상품2\n두 번째 줄 \"\"따옴표\"\"\",SOLD_OUT,\r\n"
+                + "CSV 상품3,가격,30," + itemDetail + " 상품3,SELL,\r\n"
+                + ",4000,40," + itemDetail + " 상품4,,\r\n"
+                + "CSV 상품5,5000,50," + itemDetail + " 상품5,,\r\n";
+
+        List<Long> progressImportedRows = new ArrayList<>();
+        try {
+            ItemImportResultDto result = itemImportService.importItems(new StringReader(csv), ItemImportFormat.CSV,
+                    progress -> progressImportedRows.add(progress.getImportedRows()));
+
+            assertEquals(5, result.getTotalRows());
+            assertEquals(3, result.getImportedRows());
+            assertEquals(2, result.getFailedRows());
+            assertEquals(2, result.getErrors().size());
+            assertTrue(result.getErrors().get(0).startsWith("5행: price"));
+            assertEquals("6행: 상품명은 필수 입력 값입니다.", result.getErrors().get(1));
+
+            // 청크 크기가 2이므로 두 번에 나누어 저장됩니다.
+            assertEquals(List.of(2L, 3L), progressImportedRows);
+
+            List<Item> items = itemRepository.findByItemDetail(itemDetail);
+            items.sort(Comparator.comparing(Item::getPrice));
+            assertEquals(3, items.size());
+            assertEquals("CSV 상품2, 쉼표", items.get(1).getItemNm());
+            assertEquals(itemDetail + " 상품2\n두 번째 줄 \"따옴표\"", items.get(1).getItemDetail());
+            assertEquals(ItemSellStatus.SOLD_OUT, items.get(1).getItemSellStatus());
+            assertEquals(ItemSellStatus.SELL, items.get(2).getItemSellStatus());
+
+            // 이미지 경로가 있는 상품만 대표 이미지가 등록됩니다.
+            ItemImg itemImg = itemImgRepository.findByItemIdAndRepimgYn(items.get(0).getId(), "Y");
+            assertNotNull(itemImg);
+            assertEquals("/images/item/csv1.jpg", itemImg.getImgUrl());
+            assertTrue(itemImgRepository.findByItemIdOrderByIdAsc(items.get(1).getId()).isEmpty());
+        } finally {
+            deleteImportedItems(itemDetail);
+        }
+    }
+
+    @Test
+    @DisplayName("JSON Lines 상품 대량 등록 테스트")
+    void importItemsFromJsonLines() throws Exception {
+        String itemDetail = "JSON 대량 등록 테스트";
+        String jsonLines = "{\"itemNm\":\"JSON 상품1\",\"price\":1000,\"stockNumber\":10,\"itemDetail\":\"" + itemDetail + "\",\"imgUrl\":\"/images/item/json1.jpg\"}\n"
+                + "\n"
+                + "{\"itemNm\":\"JSON 상품2\",\"price\":2000,\"stockNumber\":20,\"itemDetail\":\"" + itemDetail + "\",\"itemSellStatus\":\"SOLD_OUT\"}\n"
+                + "{\"itemNm\":\"JSON 상품3\",\"price\":3000\n"
+                + "{\"itemNm\":\"JSON 상품4\",\"price\":4000,\"itemDetail\":\"" + itemDetail + "\"}\n";
+
+        try {
+            ItemImportResultDto result = itemImportService.importItems(new StringReader(jsonLines), ItemImportFormat.JSON_LINES, null);
+
+            assertEquals(4, result.getTotalRows());
+            assertEquals(2, result.getImportedRows());
+            assertEquals(2, result.getFailedRows());
+            assertTrue(result.getErrors().get(0).startsWith("4행: JSON 형식"));
+            assertEquals("5행: 재고는 필수 입력 값입니다.", result.getErrors().get(1));
+
+            List<Item> items = itemRepository.findByItemDetail(itemDetail);
+            assertEquals(2, items.size());
+            assertEquals(ItemSellStatus.SOLD_OUT, items.get(0).getItemSellStatus());
+            assertEquals(ItemSellStatus.SELL, items.get(1).getItemSellStatus());
+            assertNotNull(itemImgRepository.findByItemIdAndRepimgYn(items.get(1).getId(), "Y"));
+        } finally {
+            deleteImportedItems(itemDetail);
+        }
+    }
+
+    @Autowired
+    ItemImportJobService itemImportJobService;
+
+    @Test
+    @DisplayName("백그라운드 상품 대량 등록 작업 테스트")
+    // 등록을 요청한 관리자가 작업 스레드에서 저장한 상품의 등록자로 기록되는지 확인합니다.
+    @WithMockUser(username = "import-admin@test.com", roles = "ADMIN")
+    void importItemsInBackground() throws Exception {
+        String itemDetail = "백그라운드 대량 등록 테스트";
+        String csv = "itemNm,price,stockNumber,itemDetail,itemSellStatus,imgUrl\n"
+                + "백그라운드 상품1,1000,10," + itemDetail + ",SELL,\n"
+                + "백그라운드 상품2,2000,20," + itemDetail + ",SELL,\n"
+                + "백그라운드 상품3,가격,30," + itemDetail + ",SELL,\n";
+        Path tempFile = Files.createTempFile("item-import-test-", ".csv");
+        Files.writeString(tempFile, csv, StandardCharsets.UTF_8);
+
+        try {
+            // 등록을 요청하면 기다리지 않고 RUNNING 상태의 작업을 바로 반환합니다.
+            ItemImportJobDto job = itemImportJobService.submit(tempFile, ItemImportFormat.CSV);
+            assertEquals(ItemImportStatus.RUNNING, job.getStatus());
+
+            // 작업 아이디로 진행 상황을 조회하다가 작업이 끝나면 최종 결과를 확인합니다.
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (itemImportJobService.getJob(job.getJobId()).getStatus() == ItemImportStatus.RUNNING
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+
+            ItemImportJobDto finished = itemImportJobService.getJob(job.getJobId());
+            assertEquals(ItemImportStatus.COMPLETED, finished.getStatus());
+            assertEquals(3, finished.getResult().getTotalRows());
+            assertEquals(2, finished.getResult().getImportedRows());
+            assertEquals(1, finished.getResult().getFailedRows());
+            List<Item> items = itemRepository.findByItemDetail(itemDetail);
+            assertEquals(2, items.size());
+            for (Item item : items) {
+                assertEquals("import-admin@test.com", item.getCreatedBy());
+                assertEquals("import-admin@test.com", item.getModifiedBy());
+            }
+
+            // 작업이 끝나면 임시 파일은 삭제되고, 없는 작업 아이디는 조회되지 않습니다.
+            assertFalse(Files.exists(tempFile));
+            assertNull(itemImportJobService.getJob("unknown-job"));
+        } finally {
+            Files.deleteIfExists(tempFile);
+            deleteImportedItems(itemDetail);
+        }
+    }
+}
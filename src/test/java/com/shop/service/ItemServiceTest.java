@@ -1,5 +1,7 @@
 package com.shop.service;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.shop.config.CacheConfig;
 import com.shop.constant.ItemSellStatus;
 import com.shop.dto.ItemFormDto;
 import com.shop.entity.Item;
@@ -10,9 +12,12 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -21,6 +26,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 @SpringBootTest
 @Transactional
@@ -81,4 +88,47 @@ public class ItemServiceTest {
         // 상품 이미지는 첫 번째 파일의 원본 이미지 파일 이름만 같은지 확인하겠습니다.
         assertEquals(multipartFileList.get(0).getOriginalFilename(), itemImgList.get(0).getOriImgName());
     }
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @Test
+    @DisplayName("상품 상세 캐시 테스트")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    // 캐시는 트랜잭션이 커밋된 후에 반영되므로 테스트 트랜잭션을 사용하지 않습니다.
+    void getItemDtlCache() throws Exception {
+        Item item = new Item();
+        item.setItemNm("캐시 테스트 상품");
+        item.setPrice(1000);
+        item.setItemDetail("캐시 테스트 상품 입니다.");
+        item.setItemSellStatus(ItemSellStatus.SELL);
+        item.setStockNumber(100);
+        itemRepository.save(item);
+
+        Cache itemDtlCache = cacheManager.getCache(CacheConfig.ITEM_DTL);
+        CacheStats beforeStats = ((com.github.benmanes.caffeine.cache.Cache<?, ?>) itemDtlCache.getNativeCache()).stats();
+
+        // 두 번째 조회는 캐시에 저장된 같은 객체를 반환해야 합니다.
+        ItemFormDto firstItemFormDto = itemService.getItemDtl(item.getId());
+        ItemFormDto secondItemFormDto = itemService.getItemDtl(item.getId());
+        assertSame(firstItemFormDto, secondItemFormDto);
+
+        CacheStats afterStats = ((com.github.benmanes.caffeine.cache.Cache<?, ?>) itemDtlCache.getNativeCache()).stats();
+        assertEquals(1, afterStats.missCount() - beforeStats.missCount());
+        assertEquals(1, afterStats.hitCount() - beforeStats.hitCount());
+
+        // 상품을 수정하면 캐시가 삭제되어 변경된 상품 정보를 다시 조회해야 합니다.
+        ItemFormDto itemFormDto = new ItemFormDto();
+        itemFormDto.setId(item.getId());
+        itemFormDto.setItemNm("수정된 캐시 테스트 상품");
+        itemFormDto.setItemSellStatus(ItemSellStatus.SELL);
+        itemFormDto.setItemDetail("캐시 테스트 상품 입니다.");
+        itemFormDto.setPrice(2000);
+        itemFormDto.setStockNumber(100);
+        itemService.updateItem(itemFormDto, new ArrayList<>());
+
+        ItemFormDto updatedItemFormDto = itemService.getItemDtl(item.getId());
+        assertNotSame(firstItemFormDto, updatedItemFormDto);
+        assertEquals("수정된 캐시 테스트 상품", updatedItemFormDto.getItemNm());
+    }
 }
@@ -0,0 +1,267 @@
+package com.shop.service;
+
+import com.shop.constant.ItemSellStatus;
+import com.shop.dto.ItemSearchDto;
+import com.shop.dto.OrderDto;
+import com.shop.entity.Item;
+import com.shop.entity.Member;
+import com.shop.exception.OutOfStockException;
+import com.shop.repository.ItemRepository;
+import com.shop.repository.ItemStockBucketRepository;
+import com.shop.repository.MemberRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Transactional
+@TestPropertySource(locations="classpath:application-test.properties")
+class ItemStockServiceTest {
+
+    @Autowired
+    ItemStockService itemStockService;
+
+    @Autowired
+    ItemService itemService;
+
+    @Autowired
+    OrderService orderService;
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    @Autowired
+    ItemStockBucketRepository itemStockBucketRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @PersistenceContext
+    EntityManager em;
+
+    Item saveItem(String itemNm, int stockNumber) {
+        Item item = new Item();
+        item.setItemNm(itemNm);
+        item.setPrice(10000);
+        item.setItemDetail("재고 분할 테스트 상품 상세 설명");
+        item.setItemSellStatus(ItemSellStatus.SELL);
+        item.setStockNumber(stockNumber);
+        return itemRepository.save(item);
+    }
+
+    Member saveMember(String email) {
+        Member member = new Member();
+        member.setEmail(email);
+        return memberRepository.save(member);
+    }
+
+    @Test
+    @DisplayName("재고 분할 모드 재고 감소 테스트")
+    void removeSplitStock() {
+        Item item = saveItem("재고 분할 테스트 상품", 10);
+
+        // 재고 10개를 4개의 bucket 에 3, 3, 2, 2 개로 나누어 담습니다.
+        itemStockService.rebalanceStock(item.getId(), 4);
+        em.flush();
+
+        assertTrue(item.isStockSplit());
+        assertEquals(0, item.getStockNumber());
+        assertEquals(Arrays.asList(3, 3, 2, 2), itemStockBucketRepository.findStockNumbersByItemId(item.getId()));
+        assertEquals(10, itemStockService.getStockNumber(item.getId()));
+
+        // 한 bucket 의 재고보다 많이 주문하면 여러 bucket 에서 나누어 감소시킵니다.
+        itemStockService.removeStock(item, 7);
+        assertEquals(3, itemStockService.getStockNumber(item.getId()));
+
+        // 모든 bucket 의 재고를 더해도 부족하면 예외가 발생합니다.
+        assertThrows(OutOfStockException.class, () -> itemStockService.removeStock(item, 4));
+
+        // 주문 취소로 돌아온 재고는 bucket 에 더해집니다.
+        itemStockService.addStock(item, 2);
+        assertEquals(5, itemStockService.getStockNumber(item.getId()));
+        assertEquals(Collections.singletonMap(item.getId(), 5), itemStockService.getStockNumbers(Collections.singletonList(item)));
+
+        // 관리자 상품 목록 내보내기에도 bucket 의 재고를 더한 수량이 보여야 합니다.
+        StringWriter writer = new StringWriter();
+        ItemSearchDto itemSearchDto = new ItemSearchDto();
+        itemSearchDto.setSearchBy("itemNm");
+        itemSearchDto.setSearchQuery("재고 분할 테스트 상품");
+        try {
+            itemService.writeAdminItemCsv(itemSearchDto, writer);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        assertTrue(writer.toString().contains("," + 5 + ","));
+    }
+
+    @Test
+    @DisplayName("재고 분할 모드 변경 테스트")
+    void rebalanceStock() {
+        Item item = saveItem("재고 다시 나누기 테스트 상품", 9);
+
+        itemStockService.rebalanceStock(item.getId(), 3);
+        em.flush();
+        itemStockService.removeStock(item, 3);
+
+        // 같은 개수로 다시 나누면 한쪽으로 치우친 재고가 고르게 나누어집니다.
+        itemStockService.rebalanceStock(item.getId(), 3);
+        em.flush();
+        assertEquals(Arrays.asList(2, 2, 2), itemStockBucketRepository.findStockNumbersByItemId(item.getId()));
+
+        // bucket 개수를 줄이면 남는 bucket 은 삭제됩니다.
+        itemStockService.rebalanceStock(item.getId(), 2);
+        em.flush();
+        assertEquals(Arrays.asList(3, 3), itemStockBucketRepository.findStockNumbersByItemId(item.getId()));
+
+        // 재고 분할 모드를 해제하면 모든 재고가 상품으로 돌아옵니다.
+        itemStockService.rebalanceStock(item.getId(), 0);
+        em.flush();
+        assertFalse(item.isStockSplit());
+        assertEquals(6, item.getStockNumber());
+        assertTrue(itemStockBucketRepository.findStockNumbersByItemId(item.getId()).isEmpty());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> itemStockService.rebalanceStock(item.getId(), ItemStockService.MAX_BUCKET_COUNT + 1));
+    }
+
+    @Test
+    @DisplayName("재고 분할 상품 장바구니 주문 테스트")
+    void ordersSplitStock() {
+        Item singleItem = saveItem("장바구니 단일 재고 상품", 5);
+        Item splitItem = saveItem("장바구니 분할 재고 상품", 5);
+        Member member = saveMember("split-orders@test.com");
+
+        itemStockService.rebalanceStock(splitItem.getId(), 2);
+        em.flush();
+
+        OrderDto singleOrderDto = new OrderDto();
+        singleOrderDto.setItemId(singleItem.getId());
+        singleOrderDto.setCount(2);
+        OrderDto splitOrderDto = new OrderDto();
+        splitOrderDto.setItemId(splitItem.getId());
+        splitOrderDto.setCount(4);
+
+        orderService.orders(Arrays.asList(singleOrderDto, splitOrderDto), member.getId());
+        em.clear();
+
+        assertEquals(3, itemStockService.getStockNumber(singleItem.getId()));
+        assertEquals(1, itemStockService.getStockNumber(splitItem.getId()));
+    }
+
+    @Test
+    @DisplayName("재고 분할 상품 주문 후 상품 상세 수정 시간 변경 테스트")
+    void splitStockOrderChangesItemDtlLastModified() throws Exception {
+        Item item = saveItem("상세 수정 시간 분할 재고 상품", 10);
+        Member member = saveMember("split-last-modified@test.com");
+
+        itemStockService.rebalanceStock(item.getId(), 4);
+        em.flush();
+        LocalDateTime lastModified = itemService.getItemDtlLastModified(item.getId());
+
+        // 재고 분할 모드에서는 주문으로 bucket 의 재고만 변경되고 item 행은 변경되지 않습니다.
+        Thread.sleep(10);
+        OrderDto orderDto = new OrderDto();
+        orderDto.setItemId(item.getId());
+        orderDto.setCount(1);
+        orderService.order(orderDto, member.getId());
+        em.flush();
+        em.clear();
+
+        // 그래도 상품 상세 페이지의 수정 시간은 바뀌어야 ETag, Last-Modified 로 304 응답을 보내지 않습니다.
+        LocalDateTime orderedLastModified = itemService.getItemDtlLastModified(item.getId());
+        assertTrue(orderedLastModified.isAfter(lastModified));
+
+        // 주문 취소로 재고가 돌아와도 수정 시간이 바뀌어야 합니다.
+        Thread.sleep(10);
+        itemStockService.addStock(itemRepository.findById(item.getId()).orElseThrow(), 1);
+        assertTrue(itemService.getItemDtlLastModified(item.getId()).isAfter(orderedLastModified));
+    }
+
+    @Test
+    @DisplayName("단일 재고 행과 분할 재고 행의 동시 주문 처리량 비교")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void orderThroughput() throws Exception {
+        Member member = saveMember("split-stock@test.com");
+
+        Item singleItem = saveItem("단일 재고 벤치마크 상품", 1000);
+        Item splitItem = saveItem("분할 재고 벤치마크 상품", 1000);
+        itemStockService.rebalanceStock(splitItem.getId(), 16);
+
+        long singleElapsed = orderConcurrently(singleItem.getId(), member.getId());
+        long splitElapsed = orderConcurrently(splitItem.getId(), member.getId());
+
+        // 어느 모드이든 재고보다 많이 팔리지 않아야 합니다.
+        assertEquals(0, itemStockService.getStockNumber(singleItem.getId()));
+        assertEquals(0, itemStockService.getStockNumber(splitItem.getId()));
+
+        // 메모리 데이터베이스에서는 커밋 비용이 작아서 차이가 작게 나오므로 처리량은 비교 결과로만 출력합니다.
+        System.out.println("single row: " + singleElapsed + "ms, split rows: " + splitElapsed + "ms");
+    }
+
+    // 16개의 스레드가 재고가 바닥날 때까지 1개씩 주문하고 걸린 시간을 반환합니다.
+    private long orderConcurrently(Long itemId, Long memberId) throws InterruptedException {
+        int threadCount = 16;
+        AtomicInteger orderCount = new AtomicInteger();
+        AtomicInteger outOfStockCount = new AtomicInteger();
+
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch doneLatch = new CountDownLatch(threadCount);
+
+        for (int i = 0; i < threadCount; i++) {
+            executorService.submit(() -> {
+                try {
+                    startLatch.await();
+                    OrderDto orderDto = new OrderDto();
+                    orderDto.setItemId(itemId);
+                    orderDto.setCount(1);
+                    while (true) {
+                        try {
+                            orderService.order(orderDto, memberId);
+                            orderCount.incrementAndGet();
+                        } catch (OutOfStockException e) {
+                            outOfStockCount.incrementAndGet();
+                            break;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    doneLatch.countDown();
+                }
+            });
+        }
+
+        long startTime = System.nanoTime();
+        startLatch.countDown();
+        doneLatch.await(60, TimeUnit.SECONDS);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        executorService.shutdown();
+
+        assertEquals(1000, orderCount.get());
+        assertEquals(threadCount, outOfStockCount.get());
+        return elapsed;
+    }
+}
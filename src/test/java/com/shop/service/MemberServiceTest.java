@@ -1,18 +1,26 @@
 package com.shop.service;
 
+import com.shop.config.MemberUserDetails;
 import com.shop.dto.MemberFormDto;
 import com.shop.entity.Member;
+import com.shop.repository.MemberRepository;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.TestPropertySource;
 
 import javax.transaction.Transactional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
 @Transactional
@@ -28,6 +36,15 @@ class MemberServiceTest {
     @Autowired
     PasswordEncoder passwordEncoder;
 
+    @Autowired
+    MemberEmailFilterService memberEmailFilterService;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    MemberRepository memberRepository;
+
     // 회원 정보를 입력한 Member 엔티티를 만드는 메소드를 작성합니다.
     public Member createMember() {
         MemberFormDto memberFormDto = new MemberFormDto();
@@ -71,4 +88,70 @@ class MemberServiceTest {
         assertEquals("이미 가입된 회원입니다.", e.getMessage());
     }
 
+    @Test
+    @DisplayName("유니크 제약 조건으로 중복 회원 가입 방지 테스트")
+    public void saveDuplicateMemberByConstraintTest() {
+        // 블룸 필터를 거치지 않고 저장된 회원이 있으면 중복 회원 조회를 건너뛰고 insert 쿼리를 실행합니다.
+        Member member = createMember();
+        member.setEmail("unique-constraint@email.com");
+        memberRepository.saveAndFlush(member);
+
+        Member duplicateMember = createMember();
+        duplicateMember.setEmail("unique-constraint@email.com");
+        Throwable e = assertThrows(IllegalStateException.class, () -> memberService.saveMember(duplicateMember));
+        assertEquals("이미 가입된 회원입니다.", e.getMessage());
+    }
+
+    @Test
+    @DisplayName("이메일 중복이 아닌 제약 조건 위반 예외 테스트")
+    public void saveMemberOtherViolationTest() {
+        // 이메일 유니크 제약 조건이 아닌 다른 위반(컬럼 길이 초과)은 중복 회원 예외로 바꾸지 않습니다.
+        Member member = createMember();
+        member.setEmail("too-long-name@email.com");
+        member.setName("가".repeat(300));
+
+        assertThrows(DataIntegrityViolationException.class, () -> memberService.saveMember(member));
+    }
+
+    @Test
+    @DisplayName("로그인 회원 정보에 회원 아이디 저장 테스트")
+    public void loadUserByUsernameTest() {
+        Member savedMember = memberService.saveMember(createMember());
+
+        // 로그인할 때 만들어지는 UserDetails 에 회원 아이디와 role 이 담겨 있어야 합니다.
+        UserDetails userDetails = memberService.loadUserByUsername(savedMember.getEmail());
+        MemberUserDetails memberUserDetails = assertInstanceOf(MemberUserDetails.class, userDetails);
+
+        assertEquals(savedMember.getId(), memberUserDetails.getMemberId());
+        assertEquals(savedMember.getRole(), memberUserDetails.getRole());
+        assertEquals(savedMember.getEmail(), memberUserDetails.getUsername());
+        assertTrue(memberUserDetails.getAuthorities().stream()
+                .anyMatch(authority -> authority.getAuthority().equals("ROLE_" + savedMember.getRole())));
+    }
+
+    double memberEmailFilterCount(String result) {
+        return meterRegistry.get("member.email.filter").tag("result", result).counter().count();
+    }
+
+    @Test
+    @DisplayName("회원 이메일 블룸 필터로 중복 회원 조회 생략 테스트")
+    public void memberEmailFilterTest() {
+        Member member = createMember();
+        member.setEmail("bloom-filter@email.com");
+
+        // 가입된 적이 없는 이메일은 회원을 조회하지 않고 가입합니다.
+        assertFalse(memberEmailFilterService.mightContain(member.getEmail()));
+        double negativeCount = memberEmailFilterCount("negative");
+        memberService.saveMember(member);
+        assertEquals(negativeCount + 1, memberEmailFilterCount("negative"));
+
+        // 가입한 이메일은 블룸 필터에 추가되므로 같은 이메일로 가입하면 회원을 조회하여 중복 가입을 막습니다.
+        assertTrue(memberEmailFilterService.mightContain("Bloom-Filter@email.com"));
+        double truePositiveCount = memberEmailFilterCount("true_positive");
+        Member duplicateMember = createMember();
+        duplicateMember.setEmail("bloom-filter@email.com");
+        assertThrows(IllegalStateException.class, () -> memberService.saveMember(duplicateMember));
+        assertEquals(truePositiveCount + 1, memberEmailFilterCount("true_positive"));
+    }
+
 }
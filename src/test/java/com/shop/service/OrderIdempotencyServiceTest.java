@@ -0,0 +1,174 @@
+package com.shop.service;
+
+import com.shop.constant.ItemSellStatus;
+import com.shop.dto.OrderDto;
+import com.shop.entity.Item;
+import com.shop.entity.Member;
+import com.shop.exception.DuplicateOrderException;
+import com.shop.exception.IdempotencyKeyReusedException;
+import com.shop.exception.OutOfStockException;
+import com.shop.repository.ItemRepository;
+import com.shop.repository.MemberRepository;
+import com.shop.repository.OrderIdempotencyKeyRepository;
+import com.shop.repository.OrderRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@TestPropertySource(locations="classpath:application-test.properties")
+// 키와 주문은 서비스의 트랜잭션으로 커밋되어야 하므로 테스트 트랜잭션을 사용하지 않습니다.
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderIdempotencyServiceTest {
+
+    @Autowired
+    OrderIdempotencyService orderIdempotencyService;
+
+    @Autowired
+    OrderService orderService;
+
+    @Autowired
+    ItemStockService itemStockService;
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    Item saveItem(int stockNumber) {
+        Item item = new Item();
+        item.setItemNm("중복 주문 테스트 상품");
+        item.setPrice(10000);
+        item.setItemDetail("중복 주문 테스트 상품 상세 설명");
+        item.setItemSellStatus(ItemSellStatus.SELL);
+        item.setStockNumber(stockNumber);
+        return itemRepository.save(item);
+    }
+
+    Member saveMember(String email) {
+        Member member = new Member();
+        member.setEmail(email);
+        return memberRepository.save(member);
+    }
+
+    OrderDto createOrderDto(Item item, int count) {
+        OrderDto orderDto = new OrderDto();
+        orderDto.setItemId(item.getId());
+        orderDto.setCount(count);
+        return orderDto;
+    }
+
+    @Test
+    @DisplayName("같은 Idempotency-Key 로 다시 주문 테스트")
+    void orderWithSameKey() {
+        Item item = saveItem(10);
+        Member member = saveMember("idempotency@test.com");
+        OrderDto orderDto = createOrderDto(item, 3);
+        String requestHash = orderIdempotencyService.hashRequest(orderDto);
+
+        assertNull(orderIdempotencyService.findOrderId(member.getId(), "order-key-1", requestHash));
+        Long orderId = orderIdempotencyService.order(member.getId(), "order-key-1", requestHash,
+                () -> orderService.order(orderDto, member.getId()));
+
+        // 처리된 키로 다시 조회하면 처음 만들어진 주문 번호를 돌려줍니다.
+        assertEquals(orderId, orderIdempotencyService.findOrderId(member.getId(), "order-key-1", requestHash));
+
+        // 조회 전에 동시에 들어온 요청처럼 같은 키로 주문을 다시 실행해도 주문이 만들어지지 않습니다.
+        DuplicateOrderException exception = assertThrows(DuplicateOrderException.class,
+                () -> orderIdempotencyService.order(member.getId(), "order-key-1", requestHash,
+                        () -> orderService.order(orderDto, member.getId())));
+        assertEquals(orderId, exception.getOrderId());
+
+        assertEquals(7, itemStockService.getStockNumber(item.getId()));
+        assertEquals(1L, orderRepository.countOrders(member.getId()));
+
+        // 키는 회원마다 따로 관리됩니다.
+        assertNull(orderIdempotencyService.findOrderId(member.getId() + 1, "order-key-1", requestHash));
+    }
+
+    @Test
+    @DisplayName("주문 실패 후 같은 Idempotency-Key 로 다시 주문 테스트")
+    void retryAfterFailure() {
+        Item item = saveItem(1);
+        Member member = saveMember("idempotency-retry@test.com");
+        OrderDto orderDto = createOrderDto(item, 2);
+        String requestHash = orderIdempotencyService.hashRequest(orderDto);
+
+        // 주문에 실패하면 키도 함께 롤백됩니다.
+        assertThrows(OutOfStockException.class, () -> orderIdempotencyService.order(member.getId(), "order-key-2", requestHash,
+                () -> orderService.order(orderDto, member.getId())));
+        assertNull(orderIdempotencyService.findOrderId(member.getId(), "order-key-2", requestHash));
+
+        // 재고가 채워진 뒤 같은 키로 다시 주문할 수 있습니다.
+        itemStockService.addStock(item, 1);
+        Long orderId = orderIdempotencyService.order(member.getId(), "order-key-2", requestHash,
+                () -> orderService.order(orderDto, member.getId()));
+        assertEquals(orderId, orderIdempotencyService.findOrderId(member.getId(), "order-key-2", requestHash));
+        assertEquals(0, itemStockService.getStockNumber(item.getId()));
+    }
+
+    @Test
+    @DisplayName("같은 Idempotency-Key 로 다른 주문 요청 테스트")
+    void reuseKeyWithDifferentRequest() {
+        Item item = saveItem(10);
+        Member member = saveMember("idempotency-reuse@test.com");
+        OrderDto orderDto = createOrderDto(item, 1);
+        OrderDto otherOrderDto = createOrderDto(item, 2);
+        String requestHash = orderIdempotencyService.hashRequest(orderDto);
+        String otherRequestHash = orderIdempotencyService.hashRequest(otherOrderDto);
+
+        // 요청 내용이 같으면 해시도 같습니다.
+        assertEquals(requestHash, orderIdempotencyService.hashRequest(createOrderDto(item, 1)));
+
+        orderIdempotencyService.order(member.getId(), "order-key-3", requestHash,
+                () -> orderService.order(orderDto, member.getId()));
+
+        // 같은 키로 다른 수량을 주문하면 처음 주문 번호를 돌려주지 않고 거절합니다.
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> orderIdempotencyService.findOrderId(member.getId(), "order-key-3", otherRequestHash));
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> orderIdempotencyService.order(member.getId(), "order-key-3", otherRequestHash,
+                        () -> orderService.order(otherOrderDto, member.getId())));
+        assertEquals(9, itemStockService.getStockNumber(item.getId()));
+    }
+
+    @Autowired
+    OrderIdempotencyKeyRepository orderIdempotencyKeyRepository;
+
+    @Test
+    @DisplayName("보관 시간이 지난 Idempotency-Key 삭제 테스트")
+    void purgeExpiredKeys() throws InterruptedException {
+        Item item = saveItem(10);
+        Member member = saveMember("idempotency-purge@test.com");
+        OrderDto orderDto = createOrderDto(item, 1);
+        String requestHash = orderIdempotencyService.hashRequest(orderDto);
+
+        orderIdempotencyService.order(member.getId(), "order-key-4", requestHash,
+                () -> orderService.order(orderDto, member.getId()));
+        Thread.sleep(50);
+        LocalDateTime expiredBefore = LocalDateTime.now();
+        Thread.sleep(50);
+        orderIdempotencyService.order(member.getId(), "order-key-5", requestHash,
+                () -> orderService.order(orderDto, member.getId()));
+
+        // 기준 시각보다 먼저 등록된 키만 삭제됩니다.
+        assertTrue(orderIdempotencyService.purgeExpiredKeys(expiredBefore) >= 1);
+        assertTrue(orderIdempotencyKeyRepository.findOrderIdAndRequestHash(member.getId(), "order-key-4").isEmpty());
+        assertEquals(1, orderIdempotencyKeyRepository.findOrderIdAndRequestHash(member.getId(), "order-key-5").size());
+    }
+}
@@ -0,0 +1,199 @@
+package com.shop.service;
+
+import com.shop.constant.ItemSellStatus;
+import com.shop.constant.OrderIntakeStatus;
+import com.shop.dto.OrderDto;
+import com.shop.dto.OrderIntakeResultDto;
+import com.shop.entity.Item;
+import com.shop.entity.Member;
+import com.shop.exception.DuplicateOrderException;
+import com.shop.exception.IdempotencyKeyReusedException;
+import com.shop.repository.ItemRepository;
+import com.shop.repository.MemberRepository;
+import com.shop.repository.OrderRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityNotFoundException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@TestPropertySource(locations="classpath:application-test.properties", properties = "orderIntakeMode=queue")
+// 주문은 대기열 작업 스레드의 트랜잭션으로 처리되므로 테스트 트랜잭션을 사용하지 않습니다.
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderIntakeServiceTest {
+
+    @Autowired
+    OrderIntakeService orderIntakeService;
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    @Autowired
+    OrderIdempotencyService orderIdempotencyService;
+
+    @Test
+    @DisplayName("주문 접수 대기열 동시 주문 테스트")
+    void submitConcurrently() throws Exception {
+        // 재고가 200개인 상품에 20개의 스레드가 1개씩 15번 주문을 접수합니다.
+        Item item = new Item();
+        item.setItemNm("대기열 주문 테스트 상품");
+        item.setPrice(10000);
+        item.setItemDetail("대기열 주문 테스트 상품 상세 설명");
+        item.setItemSellStatus(ItemSellStatus.SELL);
+        item.setStockNumber(200);
+        itemRepository.save(item);
+
+        Member member = new Member();
+        member.setEmail("order-intake@test.com");
+        memberRepository.save(member);
+
+        int threadCount = 20;
+        int orderCountPerThread = 15;
+
+        List<OrderIntakeResultDto> submitResults = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch doneLatch = new CountDownLatch(threadCount);
+
+        for (int i = 0; i < threadCount; i++) {
+            executorService.submit(() -> {
+                try {
+                    startLatch.await();
+                    for (int j = 0; j < orderCountPerThread; j++) {
+                        OrderDto orderDto = new OrderDto();
+                        orderDto.setCount(1);
+                        orderDto.setItemId(item.getId());
+                        submitResults.add(orderIntakeService.submit(orderDto, member.getId()));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    doneLatch.countDown();
+                }
+            });
+        }
+
+        long startTime = System.nanoTime();
+        startLatch.countDown();
+        doneLatch.await(60, TimeUnit.SECONDS);
+        executorService.shutdown();
+
+        // 접수한 모든 주문의 처리가 끝날 때까지 기다립니다.
+        int completedCount = 0;
+        int failedCount = 0;
+        for (OrderIntakeResultDto submitResult : submitResults) {
+            assertEquals(OrderIntakeStatus.PENDING, submitResult.getStatus());
+
+            CompletableFuture<OrderIntakeResultDto> future = orderIntakeService.getResultFuture(submitResult.getToken(), member.getId());
+            OrderIntakeResultDto result = future.get(30, TimeUnit.SECONDS);
+            if (result.getStatus() == OrderIntakeStatus.COMPLETED) {
+                completedCount++;
+                assertTrue(orderRepository.existsById(result.getOrderId()));
+            } else {
+                failedCount++;
+            }
+        }
+        System.out.println("orders: " + submitResults.size() + ", elapsed: "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) + "ms");
+
+        // 재고보다 많이 팔리지 않고, 재고가 음수가 되지 않아야 합니다.
+        Item savedItem = itemRepository.findById(item.getId()).orElseThrow(EntityNotFoundException::new);
+        assertEquals(threadCount * orderCountPerThread, submitResults.size());
+        assertEquals(200, completedCount);
+        assertEquals(threadCount * orderCountPerThread - 200, failedCount);
+        assertEquals(0, savedItem.getStockNumber());
+        assertEquals(200L, orderRepository.countOrders(member.getId()));
+
+        // 다른 회원은 접수한 주문의 결과를 조회할 수 없습니다.
+        assertNull(orderIntakeService.getResult(submitResults.get(0).getToken(), member.getId() + 1));
+    }
+
+    @Test
+    @DisplayName("주문 접수 대기열 Idempotency-Key 테스트")
+    void submitWithIdempotencyKey() throws Exception {
+        Item item = new Item();
+        item.setItemNm("대기열 Idempotency-Key 테스트 상품");
+        item.setPrice(10000);
+        item.setItemDetail("대기열 Idempotency-Key 테스트 상품 상세 설명");
+        item.setItemSellStatus(ItemSellStatus.SELL);
+        item.setStockNumber(10);
+        itemRepository.save(item);
+
+        Member member = new Member();
+        member.setEmail("order-intake-idempotency@test.com");
+        memberRepository.save(member);
+
+        try {
+            OrderDto orderDto = new OrderDto();
+            orderDto.setCount(1);
+            orderDto.setItemId(item.getId());
+            String requestHash = orderIdempotencyService.hashRequest(orderDto);
+
+            OrderIntakeResultDto submitResult = orderIntakeService.submit(orderDto, member.getId(), "intake-key-1", requestHash);
+            OrderIntakeResultDto result = orderIntakeService.getResultFuture(submitResult.getToken(), member.getId()).get(30, TimeUnit.SECONDS);
+            assertEquals(OrderIntakeStatus.COMPLETED, result.getStatus());
+
+            // 같은 키로 다시 요청하면 주문을 다시 접수하지 않고 처음 받은 token 과 처리 결과를 돌려줍니다.
+            OrderIntakeResultDto savedResult = orderIntakeService.findResult(member.getId(), "intake-key-1", requestHash);
+            assertEquals(submitResult.getToken(), savedResult.getToken());
+            assertEquals(result.getOrderId(), savedResult.getOrderId());
+
+            DuplicateOrderException duplicateOrderException = assertThrows(DuplicateOrderException.class,
+                    () -> orderIntakeService.submit(orderDto, member.getId(), "intake-key-1", requestHash));
+            assertEquals(submitResult.getToken(), duplicateOrderException.getIntakeResult().getToken());
+            assertEquals(1L, orderRepository.countOrders(member.getId()));
+
+            // 같은 키로 다른 주문을 요청하면 거절합니다.
+            OrderDto otherOrderDto = new OrderDto();
+            otherOrderDto.setCount(2);
+            otherOrderDto.setItemId(item.getId());
+            String otherRequestHash = orderIdempotencyService.hashRequest(otherOrderDto);
+            assertThrows(IdempotencyKeyReusedException.class,
+                    () -> orderIntakeService.findResult(member.getId(), "intake-key-1", otherRequestHash));
+            assertThrows(IdempotencyKeyReusedException.class,
+                    () -> orderIntakeService.submit(otherOrderDto, member.getId(), "intake-key-1", otherRequestHash));
+
+            // 다른 회원의 키와는 구분합니다.
+            assertNull(orderIntakeService.findResult(member.getId() + 1, "intake-key-1", requestHash));
+
+            // 주문에 실패하면 키를 지워서 같은 키로 다시 주문할 수 있습니다.
+            OrderDto outOfStockOrderDto = new OrderDto();
+            outOfStockOrderDto.setCount(100);
+            outOfStockOrderDto.setItemId(item.getId());
+            String outOfStockRequestHash = orderIdempotencyService.hashRequest(outOfStockOrderDto);
+            OrderIntakeResultDto failedSubmitResult = orderIntakeService.submit(outOfStockOrderDto, member.getId(), "intake-key-2", outOfStockRequestHash);
+            OrderIntakeResultDto failedResult = orderIntakeService.getResultFuture(failedSubmitResult.getToken(), member.getId()).get(30, TimeUnit.SECONDS);
+            assertEquals(OrderIntakeStatus.FAILED, failedResult.getStatus());
+            assertNull(orderIntakeService.findResult(member.getId(), "intake-key-2", outOfStockRequestHash));
+        } finally {
+            orderRepository.deleteAll(orderRepository.findOrders(member.getId(), Pageable.unpaged()));
+            itemRepository.delete(item);
+            memberRepository.delete(member);
+        }
+    }
+}
@@ -3,24 +3,46 @@ package com.shop.service;
 import com.shop.constant.ItemSellStatus;
 import com.shop.constant.OrderStatus;
 import com.shop.dto.OrderDto;
+import com.shop.dto.OrderHistDto;
 import com.shop.entity.Item;
+import com.shop.entity.ItemImg;
 import com.shop.entity.Member;
 import com.shop.entity.Order;
 import com.shop.entity.OrderItem;
+import com.shop.exception.OutOfStockException;
+import com.shop.repository.ItemImgRepository;
 import com.shop.repository.ItemRepository;
 import com.shop.repository.MemberRepository;
 import com.shop.repository.OrderRepository;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
 import javax.persistence.EntityNotFoundException;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
 @Transactional
@@ -72,7 +94,7 @@ public class OrderServiceTest {
         orderDto.setItemId(item.getId());
 
         // 주문 로직 호출 결과 생성된 주문 번호를 orderId 변수에 저장합니다.
-        Long orderId = orderService.order(orderDto, member.getEmail());
+        Long orderId = orderService.order(orderDto, member.getId());
 
         // 주문 번호를 이용하여 저장된 주문 정보를 조회합니다.
         Order order = orderRepository.findById(orderId).orElseThrow(EntityNotFoundException::new);
@@ -101,13 +123,18 @@ public class OrderServiceTest {
 
         // 테스트를 위해서 주문 데이터를 생성합니다.
         // 주문 개수는 총 10개입니다.
-        Long orderId = orderService.order(orderDto, member.getEmail());
+        Long orderId = orderService.order(orderDto, member.getId());
 
         // 생성한 주문 엔티티를 조회합니다.
         Order order = orderRepository.findById(orderId).orElseThrow(EntityNotFoundException::new);
 
+        // 재고는 update 쿼리로 데이터베이스에서 직접 변경되므로 상품 엔티티를 다시 읽어서 확인합니다.
+        em.refresh(item);
+        assertEquals(90, item.getStockNumber());
+
         // 해당 주문을 취소합니다.
         orderService.cancelOrder(orderId);
+        em.refresh(item);
 
         // 주문의 상태가 취소 상태라면 테스트가 통과합니다.
         assertEquals(OrderStatus.CANCEL, order.getOrderStatus());
@@ -116,4 +143,292 @@ public class OrderServiceTest {
         assertEquals(100, item.getStockNumber());
     }
 
+    @Autowired
+    ItemImgRepository itemImgRepository;
+
+    @PersistenceContext
+    EntityManager em;
+
+    // 대표 이미지를 가진 상품을 저장하는 메소드입니다.
+    public Item saveItemWithRepImg() {
+        Item item = saveItem();
+        ItemImg itemImg = new ItemImg();
+        itemImg.setItem(item);
+        itemImg.setRepimgYn("Y");
+        itemImg.updateItemImg("image.jpg", "image.jpg", "/images/item/image.jpg");
+        itemImgRepository.save(itemImg);
+        return item;
+    }
+
+    // 구매 이력 페이지를 조회할 때 실행된 쿼리 수를 반환합니다.
+    public long countOrderListQueries(Long memberId, int pageSize) {
+        em.flush();
+        em.clear();
+
+        // 통계 수집 여부는 세션 팩토리 전체에 적용되므로 끝나면 원래 값으로 돌려놓습니다.
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        boolean statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        try {
+            Page<OrderHistDto> orderHistDtos = orderService.getOrderList(memberId, PageRequest.of(0, pageSize));
+            assertEquals(pageSize, orderHistDtos.getContent().size());
+            for (OrderHistDto orderHistDto : orderHistDtos.getContent()) {
+                assertEquals(5, orderHistDto.getOrderItemDtoList().size());
+                assertEquals("/images/item/image.jpg", orderHistDto.getOrderItemDtoList().get(0).getImgUrl());
+            }
+
+            return statistics.getPrepareStatementCount();
+        } finally {
+            statistics.setStatisticsEnabled(statisticsEnabled);
+        }
+    }
+
+    @Test
+    @DisplayName("구매 이력 조회 쿼리 수 테스트")
+    public void getOrderListQueryCount() {
+        Member member = saveMember();
+
+        // 5개의 상품을 담은 주문을 8개 생성합니다.
+        for (int i = 0; i < 8; i++) {
+            List<OrderDto> orderDtoList = new ArrayList<>();
+            for (int j = 0; j < 5; j++) {
+                OrderDto orderDto = new OrderDto();
+                orderDto.setCount(1);
+                orderDto.setItemId(saveItemWithRepImg().getId());
+                orderDtoList.add(orderDto);
+            }
+            orderService.orders(orderDtoList, member.getId());
+        }
+
+        // 페이지 크기가 커져도 구매 이력을 만드는 데 필요한 쿼리 수는 같아야 합니다.
+        long smallPageQueryCount = countOrderListQueries(member.getId(), 2);
+        long largePageQueryCount = countOrderListQueries(member.getId(), 8);
+
+        assertEquals(smallPageQueryCount, largePageQueryCount);
+    }
+
+    // 상품 lineCount 개를 담은 주문을 저장할 때까지 실행된 JDBC statement 수를 반환합니다.
+    // jdbcBatchSize 가 null 이면 설정 파일의 hibernate.jdbc.batch_size 를, 1 이면 batch 없이 한 건씩 실행합니다.
+    public long countOrdersStatements(Member member, int lineCount, Integer jdbcBatchSize) {
+        List<OrderDto> orderDtoList = new ArrayList<>();
+        for (int i = 0; i < lineCount; i++) {
+            OrderDto orderDto = new OrderDto();
+            orderDto.setCount(1);
+            orderDto.setItemId(saveItem().getId());
+            orderDtoList.add(orderDto);
+        }
+        em.flush();
+        em.clear();
+
+        // 통계 수집 여부는 세션 팩토리 전체에 적용되므로 다른 테스트에 영향을 주지 않도록 끝나면 원래 값으로 돌려놓습니다.
+        Session session = em.unwrap(Session.class);
+        Statistics statistics = session.getSessionFactory().getStatistics();
+        boolean statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        session.setJdbcBatchSize(jdbcBatchSize);
+        try {
+            orderService.orders(orderDtoList, member.getId());
+            em.flush();
+            return statistics.getPrepareStatementCount();
+        } finally {
+            session.setJdbcBatchSize(null);
+            statistics.setStatisticsEnabled(statisticsEnabled);
+        }
+    }
+
+    @Test
+    @DisplayName("여러 상품 주문 저장 statement 수 테스트")
+    public void ordersStatementCount() {
+        Member member = saveMember();
+
+        // batch 없이 저장하면 주문 상품이 늘어난 만큼 주문 상품 insert 쿼리도 늘어납니다.
+        long unbatchedOneLineCount = countOrdersStatements(member, 1, 1);
+        long unbatchedTwentyLineCount = countOrdersStatements(member, 20, 1);
+
+        // 주문 상품 아이디는 메모리에서 할당되고 insert, update 쿼리는 batch 로 묶이므로 주문 상품 수와 상관없이 statement 수가 같아야 합니다.
+        long batchedOneLineCount = countOrdersStatements(member, 1, null);
+        long batchedTwentyLineCount = countOrdersStatements(member, 20, null);
+
+        assertEquals(unbatchedOneLineCount, batchedOneLineCount);
+        assertEquals(batchedOneLineCount, batchedTwentyLineCount);
+        assertTrue(unbatchedTwentyLineCount >= unbatchedOneLineCount + 19);
+    }
+
+    @Test
+    @DisplayName("동시 주문 재고 초과 판매 방지 테스트")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    // 여러 스레드가 각자의 트랜잭션으로 주문해야 하므로 테스트 트랜잭션을 사용하지 않습니다.
+    public void concurrentOrder() throws Exception {
+        // 재고가 100개인 상품에 20개의 스레드가 1개씩 10번 주문을 시도합니다.
+        Item item = saveItem();
+        Member member = new Member();
+        member.setEmail("concurrent-order@test.com");
+        memberRepository.save(member);
+
+        // 테스트 트랜잭션을 사용하지 않아 주문, 상품, 회원이 커밋되므로 테스트가 끝나면 삭제합니다.
+        try {
+            int threadCount = 20;
+            int orderCountPerThread = 10;
+
+            AtomicInteger successCount = new AtomicInteger();
+            AtomicInteger outOfStockCount = new AtomicInteger();
+            List<Throwable> unexpectedErrors = Collections.synchronizedList(new ArrayList<>());
+
+            ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+            CountDownLatch startLatch = new CountDownLatch(1);
+            CountDownLatch doneLatch = new CountDownLatch(threadCount);
+
+            for (int i = 0; i < threadCount; i++) {
+                executorService.submit(() -> {
+                    try {
+                        startLatch.await();
+                        for (int j = 0; j < orderCountPerThread; j++) {
+                            OrderDto orderDto = new OrderDto();
+                            orderDto.setCount(1);
+                            orderDto.setItemId(item.getId());
+                            try {
+                                orderService.order(orderDto, member.getId());
+                                successCount.incrementAndGet();
+                            } catch (OutOfStockException e) {
+                                outOfStockCount.incrementAndGet();
+                            }
+                        }
+                    } catch (Throwable e) {
+                        unexpectedErrors.add(e);
+                    } finally {
+                        doneLatch.countDown();
+                    }
+                });
+            }
+
+            startLatch.countDown();
+            doneLatch.await(60, TimeUnit.SECONDS);
+            executorService.shutdown();
+
+            Item savedItem = itemRepository.findById(item.getId()).orElseThrow(EntityNotFoundException::new);
+
+            // 재고보다 많이 팔리지 않고, 재고가 음수가 되지 않아야 합니다.
+            assertTrue(unexpectedErrors.isEmpty(), unexpectedErrors.toString());
+            assertEquals(100, successCount.get());
+            assertEquals(threadCount * orderCountPerThread - 100, outOfStockCount.get());
+            assertEquals(0, savedItem.getStockNumber());
+        } finally {
+            deleteOrdersAndMember(member);
+            itemRepository.delete(item);
+        }
+    }
+
+    @Test
+    @DisplayName("여러 상품 주문 테스트")
+    public void orders() {
+        Member member = saveMember();
+        Item item1 = saveItem();
+        Item item2 = saveItem();
+
+        // 같은 상품을 두 줄로 나눠서 주문해도 재고는 합산한 수량만큼 감소해야 합니다.
+        List<OrderDto> orderDtoList = new ArrayList<>();
+        orderDtoList.add(createOrderDto(item2.getId(), 3));
+        orderDtoList.add(createOrderDto(item1.getId(), 5));
+        orderDtoList.add(createOrderDto(item2.getId(), 2));
+
+        Long orderId = orderService.orders(orderDtoList, member.getId());
+
+        Order order = orderRepository.findById(orderId).orElseThrow(EntityNotFoundException::new);
+        assertEquals(3, order.getOrderItems().size());
+
+        em.refresh(item1);
+        em.refresh(item2);
+        assertEquals(95, item1.getStockNumber());
+        assertEquals(95, item2.getStockNumber());
+    }
+
+    @Test
+    @DisplayName("여러 상품 주문 재고 부족 테스트")
+    public void ordersOutOfStock() {
+        Member member = saveMember();
+        Item item1 = saveItem();
+        Item item2 = saveItem();
+
+        // 두 번째 상품의 재고가 부족하면 첫 번째 상품의 재고도 변경되지 않아야 합니다.
+        List<OrderDto> orderDtoList = new ArrayList<>();
+        orderDtoList.add(createOrderDto(item1.getId(), 10));
+        orderDtoList.add(createOrderDto(item2.getId(), 101));
+
+        assertThrows(OutOfStockException.class, () -> orderService.orders(orderDtoList, member.getId()));
+
+        em.refresh(item1);
+        em.refresh(item2);
+        assertEquals(100, item1.getStockNumber());
+        assertEquals(100, item2.getStockNumber());
+    }
+
+    @Test
+    @DisplayName("여러 상품 동시 주문 테스트")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void concurrentOrders() throws Exception {
+        Item item1 = saveItem();
+        Item item2 = saveItem();
+        Member member = new Member();
+        member.setEmail("concurrent-orders@test.com");
+        memberRepository.save(member);
+
+        // 테스트 트랜잭션을 사용하지 않아 주문, 상품, 회원이 커밋되므로 테스트가 끝나면 삭제합니다.
+        try {
+            // 절반의 스레드는 상품1 -> 상품2 순서로, 나머지는 상품2 -> 상품1 순서로 주문합니다.
+            // 재고를 상품 아이디 순서대로 변경하므로 교착 상태 없이 모든 주문이 처리되어야 합니다.
+            int threadCount = 10;
+            List<Throwable> unexpectedErrors = Collections.synchronizedList(new ArrayList<>());
+            ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+            CountDownLatch startLatch = new CountDownLatch(1);
+            CountDownLatch doneLatch = new CountDownLatch(threadCount);
+
+            for (int i = 0; i < threadCount; i++) {
+                boolean reverse = i % 2 == 1;
+                executorService.submit(() -> {
+                    try {
+                        startLatch.await();
+                        for (int j = 0; j < 5; j++) {
+                            List<OrderDto> orderDtoList = new ArrayList<>();
+                            orderDtoList.add(createOrderDto(reverse ? item2.getId() : item1.getId(), 1));
+                            orderDtoList.add(createOrderDto(reverse ? item1.getId() : item2.getId(), 1));
+                            orderService.orders(orderDtoList, member.getId());
+                        }
+                    } catch (Throwable e) {
+                        unexpectedErrors.add(e);
+                    } finally {
+                        doneLatch.countDown();
+                    }
+                });
+            }
+
+            startLatch.countDown();
+            doneLatch.await(60, TimeUnit.SECONDS);
+            executorService.shutdown();
+
+            assertTrue(unexpectedErrors.isEmpty(), unexpectedErrors.toString());
+            assertEquals(50, itemRepository.findById(item1.getId()).orElseThrow(EntityNotFoundException::new).getStockNumber());
+            assertEquals(50, itemRepository.findById(item2.getId()).orElseThrow(EntityNotFoundException::new).getStockNumber());
+        } finally {
+            deleteOrdersAndMember(member);
+            itemRepository.deleteAll(List.of(item1, item2));
+        }
+    }
+
+    // 테스트 트랜잭션 없이 커밋한 회원의 주문(주문 상품 포함)과 회원을 삭제합니다.
+    private void deleteOrdersAndMember(Member member) {
+        orderRepository.deleteAll(orderRepository.findOrders(member.getId(), Pageable.unpaged()));
+        memberRepository.delete(member);
+    }
+
+    public OrderDto createOrderDto(Long itemId, int count) {
+        OrderDto orderDto = new OrderDto();
+        orderDto.setItemId(itemId);
+        orderDto.setCount(count);
+        return orderDto;
+    }
+
 }
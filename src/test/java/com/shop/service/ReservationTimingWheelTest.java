@@ -0,0 +1,72 @@
+package com.shop.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class ReservationTimingWheelTest {
+
+    @Test
+    @DisplayName("타이밍 휠 만료 순서 테스트")
+    void advance() {
+        ReservationTimingWheel timingWheel = new ReservationTimingWheel(100, 10, 0);
+
+        timingWheel.add(1, 250);
+        timingWheel.add(2, 300);
+        timingWheel.add(3, 301);
+        // 이미 지난 만료 시각은 다음 tick 에 꺼내집니다.
+        timingWheel.add(4, 0);
+        assertEquals(4, timingWheel.size());
+
+        assertArrayEquals(new long[]{4}, timingWheel.advance(199));
+        assertArrayEquals(new long[0], timingWheel.advance(299));
+        assertArrayEquals(new long[]{1, 2}, timingWheel.advance(300));
+        assertArrayEquals(new long[]{3}, timingWheel.advance(400));
+
+        // 휠 한 바퀴보다 먼 만료 시각은 마지막 칸에 들어가서 한 바퀴 안에 꺼내집니다.
+        timingWheel.add(5, 100_000);
+        assertArrayEquals(new long[0], timingWheel.advance(1300));
+        assertArrayEquals(new long[]{5}, timingWheel.advance(1400));
+        assertEquals(0, timingWheel.size());
+    }
+
+    @Test
+    @DisplayName("타이밍 휠 예약 100만 건 만료 테스트")
+    void advanceMillionReservations() {
+        // 1초 간격으로 15분 동안의 예약을 담는 휠에 100만 건의 예약을 임의의 만료 시각으로 추가합니다.
+        int reservationCount = 1_000_000;
+        long tickMillis = 1000;
+        long ttlMillis = 15 * 60 * 1000;
+        ReservationTimingWheel timingWheel = new ReservationTimingWheel(tickMillis, (int) (ttlMillis / tickMillis) + 2, 0);
+
+        SplittableRandom random = new SplittableRandom(42);
+        long[] deadlines = new long[reservationCount];
+        for (int id = 0; id < reservationCount; id++) {
+            deadlines[id] = 1 + random.nextLong(ttlMillis);
+            timingWheel.add(id, deadlines[id]);
+        }
+        assertEquals(reservationCount, timingWheel.size());
+
+        // 10초씩 시간을 흘려보내면서, 꺼낸 예약은 만료 시각이 지났고 두 번 꺼내지지 않아야 합니다.
+        BitSet expiredIds = new BitSet(reservationCount);
+        for (long now = 0; now <= ttlMillis + tickMillis; now += 10 * tickMillis) {
+            for (long id : timingWheel.advance(now)) {
+                assertFalse(expiredIds.get((int) id));
+                assertEquals(true, deadlines[(int) id] <= now);
+                expiredIds.set((int) id);
+            }
+        }
+        for (long id : timingWheel.advance(ttlMillis + 20 * tickMillis)) {
+            expiredIds.set((int) id);
+        }
+
+        assertEquals(reservationCount, expiredIds.cardinality());
+        assertEquals(0, timingWheel.size());
+    }
+}